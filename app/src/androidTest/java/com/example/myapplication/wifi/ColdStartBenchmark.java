@@ -0,0 +1,70 @@
+package com.example.myapplication.wifi;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 启动阶段测试：启动MainActivity，等待第一次显示数据，检查StartupTrace中各阶段的先后和间隔
+ * Provider在进程启动时只记录时间，不初始化数据库和WiFi；Activity先显示第一帧，之后才开始初始化，
+ * 共享的历史数据库也在第一帧之后才第一次打开。
+ * 测试进程中进程启动到Activity之间还有测试框架自身的开销，因此只检查与之无关的间隔；
+ * 真正的冷启动用 adb shell am start -S -W 启动，再从/metrics URI读取startup.*_ms。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ColdStartBenchmark {
+
+    private static final String TAG = "ColdStartBenchmark";
+    private static final long PROVIDER_INIT_BUDGET_MS = 1000;  // 进程启动到Provider初始化完成
+    private static final long FIRST_FRAME_BUDGET_MS = 500;     // onCreate完成到第一帧
+    private static final long FIRST_DATA_TIMEOUT_MS = 10_000;
+
+    @Test
+    public void firstFrameBeforeDataWork() throws Exception {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        Context context = instrumentation.getTargetContext();
+        instrumentation.getUiAutomation()
+                .grantRuntimePermission(context.getPackageName(), Manifest.permission.ACCESS_FINE_LOCATION);
+
+        Intent intent = new Intent(context, MainActivity.class).addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        Activity activity = instrumentation.startActivitySync(intent);
+        try {
+            long firstData = StartupTrace.awaitMark(StartupTrace.FIRST_DATA, FIRST_DATA_TIMEOUT_MS);
+            Map<String, Long> marks = StartupTrace.snapshot();
+            Log.i(TAG, "Startup phases (ms since process start): " + marks);
+            assertTrue("No data shown within " + FIRST_DATA_TIMEOUT_MS + "ms: " + marks, firstData >= 0);
+
+            long providerInit = StartupTrace.get(StartupTrace.PROVIDER_INIT);
+            long activityCreate = StartupTrace.get(StartupTrace.ACTIVITY_CREATE);
+            long firstFrame = StartupTrace.get(StartupTrace.FIRST_FRAME);
+            long deferredInit = StartupTrace.get(StartupTrace.DEFERRED_INIT);
+            long dbOpen = StartupTrace.awaitMark(StartupTrace.DB_OPEN, FIRST_DATA_TIMEOUT_MS); // 在I/O线程打开，可能晚于第一次显示数据
+
+            assertTrue("Provider not initialized at process start: " + marks,
+                    providerInit >= 0 && providerInit <= PROVIDER_INIT_BUDGET_MS);
+            assertTrue("Provider must initialize before the activity: " + marks, providerInit <= activityCreate);
+            assertTrue("First frame too slow: " + marks,
+                    firstFrame >= activityCreate && firstFrame - activityCreate <= FIRST_FRAME_BUDGET_MS);
+            assertTrue("WiFi and database work must start after the first frame: " + marks,
+                    deferredInit >= firstFrame);
+            assertTrue("Database not opened within " + FIRST_DATA_TIMEOUT_MS + "ms: " + marks, dbOpen >= 0);
+            assertTrue("Database opened before the first frame: " + marks, dbOpen >= firstFrame);
+            assertTrue("Data shown before initialization: " + marks, firstData >= deferredInit);
+        } finally {
+            activity.finish();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.myapplication.wifi;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 历史数据库结构基准测试：比较版本1结构与版本2结构（SSID字典 + 覆盖索引）
+ * 在合成的大表上的查询耗时和文件大小。
+ * 行数默认一百万，可通过 -e historyRows N 调整。
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistorySchemaBenchmark {
+
+    private static final String TAG = "HistorySchemaBenchmark";
+    private static final int DEFAULT_ROWS = 1_000_000;
+    private static final int SSID_COUNT = 500;
+    private static final int PAGE_SIZE = 50;
+    private static final int ITERATIONS = 25;
+
+    private Context context;
+    private int rows;
+    private File v1File;
+    private File v1IndexedFile;
+    private File v2File;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Bundle args = InstrumentationRegistry.getArguments();
+        rows = Integer.parseInt(args.getString("historyRows", Integer.toString(DEFAULT_ROWS)));
+        v1File = context.getDatabasePath("bench_history_v1.db");
+        v1IndexedFile = context.getDatabasePath("bench_history_v1_indexed.db");
+        v2File = context.getDatabasePath("bench_history_v2.db");
+        deleteAll();
+        v1File.getParentFile().mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        deleteAll();
+    }
+
+    @Test
+    public void compareSchemas() throws IOException {
+        // 版本1：原始结构，无索引
+        SQLiteDatabase v1 = SQLiteDatabase.openOrCreateDatabase(v1File, null);
+        HistoryMigrations.createVersion1(v1);
+        fillVersion1(v1);
+        v1.execSQL("VACUUM");
+        v1.close();
+
+        // 版本1加上与版本2等价的索引（SSID仍为文本），用于单独比较字典化带来的体积变化
+        copy(v1File, v1IndexedFile);
+        SQLiteDatabase v1Indexed = SQLiteDatabase.openDatabase(v1IndexedFile.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        v1Indexed.execSQL("CREATE INDEX idx_v1_time ON " + WiFiHistoryDatabaseHelper.TABLE_NAME +
+                " (connect_time, _id, ssid, ip_address)");
+        v1Indexed.execSQL("CREATE INDEX idx_v1_ssid_time ON " + WiFiHistoryDatabaseHelper.TABLE_NAME +
+                " (ssid, connect_time, _id)");
+        v1Indexed.execSQL("VACUUM");
+
+        // 版本2：对版本1数据执行迁移
+        copy(v1File, v2File);
+        SQLiteDatabase v2 = SQLiteDatabase.openDatabase(v2File.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        long migrateStart = SystemClock.elapsedRealtime();
+        v2.beginTransaction();
+        try {
+            HistoryMigrations.migrate(v2, 1, 2);
+            v2.setTransactionSuccessful();
+        } finally {
+            v2.endTransaction();
+        }
+        long migrateMs = SystemClock.elapsedRealtime() - migrateStart;
+        v2.execSQL("VACUUM");
+        assertEquals(rows, count(v2, WiFiHistoryDatabaseHelper.VIEW_HISTORY));
+
+        v1 = SQLiteDatabase.openDatabase(v1File.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        String ssid = "Office-Floor-" + 7 + "-Corp-5G";
+
+        String v1Page = "SELECT _id, ssid, ip_address, connect_time FROM wifi_history" +
+                " ORDER BY connect_time DESC, _id DESC LIMIT " + PAGE_SIZE;
+        String v1Ssid = "SELECT _id, ssid, ip_address, connect_time FROM wifi_history" +
+                " WHERE ssid = ? ORDER BY connect_time DESC, _id DESC LIMIT " + PAGE_SIZE;
+        String v2Page = "SELECT _id, ssid, ip_address, connect_time FROM " + WiFiHistoryDatabaseHelper.VIEW_HISTORY +
+                " ORDER BY connect_time DESC, _id DESC LIMIT " + PAGE_SIZE;
+        String v2Ssid = "SELECT _id, ssid, ip_address, connect_time FROM " + WiFiHistoryDatabaseHelper.VIEW_HISTORY +
+                " WHERE ssid_id = (SELECT _id FROM ssid_dict WHERE ssid = ?) ORDER BY connect_time DESC, _id DESC LIMIT " + PAGE_SIZE;
+
+        double v1PageMs = medianMs(v1, v1Page, null);
+        double v1SsidMs = medianMs(v1, v1Ssid, new String[]{ssid});
+        double v1IdxPageMs = medianMs(v1Indexed, v1Page, null);
+        double v1IdxSsidMs = medianMs(v1Indexed, v1Ssid, new String[]{ssid});
+        double v2PageMs = medianMs(v2, v2Page, null);
+        double v2SsidMs = medianMs(v2, v2Ssid, new String[]{ssid});
+        v1.close();
+        v1Indexed.close();
+        v2.close();
+
+        Log.i(TAG, "rows=" + rows + ", migration=" + migrateMs + "ms");
+        Log.i(TAG, String.format("v1          size=%,d bytes, page=%.3fms, ssid=%.3fms", v1File.length(), v1PageMs, v1SsidMs));
+        Log.i(TAG, String.format("v1+indexes  size=%,d bytes, page=%.3fms, ssid=%.3fms", v1IndexedFile.length(), v1IdxPageMs, v1IdxSsidMs));
+        Log.i(TAG, String.format("v2          size=%,d bytes, page=%.3fms, ssid=%.3fms", v2File.length(), v2PageMs, v2SsidMs));
+
+        assertTrue("v2 first page should beat unindexed v1", v2PageMs < v1PageMs);
+        assertTrue("v2 per-SSID page should beat unindexed v1", v2SsidMs < v1SsidMs);
+        assertTrue("SSID dictionary should shrink the indexed database", v2File.length() < v1IndexedFile.length());
+    }
+
+    /**
+     * 写入合成数据：SSID_COUNT个较长的SSID，时间戳递增
+     */
+    private void fillVersion1(SQLiteDatabase db) {
+        String[] ssids = new String[SSID_COUNT];
+        for (int i = 0; i < SSID_COUNT; i++) {
+            ssids[i] = "Office-Floor-" + i + "-Corp-5G";
+        }
+        Random random = new Random(42);
+        long time = 1_700_000_000_000L;
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT INTO wifi_history (ssid, ip_address, connect_time) VALUES (?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < rows; i++) {
+                time += random.nextInt(60_000);
+                insert.bindString(1, ssids[random.nextInt(SSID_COUNT)]);
+                insert.bindString(2, "192.168." + random.nextInt(256) + "." + random.nextInt(256));
+                insert.bindLong(3, time);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    /**
+     * 执行查询并读完所有行，返回多次执行耗时的中位数（毫秒）
+     */
+    private static double medianMs(SQLiteDatabase db, String sql, String[] args) {
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            Cursor cursor = db.rawQuery(sql, args);
+            try {
+                while (cursor.moveToNext()) {
+                    cursor.getLong(0);
+                    cursor.getString(1);
+                }
+            } finally {
+                cursor.close();
+            }
+            samples[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2] / 1_000_000.0;
+    }
+
+    private static int count(SQLiteDatabase db, String table) {
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + table, null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        try (InputStream in = new FileInputStream(from); OutputStream out = new FileOutputStream(to)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+    }
+
+    private void deleteAll() {
+        for (File file : new File[]{v1File, v1IndexedFile, v2File}) {
+            if (file != null) {
+                SQLiteDatabase.deleteDatabase(file);
+            }
+        }
+    }
+}
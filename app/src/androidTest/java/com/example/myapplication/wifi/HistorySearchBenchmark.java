@@ -0,0 +1,169 @@
+package com.example.myapplication.wifi;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SSID搜索基准测试：在合成的大历史表上比较FTS4前缀索引、字典表子串匹配与直接对历史视图LIKE的耗时。
+ * 分别测试命中很多SSID的常见词、只命中一个SSID的少见词和没有命中的词；
+ * 后两种情况下LIKE需要扫描整个历史表才能凑满一页（或确认没有结果）。
+ * 行数默认一百万，可通过 -e historyRows N 调整。
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistorySearchBenchmark {
+
+    private static final String TAG = "HistorySearchBenchmark";
+    private static final int DEFAULT_ROWS = 1_000_000;
+    private static final int SSID_COUNT = 500;
+    private static final int PAGE_SIZE = 50;
+    private static final int ITERATIONS = 25;
+
+    private static final String LIKE_SQL = "SELECT _id, ssid, ip_address, connect_time FROM " +
+            WiFiHistoryDatabaseHelper.VIEW_HISTORY + " WHERE ssid LIKE ? ESCAPE '\\'" +
+            " ORDER BY connect_time DESC, _id DESC LIMIT " + PAGE_SIZE;
+    private static final String FTS_SQL = "SELECT _id, ssid, ip_address, connect_time FROM " +
+            WiFiHistoryDatabaseHelper.VIEW_HISTORY + " WHERE ssid_id IN (SELECT docid FROM " +
+            WiFiHistoryDatabaseHelper.TABLE_SSID_FTS + " WHERE " + WiFiHistoryDatabaseHelper.TABLE_SSID_FTS +
+            " MATCH ?) ORDER BY connect_time DESC, _id DESC LIMIT " + PAGE_SIZE;
+    private static final String DICT_LIKE_SQL = "SELECT _id, ssid, ip_address, connect_time FROM " +
+            WiFiHistoryDatabaseHelper.VIEW_HISTORY + " WHERE ssid_id IN (SELECT _id FROM " +
+            WiFiHistoryDatabaseHelper.TABLE_SSID + " WHERE ssid LIKE ? ESCAPE '\\')" +
+            " ORDER BY connect_time DESC, _id DESC LIMIT " + PAGE_SIZE;
+
+    private int rows;
+    private File dbFile;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Bundle args = InstrumentationRegistry.getArguments();
+        rows = Integer.parseInt(args.getString("historyRows", Integer.toString(DEFAULT_ROWS)));
+        dbFile = context.getDatabasePath("bench_history_search.db");
+        SQLiteDatabase.deleteDatabase(dbFile);
+        dbFile.getParentFile().mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        SQLiteDatabase.deleteDatabase(dbFile);
+    }
+
+    @Test
+    public void compareSearch() {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(dbFile, null);
+        try {
+            db.beginTransaction();
+            try {
+                HistoryMigrations.createVersion1(db);
+                HistoryMigrations.migrate(db, 1, HistoryMigrations.latestVersion());
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            fill(db);
+
+            // 常见词：命中全部SSID；少见词：只命中一个SSID；未命中
+            String[][] cases = {
+                    {"common", "Corp"},
+                    {"rare", "Floor-7-"},
+                    {"none", "Lobby"},
+            };
+            for (String[] c : cases) {
+                String term = c[1];
+                String fts = WiFiHistoryDatabaseHelper.toFtsPrefixQuery(term);
+                String like = WiFiHistoryDatabaseHelper.toLikeSubstring(term);
+                int expected = count(db, LIKE_SQL, like);
+                assertEquals(expected, count(db, DICT_LIKE_SQL, like));
+
+                double likeMs = medianMs(db, LIKE_SQL, like);
+                double ftsMs = medianMs(db, FTS_SQL, fts);
+                double dictMs = medianMs(db, DICT_LIKE_SQL, like);
+                Log.i(TAG, String.format("%-6s rows=%d, history LIKE=%.3fms, FTS prefix=%.3fms, dictionary LIKE=%.3fms",
+                        c[0], expected, likeMs, ftsMs, dictMs));
+                if (!"common".equals(c[0])) {
+                    assertTrue("FTS prefix search should beat LIKE for " + c[0] + " terms", ftsMs < likeMs);
+                    assertTrue("Dictionary substring search should beat LIKE for " + c[0] + " terms", dictMs < likeMs);
+                }
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * 写入合成数据：SSID_COUNT个SSID，时间戳递增；SSID通过字典表写入，由触发器同步到FTS索引
+     */
+    private void fill(SQLiteDatabase db) {
+        long[] ssidIds = new long[SSID_COUNT];
+        Random random = new Random(42);
+        long time = 1_700_000_000_000L;
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + WiFiHistoryDatabaseHelper.TABLE_NAME +
+                " (ssid_id, ip_address, connect_time) VALUES (?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < SSID_COUNT; i++) {
+                ssidIds[i] = WiFiHistoryDatabaseHelper.getOrCreateSsidId(db, "Office-Floor-" + i + "-Corp-5G");
+            }
+            for (int i = 0; i < rows; i++) {
+                time += random.nextInt(60_000);
+                insert.bindLong(1, ssidIds[random.nextInt(SSID_COUNT)]);
+                insert.bindString(2, "192.168." + random.nextInt(256) + "." + random.nextInt(256));
+                insert.bindLong(3, time);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    /**
+     * 执行查询并读完所有行，返回多次执行耗时的中位数（毫秒）
+     */
+    private static double medianMs(SQLiteDatabase db, String sql, String arg) {
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            count(db, sql, arg);
+            samples[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2] / 1_000_000.0;
+    }
+
+    private static int count(SQLiteDatabase db, String sql, String arg) {
+        Cursor cursor = db.rawQuery(sql, new String[]{arg});
+        try {
+            int n = 0;
+            while (cursor.moveToNext()) {
+                cursor.getLong(0);
+                cursor.getString(1);
+                n++;
+            }
+            return n;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.myapplication.wifi;
+
+import android.Manifest;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * WifiContentProvider并发负载测试：N个客户端线程按查询组合同时访问Provider
+ * 报告总吞吐量和每类查询的p50/p99/max延迟，有两道回归检查：
+ * 1. 同次运行的相对检查（任何设备都执行）：先用一个客户端测出参照值，
+ *    N个客户端的吞吐量不得低于单客户端，每类查询的p50不得比N个请求完全串行执行还慢，
+ *    查询路径上出现全局锁或锁竞争时失败。
+ * 2. 与androidTest资源中的基线比较：吞吐量低于基线、总体p50/p99或任一类查询的p99高于基线超过容差时失败。
+ *    基线只对测量它的设备型号有效（device键）；没有对应基线时跳过，
+ *    传入requireBaseline=true时（CI的参考设备上）改为失败。
+ *
+ * 参数（-e）：clients 客户端线程数，mix 查询组合（类型:权重，逗号分隔），durationMs 测量时长，
+ * requireBaseline 没有对应基线时是否失败。
+ * 类型：wifi、wifi_refresh、history、scans、search、metrics、state（call方法）。
+ * 结果（单客户端参照值带single.前缀）同时写入外部文件目录的provider_load_result.properties，
+ * 在参考设备上运行后拉取该文件即可更新基线。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ProviderLoadBenchmark {
+
+    private static final String TAG = "ProviderLoadBenchmark";
+    private static final String BASELINE_ASSET = "provider_load_baseline.properties";
+    private static final String RESULT_FILE = "provider_load_result.properties";
+    private static final int DEFAULT_CLIENTS = 8;
+    private static final String DEFAULT_MIX = "wifi:50,history:20,scans:10,search:10,metrics:5,state:5";
+    private static final long DEFAULT_DURATION_MS = 10_000;
+    private static final long WARMUP_MS = 2_000;
+    private static final double RELATIVE_TOLERANCE = 0.25; // 相对检查的容差，吸收调度抖动
+
+    private ContentResolver resolver;
+    private Context testContext;
+    private Context targetContext;
+    private int clients;
+    private String mix;
+    private long durationMs;
+    private boolean requireBaseline;
+
+    @Before
+    public void setUp() {
+        targetContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        testContext = InstrumentationRegistry.getInstrumentation().getContext();
+        InstrumentationRegistry.getInstrumentation().getUiAutomation()
+                .grantRuntimePermission(targetContext.getPackageName(), Manifest.permission.ACCESS_FINE_LOCATION);
+        resolver = targetContext.getContentResolver();
+
+        Bundle args = InstrumentationRegistry.getArguments();
+        clients = Integer.parseInt(args.getString("clients", Integer.toString(DEFAULT_CLIENTS)));
+        mix = args.getString("mix", DEFAULT_MIX);
+        durationMs = Long.parseLong(args.getString("durationMs", Long.toString(DEFAULT_DURATION_MS)));
+        requireBaseline = Boolean.parseBoolean(args.getString("requireBaseline", "false"));
+    }
+
+    @Test
+    public void concurrentQueriesWithinBaseline() throws Exception {
+        List<QueryType> queryMix = parseMix(mix);
+        run(queryMix, clients, WARMUP_MS);
+        Properties single = run(queryMix, 1, durationMs).toProperties(1, mix, durationMs, queryMix);
+        Result result = run(queryMix, clients, durationMs);
+
+        Log.i(TAG, String.format("clients=%d mix=%s: %.0f queries/s (single client %s), overall %s",
+                clients, mix, result.throughput, single.getProperty("throughput_qps"), result.overall.snapshot()));
+        for (QueryType type : queryMix) {
+            Log.i(TAG, "  " + type.latency.snapshot());
+        }
+        Properties current = result.toProperties(clients, mix, durationMs, queryMix);
+        for (String key : single.stringPropertyNames()) {
+            current.setProperty("single." + key, single.getProperty(key));
+        }
+        writeResult(current);
+
+        List<String> regressions = new ArrayList<>();
+        checkScaling(regressions, single, current, queryMix);
+
+        Properties baseline = loadBaseline();
+        if (sameConfig(baseline, current)) {
+            double tolerance = Double.parseDouble(baseline.getProperty("tolerance", "0.25"));
+            checkAtLeast(regressions, "throughput_qps", baseline, current, tolerance);
+            checkAtMost(regressions, "p50_us", baseline, current, tolerance);
+            checkAtMost(regressions, "p99_us", baseline, current, tolerance);
+            for (QueryType type : queryMix) {
+                // 占比小的查询被总体延迟掩盖，单独检查尾延迟
+                checkAtMost(regressions, type.name + ".p99_us", baseline, current, tolerance);
+            }
+        } else if (requireBaseline) {
+            regressions.add("no baseline for " + current.getProperty("device") + " with this configuration");
+        } else {
+            Log.i(TAG, "No baseline for " + current.getProperty("device")
+                    + " with this configuration, skipping baseline gate");
+        }
+        assertTrue("Provider load regressed: " + regressions, regressions.isEmpty());
+    }
+
+    /**
+     * 与同次运行的单客户端参照值比较：并发不应降低吞吐量，每类查询的p50不应比完全串行还慢
+     */
+    private void checkScaling(List<String> regressions, Properties single, Properties current,
+                              List<QueryType> queryMix) {
+        double singleQps = Double.parseDouble(single.getProperty("throughput_qps"));
+        double qps = Double.parseDouble(current.getProperty("throughput_qps"));
+        if (qps < singleQps * (1 - RELATIVE_TOLERANCE)) {
+            regressions.add("throughput_qps=" + qps + " with " + clients + " clients (single client " + singleQps + ")");
+        }
+        for (QueryType type : queryMix) {
+            String key = type.name + ".p50_us";
+            if (Long.parseLong(single.getProperty(type.name + ".count")) == 0) {
+                continue; // 单客户端时没有抽到该类查询
+            }
+            // 直方图以微秒计，过快的查询按1us计算上限
+            long singleP50 = Math.max(1, Long.parseLong(single.getProperty(key)));
+            long p50 = Long.parseLong(current.getProperty(key));
+            if (p50 > singleP50 * clients * (1 + RELATIVE_TOLERANCE)) {
+                regressions.add(key + "=" + p50 + " with " + clients + " clients, slower than serialized (single client "
+                        + singleP50 + ")");
+            }
+        }
+    }
+
+    /**
+     * 启动clientCount个线程，各自按权重随机选择查询，持续runMs毫秒
+     */
+    private Result run(List<QueryType> queryMix, int clientCount, long runMs) throws Exception {
+        int totalWeight = 0;
+        for (QueryType type : queryMix) {
+            type.latency = new LatencyHistogram(type.name);
+            totalWeight += type.weight;
+        }
+        final int weights = totalWeight;
+        LatencyHistogram overall = new LatencyHistogram("overall");
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clientCount);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long[] counts = new long[clientCount];
+        long[] deadline = new long[1];
+
+        for (int c = 0; c < clientCount; c++) {
+            final int client = c;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(client);
+                try {
+                    start.await();
+                    while (SystemClock.elapsedRealtime() < deadline[0]) {
+                        QueryType type = pick(queryMix, random.nextInt(weights));
+                        long begin = SystemClock.elapsedRealtimeNanos();
+                        execute(type);
+                        long elapsed = SystemClock.elapsedRealtimeNanos() - begin;
+                        type.latency.recordNanos(elapsed);
+                        overall.recordNanos(elapsed);
+                        counts[client]++;
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    done.countDown();
+                }
+            }, TAG + "-client-" + c);
+            thread.start();
+        }
+
+        long begin = SystemClock.elapsedRealtimeNanos();
+        deadline[0] = SystemClock.elapsedRealtime() + runMs;
+        start.countDown();
+        done.await();
+        long elapsed = SystemClock.elapsedRealtimeNanos() - begin;
+        if (failure.get() != null) {
+            throw new AssertionError("Client failed", failure.get());
+        }
+
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return new Result(total * 1e9 / elapsed, overall);
+    }
+
+    private static QueryType pick(List<QueryType> queryMix, int ticket) {
+        for (QueryType type : queryMix) {
+            ticket -= type.weight;
+            if (ticket < 0) {
+                return type;
+            }
+        }
+        return queryMix.get(queryMix.size() - 1);
+    }
+
+    /**
+     * 执行一次查询并读完所有列
+     */
+    private void execute(QueryType type) {
+        if (type.uri == null) {
+            Bundle state = resolver.call(WifiContentProvider.AUTHORITY, WifiContentProvider.METHOD_GET_STATE, null, null);
+            assertNotNull(state);
+            return;
+        }
+        Cursor cursor = resolver.query(type.uri, null, null, null, null);
+        assertNotNull(cursor);
+        try {
+            int columns = cursor.getColumnCount();
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < columns; i++) {
+                    cursor.getString(i);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 解析查询组合，如"wifi:50,history:20"
+     */
+    private static List<QueryType> parseMix(String mix) {
+        List<QueryType> types = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split(":");
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1]) : 1;
+            if (weight <= 0) {
+                continue;
+            }
+            types.add(new QueryType(kv[0], uriFor(kv[0]), weight));
+        }
+        if (types.isEmpty()) {
+            throw new IllegalArgumentException("Empty query mix: " + mix);
+        }
+        return types;
+    }
+
+    /**
+     * @return 查询类型对应的URI；state使用call()，返回null
+     */
+    private static Uri uriFor(String name) {
+        switch (name) {
+            case "wifi":
+                return WifiContentProvider.CONTENT_URI;
+            case "wifi_refresh":
+                return WifiContentProvider.CONTENT_URI.buildUpon()
+                        .appendQueryParameter(WifiContentProvider.PARAM_REFRESH, "true").build();
+            case "history":
+                return WifiContentProvider.HISTORY_URI.buildUpon()
+                        .appendQueryParameter(WifiContentProvider.PARAM_LIMIT, "50").build();
+            case "scans":
+                return WifiContentProvider.SCANS_URI.buildUpon()
+                        .appendQueryParameter(WifiContentProvider.PARAM_LIMIT, "50").build();
+            case "search":
+                return WifiContentProvider.HISTORY_SEARCH_URI.buildUpon()
+                        .appendQueryParameter(WifiContentProvider.PARAM_QUERY, "Net").build();
+            case "metrics":
+                return WifiContentProvider.METRICS_URI;
+            case "state":
+                return null;
+            default:
+                throw new IllegalArgumentException("Unknown query type: " + name);
+        }
+    }
+
+    private Properties loadBaseline() throws IOException {
+        Properties baseline = new Properties();
+        InputStream in = testContext.getAssets().open(BASELINE_ASSET);
+        try {
+            baseline.load(in);
+        } finally {
+            in.close();
+        }
+        return baseline;
+    }
+
+    private void writeResult(Properties result) throws IOException {
+        File file = new File(targetContext.getExternalFilesDir(null), RESULT_FILE);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            result.store(out, "ProviderLoadBenchmark result");
+        } finally {
+            out.close();
+        }
+        Log.i(TAG, "Result written to " + file);
+    }
+
+    /**
+     * @return 基线是否在同一型号的设备上、以相同的参数测量
+     */
+    private static boolean sameConfig(Properties baseline, Properties current) {
+        return current.getProperty("device").equals(baseline.getProperty("device"))
+                && current.getProperty("clients").equals(baseline.getProperty("clients"))
+                && current.getProperty("mix").equals(baseline.getProperty("mix"));
+    }
+
+    private static void checkAtLeast(List<String> regressions, String key, Properties baseline,
+                                     Properties current, double tolerance) {
+        String expectedValue = baseline.getProperty(key);
+        if (expectedValue == null) {
+            regressions.add(key + " missing from baseline");
+            return;
+        }
+        double expected = Double.parseDouble(expectedValue);
+        double actual = Double.parseDouble(current.getProperty(key));
+        if (actual < expected * (1 - tolerance)) {
+            regressions.add(key + "=" + actual + " (baseline " + expected + ")");
+        }
+    }
+
+    private static void checkAtMost(List<String> regressions, String key, Properties baseline,
+                                    Properties current, double tolerance) {
+        String expectedValue = baseline.getProperty(key);
+        if (expectedValue == null) {
+            regressions.add(key + " missing from baseline");
+            return;
+        }
+        double expected = Double.parseDouble(expectedValue);
+        double actual = Double.parseDouble(current.getProperty(key));
+        if (actual > expected * (1 + tolerance)) {
+            regressions.add(key + "=" + actual + " (baseline " + expected + ")");
+        }
+    }
+
+    /**
+     * 查询组合中的一类查询
+     */
+    private static final class QueryType {
+        final String name;
+        final Uri uri;
+        final int weight;
+        volatile LatencyHistogram latency;
+
+        QueryType(String name, Uri uri, int weight) {
+            this.name = name;
+            this.uri = uri;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 一次运行的结果
+     */
+    private static final class Result {
+        final double throughput;
+        final LatencyHistogram overall;
+
+        Result(double throughput, LatencyHistogram overall) {
+            this.throughput = throughput;
+            this.overall = overall;
+        }
+
+        Properties toProperties(int clients, String mix, long durationMs, List<QueryType> queryMix) {
+            LatencyHistogram.Snapshot s = overall.snapshot();
+            Properties p = new Properties();
+            p.setProperty("device", Build.MANUFACTURER + " " + Build.MODEL);
+            p.setProperty("sdk", Integer.toString(Build.VERSION.SDK_INT));
+            p.setProperty("clients", Integer.toString(clients));
+            p.setProperty("mix", mix);
+            p.setProperty("duration_ms", Long.toString(durationMs));
+            p.setProperty("throughput_qps", String.format(Locale.ROOT, "%.0f", throughput));
+            p.setProperty("p50_us", Long.toString(s.p50Micros));
+            p.setProperty("p99_us", Long.toString(s.p99Micros));
+            p.setProperty("max_us", Long.toString(s.maxMicros));
+            for (QueryType type : queryMix) {
+                LatencyHistogram.Snapshot t = type.latency.snapshot();
+                p.setProperty(type.name + ".count", Long.toString(t.count));
+                p.setProperty(type.name + ".p50_us", Long.toString(t.p50Micros));
+                p.setProperty(type.name + ".p99_us", Long.toString(t.p99Micros));
+            }
+            return p;
+        }
+    }
+}
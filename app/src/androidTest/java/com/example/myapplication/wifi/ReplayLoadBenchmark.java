@@ -0,0 +1,189 @@
+package com.example.myapplication.wifi;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.myapplication.core.RingBuffer;
+import com.example.myapplication.core.ScanSnapshot;
+import com.example.myapplication.core.ScanSnapshotBuffer;
+import com.example.myapplication.core.WifiFormat;
+import com.example.myapplication.core.WifiTrace;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 回放负载测试：用ReplayWifiDataSource驱动扫描、历史和读取路径，逐步加速直到跟不上
+ * 扫描路径：每次扫描500个BSSID，原速每秒一次，主线程复制为ScanSnapshot、聚合后发布到摄取管道写入扫描表；
+ * 历史路径：原速每100ms连接或断开一次，WifiStateMonitor发布的连接写入历史表；
+ * 读取路径：回放期间测试线程不断分页读取历史（与Provider的查询相同）。
+ * 数据库为内存数据库，不影响应用自己的数据。原速下各路径必须跟上，加速后的结果只记录在日志中。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReplayLoadBenchmark {
+
+    private static final String TAG = "ReplayLoadBenchmark";
+    private static final int BSSIDS_PER_SCAN = 500;
+    private static final long SCAN_INTERVAL_MS = 1000;
+    private static final long FLAP_INTERVAL_MS = 100;
+    private static final long TRACE_MS = 5000;                   // 原速下每步回放的时长
+    private static final double[] SPEEDS = {1, 2, 4, 8, 16, 32};
+
+    private WiFiHistoryDatabaseHelper dbHelper;
+    private IngestPipeline pipeline;
+    private WiFiHistoryWriter historyWriter;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = new WiFiHistoryDatabaseHelper(context, null);
+        pipeline = new IngestPipeline(dbHelper, IngestPipeline.DEFAULT_CAPACITY, RingBuffer.Backpressure.DROP_NEWEST);
+        historyWriter = new WiFiHistoryWriter(dbHelper);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pipeline.shutdown();
+        historyWriter.shutdown().get(); // 等待最后一次刷写完成再关闭数据库
+        dbHelper.close();
+    }
+
+    @Test
+    public void findSaturationPoint() throws Exception {
+        WifiTrace scans = WifiTrace.scanStorm(BSSIDS_PER_SCAN, (int) (TRACE_MS / SCAN_INTERVAL_MS),
+                SCAN_INTERVAL_MS, 42);
+        WifiTrace flaps = WifiTrace.connectionFlap((int) (TRACE_MS / FLAP_INTERVAL_MS / 2), FLAP_INTERVAL_MS, 7);
+
+        for (double speed : SPEEDS) {
+            Step step = runStep(scans, flaps, speed);
+            Log.i(TAG, String.format("speed=%.0fx scanLag p99=%dus (budget %dus), connectLag p99=%dus (budget %dus), "
+                            + "dropped=%d, historyRows=%d, readP99=%dus, keepsUp=%b",
+                    speed, step.scanLag.p99Micros, step.scanBudgetMicros, step.connectLag.p99Micros,
+                    step.connectBudgetMicros, step.dropped, step.historyRows, step.readLatency.p99Micros,
+                    step.keepsUp()));
+            if (speed == 1) {
+                assertTrue("Scan, history and read paths should keep up at real-time speed", step.keepsUp());
+                assertEquals(flaps.getEvents().size() / 2, step.historyRows);
+            }
+            if (!step.keepsUp()) {
+                Log.i(TAG, String.format("Saturated at %.0fx: %d BSSIDs every %dms, connection change every %dms",
+                        speed, BSSIDS_PER_SCAN, (long) (SCAN_INTERVAL_MS / speed), (long) (FLAP_INTERVAL_MS / speed)));
+                break;
+            }
+        }
+    }
+
+    /**
+     * 以指定速度同时回放扫描和连接轨迹，回放期间分页读取历史
+     */
+    private Step runStep(WifiTrace scanTrace, WifiTrace flapTrace, double speed) throws Exception {
+        clearTables();
+        long droppedBefore = pipeline.droppedEvents();
+        ReplayWifiDataSource scanSource = new ReplayWifiDataSource(scanTrace, speed, 1);
+        ReplayWifiDataSource connectSource = new ReplayWifiDataSource(flapTrace, speed, 1);
+
+        // 扫描路径：与MainActivity相同，复制为ScanSnapshot后聚合，并把每个AP发布到摄取管道（这里在主线程执行）
+        ScanResultModel model = new ScanResultModel();
+        ScanSnapshotBuffer snapshots = new ScanSnapshotBuffer(BSSIDS_PER_SCAN);
+        WifiDataSource.ScanCallback scanCallback = updated -> {
+            long bootTimeMs = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+            ScanSnapshot snapshot = snapshots.beginWrite(System.currentTimeMillis());
+            ScanResultModel.copyInto(scanSource.getScanResults(), bootTimeMs, snapshot);
+            snapshots.publish();
+            for (int i = 0, n = snapshot.size(); i < n; i++) {
+                pipeline.offerScan(snapshot.bssid(i), snapshot.ssid(i), snapshot.level(i),
+                        snapshot.frequency(i), snapshot.capabilities(i), snapshot.timestampMs(i));
+            }
+            model.update(snapshot);
+        };
+        scanSource.registerScanCallback(scanCallback);
+
+        // 历史路径：每次从断开变为连接时写入历史表，所有样本进入摄取管道
+        boolean[] connected = {false}; // 仅在监视器回调线程访问
+        WifiStateMonitor monitor = new WifiStateMonitor(connectSource, snapshot -> {
+            if (snapshot.connected && !connected[0]) {
+                historyWriter.enqueue(WifiFormat.removeQuotes(snapshot.ssid),
+                        WifiFormat.intToIp(snapshot.ipAddress), System.currentTimeMillis());
+            }
+            connected[0] = snapshot.connected;
+        }, 3_600_000);
+        monitor.setThresholds(1, 1);
+        monitor.setSampleListener(pipeline::offerSample);
+        monitor.start();
+
+        scanSource.start();
+        connectSource.start();
+        LatencyHistogram readLatency = new LatencyHistogram("replay.read");
+        while (scanSource.isRunning() || connectSource.isRunning()) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            dbHelper.queryHistoryPage(0, -1, 50);
+            readLatency.recordSince(start);
+        }
+        scanSource.awaitCompletion();
+        connectSource.awaitCompletion();
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync(); // 等待主线程处理完已投递的扫描
+        awaitDelivered(connectSource, flapTrace.getEvents().size());
+        monitor.stop();
+        scanSource.unregisterScanCallback(scanCallback);
+        historyWriter.flushAsync().get();
+
+        Step step = new Step();
+        step.scanLag = scanSource.getDeliveryLag();
+        step.connectLag = connectSource.getDeliveryLag();
+        step.scanBudgetMicros = (long) (SCAN_INTERVAL_MS * 1000 / speed);
+        step.connectBudgetMicros = (long) (FLAP_INTERVAL_MS * 1000 / speed);
+        step.dropped = pipeline.droppedEvents() - droppedBefore;
+        step.historyRows = countHistoryRows();
+        step.readLatency = readLatency.snapshot();
+        return step;
+    }
+
+    /**
+     * 等待回放的回调全部执行完（回调线程可能仍有积压）
+     */
+    private static void awaitDelivered(ReplayWifiDataSource source, int events) throws InterruptedException {
+        long deadline = SystemClock.elapsedRealtime() + 30_000;
+        while (source.getDeliveryLag().count < events && SystemClock.elapsedRealtime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void clearTables() {
+        dbHelper.getWritableDatabase().execSQL("DELETE FROM " + WiFiHistoryDatabaseHelper.TABLE_NAME);
+        dbHelper.getWritableDatabase().execSQL("DELETE FROM " + WiFiHistoryDatabaseHelper.TABLE_SCANS);
+    }
+
+    private int countHistoryRows() {
+        return (int) DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(),
+                WiFiHistoryDatabaseHelper.TABLE_NAME);
+    }
+
+    /**
+     * 一个速度下的结果：回调从投递到处理完毕的延迟不超过事件间隔，且摄取管道没有丢弃事件，即视为跟得上
+     */
+    private static final class Step {
+        LatencyHistogram.Snapshot scanLag;
+        LatencyHistogram.Snapshot connectLag;
+        LatencyHistogram.Snapshot readLatency;
+        long scanBudgetMicros;
+        long connectBudgetMicros;
+        long dropped;
+        int historyRows;
+
+        boolean keepsUp() {
+            return scanLag.p99Micros <= scanBudgetMicros
+                    && connectLag.p99Micros <= connectBudgetMicros
+                    && dropped == 0;
+        }
+    }
+}
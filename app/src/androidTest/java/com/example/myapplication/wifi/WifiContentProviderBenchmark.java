@@ -0,0 +1,78 @@
+package com.example.myapplication.wifi;
+
+import android.Manifest;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * WifiContentProvider查询吞吐量基准测试：比较缓存快照查询与每次读取WifiManager的查询
+ */
+@RunWith(AndroidJUnit4.class)
+public class WifiContentProviderBenchmark {
+
+    private static final String TAG = "WifiProviderBenchmark";
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 2000;
+
+    private ContentResolver resolver;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        InstrumentationRegistry.getInstrumentation().getUiAutomation()
+                .grantRuntimePermission(context.getPackageName(), Manifest.permission.ACCESS_FINE_LOCATION);
+        resolver = context.getContentResolver();
+    }
+
+    @Test
+    public void cachedQueriesOutperformUncached() {
+        Uri uncached = WifiContentProvider.CONTENT_URI.buildUpon()
+                .appendQueryParameter(WifiContentProvider.PARAM_REFRESH, "true")
+                .build();
+
+        run(WifiContentProvider.CONTENT_URI, WARMUP);
+        run(uncached, WARMUP);
+
+        double cachedPerSec = run(WifiContentProvider.CONTENT_URI, ITERATIONS);
+        double uncachedPerSec = run(uncached, ITERATIONS);
+
+        Log.i(TAG, String.format("cached=%.0f queries/s, uncached=%.0f queries/s, speedup=%.2fx",
+                cachedPerSec, uncachedPerSec, cachedPerSec / uncachedPerSec));
+        assertTrue("cached queries should be faster", cachedPerSec > uncachedPerSec);
+    }
+
+    /**
+     * 连续查询并读取结果，返回每秒查询次数
+     */
+    private double run(Uri uri, int iterations) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < iterations; i++) {
+            Cursor cursor = resolver.query(uri, null, null, null, null);
+            assertNotNull(cursor);
+            try {
+                if (cursor.moveToFirst()) {
+                    cursor.getString(0);
+                    cursor.getInt(1);
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+        return iterations * 1_000_000_000.0 / elapsed;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.myapplication.wifi;
+
+import android.Manifest;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 单次call()与游标查询的跨进程延迟对比：
+ * 游标路径需要三次查询（当前连接、最近一次扫描、最近的历史），call()一次返回全部数据。
+ * 仪器测试与Provider在同一进程中，直接调用不经过Binder；因此计时在debug构建的ProviderClientService中进行，
+ * 它运行在独立进程，每次调用都经过Binder往返，游标数据经过CursorWindow跨进程传递，与其他应用调用时相同。
+ */
+@RunWith(AndroidJUnit4.class)
+public class WifiProviderCallBenchmark {
+
+    private static final String TAG = "WifiProviderCallBench";
+    private static final int WARMUP = 100;
+    private static final int ITERATIONS = 1000;
+    private static final long TIMEOUT_SECONDS = 120;
+
+    private Context context;
+    private HandlerThread replyThread;
+    private ServiceConnection connection;
+    private final BlockingQueue<IBinder> bound = new ArrayBlockingQueue<>(1);
+
+    @Before
+    public void setUp() throws Exception {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        InstrumentationRegistry.getInstrumentation().getUiAutomation()
+                .grantRuntimePermission(context.getPackageName(), Manifest.permission.ACCESS_FINE_LOCATION);
+        replyThread = new HandlerThread(TAG);
+        replyThread.start();
+        connection = new ServiceConnection() {
+            @Override
+            public void onServiceConnected(ComponentName name, IBinder service) {
+                bound.offer(service);
+            }
+
+            @Override
+            public void onServiceDisconnected(ComponentName name) {
+            }
+        };
+        assertTrue("Cannot bind ProviderClientService", context.bindService(
+                new Intent(context, ProviderClientService.class), connection, Context.BIND_AUTO_CREATE));
+    }
+
+    @After
+    public void tearDown() {
+        context.unbindService(connection);
+        replyThread.quitSafely();
+    }
+
+    @Test
+    public void callIsFasterThanCursorsAcrossProcesses() throws Exception {
+        IBinder service = bound.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull("ProviderClientService not connected", service);
+
+        BlockingQueue<Bundle> replies = new ArrayBlockingQueue<>(1);
+        Messenger replyTo = new Messenger(new Handler(replyThread.getLooper(), msg -> replies.offer(msg.getData())));
+        Bundle request = new Bundle();
+        request.putInt(ProviderClientService.KEY_WARMUP, WARMUP);
+        request.putInt(ProviderClientService.KEY_ITERATIONS, ITERATIONS);
+        Message message = Message.obtain(null, ProviderClientService.MSG_RUN_CALL_BENCHMARK);
+        message.setData(request);
+        message.replyTo = replyTo;
+        new Messenger(service).send(message);
+
+        Bundle result = replies.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull("No result from ProviderClientService within " + TIMEOUT_SECONDS + "s", result);
+        assertNull(result.getString(ProviderClientService.KEY_ERROR), result.getString(ProviderClientService.KEY_ERROR));
+        assertTrue("Client must run in a separate process",
+                result.getInt(ProviderClientService.KEY_PID) != Process.myPid());
+
+        long[] cursorNanos = result.getLongArray(ProviderClientService.KEY_CURSOR_NANOS);
+        long[] callNanos = result.getLongArray(ProviderClientService.KEY_CALL_NANOS);
+        assertNotNull(cursorNanos);
+        assertNotNull(callNanos);
+        long cursorMedian = percentile(cursorNanos, 50);
+        long callMedian = percentile(callNanos, 50);
+        Log.i(TAG, String.format("cross-process cursor p50=%dus p90=%dus, call p50=%dus p90=%dus, speedup=%.2fx",
+                cursorMedian / 1000, percentile(cursorNanos, 90) / 1000,
+                callMedian / 1000, percentile(callNanos, 90) / 1000,
+                (double) cursorMedian / callMedian));
+        assertTrue("call() should be faster than three cursor queries", callMedian < cursorMedian);
+    }
+
+    private static long percentile(long[] samples, int percent) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+}
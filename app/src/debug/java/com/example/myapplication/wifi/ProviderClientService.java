@@ -0,0 +1,145 @@
+package com.example.myapplication.wifi;
+
+import android.app.Service;
+import android.content.ContentResolver;
+import android.content.Intent;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.Process;
+import android.os.RemoteException;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * 仪器测试用的客户端服务（只在debug构建中）
+ * 运行在独立的:provider_client进程中，Provider在主进程，
+ * 因此这里的call()和query()都经过Binder，游标数据经过CursorWindow跨进程传递，与其他应用调用时相同。
+ * 测试绑定后发送MSG_RUN_CALL_BENCHMARK，服务在后台线程计时，完成后把每次的耗时回复给replyTo。
+ */
+public class ProviderClientService extends Service {
+
+    private static final String TAG = "ProviderClientService";
+
+    public static final int MSG_RUN_CALL_BENCHMARK = 1;
+    // 请求参数
+    public static final String KEY_WARMUP = "warmup";
+    public static final String KEY_ITERATIONS = "iterations";
+    // 回复
+    public static final String KEY_PID = "pid";                   // 服务所在进程
+    public static final String KEY_CURSOR_NANOS = "cursor_nanos"; // long[]，每次三个游标查询的耗时
+    public static final String KEY_CALL_NANOS = "call_nanos";     // long[]，每次call()的耗时
+    public static final String KEY_ERROR = "error";               // 失败时的错误说明
+
+    private HandlerThread thread;
+    private Messenger messenger;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        thread = new HandlerThread(TAG);
+        thread.start();
+        messenger = new Messenger(new Handler(thread.getLooper(), this::handleMessage));
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return messenger.getBinder();
+    }
+
+    @Override
+    public void onDestroy() {
+        thread.quitSafely();
+        super.onDestroy();
+    }
+
+    private boolean handleMessage(Message msg) {
+        if (msg.what != MSG_RUN_CALL_BENCHMARK || msg.replyTo == null) {
+            return false;
+        }
+        Bundle request = msg.getData();
+        Bundle result = new Bundle();
+        result.putInt(KEY_PID, Process.myPid());
+        try {
+            runCallBenchmark(request.getInt(KEY_WARMUP), request.getInt(KEY_ITERATIONS), result);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Benchmark failed", e);
+            result.putString(KEY_ERROR, String.valueOf(e));
+        }
+        Message reply = Message.obtain(null, MSG_RUN_CALL_BENCHMARK);
+        reply.setData(result);
+        try {
+            msg.replyTo.send(reply);
+        } catch (RemoteException e) {
+            Log.w(TAG, "Test process gone", e);
+        }
+        return true;
+    }
+
+    /**
+     * 交替计时游标路径（当前连接、最近一次扫描、最近的历史三次查询）和一次call()
+     */
+    private void runCallBenchmark(int warmup, int iterations, Bundle result) {
+        ContentResolver resolver = getContentResolver();
+        Uri historyUri = WifiContentProvider.HISTORY_URI.buildUpon()
+                .appendQueryParameter(WifiContentProvider.PARAM_LIMIT,
+                        Integer.toString(WifiContentProvider.DEFAULT_STATE_HISTORY_LIMIT))
+                .build();
+        Uri scansUri = WifiContentProvider.SCANS_URI.buildUpon()
+                .appendQueryParameter(WifiContentProvider.PARAM_LIMIT, "1")
+                .build();
+
+        for (int i = 0; i < warmup; i++) {
+            readWithCursors(resolver, scansUri, historyUri);
+            readWithCall(resolver);
+        }
+        long[] cursorNanos = new long[iterations];
+        long[] callNanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            readWithCursors(resolver, scansUri, historyUri);
+            cursorNanos[i] = SystemClock.elapsedRealtimeNanos() - start;
+
+            start = SystemClock.elapsedRealtimeNanos();
+            readWithCall(resolver);
+            callNanos[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        result.putLongArray(KEY_CURSOR_NANOS, cursorNanos);
+        result.putLongArray(KEY_CALL_NANOS, callNanos);
+    }
+
+    private static void readWithCursors(ContentResolver resolver, Uri scansUri, Uri historyUri) {
+        readAll(resolver.query(WifiContentProvider.CONTENT_URI, null, null, null, null));
+        readAll(resolver.query(scansUri, null, null, null, null));
+        readAll(resolver.query(historyUri, null, null, null, null));
+    }
+
+    private static void readWithCall(ContentResolver resolver) {
+        Bundle state = resolver.call(WifiContentProvider.AUTHORITY, WifiContentProvider.METHOD_GET_STATE, null, null);
+        if (state == null) {
+            throw new IllegalStateException("call(" + WifiContentProvider.METHOD_GET_STATE + ") returned null");
+        }
+        state.getLongArray(WifiContentProvider.KEY_HISTORY_IDS);
+    }
+
+    private static void readAll(Cursor cursor) {
+        if (cursor == null) {
+            throw new IllegalStateException("query returned null");
+        }
+        try {
+            int columns = cursor.getColumnCount();
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < columns; i++) {
+                    cursor.getString(i);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+}
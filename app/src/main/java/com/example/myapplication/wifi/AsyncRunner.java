@@ -0,0 +1,362 @@
+package com.example.myapplication.wifi;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 界面使用的异步执行层
+ * 数据库、ContentProvider和WifiManager调用在有界线程池中执行，结果回到主线程交付；
+ * 绑定Activity后，Activity销毁时自动取消所有未完成的任务，回调不会在销毁后执行。
+ * 需要按顺序执行、或必须执行完的后台工作（非线程安全的状态、文件写入）使用newSerialExecutor()创建的串行通道，
+ * 与普通任务共用同一个线程池和生命周期。
+ */
+public class AsyncRunner {
+
+    private static final String TAG = "AsyncRunner";
+    public static final int DEFAULT_THREADS = 2;       // 工作线程数
+    public static final int DEFAULT_QUEUE_SIZE = 32;   // 等待队列长度，超出时拒绝任务
+
+    /**
+     * 任务结果回调，在主线程调用
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+
+        /**
+         * 任务抛出异常或被拒绝时调用，默认只记录日志
+         */
+        default void onError(Throwable error) {
+            Log.e(TAG, "Async task failed", error);
+        }
+    }
+
+    /**
+     * 已提交任务的句柄
+     */
+    public interface Cancellable {
+        void cancel();
+
+        boolean isCancelled();
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Set<Task<?>> activeTasks = ConcurrentHashMap.newKeySet();
+    private final CopyOnWriteArrayList<SerialExecutor> serialExecutors = new CopyOnWriteArrayList<>();
+    private volatile boolean closed = false;
+
+    public AsyncRunner() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * @param threads   工作线程数
+     * @param queueSize 等待队列长度
+     */
+    public AsyncRunner(int threads, int queueSize) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> new Thread(r, TAG + "-" + threadIndex.incrementAndGet()));
+        executor.allowCoreThreadTimeOut(true); // 空闲时不保留线程
+    }
+
+    /**
+     * 绑定到Activity的生命周期：Activity销毁时关闭本执行器并取消所有任务
+     * @param activity 所属Activity
+     * @return this
+     */
+    public AsyncRunner bindTo(Activity activity) {
+        activity.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityDestroyed(@NonNull Activity destroyed) {
+                destroyed.unregisterActivityLifecycleCallbacks(this);
+                shutdown();
+            }
+
+            @Override
+            public void onActivityCreated(@NonNull Activity a, @Nullable Bundle savedInstanceState) {
+            }
+
+            @Override
+            public void onActivityStarted(@NonNull Activity a) {
+            }
+
+            @Override
+            public void onActivityResumed(@NonNull Activity a) {
+            }
+
+            @Override
+            public void onActivityPaused(@NonNull Activity a) {
+            }
+
+            @Override
+            public void onActivityStopped(@NonNull Activity a) {
+            }
+
+            @Override
+            public void onActivitySaveInstanceState(@NonNull Activity a, @NonNull Bundle outState) {
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 在工作线程执行任务，结果在主线程交给回调
+     * @param work     后台任务
+     * @param callback 结果回调，可为null
+     * @return 任务句柄，可用于取消
+     */
+    public <T> Cancellable submit(Callable<T> work, @Nullable Callback<T> callback) {
+        Task<T> task = new Task<>(work, callback);
+        if (closed) {
+            task.cancel();
+            return task;
+        }
+        activeTasks.add(task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            activeTasks.remove(task);
+            task.deliverError(e);
+        }
+        return task;
+    }
+
+    /**
+     * 在工作线程执行没有返回值的任务
+     */
+    public Cancellable execute(Runnable work) {
+        return submit(() -> {
+            work.run();
+            return null;
+        }, null);
+    }
+
+    /**
+     * 创建串行通道：任务按提交顺序在工作线程上逐个执行，同一时间最多占用一个工作线程
+     * 关闭后不再接受新任务，已提交的任务仍会执行完，最后执行onShutdown。
+     * @param onShutdown 关闭时在已提交的任务之后执行的清理（如关闭文件），可为null
+     * @return 串行通道
+     */
+    public SerialExecutor newSerialExecutor(@Nullable Runnable onShutdown) {
+        SerialExecutor serial = new SerialExecutor(onShutdown);
+        if (closed) {
+            serial.shutdown();
+        } else {
+            serialExecutors.add(serial);
+        }
+        return serial;
+    }
+
+    /**
+     * 取消所有未完成的任务，之后仍可提交新任务
+     */
+    public void cancelAll() {
+        for (Task<?> task : activeTasks) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * 取消所有任务并停止线程池，之后提交的任务直接取消；
+     * 已经投递到主线程但尚未执行的回调也不会再执行
+     */
+    public void shutdown() {
+        closed = true;
+        for (SerialExecutor serial : serialExecutors) {
+            serial.shutdown(); // 在线程池关闭前排入最后的清理
+        }
+        serialExecutors.clear();
+        cancelAll();
+        executor.shutdown(); // 队列中已取消的任务会直接返回，串行通道的任务照常执行
+    }
+
+    /**
+     * @return 正在执行或等待执行的任务数
+     */
+    public int getActiveCount() {
+        return activeTasks.size();
+    }
+
+    /**
+     * 串行通道，由newSerialExecutor()创建
+     * 有任务时向线程池提交一个执行循环，循环依次执行任务直到队列为空，因此线程池关闭后已提交的任务仍能执行完。
+     */
+    public final class SerialExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private final Runnable onShutdown;
+        private boolean running = false; // 是否已有执行循环在线程池中
+        private boolean shutdown = false;
+
+        SerialExecutor(Runnable onShutdown) {
+            this.onShutdown = onShutdown;
+        }
+
+        /**
+         * @throws RejectedExecutionException 已关闭，或线程池队列已满
+         */
+        @Override
+        public void execute(Runnable task) {
+            synchronized (this) {
+                if (shutdown) {
+                    throw new RejectedExecutionException("Serial executor shut down");
+                }
+                tasks.add(task);
+                if (running) {
+                    return;
+                }
+                running = true;
+            }
+            start(task);
+        }
+
+        /**
+         * 不再接受新任务，已提交的任务执行完后执行onShutdown
+         */
+        void shutdown() {
+            Runnable last;
+            synchronized (this) {
+                if (shutdown) {
+                    return;
+                }
+                shutdown = true;
+                if (onShutdown == null) {
+                    return;
+                }
+                tasks.add(onShutdown);
+                if (running) {
+                    return;
+                }
+                running = true;
+                last = onShutdown;
+            }
+            try {
+                start(last);
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "Serial executor cleanup rejected", e);
+            }
+        }
+
+        private void start(Runnable first) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 队列为空时才会启动循环，因此此时队列中只有first
+                synchronized (this) {
+                    tasks.remove(first);
+                    running = false;
+                }
+                throw e;
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.poll();
+                    if (task == null) {
+                        running = false;
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Serial task failed", e);
+                }
+            }
+        }
+    }
+
+    private final class Task<T> implements Runnable, Cancellable {
+        private final Callable<T> work;
+        private final Callback<T> callback;
+        private volatile boolean cancelled = false;
+
+        Task(Callable<T> work, Callback<T> callback) {
+            this.work = work;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                activeTasks.remove(this);
+                return;
+            }
+            T result = null;
+            Throwable error = null;
+            try {
+                result = work.call();
+            } catch (Throwable t) {
+                error = t;
+            } finally {
+                activeTasks.remove(this);
+            }
+            if (error != null) {
+                deliverError(error);
+            } else {
+                deliverResult(result);
+            }
+        }
+
+        private void deliverResult(T result) {
+            if (callback == null) {
+                return;
+            }
+            mainHandler.post(() -> {
+                if (!cancelled && !closed) {
+                    callback.onResult(result);
+                }
+            });
+        }
+
+        void deliverError(Throwable error) {
+            if (callback == null) {
+                Log.e(TAG, "Async task failed", error);
+                return;
+            }
+            mainHandler.post(() -> {
+                if (!cancelled && !closed) {
+                    callback.onError(error);
+                }
+            });
+        }
+
+        /**
+         * 取消任务：尚未开始的任务不再执行，已在执行的任务结果被丢弃
+         * （数据库和Binder调用无法中途打断，因此不中断工作线程）
+         */
+        @Override
+        public void cancel() {
+            cancelled = true;
+            activeTasks.remove(this);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.myapplication.wifi;
+
+import android.database.Cursor;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 把Cursor逐行写成CSV或NDJSON
+ * 每次只读取当前行，复用同一个StringBuilder，导出占用的内存与行数无关。
+ * 数字列原样输出，文本列按格式转义；NULL在CSV中为空字段，在NDJSON中为null。
+ */
+public final class HistoryExporter {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String MIME_CSV = "text/csv";
+    public static final String MIME_NDJSON = "application/x-ndjson";
+
+    private final MetricsRegistry.Counter exportedRows =
+            MetricsRegistry.getInstance().counter(MetricsRegistry.EXPORT_ROWS);
+
+    /**
+     * @param format 格式名，为null时使用CSV
+     * @return 对应的MIME类型
+     * @throws IllegalArgumentException 不支持的格式
+     */
+    public static String mimeTypeOf(String format) {
+        if (format == null || FORMAT_CSV.equals(format)) {
+            return MIME_CSV;
+        }
+        if (FORMAT_NDJSON.equals(format)) {
+            return MIME_NDJSON;
+        }
+        throw new IllegalArgumentException("Unknown export format: " + format);
+    }
+
+    /**
+     * 写出Cursor中的所有行（不关闭Cursor和输出流）
+     * @param cursor   数据，从当前位置之后开始读取
+     * @param mimeType MIME_CSV或MIME_NDJSON
+     * @param out      输出，应带缓冲
+     * @return 写出的行数
+     */
+    public long export(Cursor cursor, String mimeType, Writer out) throws IOException {
+        boolean csv = MIME_CSV.equals(mimeType);
+        String[] columns = cursor.getColumnNames();
+        StringBuilder line = new StringBuilder(128);
+        if (csv) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                appendCsv(columns[i], line);
+            }
+            line.append('\n');
+            out.append(line);
+        }
+
+        long rows = 0;
+        while (cursor.moveToNext()) {
+            line.setLength(0);
+            if (csv) {
+                appendCsvRow(cursor, line);
+            } else {
+                appendJsonRow(cursor, columns, line);
+            }
+            line.append('\n');
+            out.append(line);
+            rows++;
+        }
+        out.flush();
+        exportedRows.add(rows);
+        return rows;
+    }
+
+    private static void appendCsvRow(Cursor cursor, StringBuilder line) {
+        for (int i = 0, n = cursor.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            switch (cursor.getType(i)) {
+                case Cursor.FIELD_TYPE_NULL:
+                    break;
+                case Cursor.FIELD_TYPE_INTEGER:
+                    line.append(cursor.getLong(i));
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    line.append(cursor.getDouble(i));
+                    break;
+                default:
+                    appendCsv(cursor.getString(i), line);
+                    break;
+            }
+        }
+    }
+
+    private static void appendJsonRow(Cursor cursor, String[] columns, StringBuilder line) {
+        line.append('{');
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendJsonString(columns[i], line);
+            line.append(':');
+            switch (cursor.getType(i)) {
+                case Cursor.FIELD_TYPE_NULL:
+                    line.append("null");
+                    break;
+                case Cursor.FIELD_TYPE_INTEGER:
+                    line.append(cursor.getLong(i));
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    line.append(cursor.getDouble(i));
+                    break;
+                default:
+                    appendJsonString(cursor.getString(i), line);
+                    break;
+            }
+        }
+        line.append('}');
+    }
+
+    /**
+     * 按RFC 4180转义：含逗号、引号或换行的字段加引号，引号双写
+     */
+    static void appendCsv(String value, StringBuilder sb) {
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    static void appendJsonString(String value, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.myapplication.wifi;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_ATTEMPT_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_BSSID;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_BUCKET_START;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_CAPABILITIES;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_CONNECT_COUNT;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_DURATION;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_FREQUENCY;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_ID;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_IP;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_LAST_CONNECT;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_RESULT;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_RSSI;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_RSSI_MAX;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_RSSI_MIN;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_RSSI_SUM;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_SCAN_COUNT;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_SECURITY;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_SSID;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_SSID_ID;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.INDEX_CONNECTS_SSID_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.INDEX_CONNECTS_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.INDEX_HISTORY_SSID_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.INDEX_HISTORY_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.INDEX_ROLLUP_DAILY_BUCKET;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.INDEX_ROLLUP_HOURLY_BUCKET;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.INDEX_SCANS_BSSID_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.INDEX_SCANS_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_CONNECTS;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_NAME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_ROLLUP_DAILY;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_ROLLUP_HOURLY;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_SCANS;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_SSID;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_SSID_FTS;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.VIEW_CONNECTS;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.VIEW_HISTORY;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.VIEW_SCANS;
+
+/**
+ * WiFi历史数据库的版本迁移
+ * 每个版本对应一个迁移步骤，升级时从旧版本逐步执行到新版本，保留已有数据。
+ * 新建数据库时先创建版本1的表，再执行全部迁移，保证新装和升级得到相同的结构。
+ */
+final class HistoryMigrations {
+
+    private static final String TAG = "HistoryMigrations";
+
+    /**
+     * 单个迁移步骤：把数据库从 (目标版本 - 1) 升级到目标版本
+     */
+    interface Migration {
+        void migrate(SQLiteDatabase db);
+    }
+
+    // 下标即目标版本号；版本1为初始结构，由createVersion1创建
+    private static final Migration[] MIGRATIONS = {
+            null,
+            null,
+            HistoryMigrations::migrateToV2,
+            HistoryMigrations::migrateToV3,
+            HistoryMigrations::migrateToV4,
+            HistoryMigrations::migrateToV5,
+            HistoryMigrations::migrateToV6,
+    };
+
+    private HistoryMigrations() {
+    }
+
+    /**
+     * 当前代码支持的最新版本
+     */
+    static int latestVersion() {
+        return MIGRATIONS.length - 1;
+    }
+
+    /**
+     * 创建版本1的表结构（最初发布的结构）
+     * @param db SQLite数据库实例
+     */
+    static void createVersion1(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_NAME + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COLUMN_SSID + " TEXT NOT NULL, " +
+                COLUMN_IP + " TEXT, " +
+                COLUMN_CONNECT_TIME + " LONG NOT NULL)");
+    }
+
+    /**
+     * 依次执行 (oldVersion, newVersion] 之间的迁移步骤
+     * SQLiteOpenHelper在同一个事务中调用，任一步失败整个升级回滚
+     * @param db         SQLite数据库实例
+     * @param oldVersion 旧版本号
+     * @param newVersion 新版本号
+     */
+    static void migrate(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (newVersion > latestVersion()) {
+            throw new IllegalStateException("No migration to version " + newVersion);
+        }
+        for (int version = oldVersion + 1; version <= newVersion; version++) {
+            Log.i(TAG, "Migrating history database to version " + version);
+            MIGRATIONS[version].migrate(db);
+        }
+    }
+
+    /**
+     * 版本2：SSID存入字典表，历史表只保存整数ID；
+     * 增加按连接时间倒序和按SSID查询的覆盖索引；
+     * 增加还原出SSID文本的视图供读取使用
+     */
+    private static void migrateToV2(SQLiteDatabase db) {
+        // SSID字典表
+        db.execSQL("CREATE TABLE " + TABLE_SSID + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY, " +
+                COLUMN_SSID + " TEXT NOT NULL UNIQUE)");
+        db.execSQL("INSERT INTO " + TABLE_SSID + " (" + COLUMN_SSID + ") " +
+                "SELECT DISTINCT " + COLUMN_SSID + " FROM " + TABLE_NAME);
+
+        // 新历史表，保留原有ID，数据从旧表复制
+        String newTable = TABLE_NAME + "_v2";
+        db.execSQL("CREATE TABLE " + newTable + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COLUMN_SSID_ID + " INTEGER NOT NULL REFERENCES " + TABLE_SSID + "(" + COLUMN_ID + "), " +
+                COLUMN_IP + " TEXT, " +
+                COLUMN_CONNECT_TIME + " INTEGER NOT NULL)");
+        db.execSQL("INSERT INTO " + newTable + " (" +
+                COLUMN_ID + ", " + COLUMN_SSID_ID + ", " + COLUMN_IP + ", " + COLUMN_CONNECT_TIME + ") " +
+                "SELECT h." + COLUMN_ID + ", d." + COLUMN_ID + ", h." + COLUMN_IP + ", h." + COLUMN_CONNECT_TIME +
+                " FROM " + TABLE_NAME + " h JOIN " + TABLE_SSID + " d ON d." + COLUMN_SSID + " = h." + COLUMN_SSID);
+        db.execSQL("DROP TABLE " + TABLE_NAME);
+        db.execSQL("ALTER TABLE " + newTable + " RENAME TO " + TABLE_NAME);
+
+        // 覆盖索引：ORDER BY connect_time DESC, _id DESC 的分页查询无需回表、无需排序
+        db.execSQL("CREATE INDEX " + INDEX_HISTORY_TIME + " ON " + TABLE_NAME + " (" +
+                COLUMN_CONNECT_TIME + ", " + COLUMN_ID + ", " + COLUMN_SSID_ID + ", " + COLUMN_IP + ")");
+        // 按SSID查询最近连接
+        db.execSQL("CREATE INDEX " + INDEX_HISTORY_SSID_TIME + " ON " + TABLE_NAME + " (" +
+                COLUMN_SSID_ID + ", " + COLUMN_CONNECT_TIME + ", " + COLUMN_ID + ")");
+
+        // 读取视图：与版本1的列名一致
+        db.execSQL("CREATE VIEW " + VIEW_HISTORY + " AS SELECT " +
+                "h." + COLUMN_ID + " AS " + COLUMN_ID + ", " +
+                "h." + COLUMN_SSID_ID + " AS " + COLUMN_SSID_ID + ", " +
+                "d." + COLUMN_SSID + " AS " + COLUMN_SSID + ", " +
+                "h." + COLUMN_IP + " AS " + COLUMN_IP + ", " +
+                "h." + COLUMN_CONNECT_TIME + " AS " + COLUMN_CONNECT_TIME +
+                " FROM " + TABLE_NAME + " h JOIN " + TABLE_SSID + " d ON d." + COLUMN_ID + " = h." + COLUMN_SSID_ID);
+    }
+
+    /**
+     * 版本3：增加扫描结果表（按扫描时间和按BSSID查询的索引）及带SSID文本的视图
+     */
+    private static void migrateToV3(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_SCANS + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COLUMN_BSSID + " INTEGER NOT NULL, " +
+                COLUMN_SSID_ID + " INTEGER REFERENCES " + TABLE_SSID + "(" + COLUMN_ID + "), " +
+                COLUMN_RSSI + " INTEGER NOT NULL, " +
+                COLUMN_FREQUENCY + " INTEGER, " +
+                COLUMN_CAPABILITIES + " TEXT, " +
+                COLUMN_SCAN_TIME + " INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX " + INDEX_SCANS_TIME + " ON " + TABLE_SCANS + " (" +
+                COLUMN_SCAN_TIME + ", " + COLUMN_ID + ")");
+        db.execSQL("CREATE INDEX " + INDEX_SCANS_BSSID_TIME + " ON " + TABLE_SCANS + " (" +
+                COLUMN_BSSID + ", " + COLUMN_SCAN_TIME + ")");
+        db.execSQL("CREATE VIEW " + VIEW_SCANS + " AS SELECT " +
+                "s." + COLUMN_ID + " AS " + COLUMN_ID + ", " +
+                "s." + COLUMN_BSSID + " AS " + COLUMN_BSSID + ", " +
+                "s." + COLUMN_SSID_ID + " AS " + COLUMN_SSID_ID + ", " +
+                "d." + COLUMN_SSID + " AS " + COLUMN_SSID + ", " +
+                "s." + COLUMN_RSSI + " AS " + COLUMN_RSSI + ", " +
+                "s." + COLUMN_FREQUENCY + " AS " + COLUMN_FREQUENCY + ", " +
+                "s." + COLUMN_CAPABILITIES + " AS " + COLUMN_CAPABILITIES + ", " +
+                "s." + COLUMN_SCAN_TIME + " AS " + COLUMN_SCAN_TIME +
+                " FROM " + TABLE_SCANS + " s LEFT JOIN " + TABLE_SSID + " d ON d." + COLUMN_ID + " = s." + COLUMN_SSID_ID);
+    }
+
+    /**
+     * 版本4：增加连接尝试表，按SSID记录每次连接的安全类型、耗时和结果（成功或失败原因）
+     */
+    private static void migrateToV4(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_CONNECTS + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COLUMN_SSID_ID + " INTEGER NOT NULL REFERENCES " + TABLE_SSID + "(" + COLUMN_ID + "), " +
+                COLUMN_SECURITY + " TEXT, " +
+                COLUMN_ATTEMPT_TIME + " INTEGER NOT NULL, " +
+                COLUMN_DURATION + " INTEGER, " +
+                COLUMN_RESULT + " TEXT NOT NULL)");
+        // 按SSID查看最近的连接耗时和失败原因
+        db.execSQL("CREATE INDEX " + INDEX_CONNECTS_SSID_TIME + " ON " + TABLE_CONNECTS + " (" +
+                COLUMN_SSID_ID + ", " + COLUMN_ATTEMPT_TIME + ")");
+        db.execSQL("CREATE VIEW " + VIEW_CONNECTS + " AS SELECT " +
+                "c." + COLUMN_ID + " AS " + COLUMN_ID + ", " +
+                "c." + COLUMN_SSID_ID + " AS " + COLUMN_SSID_ID + ", " +
+                "d." + COLUMN_SSID + " AS " + COLUMN_SSID + ", " +
+                "c." + COLUMN_SECURITY + " AS " + COLUMN_SECURITY + ", " +
+                "c." + COLUMN_ATTEMPT_TIME + " AS " + COLUMN_ATTEMPT_TIME + ", " +
+                "c." + COLUMN_DURATION + " AS " + COLUMN_DURATION + ", " +
+                "c." + COLUMN_RESULT + " AS " + COLUMN_RESULT +
+                " FROM " + TABLE_CONNECTS + " c JOIN " + TABLE_SSID + " d ON d." + COLUMN_ID + " = c." + COLUMN_SSID_ID);
+    }
+
+    /**
+     * 版本5：增加按小时和按天的汇总表，供保留策略把过期的原始记录汇总后删除；
+     * 汇总表按(ssid_id, 时间段)唯一，另建时间段索引用于按时间分块处理；
+     * 连接尝试表增加时间索引，按时间删除过期记录时不必全表扫描
+     */
+    private static void migrateToV5(SQLiteDatabase db) {
+        createRollupTable(db, TABLE_ROLLUP_HOURLY, INDEX_ROLLUP_HOURLY_BUCKET);
+        createRollupTable(db, TABLE_ROLLUP_DAILY, INDEX_ROLLUP_DAILY_BUCKET);
+        db.execSQL("CREATE INDEX " + INDEX_CONNECTS_TIME + " ON " + TABLE_CONNECTS + " (" +
+                COLUMN_ATTEMPT_TIME + ", " + COLUMN_ID + ")");
+    }
+
+    /**
+     * 版本6：SSID字典的FTS4全文索引，支持按词前缀搜索连接历史
+     * 使用外部内容表（不重复保存SSID文本），由字典表上的触发器保持同步，
+     * 历史表只引用字典ID，因此写入历史时不需要更新索引；prefix选项为1到3个字符的前缀建立额外索引
+     */
+    private static void migrateToV6(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_SSID_FTS + " USING fts4(content=\"" + TABLE_SSID + "\", " +
+                COLUMN_SSID + ", prefix=\"1,2,3\")");
+        String insertFts = "INSERT INTO " + TABLE_SSID_FTS + " (docid, " + COLUMN_SSID + ") VALUES (new." +
+                COLUMN_ID + ", new." + COLUMN_SSID + "); END";
+        String deleteFts = "DELETE FROM " + TABLE_SSID_FTS + " WHERE docid = old." + COLUMN_ID + "; END";
+        // 外部内容表：删除和更新前先按旧内容删除索引，插入和更新后再按新内容建立索引
+        db.execSQL("CREATE TRIGGER ssid_fts_after_insert AFTER INSERT ON " + TABLE_SSID + " BEGIN " + insertFts);
+        db.execSQL("CREATE TRIGGER ssid_fts_before_delete BEFORE DELETE ON " + TABLE_SSID + " BEGIN " + deleteFts);
+        db.execSQL("CREATE TRIGGER ssid_fts_before_update BEFORE UPDATE ON " + TABLE_SSID + " BEGIN " + deleteFts);
+        db.execSQL("CREATE TRIGGER ssid_fts_after_update AFTER UPDATE ON " + TABLE_SSID + " BEGIN " + insertFts);
+        // 为已有的字典行建立索引
+        db.execSQL("INSERT INTO " + TABLE_SSID_FTS + " (" + TABLE_SSID_FTS + ") VALUES ('rebuild')");
+    }
+
+    private static void createRollupTable(SQLiteDatabase db, String table, String bucketIndex) {
+        db.execSQL("CREATE TABLE " + table + " (" +
+                COLUMN_SSID_ID + " INTEGER NOT NULL, " +
+                COLUMN_BUCKET_START + " INTEGER NOT NULL, " +
+                COLUMN_CONNECT_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+                COLUMN_LAST_CONNECT + " INTEGER NOT NULL DEFAULT 0, " +
+                COLUMN_SCAN_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+                COLUMN_RSSI_SUM + " INTEGER NOT NULL DEFAULT 0, " +
+                COLUMN_RSSI_MIN + " INTEGER, " +
+                COLUMN_RSSI_MAX + " INTEGER, " +
+                "UNIQUE (" + COLUMN_SSID_ID + ", " + COLUMN_BUCKET_START + "))");
+        db.execSQL("CREATE INDEX " + bucketIndex + " ON " + table + " (" + COLUMN_BUCKET_START + ")");
+    }
+}
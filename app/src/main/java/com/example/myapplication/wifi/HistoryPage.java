@@ -0,0 +1,63 @@
+package com.example.myapplication.wifi;
+
+/**
+ * WiFi连接历史的一页数据
+ * 按列存放在并行数组中，不为每一行创建对象；时间戳保持原始值，显示时再格式化
+ */
+public final class HistoryPage {
+
+    private final long[] ids;
+    private final String[] ssids;
+    private final String[] ips;
+    private final long[] connectTimes;
+    private final int size;
+
+    HistoryPage(long[] ids, String[] ssids, String[] ips, long[] connectTimes, int size) {
+        this.ids = ids;
+        this.ssids = ssids;
+        this.ips = ips;
+        this.connectTimes = connectTimes;
+        this.size = size;
+    }
+
+    /**
+     * @return 本页记录数
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    public String getSsid(int index) {
+        return ssids[index];
+    }
+
+    public String getIp(int index) {
+        return ips[index];
+    }
+
+    public long getConnectTime(int index) {
+        return connectTimes[index];
+    }
+
+    /**
+     * 本页最后一条记录的连接时间，作为下一页的键集起点
+     */
+    public long getLastConnectTime() {
+        return connectTimes[size - 1];
+    }
+
+    /**
+     * 本页最后一条记录的ID，与连接时间一起作为下一页的键集起点
+     */
+    public long getLastId() {
+        return ids[size - 1];
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.myapplication.wifi;
+
+import android.content.Context;
+import android.util.SparseBooleanArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * WiFi连接历史分页适配器
+ * 通过AsyncRunner在后台线程按键集（connect_time, _id）逐页读取历史记录，Activity销毁后不再交付结果；
+ * 只在内存中保留最近使用的少量页面，行内容在可见时才格式化，
+ * 因此内存占用与历史表大小无关
+ */
+public class HistoryPagingAdapter extends BaseAdapter {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_CACHED_PAGES = 6;   // 内存中最多保留的页数
+    private static final int PREFETCH_DISTANCE = 10; // 距页尾多少行时预读下一页
+
+    private final Context context;
+    private final WiFiHistoryDatabaseHelper dbHelper;
+    private final AsyncRunner asyncRunner;
+    private final int pageSize;
+
+    // 最近使用的页面缓存（按访问顺序，超出容量时淘汰最久未用的页）
+    private final LinkedHashMap<Integer, HistoryPage> pages =
+            new LinkedHashMap<Integer, HistoryPage>(MAX_CACHED_PAGES + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, HistoryPage> eldest) {
+                    return size() > MAX_CACHED_PAGES;
+                }
+            };
+    // 第i页的起点键（即第i-1页最后一条记录），被淘汰的页可据此重新读取
+    private long[] anchorTimes = new long[16];
+    private long[] anchorIds = new long[16];
+    private final SparseBooleanArray loading = new SparseBooleanArray(); // 正在读取的页
+
+    private int knownRows = 0;       // 已确认存在的行数
+    private boolean hasMore = true;  // 是否还有未读取的页
+    private boolean closed = false;
+
+    // 时间格式化对象只在主线程使用，全适配器共用一个
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.CHINA);
+    private final Date date = new Date();
+
+    /**
+     * 构造函数
+     * @param context   上下文
+     * @param dbHelper  数据库帮助类
+     * @param asyncRunner 执行数据库读取的异步执行层（绑定到所属Activity）
+     * @param firstPage   已在后台读取好的第一页
+     */
+    public HistoryPagingAdapter(Context context, WiFiHistoryDatabaseHelper dbHelper,
+                                AsyncRunner asyncRunner, HistoryPage firstPage) {
+        this(context, dbHelper, asyncRunner, firstPage, DEFAULT_PAGE_SIZE);
+    }
+
+    public HistoryPagingAdapter(Context context, WiFiHistoryDatabaseHelper dbHelper,
+                                AsyncRunner asyncRunner, HistoryPage firstPage, int pageSize) {
+        this.context = context;
+        this.dbHelper = dbHelper;
+        this.asyncRunner = asyncRunner;
+        this.pageSize = pageSize;
+        anchorIds[0] = -1; // 第一页没有起点
+        onPageLoaded(0, firstPage);
+    }
+
+    /**
+     * 在后台线程读取第一页，用于决定是否需要显示历史列表
+     * @param dbHelper 数据库帮助类
+     * @return 第一页历史记录
+     */
+    public static HistoryPage loadFirstPage(WiFiHistoryDatabaseHelper dbHelper) {
+        return dbHelper.queryHistoryPage(0, -1, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * 关闭适配器，之后返回的页面将被丢弃
+     */
+    public void close() {
+        closed = true;
+        pages.clear();
+    }
+
+    @Override
+    public int getCount() {
+        // 还有更多数据时在末尾显示一行"加载中"
+        return hasMore ? knownRows + 1 : knownRows;
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return null;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        HistoryPage page = pages.get(position / pageSize);
+        int index = position % pageSize;
+        return page != null && index < page.size() ? page.getId(index) : -position - 1;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return false;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView view = (TextView) (convertView != null ? convertView
+                : LayoutInflater.from(context).inflate(android.R.layout.simple_list_item_1, parent, false));
+
+        int pageIndex = position / pageSize;
+        int index = position % pageSize;
+        HistoryPage page = pages.get(pageIndex);
+        if (page == null || index >= page.size()) {
+            view.setText("加载中...");
+            requestPage(pageIndex);
+            return view;
+        }
+
+        // 接近页尾时预读下一页，滚动时尽量不出现"加载中"
+        if (index >= pageSize - PREFETCH_DISTANCE && hasMore) {
+            requestPage(pageIndex + 1);
+        }
+
+        // 行可见时才格式化
+        date.setTime(page.getConnectTime(index));
+        view.setText("SSID: " + page.getSsid(index) + "\n" +
+                "IP: " + page.getIp(index) + "\n" +
+                "时间: " + dateFormat.format(date));
+        return view;
+    }
+
+    /**
+     * 请求在后台读取指定页（已缓存或正在读取时忽略）
+     * @param pageIndex 页码
+     */
+    private void requestPage(int pageIndex) {
+        if (closed || pages.containsKey(pageIndex) || loading.get(pageIndex)) {
+            return;
+        }
+        // 只有知道起点键的页才能读取（起点在读取上一页时记录）
+        if (pageIndex * pageSize > knownRows) {
+            return;
+        }
+        final long afterTime = anchorTimes[pageIndex];
+        final long afterId = anchorIds[pageIndex];
+        loading.put(pageIndex, true);
+        asyncRunner.submit(() -> dbHelper.queryHistoryPage(afterTime, afterId, pageSize),
+                new AsyncRunner.Callback<HistoryPage>() {
+                    @Override
+                    public void onResult(HistoryPage page) {
+                        loading.delete(pageIndex);
+                        if (!closed) {
+                            onPageLoaded(pageIndex, page);
+                            notifyDataSetChanged();
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        // 读取失败或队列已满，滚动到该页时重试
+                        loading.delete(pageIndex);
+                        AsyncRunner.Callback.super.onError(error);
+                    }
+                });
+    }
+
+    /**
+     * 页面读取完成（主线程）：放入缓存并记录下一页的起点键
+     */
+    private void onPageLoaded(int pageIndex, HistoryPage page) {
+        pages.put(pageIndex, page);
+        int end = pageIndex * pageSize + page.size();
+        if (end > knownRows) {
+            knownRows = end;
+        }
+        if (page.size() < pageSize) {
+            hasMore = false;
+            return;
+        }
+        int next = pageIndex + 1;
+        if (next >= anchorIds.length) {
+            anchorTimes = Arrays.copyOf(anchorTimes, anchorTimes.length * 2);
+            anchorIds = Arrays.copyOf(anchorIds, anchorIds.length * 2);
+        }
+        anchorTimes[next] = page.getLastConnectTime();
+        anchorIds[next] = page.getLastId();
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.myapplication.wifi;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.function.BooleanSupplier;
+
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_ATTEMPT_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_BUCKET_START;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_CONNECT_COUNT;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_ID;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_LAST_CONNECT;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_RSSI;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_RSSI_MAX;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_RSSI_MIN;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_RSSI_SUM;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_SCAN_COUNT;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.COLUMN_SSID_ID;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_CONNECTS;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_NAME;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_ROLLUP_DAILY;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_ROLLUP_HOURLY;
+import static com.example.myapplication.wifi.WiFiHistoryDatabaseHelper.TABLE_SCANS;
+
+/**
+ * 历史数据库的保留策略
+ * 过期的原始连接历史和扫描结果按小时、SSID汇总到history_rollup_hourly后删除；
+ * 过期的小时汇总再合并到按天的history_rollup_daily；超过保留期的天汇总和连接尝试直接删除；
+ * 最后用增量VACUUM把空闲页归还给文件系统；升级前创建的数据库不是增量VACUUM模式，
+ * 需要先由convertToIncrementalVacuum()做一次完整VACUUM转换。
+ * 所有步骤都分块执行，每块一个短事务，块大小根据上一块的耗时自动调整，
+ * 使每个事务持有写锁的时间不超过Policy.chunkBudgetMs；块之间暂停，让写入线程取得锁。
+ * 应在后台线程调用。
+ */
+public class HistoryRetention {
+
+    private static final String TAG = "HistoryRetention";
+
+    private static final long HOUR_MS = 3600_000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+
+    private static final int MIN_BATCH = 16;          // 每块最少行数
+    private static final int MAX_BATCH = 4096;        // 每块最多行数
+    private static final int INITIAL_BATCH = 256;
+    private static final int MIN_VACUUM_PAGES = 8;    // 每次增量VACUUM最少页数
+    private static final int MAX_VACUUM_PAGES = 1024;
+    private static final int INITIAL_VACUUM_PAGES = 64;
+    private static final long CHUNK_PAUSE_MS = 20;    // 块之间的暂停
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    // 合并到已有的汇总行：计数和信号强度之和累加，最后连接时间和信号强度极值取较大/较小者（NULL表示没有样本）
+    private static final String UPSERT_ROLLUP =
+            " ON CONFLICT (" + COLUMN_SSID_ID + ", " + COLUMN_BUCKET_START + ") DO UPDATE SET " +
+                    COLUMN_CONNECT_COUNT + " = " + COLUMN_CONNECT_COUNT + " + excluded." + COLUMN_CONNECT_COUNT + ", " +
+                    COLUMN_LAST_CONNECT + " = MAX(" + COLUMN_LAST_CONNECT + ", excluded." + COLUMN_LAST_CONNECT + "), " +
+                    COLUMN_SCAN_COUNT + " = " + COLUMN_SCAN_COUNT + " + excluded." + COLUMN_SCAN_COUNT + ", " +
+                    COLUMN_RSSI_SUM + " = " + COLUMN_RSSI_SUM + " + excluded." + COLUMN_RSSI_SUM + ", " +
+                    COLUMN_RSSI_MIN + " = CASE WHEN " + COLUMN_RSSI_MIN + " IS NULL OR excluded." + COLUMN_RSSI_MIN +
+                    " < " + COLUMN_RSSI_MIN + " THEN excluded." + COLUMN_RSSI_MIN + " ELSE " + COLUMN_RSSI_MIN + " END, " +
+                    COLUMN_RSSI_MAX + " = CASE WHEN " + COLUMN_RSSI_MAX + " IS NULL OR excluded." + COLUMN_RSSI_MAX +
+                    " > " + COLUMN_RSSI_MAX + " THEN excluded." + COLUMN_RSSI_MAX + " ELSE " + COLUMN_RSSI_MAX + " END";
+    private static final String ROLLUP_COLUMNS = " (" + COLUMN_SSID_ID + ", " + COLUMN_BUCKET_START + ", " +
+            COLUMN_CONNECT_COUNT + ", " + COLUMN_LAST_CONNECT + ", " + COLUMN_SCAN_COUNT + ", " +
+            COLUMN_RSSI_SUM + ", " + COLUMN_RSSI_MIN + ", " + COLUMN_RSSI_MAX + ") ";
+
+    // 每块处理的原始行：按时间索引取最早的若干行；同一事务内汇总和删除两次求值得到相同的行
+    private static final String HISTORY_CHUNK = "SELECT " + COLUMN_ID + " FROM " + TABLE_NAME +
+            " WHERE " + COLUMN_CONNECT_TIME + " < ? ORDER BY " + COLUMN_CONNECT_TIME + ", " + COLUMN_ID + " LIMIT ?";
+    private static final String SCANS_CHUNK = "SELECT " + COLUMN_ID + " FROM " + TABLE_SCANS +
+            " WHERE " + COLUMN_SCAN_TIME + " < ? ORDER BY " + COLUMN_SCAN_TIME + ", " + COLUMN_ID + " LIMIT ?";
+    private static final String HOURLY_CHUNK = "SELECT rowid FROM " + TABLE_ROLLUP_HOURLY +
+            " WHERE " + COLUMN_BUCKET_START + " < ? ORDER BY " + COLUMN_BUCKET_START + ", rowid LIMIT ?";
+
+    private static final String ROLLUP_HISTORY_SQL = "INSERT INTO " + TABLE_ROLLUP_HOURLY + ROLLUP_COLUMNS +
+            "SELECT " + COLUMN_SSID_ID + ", " + COLUMN_CONNECT_TIME + " - " + COLUMN_CONNECT_TIME + " % " + HOUR_MS +
+            ", COUNT(*), MAX(" + COLUMN_CONNECT_TIME + "), 0, 0, NULL, NULL FROM " + TABLE_NAME +
+            " WHERE " + COLUMN_ID + " IN (" + HISTORY_CHUNK + ") GROUP BY 1, 2" + UPSERT_ROLLUP;
+    private static final String DELETE_HISTORY_SQL = "DELETE FROM " + TABLE_NAME +
+            " WHERE " + COLUMN_ID + " IN (" + HISTORY_CHUNK + ")";
+
+    private static final String ROLLUP_SCANS_SQL = "INSERT INTO " + TABLE_ROLLUP_HOURLY + ROLLUP_COLUMNS +
+            "SELECT IFNULL(" + COLUMN_SSID_ID + ", 0), " + COLUMN_SCAN_TIME + " - " + COLUMN_SCAN_TIME + " % " + HOUR_MS +
+            ", 0, 0, COUNT(*), SUM(" + COLUMN_RSSI + "), MIN(" + COLUMN_RSSI + "), MAX(" + COLUMN_RSSI + ") FROM " +
+            TABLE_SCANS + " WHERE " + COLUMN_ID + " IN (" + SCANS_CHUNK + ") GROUP BY 1, 2" + UPSERT_ROLLUP;
+    private static final String DELETE_SCANS_SQL = "DELETE FROM " + TABLE_SCANS +
+            " WHERE " + COLUMN_ID + " IN (" + SCANS_CHUNK + ")";
+
+    private static final String ROLLUP_HOURLY_SQL = "INSERT INTO " + TABLE_ROLLUP_DAILY + ROLLUP_COLUMNS +
+            "SELECT " + COLUMN_SSID_ID + ", " + COLUMN_BUCKET_START + " - " + COLUMN_BUCKET_START + " % " + DAY_MS +
+            ", SUM(" + COLUMN_CONNECT_COUNT + "), MAX(" + COLUMN_LAST_CONNECT + "), SUM(" + COLUMN_SCAN_COUNT +
+            "), SUM(" + COLUMN_RSSI_SUM + "), MIN(" + COLUMN_RSSI_MIN + "), MAX(" + COLUMN_RSSI_MAX + ") FROM " +
+            TABLE_ROLLUP_HOURLY + " WHERE rowid IN (" + HOURLY_CHUNK + ") GROUP BY 1, 2" + UPSERT_ROLLUP;
+    private static final String DELETE_HOURLY_SQL = "DELETE FROM " + TABLE_ROLLUP_HOURLY +
+            " WHERE rowid IN (" + HOURLY_CHUNK + ")";
+
+    private static final String DELETE_DAILY_SQL = "DELETE FROM " + TABLE_ROLLUP_DAILY +
+            " WHERE rowid IN (SELECT rowid FROM " + TABLE_ROLLUP_DAILY + " WHERE " + COLUMN_BUCKET_START +
+            " < ? ORDER BY " + COLUMN_BUCKET_START + ", rowid LIMIT ?)";
+    private static final String DELETE_CONNECTS_SQL = "DELETE FROM " + TABLE_CONNECTS +
+            " WHERE " + COLUMN_ID + " IN (SELECT " + COLUMN_ID + " FROM " + TABLE_CONNECTS + " WHERE " +
+            COLUMN_ATTEMPT_TIME + " < ? ORDER BY " + COLUMN_ATTEMPT_TIME + ", " + COLUMN_ID + " LIMIT ?)";
+
+    /**
+     * 保留期配置
+     */
+    public static final class Policy {
+        public static final Policy DEFAULT = new Policy(7 * DAY_MS, 90 * DAY_MS, 730 * DAY_MS, 4);
+
+        public final long rawRetentionMs;    // 原始历史和扫描结果保留时间，之后汇总到小时表
+        public final long hourlyRetentionMs; // 小时汇总和连接尝试保留时间，之后汇总到天表或删除
+        public final long dailyRetentionMs;  // 天汇总保留时间，小于等于0表示永久保留
+        public final long chunkBudgetMs;     // 每个事务的目标耗时
+
+        public Policy(long rawRetentionMs, long hourlyRetentionMs, long dailyRetentionMs, long chunkBudgetMs) {
+            if (rawRetentionMs <= 0 || hourlyRetentionMs < rawRetentionMs || chunkBudgetMs <= 0) {
+                throw new IllegalArgumentException("Invalid retention policy");
+            }
+            this.rawRetentionMs = rawRetentionMs;
+            this.hourlyRetentionMs = hourlyRetentionMs;
+            this.dailyRetentionMs = dailyRetentionMs;
+            this.chunkBudgetMs = chunkBudgetMs;
+        }
+    }
+
+    /**
+     * 一次执行的结果
+     */
+    public static final class Result {
+        public long historyRows;   // 汇总并删除的原始历史行数
+        public long scanRows;      // 汇总并删除的扫描结果行数
+        public long hourlyRows;    // 合并到天表并删除的小时汇总行数
+        public long dailyRows;     // 删除的过期天汇总行数
+        public long connectRows;   // 删除的过期连接尝试行数
+        public long vacuumedPages; // 归还的空闲页数
+        public int chunks;         // 执行的事务数
+        public boolean stopped;    // 是否因停止请求提前结束
+        public boolean needsVacuumConversion; // 数据库不是增量VACUUM模式，需要convertToIncrementalVacuum()
+
+        @Override
+        public String toString() {
+            return "history=" + historyRows + ", scans=" + scanRows + ", hourly=" + hourlyRows +
+                    ", daily=" + dailyRows + ", connects=" + connectRows + ", vacuumedPages=" + vacuumedPages +
+                    ", chunks=" + chunks + (stopped ? " (stopped)" : "") +
+                    (needsVacuumConversion ? " (needs vacuum conversion)" : "");
+        }
+    }
+
+    /**
+     * 一块的处理：在调用方开启的事务内处理最多batch行
+     */
+    private interface ChunkStep {
+        /**
+         * @return 处理的行数，小于batch表示已处理完
+         */
+        int apply(SQLiteDatabase db, int batch);
+    }
+
+    private final WiFiHistoryDatabaseHelper dbHelper;
+    private final Policy policy;
+    private final LatencyHistogram chunkLatency =
+            MetricsRegistry.getInstance().histogram(MetricsRegistry.RETENTION_CHUNK);
+    private final MetricsRegistry.Counter retainedRows =
+            MetricsRegistry.getInstance().counter(MetricsRegistry.RETENTION_ROWS);
+
+    public HistoryRetention(WiFiHistoryDatabaseHelper dbHelper) {
+        this(dbHelper, Policy.DEFAULT);
+    }
+
+    public HistoryRetention(WiFiHistoryDatabaseHelper dbHelper, Policy policy) {
+        this.dbHelper = dbHelper;
+        this.policy = policy;
+    }
+
+    /**
+     * 执行一次保留策略
+     * @param nowMs 当前时间（毫秒时间戳）
+     * @param stop  每块之后检查，返回true时尽快结束（已提交的块保留）
+     * @return 执行结果
+     */
+    public Result run(long nowMs, BooleanSupplier stop) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        Result result = new Result();
+        long rawCutoff = nowMs - policy.rawRetentionMs;
+        long hourlyCutoff = nowMs - policy.hourlyRetentionMs;
+
+        result.historyRows = runChunks(db, result, stop, (d, batch) ->
+                rollupAndDelete(d, ROLLUP_HISTORY_SQL, DELETE_HISTORY_SQL, rawCutoff, batch));
+        result.scanRows = runChunks(db, result, stop, (d, batch) ->
+                rollupAndDelete(d, ROLLUP_SCANS_SQL, DELETE_SCANS_SQL, rawCutoff, batch));
+        result.hourlyRows = runChunks(db, result, stop, (d, batch) ->
+                rollupAndDelete(d, ROLLUP_HOURLY_SQL, DELETE_HOURLY_SQL, hourlyCutoff, batch));
+        result.connectRows = runChunks(db, result, stop, (d, batch) ->
+                delete(d, DELETE_CONNECTS_SQL, hourlyCutoff, batch));
+        if (policy.dailyRetentionMs > 0) {
+            long dailyCutoff = nowMs - policy.dailyRetentionMs;
+            result.dailyRows = runChunks(db, result, stop, (d, batch) ->
+                    delete(d, DELETE_DAILY_SQL, dailyCutoff, batch));
+        }
+        retainedRows.add(result.historyRows + result.scanRows + result.hourlyRows
+                + result.dailyRows + result.connectRows);
+
+        if (!result.stopped) {
+            result.vacuumedPages = incrementalVacuum(db, result, stop);
+        }
+        Log.i(TAG, "Retention finished: " + result);
+        return result;
+    }
+
+    /**
+     * 把升级前创建的数据库转换为增量VACUUM模式：设置auto_vacuum后执行一次完整VACUUM
+     * 完整VACUUM重写整个数据库文件，期间独占写锁且不能中途停止，只应在设备空闲且充电时执行。
+     * @return 是否执行了转换，已是增量模式时返回false
+     */
+    public boolean convertToIncrementalVacuum() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        if (isIncrementalVacuum(db)) {
+            return false;
+        }
+        long start = SystemClock.elapsedRealtime();
+        // 对已有数据库，auto_vacuum的新值要在VACUUM重建后才生效
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        db.execSQL("VACUUM");
+        Log.i(TAG, "Converted database to incremental auto_vacuum in "
+                + (SystemClock.elapsedRealtime() - start) + "ms");
+        return true;
+    }
+
+    private static boolean isIncrementalVacuum(SQLiteDatabase db) {
+        return DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null) == AUTO_VACUUM_INCREMENTAL;
+    }
+
+    /**
+     * 分块执行一个步骤直到处理完或被要求停止
+     * @return 处理的总行数
+     */
+    private long runChunks(SQLiteDatabase db, Result result, BooleanSupplier stop, ChunkStep step) {
+        long total = 0;
+        int batch = INITIAL_BATCH;
+        while (!result.stopped) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            int processed;
+            db.beginTransactionNonExclusive();
+            try {
+                processed = step.apply(db, batch);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            long elapsedNanos = SystemClock.elapsedRealtimeNanos() - start;
+            chunkLatency.recordNanos(elapsedNanos);
+            result.chunks++;
+            total += processed;
+            if (processed < batch) {
+                break;
+            }
+            batch = nextSize(batch, elapsedNanos, MIN_BATCH, MAX_BATCH);
+            pause(stop, result);
+        }
+        return total;
+    }
+
+    /**
+     * 增量VACUUM：每次归还一批空闲页，直到没有空闲页
+     * 数据库不是增量VACUUM模式（升级前创建的数据库）时跳过并标记needsVacuumConversion
+     * @return 归还的页数
+     */
+    private long incrementalVacuum(SQLiteDatabase db, Result result, BooleanSupplier stop) {
+        if (!isIncrementalVacuum(db)) {
+            Log.i(TAG, "Database is not in incremental auto_vacuum mode, skipping vacuum");
+            result.needsVacuumConversion = true;
+            return 0;
+        }
+        long total = 0;
+        int pages = INITIAL_VACUUM_PAGES;
+        while (!result.stopped) {
+            long free = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+            if (free == 0) {
+                break;
+            }
+            long start = SystemClock.elapsedRealtimeNanos();
+            // incremental_vacuum在步进时执行，通过rawQuery运行并读取结果
+            Cursor cursor = db.rawQuery("PRAGMA incremental_vacuum(" + pages + ")", null);
+            try {
+                cursor.moveToFirst();
+            } finally {
+                cursor.close();
+            }
+            long elapsedNanos = SystemClock.elapsedRealtimeNanos() - start;
+            chunkLatency.recordNanos(elapsedNanos);
+            result.chunks++;
+            total += Math.min(free, pages);
+            pages = nextSize(pages, elapsedNanos, MIN_VACUUM_PAGES, MAX_VACUUM_PAGES);
+            pause(stop, result);
+        }
+        return total;
+    }
+
+    /**
+     * 根据上一块的耗时调整块大小：超出预算减半，不到预算一半时加倍
+     */
+    private int nextSize(int size, long elapsedNanos, int min, int max) {
+        long budgetNanos = policy.chunkBudgetMs * 1_000_000;
+        if (elapsedNanos > budgetNanos) {
+            return Math.max(min, size / 2);
+        }
+        if (elapsedNanos < budgetNanos / 2) {
+            return Math.min(max, size * 2);
+        }
+        return size;
+    }
+
+    private static void pause(BooleanSupplier stop, Result result) {
+        if (stop.getAsBoolean()) {
+            result.stopped = true;
+            return;
+        }
+        SystemClock.sleep(CHUNK_PAUSE_MS);
+    }
+
+    private static int rollupAndDelete(SQLiteDatabase db, String rollupSql, String deleteSql, long cutoff, int batch) {
+        SQLiteStatement rollup = db.compileStatement(rollupSql);
+        try {
+            rollup.bindLong(1, cutoff);
+            rollup.bindLong(2, batch);
+            rollup.execute();
+        } finally {
+            rollup.close();
+        }
+        return delete(db, deleteSql, cutoff, batch);
+    }
+
+    private static int delete(SQLiteDatabase db, String deleteSql, long cutoff, int batch) {
+        SQLiteStatement delete = db.compileStatement(deleteSql);
+        try {
+            delete.bindLong(1, cutoff);
+            delete.bindLong(2, batch);
+            return delete.executeUpdateDelete();
+        } finally {
+            delete.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.myapplication.wifi;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 执行历史数据库保留策略的后台任务
+ * 定期任务由JobScheduler在电量充足时调度，不要求设备空闲：每个事务（包括增量VACUUM的每一块）
+ * 持有写锁不超过几毫秒，不影响前台写入；常亮的信息亭设备很少进入空闲状态，要求空闲会使清理长期不执行。
+ * 系统要求停止时在当前分块结束后退出，下次重新执行。
+ * 定期任务发现数据库不是增量VACUUM模式（升级前创建）时，另外调度一次性的转换任务，
+ * 在设备空闲且充电时执行完整VACUUM，之后的定期任务即可归还空闲页。
+ * onStopJob()之后系统已不再跟踪这次执行，工作线程退出时不再调用jobFinished()。
+ */
+public class HistoryRetentionJob extends JobService {
+
+    private static final String TAG = "HistoryRetentionJob";
+    private static final int JOB_ID = 1001;
+    private static final int VACUUM_CONVERSION_JOB_ID = 1002;
+    private static final long INTERVAL_MS = 6 * 3600_000L; // 执行间隔
+    private static final long FLEX_MS = 3600_000L;          // 间隔末尾允许系统选择执行时间的窗口
+
+    private volatile AtomicBoolean stopRequested; // 当前这次执行的停止标志，每次onStartJob新建
+
+    /**
+     * 调度定期任务；已调度时不重复调度（避免重置周期）
+     * @param context 上下文
+     */
+    public static void schedule(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler.getPendingJob(JOB_ID) != null) {
+            return;
+        }
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, HistoryRetentionJob.class))
+                .setPeriodic(INTERVAL_MS, FLEX_MS)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        if (scheduler.schedule(job) != JobScheduler.RESULT_SUCCESS) {
+            Log.w(TAG, "Failed to schedule history retention");
+        }
+    }
+
+    /**
+     * 调度一次性的增量VACUUM模式转换（完整VACUUM），只在设备空闲且充电时执行；已调度时不重复调度
+     * @param context 上下文
+     */
+    static void scheduleVacuumConversion(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler.getPendingJob(VACUUM_CONVERSION_JOB_ID) != null) {
+            return;
+        }
+        JobInfo job = new JobInfo.Builder(VACUUM_CONVERSION_JOB_ID,
+                new ComponentName(context, HistoryRetentionJob.class))
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .build();
+        if (scheduler.schedule(job) != JobScheduler.RESULT_SUCCESS) {
+            Log.w(TAG, "Failed to schedule vacuum conversion");
+        }
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        AtomicBoolean stop = new AtomicBoolean();
+        stopRequested = stop;
+        HistoryRetention retention = new HistoryRetention(WiFiHistoryDatabaseHelper.getInstance(this));
+        boolean conversion = params.getJobId() == VACUUM_CONVERSION_JOB_ID;
+        Thread worker = new Thread(() -> {
+            boolean reschedule = false;
+            try {
+                if (conversion) {
+                    // 完整VACUUM不能中途停止，被要求停止时仍执行完
+                    retention.convertToIncrementalVacuum();
+                } else {
+                    HistoryRetention.Result result = retention.run(System.currentTimeMillis(), stop::get);
+                    reschedule = result.stopped;
+                    if (result.needsVacuumConversion) {
+                        scheduleVacuumConversion(this);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, conversion ? "Vacuum conversion failed" : "History retention failed", e);
+                reschedule = conversion; // 定期任务下个周期会重新执行，一次性任务需要重试
+            }
+            if (!stop.get()) {
+                jobFinished(params, reschedule);
+            }
+        }, TAG);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+        return true; // 在工作线程中继续执行
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        AtomicBoolean stop = stopRequested;
+        if (stop != null) {
+            stop.set(true);
+        }
+        return true; // 未完成的部分下次继续
+    }
+}
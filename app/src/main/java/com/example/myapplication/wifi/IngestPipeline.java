@@ -0,0 +1,443 @@
+package com.example.myapplication.wifi;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.myapplication.core.RingBuffer;
+import com.example.myapplication.core.WifiFormat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 扫描结果和连接状态样本的摄取管道
+ * 生产者（主线程上的扫描广播、WifiInfoService回调线程上的样本）把事件写入有界无锁环形缓冲区后立即返回，
+ * 不访问数据库；唯一的存储线程按批取出事件：扫描结果在一个事务中写入wifi_scans表，
+ * 所有事件计入SignalStatsStore。事件槽位预分配并复用，发布事件不分配内存。
+ *
+ * 存储线程平时每FLUSH_INTERVAL_MS取一次，积压超过半个缓冲区时由生产者提前唤醒。
+ * 事务失败时该批事件已从缓冲区取出，计入ingest.failed；之后按指数退避等待再取下一批，不在数据库故障时空转。
+ * 进程内唯一的管道随进程存在，不调用shutdown()；应用进入后台（可能被杀死）时立即写入缓冲区中的事件。
+ * 自行创建的管道（测试）用shutdown()停止，已发布的事件都会在停止前写入。
+ * 指标：ingest.occupancy（占用槽位）、ingest.dropped、ingest.blocked、ingest.events、ingest.failed、
+ * ingest.batch（每批事务耗时）和ingest.lag（发布到所在批次提交的延迟）。
+ */
+public final class IngestPipeline {
+
+    private static final String TAG = "IngestPipeline";
+    public static final int DEFAULT_CAPACITY = 1024;         // 约为20次满扫描的AP数
+    public static final int MAX_BATCH = 256;                 // 每个事务最多写入的事件数
+    public static final long FLUSH_INTERVAL_MS = 250;        // 没有积压时两次取数的间隔
+    private static final long SHUTDOWN_TIMEOUT_MS = 2000;    // 关闭时等待存储线程写完的最长时间
+    private static final long MAX_BACKOFF_MS = 8000;         // 连续失败时两次取数的最长间隔
+
+    // 事件类型
+    static final int TYPE_SCAN = 1;     // 扫描结果中的一个AP
+    static final int TYPE_SAMPLE = 2;   // 已连接网络的状态样本
+
+    private static volatile IngestPipeline instance;
+
+    private final WiFiHistoryDatabaseHelper dbHelper;
+    private final RingBuffer<Event> ring;
+    private final int wakeThreshold;
+    private final Thread consumer;
+    private volatile boolean consumerParked = false;
+    private volatile boolean running = true;
+    private final AtomicInteger activeProducers = new AtomicInteger(); // 已通过running检查、尚未发布的生产者数
+
+    // 以下字段仅在存储线程访问
+    private final Map<String, Long> ssidIds = new HashMap<>(); // SSID字典ID缓存
+    private final long[] batchEnqueueNanos = new long[MAX_BATCH];
+    private final Consumer<Event> storeEvent = this::store;
+    private final Consumer<Event> discardEvent = IngestPipeline::discard;
+    private SQLiteDatabase db;
+    private SQLiteStatement insertScan; // 与db一起在第一次写入时创建，之后复用
+    private int batchSize;
+    private int consecutiveFailures;
+
+    private final SignalStatsStore signalStats = SignalStatsStore.getInstance();
+    private final MetricsRegistry.Counter storedEvents =
+            MetricsRegistry.getInstance().counter(MetricsRegistry.INGEST_EVENTS);
+    private final MetricsRegistry.Counter failedEvents =
+            MetricsRegistry.getInstance().counter(MetricsRegistry.INGEST_FAILED);
+    private final LatencyHistogram batchLatency =
+            MetricsRegistry.getInstance().histogram(MetricsRegistry.INGEST_BATCH);
+    private final LatencyHistogram lag =
+            MetricsRegistry.getInstance().histogram(MetricsRegistry.INGEST_LAG);
+
+    /**
+     * 获取进程内唯一的管道（DROP_OLDEST：生产者在主线程，不能阻塞，缓冲区满时保留较新的数据）
+     * @param context 上下文
+     */
+    public static IngestPipeline getInstance(Context context) {
+        if (instance == null) {
+            synchronized (IngestPipeline.class) {
+                if (instance == null) {
+                    IngestPipeline pipeline = new IngestPipeline(WiFiHistoryDatabaseHelper.getInstance(context),
+                            DEFAULT_CAPACITY, RingBuffer.Backpressure.DROP_OLDEST);
+                    context.getApplicationContext().registerComponentCallbacks(pipeline.flushOnBackground());
+                    instance = pipeline;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 创建管道并启动存储线程
+     * @param dbHelper     数据库帮助类，第一次写入时才打开数据库
+     * @param capacity     环形缓冲区容量（向上取整为2的幂）
+     * @param backpressure 缓冲区满时的处理方式；BLOCK只适用于不在主线程发布的场景
+     */
+    public IngestPipeline(WiFiHistoryDatabaseHelper dbHelper, int capacity, RingBuffer.Backpressure backpressure) {
+        this.dbHelper = dbHelper;
+        this.ring = new RingBuffer<>(capacity, Event::new, backpressure);
+        this.wakeThreshold = ring.capacity() / 2;
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge(MetricsRegistry.INGEST_OCCUPANCY, ring::size);
+        registry.gauge(MetricsRegistry.INGEST_DROPPED, ring::droppedCount);
+        registry.gauge(MetricsRegistry.INGEST_BLOCKED, ring::blockedCount);
+
+        consumer = new Thread(this::runConsumer, TAG);
+        consumer.setPriority(Thread.NORM_PRIORITY - 1);
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * 发布扫描结果中的一个AP，可在任意线程调用
+     * @param bssid        48位BSSID
+     * @param ssid         WiFi名称，隐藏网络为null或空
+     * @param rssi         信号强度（dBm）
+     * @param frequency    频率（MHz）
+     * @param capabilities 安全类型描述
+     * @param timestampMs  扫描时间（毫秒时间戳）
+     * @return 事件被丢弃（DROP_NEWEST时缓冲区已满）或管道已关闭时返回false
+     */
+    public boolean offerScan(long bssid, String ssid, int rssi, int frequency, String capabilities, long timestampMs) {
+        if (!enter()) {
+            return false;
+        }
+        try {
+            long sequence = ring.claim();
+            if (sequence < 0) {
+                return false;
+            }
+            Event event = ring.get(sequence);
+            event.type = TYPE_SCAN;
+            event.bssid = bssid;
+            event.ssid = ssid;
+            event.rssi = rssi;
+            event.frequency = frequency;
+            event.capabilities = capabilities;
+            event.timestampMs = timestampMs;
+            event.enqueueNanos = SystemClock.elapsedRealtimeNanos();
+            ring.publish(sequence);
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+        wakeIfBacklogged();
+        return true;
+    }
+
+    /**
+     * 发布连接状态样本（WifiStateMonitor.SampleListener），未连接时忽略
+     * @param snapshot 状态样本
+     */
+    public void offerSample(WifiSnapshot snapshot) {
+        if (!snapshot.connected || !enter()) {
+            return;
+        }
+        try {
+            long sequence = ring.claim();
+            if (sequence < 0) {
+                return;
+            }
+            long nowNanos = SystemClock.elapsedRealtimeNanos();
+            Event event = ring.get(sequence);
+            event.type = TYPE_SAMPLE;
+            event.bssid = WifiFormat.bssidToLong(snapshot.bssid);
+            event.ssid = null;
+            event.rssi = snapshot.rssi;
+            event.frequency = snapshot.frequency;
+            event.capabilities = null;
+            // 快照时间为elapsedRealtime，换算为毫秒时间戳
+            event.timestampMs = System.currentTimeMillis() - (nowNanos / 1_000_000 - snapshot.timestamp);
+            event.enqueueNanos = nowNanos;
+            ring.publish(sequence);
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+        wakeIfBacklogged();
+    }
+
+    /**
+     * 生产者开始发布；先登记再检查running，shutdown()在running置为false后等待已登记的生产者发布完成，
+     * 因此通过检查的事件一定会在最后一次取数之前发布
+     * @return 管道已关闭时返回false（已撤销登记）；返回true时发布完成后必须减少activeProducers
+     */
+    private boolean enter() {
+        activeProducers.incrementAndGet();
+        if (!running) {
+            activeProducers.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 积压超过阈值时唤醒正在等待的存储线程，避免缓冲区满
+     */
+    private void wakeIfBacklogged() {
+        if (consumerParked && ring.size() >= wakeThreshold) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * 存储线程主循环：取满一批后立即继续，否则等待下一个间隔或被生产者唤醒；
+     * 写入失败后按退避时间等待，期间不被生产者提前唤醒
+     */
+    private void runConsumer() {
+        while (running) {
+            int n = drainBatch();
+            if (n < 0) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoffMs()));
+            } else if (n < MAX_BATCH && running) {
+                consumerParked = true;
+                if (ring.size() < wakeThreshold) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS));
+                }
+                consumerParked = false;
+            }
+        }
+        // 关闭前等待已通过检查的生产者发布完成，再写完剩余事件；
+        // 写入失败后不再重试（数据库可能无法打开），剩余事件直接丢弃并计入ingest.failed，
+        // 仍然继续取出，使BLOCK模式下的生产者能发布完成
+        boolean failed = false;
+        while (activeProducers.get() > 0 || ring.size() > 0) {
+            int n = failed ? discardBatch() : drainBatch();
+            if (n < 0) {
+                failed = true;
+                Log.w(TAG, "Final write failed, discarding remaining events");
+            } else if (n == 0) {
+                Thread.yield(); // 生产者还没有发布（BLOCK时缓冲区已腾出空间）
+            }
+        }
+        closeStatement();
+    }
+
+    /**
+     * 取出至多MAX_BATCH个事件并丢弃，计入ingest.failed（关闭时写入失败后使用）
+     * @return 丢弃的事件数
+     */
+    private int discardBatch() {
+        int n = ring.drain(discardEvent, MAX_BATCH);
+        failedEvents.add(n);
+        return n;
+    }
+
+    private static void discard(Event event) {
+        event.ssid = null;
+        event.capabilities = null;
+    }
+
+    /**
+     * @return 连续失败后的等待时间：FLUSH_INTERVAL_MS起每次加倍，不超过MAX_BACKOFF_MS
+     */
+    private long backoffMs() {
+        int shift = Math.min(consecutiveFailures - 1, 16);
+        return Math.min(MAX_BACKOFF_MS, FLUSH_INTERVAL_MS << shift);
+    }
+
+    /**
+     * 在一个事务中取出并写入至多MAX_BATCH个事件，提交后记录每个事件的端到端延迟
+     * 事务回滚时取出的事件已不在缓冲区中，计入ingest.failed
+     * @return 写入的事件数，事务失败时为-1
+     */
+    private int drainBatch() {
+        if (ring.size() == 0) {
+            return 0;
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        batchSize = 0;
+        try {
+            prepare();
+            db.beginTransactionNonExclusive();
+            try {
+                ring.drain(storeEvent, MAX_BATCH);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (RuntimeException e) {
+            consecutiveFailures++;
+            failedEvents.add(batchSize);
+            Log.e(TAG, "Failed to store " + batchSize + " ingested events (failure " + consecutiveFailures + ")", e);
+            ssidIds.clear(); // 事务回滚后新插入的字典ID可能无效
+            closeStatement(); // 下一次重新打开数据库并编译
+            return -1;
+        }
+        consecutiveFailures = 0;
+
+        long end = SystemClock.elapsedRealtimeNanos();
+        if (batchSize > 0) {
+            batchLatency.recordNanos(end - start);
+            storedEvents.add(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                lag.recordNanos(end - batchEnqueueNanos[i]);
+            }
+        }
+        return batchSize;
+    }
+
+    /**
+     * 第一次写入时打开数据库并编译插入语句，之后复用，仅在存储线程调用
+     */
+    private void prepare() {
+        if (insertScan != null) {
+            return;
+        }
+        db = dbHelper.getWritableDatabase();
+        insertScan = db.compileStatement("INSERT INTO " + WiFiHistoryDatabaseHelper.TABLE_SCANS + " (" +
+                WiFiHistoryDatabaseHelper.COLUMN_BSSID + ", " +
+                WiFiHistoryDatabaseHelper.COLUMN_SSID_ID + ", " +
+                WiFiHistoryDatabaseHelper.COLUMN_RSSI + ", " +
+                WiFiHistoryDatabaseHelper.COLUMN_FREQUENCY + ", " +
+                WiFiHistoryDatabaseHelper.COLUMN_CAPABILITIES + ", " +
+                WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME + ") VALUES (?, ?, ?, ?, ?, ?)");
+    }
+
+    private void closeStatement() {
+        if (insertScan != null) {
+            try {
+                insertScan.close();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Failed to close insert statement", e);
+            }
+            insertScan = null;
+        }
+        db = null;
+    }
+
+    /**
+     * 处理一个事件（在drain回调中原地读取槽位），仅在存储线程调用
+     */
+    private void store(Event event) {
+        batchEnqueueNanos[batchSize++] = event.enqueueNanos;
+        if (event.type == TYPE_SCAN) {
+            insertScan.bindLong(1, event.bssid);
+            if (event.ssid != null && !event.ssid.isEmpty()) {
+                insertScan.bindLong(2, resolveSsidId(event.ssid));
+            } else {
+                insertScan.bindNull(2);
+            }
+            insertScan.bindLong(3, event.rssi);
+            insertScan.bindLong(4, event.frequency);
+            if (event.capabilities != null) {
+                insertScan.bindString(5, event.capabilities);
+            } else {
+                insertScan.bindNull(5);
+            }
+            insertScan.bindLong(6, event.timestampMs);
+            insertScan.executeInsert();
+            insertScan.clearBindings();
+        }
+        signalStats.record(event.bssid, event.rssi, event.timestampMs);
+        // 槽位会被复用，不再引用已处理的字符串
+        event.ssid = null;
+        event.capabilities = null;
+    }
+
+    /**
+     * 获取SSID的字典ID，优先使用本地缓存，仅在存储线程调用
+     */
+    private long resolveSsidId(String ssid) {
+        Long id = ssidIds.get(ssid);
+        if (id == null) {
+            id = WiFiHistoryDatabaseHelper.getOrCreateSsidId(db, ssid);
+            ssidIds.put(ssid, id);
+        }
+        return id;
+    }
+
+    /**
+     * 唤醒存储线程立即写入缓冲区中的事件，不等待写入完成，可在任意线程调用
+     */
+    public void flush() {
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * 应用界面全部不可见时调用flush()：此后进程随时可能被杀死，缓冲区中的事件不等下一个间隔
+     */
+    private ComponentCallbacks2 flushOnBackground() {
+        return new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                    flush();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * 停止接收事件，等待存储线程写完缓冲区中的剩余事件（只用于自行创建的管道，getInstance()的管道随进程存在）
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Interrupted while waiting for final drain", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return 因缓冲区满而丢弃的事件数
+     */
+    long droppedEvents() {
+        return ring.droppedCount();
+    }
+
+    /**
+     * 预分配的事件槽位，由生产者原地填写、存储线程原地读取
+     */
+    static final class Event {
+        int type;
+        long bssid;
+        String ssid;
+        int rssi;
+        int frequency;
+        String capabilities;
+        long timestampMs;
+        long enqueueNanos;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.myapplication.wifi;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定桶的对数刻度延迟直方图（微秒）
+ * 每个2的幂区间再等分为8个子桶，相对误差不超过12.5%；
+ * 记录时只做几次原子加法，不加锁、不分配内存，可以放在热路径上。
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 小于SUB_BUCKETS的值各占一个桶，之后每个2的幂区间占SUB_BUCKETS个桶
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 记录一次耗时
+     * @param nanos 耗时（纳秒），负值按0处理
+     */
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    /**
+     * 记录从startNanos（SystemClock.elapsedRealtimeNanos()）到现在的耗时
+     */
+    public void recordSince(long startNanos) {
+        recordNanos(SystemClock.elapsedRealtimeNanos() - startNanos);
+    }
+
+    /**
+     * 记录一次耗时
+     * @param micros 耗时（微秒），负值按0处理
+     */
+    public void recordMicros(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(micros));
+        sumMicros.add(micros);
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 桶内的最大值，作为该桶的分位数估计（偏保守）
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+    /**
+     * 生成快照；与并发记录之间不保证原子，计数可能相差正在记录的几次
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long sum = sumMicros.sum();
+        long max = maxMicros.get();
+        return new Snapshot(name, total, total == 0 ? 0 : sum / total,
+                percentile(counts, total, 50, max),
+                percentile(counts, total, 95, max),
+                percentile(counts, total, 99, max),
+                max);
+    }
+
+    private static long percentile(long[] counts, long total, int percent, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (total * percent + 99) / 100; // 向上取整，至少为1
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 直方图快照（微秒）
+     */
+    public static final class Snapshot {
+        public final String name;
+        public final long count;
+        public final long meanMicros;
+        public final long p50Micros;
+        public final long p95Micros;
+        public final long p99Micros;
+        public final long maxMicros;
+
+        Snapshot(String name, long count, long meanMicros, long p50Micros, long p95Micros,
+                 long p99Micros, long maxMicros) {
+            this.name = name;
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": count=" + count +
+                    ", mean=" + meanMicros + "us" +
+                    ", p50=" + p50Micros + "us" +
+                    ", p95=" + p95Micros + "us" +
+                    ", p99=" + p99Micros + "us" +
+                    ", max=" + maxMicros + "us";
+        }
+    }
+}
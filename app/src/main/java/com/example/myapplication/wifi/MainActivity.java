@@ -1,31 +1,19 @@
 package com.example.myapplication.wifi;
 
 import android.Manifest;
-import android.content.BroadcastReceiver;
-import android.content.ContentValues;
-import android.content.Context;
 import android.content.DialogInterface;
-import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
-import android.net.ConnectivityManager;
 import android.net.Network;
-import android.net.NetworkCapabilities;
-import android.net.NetworkRequest;
 import android.net.wifi.ScanResult;
-import android.net.wifi.WifiInfo;
-import android.net.wifi.WifiManager;
-import android.net.wifi.WifiNetworkSpecifier;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.provider.Settings;
 import android.text.InputType;
-import android.widget.ArrayAdapter;
+import android.util.Log;
 import android.widget.Button;
 import android.widget.EditText;
-import android.widget.ListView;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -33,37 +21,59 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.myapplication.R;
-
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
+import com.example.myapplication.core.NetworkRanker;
+import com.example.myapplication.core.ScanSnapshot;
+import com.example.myapplication.core.ScanSnapshotBuffer;
+import com.example.myapplication.core.SecurityType;
+import com.example.myapplication.core.WifiFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
     private static final int LOCATION_PERMISSION_REQUEST_CODE = 1001;
     private TextView wifiInfoTextView;
-    private ListView wifiListView;
+    private RecyclerView wifiListView;
     private Button scanButton;
     private Button historyButton;
     private Button contentProviderButton; // 新增：通过ContentProvider获取信息的按钮
-    private WifiManager wifiManager;
-    private ArrayAdapter<String> listAdapter;
-    private List<ScanResult> scanResults = new ArrayList<>();
-    private ConnectivityManager.NetworkCallback networkCallback;
+    private WifiDataSource wifiDataSource; // 扫描结果和连接信息的来源（系统或回放）
+    private ScanListAdapter listAdapter;
+    private final ScanResultModel scanModel = new ScanResultModel(); // 仅在scanExecutor中访问
+    private List<ScanResultModel.NetworkRow> shownRows = Collections.emptyList(); // 最近交给列表的行，仅在scanExecutor中访问
+    private AsyncRunner.SerialExecutor scanExecutor; // 扫描结果比较的串行通道
+    private NetworkRanker networkRanker; // 按连接历史排序的索引，加载完成前为null，仅在scanExecutor中访问
+    private final ScanSnapshotBuffer scanSnapshots = new ScanSnapshotBuffer(); // 扫描结果的紧凑副本，在scanExecutor中填充
+    private WifiConnector wifiConnector; // 按安全类型连接WiFi，带超时
+    private WifiScanScheduler scanScheduler; // 扫描调度器，受系统扫描频率限制
     private WiFiHistoryDatabaseHelper dbHelper;
+    private WiFiHistoryWriter historyWriter; // 连接历史批量写入器
+    private IngestPipeline ingestPipeline; // 扫描结果写入扫描表和信号统计的摄取管道
+    private AsyncRunner.SerialExecutor ioExecutor; // 扫描日志和连接记录写入的串行通道，销毁时写完后关闭日志
+    private ScanSampleLog scanSampleLog; // 扫描样本日志，仅在ioExecutor中访问
+    private AsyncRunner asyncRunner; // 数据库、ContentProvider和WifiManager调用的异步执行层，随Activity销毁而取消
+    private boolean fullyDrawnReported; // 是否已记录第一次显示数据
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        StrictModeMonitor.installIfDebuggable(this); // 调试构建中记录主线程上剩余的磁盘和跨进程访问
         setContentView(R.layout.activity_main7);
+        asyncRunner = new AsyncRunner().bindTo(this);
+        scanExecutor = asyncRunner.newSerialExecutor(null);
+        ioExecutor = asyncRunner.newSerialExecutor(this::closeScanSampleLog);
 
         // 初始化UI组件
         wifiInfoTextView = findViewById(R.id.wifi_info_text);
@@ -72,10 +82,32 @@ public class MainActivity extends AppCompatActivity {
         historyButton = findViewById(R.id.history_button);
         contentProviderButton = findViewById(R.id.content_provider_button); // 新增按钮
 
-        // 初始化WiFi管理器和列表适配器
-        wifiManager = (WifiManager) getSystemService(Context.WIFI_SERVICE);
-        listAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, new ArrayList<>());
+        // 初始化列表适配器，点击某一行时连接该WiFi
+        listAdapter = new ScanListAdapter(this::onNetworkSelected);
+        wifiListView.setLayoutManager(new LinearLayoutManager(this));
+        wifiListView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
         wifiListView.setAdapter(listAdapter);
+
+        // 设置按钮点击事件
+        scanButton.setOnClickListener(v -> startScan());
+        historyButton.setOnClickListener(v -> showHistoryDialog());
+        contentProviderButton.setOnClickListener(v -> queryWifiContentProvider()); // 新增按钮点击事件
+
+        // 数据库、WiFi和权限检查推迟到第一帧之后，冷启动时先显示界面
+        StartupTrace.onFirstFrame(this, this::initAfterFirstFrame);
+        StartupTrace.mark(StartupTrace.ACTIVITY_CREATE);
+    }
+
+    /**
+     * 第一帧显示后初始化WiFi数据源、数据库并检查权限（主线程）
+     */
+    private void initAfterFirstFrame() {
+        if (isDestroyed()) {
+            return;
+        }
+        StartupTrace.mark(StartupTrace.DEFERRED_INIT);
+        wifiDataSource = WifiDataSources.get(this);
+        scanScheduler = new WifiScanScheduler(wifiDataSource, scanListener);
         initDatabase(); // 初始化数据库
 
         // 检查位置权限
@@ -88,35 +120,38 @@ public class MainActivity extends AppCompatActivity {
             initWiFi();
         }
 
-        // 设置按钮点击事件
-        scanButton.setOnClickListener(v -> startScan());
-        historyButton.setOnClickListener(v -> showHistoryDialog());
-        contentProviderButton.setOnClickListener(v -> queryWifiContentProvider()); // 新增按钮点击事件
-
-        // 设置WiFi列表项点击事件
-        wifiListView.setOnItemClickListener((parent, view, position, id) -> {
-            String ssid = listAdapter.getItem(position);
-            if (ssid != null && !ssid.equals("未发现可用WiFi")) {
-                showPasswordDialog(ssid);
-            }
-        });
+        // 监听扫描结果（包括系统或其他应用发起的扫描）
+        wifiDataSource.registerScanCallback(scanCallback);
+    }
 
-        // 注册WiFi扫描结果广播接收器
-        registerReceiver(new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                if (WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(intent.getAction())) {
-                    displayScanResults();
-                }
-            }
-        }, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+    /**
+     * 第一次显示WiFi信息或扫描结果时记录启动完成（主线程）
+     */
+    private void onFirstData() {
+        if (!fullyDrawnReported) {
+            fullyDrawnReported = true;
+            StartupTrace.mark(StartupTrace.FIRST_DATA);
+            reportFullyDrawn();
+        }
     }
 
     /**
      * 初始化数据库
      */
     private void initDatabase() {
-        dbHelper = new WiFiHistoryDatabaseHelper(this);
+        dbHelper = WiFiHistoryDatabaseHelper.getInstance(this);
+        historyWriter = new WiFiHistoryWriter(dbHelper);
+        ingestPipeline = IngestPipeline.getInstance(this);
+        wifiConnector = new WifiConnector(this, dbHelper, ioExecutor, connectListener);
+        loadNetworkRanker();
+        asyncRunner.execute(() -> HistoryRetentionJob.schedule(getApplicationContext())); // 定期汇总并清理过期的历史数据
+        ioExecutor.execute(() -> {
+            try {
+                scanSampleLog = new ScanSampleLog(new File(getFilesDir(), "scan_log"));
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to open scan sample log", e);
+            }
+        });
     }
 
     /**
@@ -124,9 +159,11 @@ public class MainActivity extends AppCompatActivity {
      */
     private void initWiFi() {
         //现在已经不行了，Android10以下可以用
-        if (!wifiManager.isWifiEnabled()) {
-            wifiManager.setWifiEnabled(true);
-        }
+        asyncRunner.execute(() -> {
+            if (!wifiDataSource.isWifiEnabled()) {
+                wifiDataSource.setWifiEnabled(true);
+            }
+        });
 //        updateCurrentWiFiInfo();
         queryWifiContentProvider();
     }
@@ -141,38 +178,171 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        //扫描附近的 WiFi 热点。
-        wifiManager.startScan();
+        //扫描附近的 WiFi 热点（超出系统扫描频率限制时返回缓存结果）
+        scanScheduler.requestScan();
+    }
+
+    /**
+     * 显示扫描结果；缓存结果从最近发布的ScanSnapshot重新显示，不再保留ScanResult列表
+     */
+    private final WifiScanScheduler.Listener scanListener = new WifiScanScheduler.Listener() {
+        @Override
+        public void onScanResults(List<ScanResult> results, long ageMs, boolean fromCache) {
+            if (fromCache) {
+                Toast.makeText(MainActivity.this, "扫描过于频繁，显示上次扫描结果", Toast.LENGTH_SHORT).show();
+            }
+            updateScanList(results, !fromCache);
+        }
+
+        @Override
+        public void onCachedResults(long ageMs) {
+            Toast.makeText(MainActivity.this, "扫描过于频繁，显示" + (ageMs / 1000) + "秒前的结果",
+                    Toast.LENGTH_SHORT).show();
+            runOnScanExecutor(MainActivity.this::refreshFromLatestSnapshot);
+        }
+    };
+
+    /**
+     * 在后台线程把扫描结果复制为ScanSnapshot（之后不再持有ScanResult），
+     * 与上一次结果比较并排序，主线程只刷新变化的行
+     * @param results 扫描结果
+     * @param record  是否为新的扫描结果，需要写入扫描表、信号统计和扫描样本日志
+     */
+    private void updateScanList(List<ScanResult> results, boolean record) {
+        // ScanResult.timestamp为开机以来的微秒数，换算为毫秒时间戳
+        final long bootTimeMs = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+        runOnScanExecutor(() -> {
+            ScanSnapshot snapshot = scanSnapshots.beginWrite(System.currentTimeMillis());
+            ScanResultModel.copyInto(results, bootTimeMs, snapshot);
+            scanSnapshots.publish();
+            if (record) {
+                recordScanSamples(snapshot);
+            }
+            applyDiff(scanModel.update(snapshot));
+        });
+    }
+
+    /**
+     * 与上一次交给列表的行比较，在主线程只分发变化的部分（scanExecutor线程调用）
+     * @param diff 与上一次结果的差异
+     */
+    private void applyDiff(ScanResultModel.Diff diff) {
+        if (diff.isEmpty()) {
+            return;
+        }
+        ScanListAdapter.Update update = ScanListAdapter.diff(shownRows, diff.rows);
+        shownRows = diff.rows;
+        runOnUiThread(() -> {
+            if (!isDestroyed()) {
+                listAdapter.apply(update);
+                onFirstData();
+            }
+        });
+    }
+
+    /**
+     * 从连接历史汇总加载排序索引，完成后按历史重新排列当前列表
+     * 之后的连接只增量更新索引，不再查询数据库
+     */
+    private void loadNetworkRanker() {
+        asyncRunner.submit(() -> {
+            NetworkRanker ranker = new NetworkRanker();
+            dbHelper.loadRankingIndex(ranker);
+            return ranker;
+        }, ranker -> runOnScanExecutor(() -> {
+            networkRanker = ranker;
+            scanModel.setOrdering(ranker);
+            refreshFromLatestSnapshot();
+        }));
+    }
+
+    /**
+     * 在扫描结果比较的串行通道中执行；Activity已销毁（或线程池队列已满）时丢弃并记录日志
+     */
+    private void runOnScanExecutor(Runnable task) {
+        try {
+            scanExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Scan task dropped", e);
+        }
     }
 
     /**
-     * 显示扫描结果
+     * 用最近发布的ScanSnapshot重新计算列表（scanExecutor线程调用），还没有扫描结果时不做任何事
      */
-    private void displayScanResults() {
-        //返回扫描到的热点列表（List<ScanResult>）
-        scanResults = wifiManager.getScanResults();
-
-        List<String> wifiList = new ArrayList<>();
-        Set<String> ssidSet = new HashSet<>();
-
-        for (ScanResult result : scanResults) {
-            String ssid = result.SSID;
-            if (ssid != null && !ssid.isEmpty() && !ssidSet.contains(ssid)) {
-                ssidSet.add(ssid);
-                wifiList.add(ssid);
+    private void refreshFromLatestSnapshot() {
+        ScanSnapshot latest = scanSnapshots.acquire();
+        if (latest != null) {
+            try {
+                applyDiff(scanModel.update(latest));
+            } finally {
+                scanSnapshots.release(latest);
             }
         }
+    }
+
+    /**
+     * 把本次扫描的每个AP发布到摄取管道（写入扫描表和信号统计），并在ioExecutor线程写入扫描样本日志
+     * 在scanExecutor线程调用；日志写完之前持有该ScanSnapshot，避免被下一次扫描覆盖。
+     * @param snapshot 刚发布的扫描结果
+     */
+    private void recordScanSamples(ScanSnapshot snapshot) {
+        for (int i = 0, n = snapshot.size(); i < n; i++) {
+            ingestPipeline.offerScan(snapshot.bssid(i), snapshot.ssid(i), snapshot.level(i),
+                    snapshot.frequency(i), snapshot.capabilities(i), snapshot.timestampMs(i));
+        }
+        ScanSnapshot held = scanSnapshots.acquire();
+        try {
+            ioExecutor.execute(() -> {
+                try {
+                    if (scanSampleLog != null) {
+                        appendSamples(held);
+                    }
+                } catch (IOException e) {
+                    Log.e(TAG, "Failed to record scan samples", e);
+                } finally {
+                    scanSnapshots.release(held);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            scanSnapshots.release(held); // Activity已销毁
+        }
+    }
 
-        listAdapter.clear();
-        listAdapter.addAll(wifiList.isEmpty() ? List.of("未发现可用WiFi") : wifiList);
-        listAdapter.notifyDataSetChanged();
+    private void appendSamples(ScanSnapshot snapshot) throws IOException {
+        for (int i = 0, n = snapshot.size(); i < n; i++) {
+            String ssid = snapshot.ssid(i);
+            scanSampleLog.append(
+                    snapshot.bssid(i),
+                    snapshot.timestampMs(i),
+                    snapshot.frequency(i),
+                    ssid != null ? ssid.hashCode() : 0,
+                    snapshot.level(i),
+                    snapshot.channelWidth(i));
+        }
+    }
+
+    /**
+     * 按扫描结果的安全类型连接：需要密码的网络先弹出密码框，开放网络直接连接
+     * @param row 列表中的一行
+     */
+    private void onNetworkSelected(ScanResultModel.NetworkRow row) {
+        SecurityType security = SecurityType.fromCapabilities(row.capabilities);
+        if (!security.isConnectable()) {
+            Toast.makeText(this, "不支持连接该类型的网络: " + security, Toast.LENGTH_SHORT).show();
+        } else if (security.requiresPassphrase()) {
+            showPasswordDialog(row.ssid, row.capabilities);
+        } else {
+            wifiConnector.connect(row.ssid, row.capabilities, null);
+        }
     }
 
     /**
      * 显示WiFi密码输入对话框
-     * @param ssid WiFi名称
+     * @param ssid         WiFi名称
+     * @param capabilities 扫描结果中的安全类型
      */
-    private void showPasswordDialog(String ssid) {
+    private void showPasswordDialog(String ssid, String capabilities) {
         EditText input = new EditText(this);
         input.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
 
@@ -182,68 +352,58 @@ public class MainActivity extends AppCompatActivity {
                 .setView(input)
                 .setPositiveButton("连接", (dialog, which) -> {
                     String password = input.getText().toString();
-                    connectToWifi(ssid, password);
+                    wifiConnector.connect(ssid, capabilities, password);
                 })
                 .setNegativeButton("取消", null)
                 .show();
     }
 
     /**
-     * 连接到指定WiFi
-     * @param ssid WiFi名称
-     * @param password WiFi密码
+     * 扫描结果可用时交给调度器（主线程）
      */
-    private void connectToWifi(String ssid, String password) {
-        // 构建WiFi网络规范
-        WifiNetworkSpecifier specifier = new WifiNetworkSpecifier.Builder()
-                .setSsid(ssid)
-                .setWpa2Passphrase(password)
-                .build();
-
-        // 构建网络请求
-        NetworkRequest request = new NetworkRequest.Builder()
-                .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
-                .setNetworkSpecifier(specifier)
-                .build();
-
-        //ConnectivityManager 负责网络连接的建立和管理
-        ConnectivityManager cm = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
-
-        // 取消之前的网络回调
-        if (networkCallback != null) {
-            cm.unregisterNetworkCallback(networkCallback);
-        }
+    private final WifiDataSource.ScanCallback scanCallback = updated -> scanScheduler.onScanResultsAvailable(updated);
 
-        // 设置新的网络回调
-        //通过 ConnectivityManager 请求连接
-        //通过 NetworkCallback 监听连接成功或失败事件
-        networkCallback = new ConnectivityManager.NetworkCallback() {
-            @Override
-            public void onAvailable(@NonNull Network network) {
-                cm.bindProcessToNetwork(network);
-                runOnUiThread(() -> {
-                    Toast.makeText(MainActivity.this, "连接成功: " + ssid, Toast.LENGTH_SHORT).show();
-                    updateCurrentWiFiInfo();
-                    // 保存连接历史
-                    WifiInfo wifiInfo = wifiManager.getConnectionInfo();
-                    String ip = intToIp(wifiInfo.getIpAddress());
-                    saveConnectionHistory(ssid, ip);
-                });
-            }
-        };
+    /**
+     * 连接器的结果回调（ConnectivityManager回调线程）
+     */
+    private final WifiConnector.Listener connectListener = new WifiConnector.Listener() {
+        @Override
+        public void onConnected(String ssid, Network network, long elapsedMs) {
+            long connectTime = System.currentTimeMillis();
+            runOnScanExecutor(() -> {
+                if (networkRanker != null) {
+                    networkRanker.recordConnection(ssid, connectTime, elapsedMs);
+                }
+            });
+            // 连接信息在后台读取，主线程只负责显示和加入写入队列
+            asyncRunner.submit(() -> wifiDataSource.readConnection(0, SystemClock.elapsedRealtime()), snapshot -> {
+                Toast.makeText(MainActivity.this, "连接成功: " + ssid, Toast.LENGTH_SHORT).show();
+                updateCurrentWiFiInfo(snapshot);
+                // 保存连接历史
+                String ip = WifiFormat.intToIp(snapshot.ipAddress);
+                saveConnectionHistory(ssid, ip);
+            });
+        }
 
-        // 请求网络连接
-        cm.requestNetwork(request, networkCallback);
-    }
+        @Override
+        public void onFailed(String ssid, String reason, long elapsedMs) {
+            runOnUiThread(() -> {
+                if (!isDestroyed()) {
+                    Toast.makeText(MainActivity.this, "连接失败: " + ssid + "（" + reason + "）",
+                            Toast.LENGTH_SHORT).show();
+                }
+            });
+        }
+    };
 
     /**
      * 更新当前WiFi连接信息显示
+     * @param snapshot 在后台线程读取的连接信息
      */
-    private void updateCurrentWiFiInfo() {
-        WifiInfo wifiInfo = wifiManager.getConnectionInfo();
-        String ssid = removeQuotes(wifiInfo.getSSID());
-        String ip = intToIp(wifiInfo.getIpAddress());
-        String speed = wifiInfo.getLinkSpeed() + " Mbps";
+    private void updateCurrentWiFiInfo(WifiSnapshot snapshot) {
+        String ssid = WifiFormat.removeQuotes(snapshot.ssid);
+        String ip = WifiFormat.intToIp(snapshot.ipAddress);
+        String speed = snapshot.linkSpeed + " Mbps";
 
         if (ssid == null || ssid.equals("<unknown ssid>")) {
             wifiInfoTextView.setText("未连接WiFi");
@@ -252,113 +412,65 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    /**
-     * 移除SSID中的引号
-     * @param ssid 带引号的SSID
-     * @return 不带引号的SSID
-     */
-    private String removeQuotes(String ssid) {
-        if (ssid != null && ssid.startsWith("\"") && ssid.endsWith("\"")) {
-            return ssid.substring(1, ssid.length() - 1);
-        }
-        return ssid;
-    }
-
-    /**
-     * 将整数IP转换为点分十进制格式
-     * @param ip 整数IP
-     * @return 点分十进制IP字符串
-     */
-    private String intToIp(int ip) {
-        return (ip & 0xFF) + "." +
-                ((ip >> 8) & 0xFF) + "." +
-                ((ip >> 16) & 0xFF) + "." +
-                ((ip >> 24) & 0xFF);
-    }
-
     // === 历史记录相关方法 ===
 
     /**
-     * 保存WiFi连接历史记录到数据库
+     * 保存WiFi连接历史记录（加入写入队列，由后台线程批量写入数据库）
      * @param ssid WiFi名称
      * @param ip IP地址
      */
     private void saveConnectionHistory(String ssid, String ip) {
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(WiFiHistoryDatabaseHelper.COLUMN_SSID, ssid);
-        values.put(WiFiHistoryDatabaseHelper.COLUMN_IP, ip);
-        values.put(WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME, System.currentTimeMillis());
-        db.insert(WiFiHistoryDatabaseHelper.TABLE_NAME, null, values);
-        db.close();
+        historyWriter.enqueue(ssid, ip, System.currentTimeMillis());
     }
 
     /**
-     * 获取WiFi连接历史记录
-     * @return 历史记录列表，每个记录包含SSID、IP和连接时间
+     * 显示WiFi连接历史记录对话框
+     * 第一页在后台线程读取，之后的页面随滚动按需读取
      */
-    private List<Map<String, String>> getConnectionHistory() {
-        List<Map<String, String>> historyList = new ArrayList<>();
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        String[] columns = {
-                WiFiHistoryDatabaseHelper.COLUMN_SSID,
-                WiFiHistoryDatabaseHelper.COLUMN_IP,
-                WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME
-        };
-        Cursor cursor = db.query(
-                WiFiHistoryDatabaseHelper.TABLE_NAME,
-                columns,
-                null,
-                null,
-                null,
-                null,
-                WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME + " DESC"
-        );
+    private void showHistoryDialog() {
+        // 先让写入队列中的记录落库，再读取第一页
+        Future<?> pendingFlush = historyWriter.flushAsync();
+        asyncRunner.submit(() -> {
+            waitQuietly(pendingFlush);
+            return HistoryPagingAdapter.loadFirstPage(dbHelper);
+        }, firstPage -> {
+            if (isFinishing()) {
+                return;
+            }
+            if (firstPage.isEmpty()) {
+                Toast.makeText(this, "暂无连接历史", Toast.LENGTH_SHORT).show();
+                return;
+            }
 
-        if (cursor != null && cursor.moveToFirst()) {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.CHINA);
-            do {
-                Map<String, String> item = new HashMap<>();
-                item.put("ssid", cursor.getString(cursor.getColumnIndex(WiFiHistoryDatabaseHelper.COLUMN_SSID)));
-                item.put("ip", cursor.getString(cursor.getColumnIndex(WiFiHistoryDatabaseHelper.COLUMN_IP)));
-                item.put("time", sdf.format(new Date(cursor.getLong(cursor.getColumnIndex(WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME)))));
-                historyList.add(item);
-            } while (cursor.moveToNext());
-            cursor.close();
-        }
-        db.close();
-        return historyList;
+            HistoryPagingAdapter adapter = new HistoryPagingAdapter(this, dbHelper, asyncRunner, firstPage);
+            new AlertDialog.Builder(this)
+                    .setTitle("WiFi连接历史记录")
+                    .setAdapter(adapter, null)
+                    .setNegativeButton("关闭", null)
+                    .setOnDismissListener(dialog -> adapter.close())
+                    .show();
+        });
     }
 
     /**
-     * 显示WiFi连接历史记录对话框
+     * 等待异步任务完成，忽略其结果和异常
+     * @param future 异步任务
      */
-    private void showHistoryDialog() {
-        List<Map<String, String>> historyList = getConnectionHistory();
-        if (historyList.isEmpty()) {
-            Toast.makeText(this, "暂无连接历史", Toast.LENGTH_SHORT).show();
+    private static void waitQuietly(Future<?> future) {
+        if (future == null) {
             return;
         }
-
-        List<String> displayList = new ArrayList<>();
-        for (Map<String, String> item : historyList) {
-            displayList.add(
-                    "SSID: " + item.get("ssid") + "\n" +
-                            "IP: " + item.get("ip") + "\n" +
-                            "时间: " + item.get("time") + "\n" +
-                            "------------------------"
-            );
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            // 刷写失败已由写入器记录日志，仍然读取已落库的数据
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-
-        new AlertDialog.Builder(this)
-                .setTitle("WiFi连接历史记录")
-                .setItems(displayList.toArray(new String[0]), null)
-                .setNegativeButton("关闭", null)
-                .show();
     }
 
     /**
-     * 通过ContentProvider查询WiFi信息
+     * 通过ContentProvider查询WiFi信息（后台查询，主线程显示）
      */
     private void queryWifiContentProvider() {
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
@@ -367,6 +479,17 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
+        asyncRunner.submit(this::readWifiInfoFromProvider, text -> {
+            wifiInfoTextView.setText(text);
+            onFirstData();
+        });
+    }
+
+    /**
+     * 查询ContentProvider并生成显示文本，在后台线程调用
+     * @return 要显示的WiFi信息
+     */
+    private String readWifiInfoFromProvider() {
         Cursor cursor = getContentResolver().query(
                 WifiContentProvider.CONTENT_URI,
                 null,
@@ -374,45 +497,33 @@ public class MainActivity extends AppCompatActivity {
                 null,
                 null
         );
+        if (cursor == null) {
+            return "未获取到WiFi信息（通过ContentProvider）";
+        }
 
-        if (cursor != null && cursor.moveToFirst()) {
+        try {
+            if (!cursor.moveToFirst()) {
+                return "未获取到WiFi信息（通过ContentProvider）";
+            }
             String ssid = cursor.getString(cursor.getColumnIndex("wifi_name"));
 
             // 判断SSID是否为空或未知
             if (ssid == null || ssid.isEmpty() || ssid.equals("<unknown ssid>")) {
-                wifiInfoTextView.setText("未连接到WiFi");
-            } else {
-                // SSID有效时，继续获取其他信息
-                int rssi = cursor.getInt(cursor.getColumnIndex("rssi"));
-                String ip = cursor.getString(cursor.getColumnIndex("ip_address"));
-                int linkSpeed = cursor.getInt(cursor.getColumnIndex("link_speed"));
-
-                String info = "通过ContentProvider获取：\n" +
-                        "SSID: " + ssid + "\n" +
-                        "信号强度: " + rssi + " dBm\n" +
-                        "IP地址: " + ip + "\n" +
-                        "连接速度: " + linkSpeed + " Mbps";
-                wifiInfoTextView.setText(info);
+                return "未连接到WiFi";
             }
-        } else {
-            wifiInfoTextView.setText("未获取到WiFi信息（通过ContentProvider）");
+            // SSID有效时，继续获取其他信息
+            int rssi = cursor.getInt(cursor.getColumnIndex("rssi"));
+            String ip = cursor.getString(cursor.getColumnIndex("ip_address"));
+            int linkSpeed = cursor.getInt(cursor.getColumnIndex("link_speed"));
+
+            return "通过ContentProvider获取：\n" +
+                    "SSID: " + ssid + "\n" +
+                    "信号强度: " + rssi + " dBm\n" +
+                    "IP地址: " + ip + "\n" +
+                    "连接速度: " + linkSpeed + " Mbps";
+        } finally {
+            cursor.close();
         }
-//        if (cursor != null && cursor.moveToFirst()) {
-//            String ssid = cursor.getString(cursor.getColumnIndex("wifi_name"));
-//            int rssi = cursor.getInt(cursor.getColumnIndex("rssi"));
-//            String ip = cursor.getString(cursor.getColumnIndex("ip_address"));
-//            int linkSpeed = cursor.getInt(cursor.getColumnIndex("link_speed"));
-//
-//            String info = "通过ContentProvider获取：\n" +
-//                    "SSID: " + ssid + "\n" +
-//                    "信号强度: " + rssi + " dBm\n" +
-//                    "IP地址: " + ip + "\n" +
-//                    "连接速度: " + linkSpeed + " Mbps";
-//            wifiInfoTextView.setText(info);
-//        } else {
-//            wifiInfoTextView.setText("未获取到WiFi信息（通过ContentProvider）");
-//        }
-        cursor.close();
     }
 
     /**
@@ -436,13 +547,28 @@ public class MainActivity extends AppCompatActivity {
      */
     @Override
     protected void onDestroy() {
-        super.onDestroy();
-        if (networkCallback != null) {
-            ConnectivityManager cm = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
-            cm.unregisterNetworkCallback(networkCallback);
+        if (wifiDataSource != null) { // 第一帧之前销毁时尚未初始化
+            wifiDataSource.unregisterScanCallback(scanCallback);
+            wifiConnector.cancel(); // 在asyncRunner关闭前调用，未完成的尝试仍会被记录
+        }
+        if (historyWriter != null) {
+            historyWriter.shutdown(); // 刷写队列中剩余的记录
         }
-        if (dbHelper != null) {
-            dbHelper.close();
+        // asyncRunner已绑定生命周期，随之关闭：取消未完成的任务，串行通道中已提交的写入执行完后关闭扫描样本日志
+        // dbHelper为进程内共享实例（ContentProvider也在使用），不在此关闭
+        super.onDestroy();
+    }
+
+    /**
+     * 关闭扫描样本日志（ioExecutor关闭时的最后一个任务）
+     */
+    private void closeScanSampleLog() {
+        if (scanSampleLog != null) {
+            try {
+                scanSampleLog.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to close scan sample log", e);
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.example.myapplication.wifi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内的指标注册表：无锁计数器、延迟直方图和按需读取的gauge
+ * 调用方在初始化时取得计数器或直方图并保存在字段中，记录时不再查表、不分配内存。
+ * gauge只保存读取函数，生成快照时才调用。
+ * 快照通过WifiContentProvider的/metrics URI对外提供。
+ */
+public final class MetricsRegistry {
+
+    // 指标名称
+    public static final String SCAN_LATENCY = "scan.latency";           // startScan()到收到扫描结果广播
+    public static final String SCAN_THROTTLED = "scan.throttled";       // 因频率限制返回缓存结果的次数
+    public static final String CONNECT_LATENCY = "connect.latency";     // requestNetwork()到onAvailable
+    public static final String CONNECT_REQUESTS = "connect.requests";   // 发起的连接请求数
+    public static final String CONNECT_FAILURES = "connect.failures";   // 失败或取消的连接请求数
+    public static final String HISTORY_INSERT = "history.insert";       // 每次批量写入历史记录的事务耗时
+    public static final String HISTORY_ROWS = "history.rows";           // 写入的历史记录行数
+    public static final String HISTORY_DROPPED = "history.dropped";     // 重试后仍写入失败或关闭后提交而丢弃的历史记录数
+    public static final String SIGNAL_SAMPLES = "signal.samples";       // 计入按BSSID信号统计的样本数
+    public static final String EXPORT_ROWS = "export.rows";             // 通过openFile导出的行数
+    public static final String RETENTION_CHUNK = "retention.chunk";     // 保留策略每个分块事务（或增量VACUUM）的耗时
+    public static final String RETENTION_ROWS = "retention.rows";       // 保留策略汇总或删除的行数
+    public static final String INGEST_EVENTS = "ingest.events";         // 摄取管道写入存储的事件数
+    public static final String INGEST_BATCH = "ingest.batch";           // 摄取管道每批事件的事务耗时
+    public static final String INGEST_LAG = "ingest.lag";               // 事件发布到所在批次提交的端到端延迟
+    public static final String INGEST_OCCUPANCY = "ingest.occupancy";   // 摄取环形缓冲区当前占用的槽位数（gauge）
+    public static final String INGEST_DROPPED = "ingest.dropped";       // 缓冲区满时丢弃的事件数（gauge）
+    public static final String INGEST_BLOCKED = "ingest.blocked";       // 缓冲区满时生产者等待的次数（gauge）
+    public static final String INGEST_FAILED = "ingest.failed";         // 事务回滚而未写入扫描表的事件数
+
+    private static volatile MetricsRegistry instance;
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * 获取进程内唯一的注册表
+     */
+    public static MetricsRegistry getInstance() {
+        if (instance == null) {
+            synchronized (MetricsRegistry.class) {
+                if (instance == null) {
+                    instance = new MetricsRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 获取（不存在时创建）计数器
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * 获取（不存在时创建）延迟直方图
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * 注册gauge，同名的旧gauge被替换
+     * @param supplier 生成快照时调用，应线程安全且不阻塞
+     */
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * 按名称排序的计数器快照
+     */
+    public Map<String, Long> counterSnapshot() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Counter counter : counters.values()) {
+            result.put(counter.name, counter.get());
+        }
+        return result;
+    }
+
+    /**
+     * 按名称排序的gauge当前值
+     */
+    public Map<String, Long> gaugeSnapshot() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            result.put(gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        return result;
+    }
+
+    /**
+     * 按名称排序的直方图快照
+     */
+    public List<LatencyHistogram.Snapshot> histogramSnapshot() {
+        List<LatencyHistogram.Snapshot> result = new ArrayList<>(histograms.size());
+        for (LatencyHistogram histogram : histograms.values()) {
+            result.add(histogram.snapshot());
+        }
+        Collections.sort(result, (a, b) -> a.name.compareTo(b.name));
+        return result;
+    }
+
+    /**
+     * 无锁计数器（LongAdder，高并发下不争用同一缓存行）
+     */
+    public static final class Counter {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long delta) {
+            value.add(delta);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+}
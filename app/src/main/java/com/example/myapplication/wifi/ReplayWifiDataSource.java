@@ -0,0 +1,231 @@
+package com.example.myapplication.wifi;
+
+import android.net.wifi.ScanResult;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.myapplication.core.TraceReplayer;
+import com.example.myapplication.core.WifiTrace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 回放WifiTrace的WiFi数据源，用于负载和性能测试
+ * start()后在后台线程按轨迹时间（可加速）回放：扫描事件更新getScanResults()并通知ScanCallback，
+ * 连接事件通过ConnectionCallback送达，与系统数据源的回调顺序一致（先连接信息，再链路地址）。
+ * 回放不受系统扫描频率限制，startScan()总是成功，结果在下一个扫描事件时送达。
+ * 回调在注册时指定的Handler线程上执行，回调处理太慢时事件在Handler队列中堆积；
+ * 每个回调从投递到执行完毕的时间记录在getDeliveryLag()中，据此找出各条路径跟不上的事件速率。
+ */
+public final class ReplayWifiDataSource implements WifiDataSource {
+
+    private static final String TAG = "ReplayWifiDataSource";
+
+    private final WifiTrace trace;
+    private final TraceReplayer replayer;
+    private final int loops;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<ConnectionCallback, Handler> connectionCallbacks = new ConcurrentHashMap<>();
+    private final List<ScanCallback> scanCallbacks = new CopyOnWriteArrayList<>();
+
+    private volatile boolean wifiEnabled = true;
+    private volatile List<ScanResult> scanResults = Collections.emptyList();
+    private volatile WifiSnapshot connection = WifiSnapshot.DISCONNECTED;
+    private Thread thread;
+    private volatile TraceReplayer.Stats lastStats;
+    private final LatencyHistogram deliveryLag = new LatencyHistogram("replay.delivery");
+
+    /**
+     * @param trace 回放的轨迹
+     * @param speed 回放速度倍数，Double.POSITIVE_INFINITY表示不等待
+     * @param loops 回放次数
+     */
+    public ReplayWifiDataSource(WifiTrace trace, double speed, int loops) {
+        this.trace = trace;
+        this.replayer = new TraceReplayer(trace, speed);
+        this.loops = loops;
+    }
+
+    /**
+     * 在后台线程开始回放
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(() -> {
+            lastStats = replayer.replay(sink, System.currentTimeMillis(), loops);
+            Log.d(TAG, "Replay finished: " + lastStats);
+        }, TAG);
+        thread.start();
+    }
+
+    /**
+     * 停止回放并等待回放线程结束
+     */
+    public void stop() throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        replayer.stop();
+        if (t != null) {
+            t.join();
+        }
+    }
+
+    /**
+     * 等待回放结束
+     * @return 回放统计
+     */
+    public TraceReplayer.Stats awaitCompletion() throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        if (t != null) {
+            t.join();
+        }
+        return lastStats;
+    }
+
+    /**
+     * @return 回放线程是否仍在运行
+     */
+    public synchronized boolean isRunning() {
+        return thread != null && thread.isAlive();
+    }
+
+    /**
+     * @return 回放的轨迹
+     */
+    public WifiTrace getTrace() {
+        return trace;
+    }
+
+    private final TraceReplayer.Sink sink = new TraceReplayer.Sink() {
+        @Override
+        public void onScan(List<WifiTrace.Ap> aps, long timeMs) {
+            // ScanResult.timestamp为开机以来的微秒数
+            long bootTimeMs = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+            long timestampMicros = (timeMs - bootTimeMs) * 1000;
+            List<ScanResult> results = new ArrayList<>(aps.size());
+            for (int i = 0, n = aps.size(); i < n; i++) {
+                results.add(toScanResult(aps.get(i), timestampMicros));
+            }
+            scanResults = Collections.unmodifiableList(results);
+            for (ScanCallback callback : scanCallbacks) {
+                deliver(mainHandler, () -> callback.onScanResultsAvailable(true));
+            }
+        }
+
+        @Override
+        public void onConnected(WifiTrace.Event event, long timeMs) {
+            long elapsed = SystemClock.elapsedRealtime();
+            WifiSnapshot snapshot = new WifiSnapshot(true, event.ssid, event.bssid, 0,
+                    event.rssi, event.linkSpeed, event.frequency, elapsed);
+            connection = snapshot.withIpAddress(event.ipAddress, elapsed);
+            for (Map.Entry<ConnectionCallback, Handler> entry : connectionCallbacks.entrySet()) {
+                ConnectionCallback callback = entry.getKey();
+                deliver(entry.getValue(), () -> {
+                    callback.onConnectionInfo(snapshot);
+                    callback.onLinkAddress(event.ipAddress);
+                });
+            }
+        }
+
+        @Override
+        public void onDisconnected(long timeMs) {
+            connection = WifiSnapshot.DISCONNECTED;
+            for (Map.Entry<ConnectionCallback, Handler> entry : connectionCallbacks.entrySet()) {
+                ConnectionCallback callback = entry.getKey();
+                deliver(entry.getValue(), callback::onLost);
+            }
+        }
+    };
+
+    /**
+     * 在回调线程上执行，并记录从投递到执行完毕的时间
+     */
+    private void deliver(Handler handler, Runnable callback) {
+        long postedNanos = SystemClock.elapsedRealtimeNanos();
+        handler.post(() -> {
+            callback.run();
+            deliveryLag.recordSince(postedNanos);
+        });
+    }
+
+    /**
+     * @return 回调从投递到执行完毕的时间分布
+     */
+    public LatencyHistogram.Snapshot getDeliveryLag() {
+        return deliveryLag.snapshot();
+    }
+
+    private static ScanResult toScanResult(WifiTrace.Ap ap, long timestampMicros) {
+        ScanResult result = new ScanResult();
+        result.SSID = ap.ssid;
+        result.BSSID = ap.bssid;
+        result.level = ap.level;
+        result.frequency = ap.frequency;
+        result.capabilities = ap.capabilities;
+        result.timestamp = timestampMicros;
+        return result;
+    }
+
+    @Override
+    public boolean isWifiEnabled() {
+        return wifiEnabled;
+    }
+
+    @Override
+    public void setWifiEnabled(boolean enabled) {
+        wifiEnabled = enabled;
+    }
+
+    @Override
+    public boolean startScan() {
+        return true;
+    }
+
+    @Override
+    public List<ScanResult> getScanResults() {
+        return scanResults;
+    }
+
+    @Override
+    public WifiSnapshot readConnection(int linkIpAddress, long timestamp) {
+        WifiSnapshot current = connection;
+        if (!wifiEnabled || !current.connected) {
+            return WifiSnapshot.DISCONNECTED;
+        }
+        return current.withIpAddress(current.ipAddress != 0 ? current.ipAddress : linkIpAddress, timestamp);
+    }
+
+    @Override
+    public void registerConnectionCallback(ConnectionCallback callback, Handler handler) {
+        connectionCallbacks.put(callback, handler);
+    }
+
+    @Override
+    public void unregisterConnectionCallback(ConnectionCallback callback) {
+        connectionCallbacks.remove(callback);
+    }
+
+    @Override
+    public void registerScanCallback(ScanCallback callback) {
+        scanCallbacks.add(callback);
+    }
+
+    @Override
+    public void unregisterScanCallback(ScanCallback callback) {
+        scanCallbacks.remove(callback);
+    }
+}
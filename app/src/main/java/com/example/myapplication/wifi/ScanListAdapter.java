@@ -0,0 +1,162 @@
+package com.example.myapplication.wifi;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.myapplication.R;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * WiFi扫描列表适配器
+ * 应用ScanResultModel计算出的增量结果：在后台线程用DiffUtil按稳定的行ID比较前后两次的行列表，
+ * 主线程只分发插入、删除、移动和内容变化，不再整体刷新；行ID稳定，刷新后列表位置不跳动。
+ * ScanAggregator只在内容变化时替换行对象，因此同一ID的行对象相同即内容相同。
+ */
+public class ScanListAdapter extends RecyclerView.Adapter<ScanListAdapter.RowHolder> {
+
+    private static final String EMPTY_TEXT = "未发现可用WiFi";
+    private static final long EMPTY_ROW_ID = 0; // 提示行的ID（行ID从1开始）
+
+    /**
+     * 行点击回调
+     */
+    public interface OnRowClickListener {
+        void onRowClick(ScanResultModel.NetworkRow row);
+    }
+
+    private final OnRowClickListener clickListener;
+    private List<ScanResultModel.NetworkRow> rows = Collections.emptyList();
+    private boolean scanned = false; // 是否已收到过扫描结果
+
+    public ScanListAdapter(OnRowClickListener clickListener) {
+        this.clickListener = clickListener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * 计算从旧行列表到新行列表的更新（在后台线程调用）
+     * @param oldRows 上一次交给apply的行列表
+     * @param newRows 新的行列表
+     * @return 列表更新，在主线程交给apply
+     */
+    public static Update diff(List<ScanResultModel.NetworkRow> oldRows, List<ScanResultModel.NetworkRow> newRows) {
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldRows.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newRows.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return oldRows.get(oldPosition).id == newRows.get(newPosition).id;
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldRows.get(oldPosition) == newRows.get(newPosition);
+            }
+        }, true);
+        return new Update(newRows, result);
+    }
+
+    /**
+     * 应用一次扫描的列表更新（主线程）
+     * @param update diff()的结果，必须按计算的顺序应用
+     */
+    public void apply(Update update) {
+        boolean wasEmpty = rows.isEmpty();
+        rows = update.rows;
+        if (!scanned || wasEmpty || rows.isEmpty()) {
+            // 第一次扫描，或提示行与普通行互换
+            scanned = true;
+            notifyDataSetChanged();
+            return;
+        }
+        update.result.dispatchUpdatesTo(this);
+    }
+
+    @Override
+    public int getItemCount() {
+        // 扫描过但没有结果时显示一行提示
+        return rows.isEmpty() ? (scanned ? 1 : 0) : rows.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return rows.isEmpty() ? EMPTY_ROW_ID : rows.get(position).id;
+    }
+
+    @NonNull
+    @Override
+    public RowHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.wifi_item, parent, false);
+        RowHolder holder = new RowHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && !rows.isEmpty()) {
+                clickListener.onRowClick(rows.get(position));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RowHolder holder, int position) {
+        if (rows.isEmpty()) {
+            holder.ssid.setText(EMPTY_TEXT);
+            holder.strength.setText("");
+            holder.security.setText("");
+            return;
+        }
+        ScanResultModel.NetworkRow row = rows.get(position);
+        holder.ssid.setText(row.ssid);
+        String strength = "信号强度: " + row.rssi + " dBm  " + row.frequency + " MHz";
+        if (row.apCount > 1) {
+            strength += "  (" + row.apCount + "个AP)";
+        }
+        holder.strength.setText(strength);
+        holder.security.setText(row.capabilities);
+    }
+
+    /**
+     * 一行的视图
+     */
+    static final class RowHolder extends RecyclerView.ViewHolder {
+        final TextView ssid;
+        final TextView strength;
+        final TextView security;
+
+        RowHolder(View view) {
+            super(view);
+            ssid = view.findViewById(R.id.ssid_text);
+            strength = view.findViewById(R.id.strength_text);
+            security = view.findViewById(R.id.security_text);
+        }
+    }
+
+    /**
+     * 后台计算好的列表更新
+     */
+    public static final class Update {
+        final List<ScanResultModel.NetworkRow> rows;
+        final DiffUtil.DiffResult result;
+
+        Update(List<ScanResultModel.NetworkRow> rows, DiffUtil.DiffResult result) {
+            this.rows = rows;
+            this.result = result;
+        }
+    }
+}
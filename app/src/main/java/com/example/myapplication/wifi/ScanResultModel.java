@@ -0,0 +1,63 @@
+package com.example.myapplication.wifi;
+
+import android.net.wifi.ScanResult;
+
+import com.example.myapplication.core.ScanAggregator;
+import com.example.myapplication.core.ScanSnapshot;
+import com.example.myapplication.core.WifiFormat;
+
+import java.util.List;
+
+/**
+ * WiFi扫描结果模型
+ * 聚合和增量比较的逻辑在:core模块的ScanAggregator中，这里只负责读取ScanResult的字段，
+ * 以及把ScanResult列表复制为紧凑的ScanSnapshot。
+ * update方法只应在同一个后台线程调用。
+ */
+public class ScanResultModel extends ScanAggregator<ScanResult> {
+
+    private static final Accessor<ScanResult> SCAN_RESULT_ACCESSOR = new Accessor<ScanResult>() {
+        @Override
+        public String ssid(ScanResult result) {
+            return result.SSID;
+        }
+
+        @Override
+        public String bssid(ScanResult result) {
+            return result.BSSID;
+        }
+
+        @Override
+        public int level(ScanResult result) {
+            return result.level;
+        }
+
+        @Override
+        public int frequency(ScanResult result) {
+            return result.frequency;
+        }
+
+        @Override
+        public String capabilities(ScanResult result) {
+            return result.capabilities;
+        }
+    };
+
+    public ScanResultModel() {
+        super(SCAN_RESULT_ACCESSOR);
+    }
+
+    /**
+     * 把扫描结果复制到ScanSnapshot中，之后不再需要持有ScanResult
+     * @param results    扫描结果
+     * @param bootTimeMs 开机时刻的毫秒时间戳，用于换算ScanResult.timestamp（开机以来的微秒数）
+     * @param out        已clear的ScanSnapshot
+     */
+    public static void copyInto(List<ScanResult> results, long bootTimeMs, ScanSnapshot out) {
+        for (int i = 0, n = results.size(); i < n; i++) {
+            ScanResult r = results.get(i);
+            out.add(WifiFormat.bssidToLong(r.BSSID), r.SSID, r.level, r.frequency, r.channelWidth,
+                    r.capabilities, bootTimeMs + r.timestamp / 1000);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.myapplication.wifi;
+
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * WiFi扫描样本日志
+ * 每个扫描到的AP记录为一条32字节的定长二进制记录，顺序追加到内存映射的分段文件中。
+ * 追加过程不创建任何对象，适合持续扫描的高采样率；进程崩溃后打开时会校验并截断残缺的尾部记录。
+ *
+ * 分段文件结构：32字节文件头 + N条记录
+ * 记录结构：bssid(long) | 时间戳毫秒(long) | 频率MHz(int) | SSID哈希(int) | RSSI(short) | 信道宽度(short) | 校验值(int)
+ */
+public class ScanSampleLog implements Closeable {
+
+    private static final String TAG = "ScanSampleLog";
+
+    public static final int RECORD_SIZE = 32;
+    public static final int HEADER_SIZE = 32;
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024; // 每段4MB，约13万条记录
+    public static final int DEFAULT_MAX_SEGMENTS = 16;              // 超出时删除最旧的分段
+
+    private static final int MAGIC = 0x5753434E; // "WSCN"
+    private static final int FORMAT_VERSION = 1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // 记录内各字段的偏移
+    private static final int OFF_BSSID = 0;
+    private static final int OFF_TIME = 8;
+    private static final int OFF_FREQUENCY = 16;
+    private static final int OFF_SSID_HASH = 20;
+    private static final int OFF_RSSI = 24;
+    private static final int OFF_WIDTH = 26;
+    private static final int OFF_CHECKSUM = 28;
+
+    private final File directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private long segmentIndex;           // 当前分段序号
+    private RandomAccessFile segmentFile;
+    private MappedByteBuffer segment;    // 当前分段的映射
+    private int position;                // 下一条记录的写入位置
+    private long appendedRecords = 0;    // 本次打开后追加的记录数
+    private boolean closed = false;
+
+    /**
+     * 使用默认分段大小打开日志
+     * @param directory 日志目录
+     */
+    public ScanSampleLog(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * 打开日志：定位到最新分段并恢复其有效尾部，目录为空时创建第一个分段
+     * 包含文件读写，应在后台线程调用
+     * @param directory   日志目录
+     * @param segmentSize 分段文件大小（字节）
+     * @param maxSegments 最多保留的分段数
+     */
+    public ScanSampleLog(File directory, int segmentSize, int maxSegments) throws IOException {
+        if (segmentSize < HEADER_SIZE + RECORD_SIZE || maxSegments < 1) {
+            throw new IllegalArgumentException("Invalid segment configuration");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize - (segmentSize - HEADER_SIZE) % RECORD_SIZE; // 对齐到整条记录
+        this.maxSegments = maxSegments;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+
+        long[] indexes = listSegments(directory);
+        if (indexes.length == 0) {
+            openSegment(0, true);
+        } else {
+            openSegment(indexes[indexes.length - 1], false);
+            recoverTail();
+        }
+    }
+
+    /**
+     * 追加一条扫描样本（不分配对象）
+     * @param bssid        BSSID（由WifiFormat.bssidToLong转换）
+     * @param timestampMs  扫描时间（毫秒时间戳）
+     * @param frequency    频率（MHz）
+     * @param ssidHash     SSID的哈希值
+     * @param rssi         信号强度（dBm）
+     * @param channelWidth 信道宽度（ScanResult.channelWidth）
+     */
+    public synchronized void append(long bssid, long timestampMs, int frequency, int ssidHash,
+                                    int rssi, int channelWidth) throws IOException {
+        if (closed) {
+            throw new IOException("Log closed");
+        }
+        if (position + RECORD_SIZE > segmentSize) {
+            rollover();
+        }
+        int p = position;
+        segment.putLong(p + OFF_BSSID, bssid);
+        segment.putLong(p + OFF_TIME, timestampMs);
+        segment.putInt(p + OFF_FREQUENCY, frequency);
+        segment.putInt(p + OFF_SSID_HASH, ssidHash);
+        segment.putShort(p + OFF_RSSI, (short) rssi);
+        segment.putShort(p + OFF_WIDTH, (short) channelWidth);
+        // 校验值最后写入，恢复时以它判断记录是否完整
+        segment.putInt(p + OFF_CHECKSUM, checksum(bssid, timestampMs, frequency, ssidHash, rssi, channelWidth));
+        position = p + RECORD_SIZE;
+        appendedRecords++;
+    }
+
+    /**
+     * 将当前分段的修改刷到存储设备
+     */
+    public synchronized void flush() {
+        if (!closed) {
+            segment.force();
+        }
+    }
+
+    /**
+     * @return 本次打开后追加的记录数
+     */
+    public synchronized long getAppendedRecords() {
+        return appendedRecords;
+    }
+
+    /**
+     * 创建顺序读取器，从最旧的分段读到当前写入位置
+     */
+    public Reader newReader() {
+        return new Reader(directory, listSegments(directory));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segment.force();
+        segmentFile.close();
+    }
+
+    /**
+     * 当前分段写满：刷写后切换到新分段，并删除超出数量的旧分段
+     */
+    private void rollover() throws IOException {
+        segment.force();
+        segmentFile.close();
+        openSegment(segmentIndex + 1, true);
+
+        long[] indexes = listSegments(directory);
+        for (int i = 0; i < indexes.length - maxSegments; i++) {
+            File old = segmentPath(directory, indexes[i]);
+            if (!old.delete()) {
+                Log.w(TAG, "Failed to delete old segment " + old);
+            }
+        }
+    }
+
+    /**
+     * 映射分段文件，新建时写入文件头
+     */
+    private void openSegment(long index, boolean create) throws IOException {
+        File file = segmentPath(directory, index);
+        segmentFile = new RandomAccessFile(file, "rw");
+        if (segmentFile.length() != segmentSize) {
+            segmentFile.setLength(segmentSize);
+        }
+        segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segmentIndex = index;
+        position = HEADER_SIZE;
+
+        if (create || segment.getInt(0) != MAGIC) {
+            segment.putInt(0, MAGIC);
+            segment.putInt(4, FORMAT_VERSION);
+            segment.putLong(8, index);
+            segment.putLong(16, System.currentTimeMillis());
+            segment.putInt(24, RECORD_SIZE);
+        }
+    }
+
+    /**
+     * 崩溃恢复：从头校验当前分段的记录，遇到第一条空白或校验失败的记录即为尾部，
+     * 并清除该位置可能残缺的内容
+     */
+    private void recoverTail() {
+        int p = HEADER_SIZE;
+        while (p + RECORD_SIZE <= segmentSize && isValid(segment, p)) {
+            p += RECORD_SIZE;
+        }
+        if (p + RECORD_SIZE <= segmentSize && segment.getLong(p) != 0) {
+            Log.w(TAG, "Truncated torn record at offset " + p + " in segment " + segmentIndex);
+            for (int i = 0; i < RECORD_SIZE; i += 8) {
+                segment.putLong(p + i, 0);
+            }
+            segment.force();
+        }
+        position = p;
+    }
+
+    private static boolean isValid(MappedByteBuffer buffer, int p) {
+        int stored = buffer.getInt(p + OFF_CHECKSUM);
+        if (stored == 0) {
+            return false;
+        }
+        return stored == checksum(buffer.getLong(p + OFF_BSSID), buffer.getLong(p + OFF_TIME),
+                buffer.getInt(p + OFF_FREQUENCY), buffer.getInt(p + OFF_SSID_HASH),
+                buffer.getShort(p + OFF_RSSI), buffer.getShort(p + OFF_WIDTH));
+    }
+
+    /**
+     * 记录校验值（非零），用于识别写了一半的记录
+     */
+    private static int checksum(long bssid, long time, int frequency, int ssidHash, int rssi, int width) {
+        long h = bssid * 0x9E3779B97F4A7C15L;
+        h = (h ^ time) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ (((long) frequency << 32) | (ssidHash & 0xFFFFFFFFL))) * 0x165667B19E3779F9L;
+        h = (h ^ (((long) (short) rssi << 16) | ((short) width & 0xFFFF))) * 0x9E3779B97F4A7C15L;
+        int result = (int) (h ^ (h >>> 32));
+        return result == 0 ? 1 : result;
+    }
+
+    private static File segmentPath(File directory, long index) {
+        return new File(directory, String.format("%012d", index) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 列出目录中的分段序号（升序）
+     */
+    private static long[] listSegments(File directory) {
+        String[] names = directory.list();
+        if (names == null) {
+            return new long[0];
+        }
+        long[] indexes = new long[names.length];
+        int count = 0;
+        for (String name : names) {
+            if (name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    indexes[count++] = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Ignoring unexpected file " + name);
+                }
+            }
+        }
+        long[] result = Arrays.copyOf(indexes, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 单条扫描样本，读取时重复使用同一个对象
+     */
+    public static final class Sample {
+        public long bssid;
+        public long timestampMs;
+        public int frequency;
+        public int ssidHash;
+        public int rssi;
+        public int channelWidth;
+    }
+
+    /**
+     * 顺序读取器：按分段顺序读取所有完整记录
+     */
+    public static final class Reader implements Closeable {
+        private final File directory;
+        private final long[] segments;
+        private int segmentCursor = -1;
+        private MappedByteBuffer buffer;
+        private int position;
+
+        Reader(File directory, long[] segments) {
+            this.directory = directory;
+            this.segments = segments;
+        }
+
+        /**
+         * 读取下一条记录到out中
+         * @param out 复用的样本对象
+         * @return 没有更多记录时返回false
+         */
+        public boolean next(Sample out) throws IOException {
+            while (true) {
+                if (buffer != null && position + RECORD_SIZE <= buffer.limit() && isValid(buffer, position)) {
+                    out.bssid = buffer.getLong(position + OFF_BSSID);
+                    out.timestampMs = buffer.getLong(position + OFF_TIME);
+                    out.frequency = buffer.getInt(position + OFF_FREQUENCY);
+                    out.ssidHash = buffer.getInt(position + OFF_SSID_HASH);
+                    out.rssi = buffer.getShort(position + OFF_RSSI);
+                    out.channelWidth = buffer.getShort(position + OFF_WIDTH);
+                    position += RECORD_SIZE;
+                    return true;
+                }
+                // 当前分段读完，切换到下一个分段
+                if (!openNextSegment()) {
+                    return false;
+                }
+            }
+        }
+
+        private boolean openNextSegment() throws IOException {
+            while (++segmentCursor < segments.length) {
+                File file = segmentPath(directory, segments[segmentCursor]);
+                if (!file.exists()) {
+                    continue; // 已被轮转删除
+                }
+                try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                    buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+                }
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                    continue;
+                }
+                position = HEADER_SIZE;
+                return true;
+            }
+            buffer = null;
+            return false;
+        }
+
+        @Override
+        public void close() {
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.myapplication.wifi;
+
+import com.example.myapplication.core.SignalStatsTable;
+import com.example.myapplication.core.WifiFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 进程内共享的按BSSID信号统计
+ * 数据来自WifiInfoService收到的每个连接状态样本（包括未超过阈值、没有广播的样本）
+ * 和每次扫描结果；统计保存在SignalStatsTable中，每个AP占用固定大小的内存。
+ * 超过MAX_AGE_MS未出现的AP定期淘汰，AP数量超过MAX_APS时淘汰最久未出现的，内存有上限。
+ * 所有方法线程安全。
+ */
+public final class SignalStatsStore {
+
+    public static final int MAX_APS = 4096;                    // 保留的最多AP数量
+    public static final long MAX_AGE_MS = 7L * 24 * 3600_000;  // 超过该时间未出现的AP被淘汰
+    private static final int EVICT_INTERVAL_SAMPLES = 4096;    // 每记录这么多样本检查一次过期
+
+    private static volatile SignalStatsStore instance;
+
+    private final SignalStatsTable table = new SignalStatsTable();
+    private int samplesSinceEvict; // 受table锁保护
+    private final MetricsRegistry.Counter samples =
+            MetricsRegistry.getInstance().counter(MetricsRegistry.SIGNAL_SAMPLES);
+
+    private SignalStatsStore() {
+    }
+
+    /**
+     * 获取进程内唯一的实例
+     */
+    public static SignalStatsStore getInstance() {
+        if (instance == null) {
+            synchronized (SignalStatsStore.class) {
+                if (instance == null) {
+                    instance = new SignalStatsStore();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 记录一个样本
+     * @param bssid       48位BSSID
+     * @param rssi        信号强度（dBm）
+     * @param timestampMs 采样时间（毫秒时间戳）
+     */
+    public void record(long bssid, int rssi, long timestampMs) {
+        synchronized (table) {
+            table.record(bssid, rssi, timestampMs);
+            if (++samplesSinceEvict >= EVICT_INTERVAL_SAMPLES) {
+                samplesSinceEvict = 0;
+                table.evictOlderThan(timestampMs - MAX_AGE_MS);
+            }
+            if (table.size() > MAX_APS) {
+                // 一次淘汰到3/4，避免之后每个新AP都触发排序
+                table.trimToSize(MAX_APS * 3 / 4);
+            }
+        }
+        samples.increment();
+    }
+
+    /**
+     * 记录一个连接状态样本，未连接时忽略
+     */
+    public void record(WifiSnapshot snapshot) {
+        if (snapshot.connected) {
+            record(WifiFormat.bssidToLong(snapshot.bssid), snapshot.rssi, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 读取一个AP的统计值
+     * @return 是否存在该AP的统计
+     */
+    public boolean get(long bssid, SignalStatsTable.Entry out) {
+        synchronized (table) {
+            return table.get(bssid, out);
+        }
+    }
+
+    /**
+     * @return 所有AP统计值的副本
+     */
+    public List<SignalStatsTable.Entry> snapshot() {
+        synchronized (table) {
+            List<SignalStatsTable.Entry> result = new ArrayList<>(table.size());
+            table.forEach(new SignalStatsTable.Entry(), entry -> result.add(copyOf(entry)));
+            return result;
+        }
+    }
+
+    /**
+     * @return 统计中的AP数量
+     */
+    public int size() {
+        synchronized (table) {
+            return table.size();
+        }
+    }
+
+    private static SignalStatsTable.Entry copyOf(SignalStatsTable.Entry entry) {
+        SignalStatsTable.Entry copy = new SignalStatsTable.Entry();
+        copy.bssid = entry.bssid;
+        copy.count = entry.count;
+        copy.ewma = entry.ewma;
+        copy.mean = entry.mean;
+        copy.variance = entry.variance;
+        copy.min = entry.min;
+        copy.max = entry.max;
+        copy.lastTimestampMs = entry.lastTimestampMs;
+        return copy;
+    }
+}
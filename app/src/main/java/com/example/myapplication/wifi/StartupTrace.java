@@ -0,0 +1,136 @@
+package com.example.myapplication.wifi;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 冷启动各阶段的时间点（进程内唯一）
+ * 每个阶段只记录第一次到达的时间，以距进程启动的毫秒数保存，同时：
+ * 写入日志，作为systrace/Perfetto计数器（startup.<阶段>）输出，并注册为"startup.<阶段>_ms"的gauge，
+ * 可以通过WifiContentProvider的/metrics URI读取。测试用awaitMark()等待某个阶段后检查各阶段的先后和间隔。
+ */
+public final class StartupTrace {
+
+    private static final String TAG = "StartupTrace";
+
+    // 阶段
+    public static final String PROCESS_START = "process_start";     // 进程启动（Process.getStartElapsedRealtime）
+    public static final String PROVIDER_INIT = "provider_init";     // WifiContentProvider.onCreate完成
+    public static final String ACTIVITY_CREATE = "activity_create"; // MainActivity.onCreate完成
+    public static final String FIRST_FRAME = "first_frame";         // MainActivity第一帧绘制完成
+    public static final String DEFERRED_INIT = "deferred_init";     // 首帧后开始初始化数据库和WiFi
+    public static final String DB_OPEN = "db_open";                 // 共享的历史数据库第一次打开
+    public static final String FIRST_DATA = "first_data";           // 第一次显示WiFi信息或扫描结果
+
+    private static final long processStart = Process.getStartElapsedRealtime();
+    private static final Map<String, Long> marks = new LinkedHashMap<>(); // 阶段到距进程启动的毫秒数，按到达顺序
+
+    static {
+        marks.put(PROCESS_START, 0L);
+    }
+
+    private StartupTrace() {
+    }
+
+    /**
+     * 记录到达某个阶段，只有第一次调用生效
+     * @param phase 阶段名称
+     * @return 距进程启动的毫秒数
+     */
+    public static long mark(String phase) {
+        long offset;
+        synchronized (marks) {
+            Long existing = marks.get(phase);
+            if (existing != null) {
+                return existing;
+            }
+            offset = SystemClock.elapsedRealtime() - processStart;
+            marks.put(phase, offset);
+            marks.notifyAll();
+        }
+        Trace.setCounter("startup." + phase, offset);
+        final long value = offset;
+        MetricsRegistry.getInstance().gauge("startup." + phase + "_ms", () -> value);
+        Log.i(TAG, phase + " +" + offset + "ms");
+        return offset;
+    }
+
+    /**
+     * @param phase 阶段名称
+     * @return 距进程启动的毫秒数，尚未到达时为-1
+     */
+    public static long get(String phase) {
+        synchronized (marks) {
+            Long offset = marks.get(phase);
+            return offset != null ? offset : -1;
+        }
+    }
+
+    /**
+     * 等待到达某个阶段
+     * @param phase     阶段名称
+     * @param timeoutMs 最长等待时间
+     * @return 距进程启动的毫秒数，超时为-1
+     */
+    public static long awaitMark(String phase, long timeoutMs) throws InterruptedException {
+        long deadline = SystemClock.elapsedRealtime() + timeoutMs;
+        synchronized (marks) {
+            Long offset;
+            while ((offset = marks.get(phase)) == null) {
+                long remaining = deadline - SystemClock.elapsedRealtime();
+                if (remaining <= 0) {
+                    return -1;
+                }
+                marks.wait(remaining);
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * @return 已到达的各阶段（按到达顺序）及距进程启动的毫秒数
+     */
+    public static Map<String, Long> snapshot() {
+        synchronized (marks) {
+            return new LinkedHashMap<>(marks);
+        }
+    }
+
+    /**
+     * 在Activity第一帧绘制完成后记录FIRST_FRAME并在主线程执行action
+     * 在onDraw中投递到主线程消息队列的最前面，执行时该帧已交给RenderThread。
+     * @param activity 已调用setContentView的Activity
+     * @param action   首帧后执行的初始化
+     */
+    public static void onFirstFrame(Activity activity, Runnable action) {
+        View decorView = activity.getWindow().getDecorView();
+        Handler handler = new Handler(Looper.getMainLooper());
+        decorView.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean drawn;
+
+            @Override
+            public void onDraw() {
+                if (drawn) {
+                    return;
+                }
+                drawn = true;
+                handler.postAtFrontOfQueue(() -> {
+                    // onDraw中不能移除监听器
+                    decorView.getViewTreeObserver().removeOnDrawListener(this);
+                    mark(FIRST_FRAME);
+                    action.run();
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.myapplication.wifi;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Looper;
+import android.os.StrictMode;
+import android.os.strictmode.CustomViolation;
+import android.os.strictmode.DiskReadViolation;
+import android.os.strictmode.DiskWriteViolation;
+import android.os.strictmode.Violation;
+import android.util.Log;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调试模式下的主线程I/O监视器
+ * 基于StrictMode检测主线程上的磁盘读写；StrictMode无法直接检测Binder调用，
+ * 因此跨进程调用点通过noteIpc()上报为自定义慢调用。违规只记录日志并计数，不会崩溃。
+ */
+public final class StrictModeMonitor {
+
+    private static final String TAG = "StrictModeMonitor";
+
+    private static final AtomicLong diskReads = new AtomicLong();
+    private static final AtomicLong diskWrites = new AtomicLong();
+    private static final AtomicLong ipcCalls = new AtomicLong();
+    private static final AtomicLong otherViolations = new AtomicLong();
+    private static volatile boolean installed = false;
+
+    private StrictModeMonitor() {
+    }
+
+    /**
+     * 在可调试的构建中为主线程安装StrictMode策略，重复调用无效
+     * @param context 上下文
+     * @return 是否已启用
+     */
+    public static synchronized boolean installIfDebuggable(Context context) {
+        if (installed) {
+            return true;
+        }
+        if ((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) == 0) {
+            return false;
+        }
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectCustomSlowCalls()
+                .penaltyListener(Executors.newSingleThreadExecutor(r -> new Thread(r, TAG)),
+                        StrictModeMonitor::onViolation)
+                .build());
+        installed = true;
+        return true;
+    }
+
+    /**
+     * 标记一次跨进程调用；只有在主线程上且监视器已启用时才会计为违规
+     * @param name 调用名称，如"WifiManager.startScan"
+     */
+    public static void noteIpc(String name) {
+        if (installed && Looper.myLooper() == Looper.getMainLooper()) {
+            StrictMode.noteSlowCall("ipc:" + name);
+        }
+    }
+
+    private static void onViolation(Violation violation) {
+        if (violation instanceof DiskReadViolation) {
+            diskReads.incrementAndGet();
+        } else if (violation instanceof DiskWriteViolation) {
+            diskWrites.incrementAndGet();
+        } else if (violation instanceof CustomViolation) {
+            ipcCalls.incrementAndGet();
+        } else {
+            otherViolations.incrementAndGet();
+        }
+        Log.w(TAG, "Main thread violation (" + getStats() + ")", violation);
+    }
+
+    /**
+     * 获取违规计数快照
+     */
+    public static Stats getStats() {
+        return new Stats(diskReads.get(), diskWrites.get(), ipcCalls.get(), otherViolations.get());
+    }
+
+    /**
+     * 违规计数：磁盘读、磁盘写、跨进程调用、其他
+     */
+    public static final class Stats {
+        public final long diskReads;
+        public final long diskWrites;
+        public final long ipcCalls;
+        public final long other;
+
+        Stats(long diskReads, long diskWrites, long ipcCalls, long other) {
+            this.diskReads = diskReads;
+            this.diskWrites = diskWrites;
+            this.ipcCalls = ipcCalls;
+            this.other = other;
+        }
+
+        @Override
+        public String toString() {
+            return "diskReads=" + diskReads +
+                    ", diskWrites=" + diskWrites +
+                    ", ipc=" + ipcCalls +
+                    ", other=" + other;
+        }
+    }
+}
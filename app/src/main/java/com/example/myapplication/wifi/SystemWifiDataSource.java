@@ -0,0 +1,174 @@
+package com.example.myapplication.wifi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.LinkAddress;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.net.TransportInfo;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 由WifiManager和ConnectivityManager提供数据的WiFi数据源（生产环境）
+ * 连接状态来自网络回调（需要FLAG_INCLUDE_LOCATION_INFO才能拿到SSID/BSSID），
+ * 扫描结果通知来自SCAN_RESULTS_AVAILABLE_ACTION广播。
+ */
+public final class SystemWifiDataSource implements WifiDataSource {
+
+    private static final String TAG = "SystemWifiDataSource";
+
+    private final Context context;
+    private final WifiManager wifiManager;
+    private final ConnectivityManager connectivityManager;
+    // 已注册的回调，注销时查找对应的系统回调
+    private final Map<ConnectionCallback, ConnectivityManager.NetworkCallback> networkCallbacks = new HashMap<>();
+    private final Map<ScanCallback, BroadcastReceiver> scanReceivers = new HashMap<>();
+
+    public SystemWifiDataSource(Context context) {
+        this.context = context.getApplicationContext();
+        this.wifiManager = (WifiManager) this.context.getSystemService(Context.WIFI_SERVICE);
+        this.connectivityManager = (ConnectivityManager) this.context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    @Override
+    public boolean isWifiEnabled() {
+        return wifiManager.isWifiEnabled();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setWifiEnabled(boolean enabled) {
+        wifiManager.setWifiEnabled(enabled);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean startScan() {
+        StrictModeMonitor.noteIpc("WifiManager.startScan");
+        return wifiManager.startScan();
+    }
+
+    @Override
+    public List<ScanResult> getScanResults() {
+        StrictModeMonitor.noteIpc("WifiManager.getScanResults");
+        return wifiManager.getScanResults();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public WifiSnapshot readConnection(int linkIpAddress, long timestamp) {
+        StrictModeMonitor.noteIpc("WifiManager.getConnectionInfo");
+        if (!wifiManager.isWifiEnabled()) {
+            return WifiSnapshot.DISCONNECTED;
+        }
+        WifiInfo info = wifiManager.getConnectionInfo();
+        boolean connected = info != null && info.getNetworkId() != -1;
+        return connected ? WifiSnapshot.from(info, linkIpAddress, timestamp) : WifiSnapshot.DISCONNECTED;
+    }
+
+    @Override
+    public void registerConnectionCallback(ConnectionCallback callback, Handler handler) {
+        ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback(
+                ConnectivityManager.NetworkCallback.FLAG_INCLUDE_LOCATION_INFO) {
+            @Override
+            public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities caps) {
+                TransportInfo info = caps.getTransportInfo();
+                if (info instanceof WifiInfo) {
+                    callback.onConnectionInfo(WifiSnapshot.from((WifiInfo) info, 0, SystemClock.elapsedRealtime()));
+                }
+            }
+
+            @Override
+            public void onLinkPropertiesChanged(@NonNull Network network, @NonNull LinkProperties lp) {
+                callback.onLinkAddress(ipv4Address(lp));
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                callback.onLost();
+            }
+        };
+        synchronized (networkCallbacks) {
+            networkCallbacks.put(callback, networkCallback);
+        }
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+                .build();
+        connectivityManager.registerNetworkCallback(request, networkCallback, handler);
+    }
+
+    @Override
+    public void unregisterConnectionCallback(ConnectionCallback callback) {
+        ConnectivityManager.NetworkCallback networkCallback;
+        synchronized (networkCallbacks) {
+            networkCallback = networkCallbacks.remove(callback);
+        }
+        if (networkCallback == null) {
+            return;
+        }
+        try {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Network callback already unregistered", e);
+        }
+    }
+
+    @Override
+    public void registerScanCallback(ScanCallback callback) {
+        BroadcastReceiver receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(intent.getAction())) {
+                    callback.onScanResultsAvailable(intent.getBooleanExtra(WifiManager.EXTRA_RESULTS_UPDATED, true));
+                }
+            }
+        };
+        synchronized (scanReceivers) {
+            scanReceivers.put(callback, receiver);
+        }
+        context.registerReceiver(receiver, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+    }
+
+    @Override
+    public void unregisterScanCallback(ScanCallback callback) {
+        BroadcastReceiver receiver;
+        synchronized (scanReceivers) {
+            receiver = scanReceivers.remove(callback);
+        }
+        if (receiver != null) {
+            context.unregisterReceiver(receiver);
+        }
+    }
+
+    /**
+     * @return 链路的第一个IPv4地址（与WifiInfo.getIpAddress()相同的小端字节序），没有时为0
+     */
+    private static int ipv4Address(LinkProperties lp) {
+        for (LinkAddress address : lp.getLinkAddresses()) {
+            InetAddress inet = address.getAddress();
+            if (inet instanceof Inet4Address) {
+                byte[] b = inet.getAddress();
+                return (b[0] & 0xFF) | (b[1] & 0xFF) << 8 | (b[2] & 0xFF) << 16 | (b[3] & 0xFF) << 24;
+            }
+        }
+        return 0;
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.myapplication.wifi;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.myapplication.core.NetworkRanker;
 
 /**
  * WiFi连接历史数据库帮助类
@@ -11,49 +16,374 @@ import android.database.sqlite.SQLiteOpenHelper;
 public class WiFiHistoryDatabaseHelper extends SQLiteOpenHelper {
     // 数据库名称和版本
     public static final String DATABASE_NAME = "WiFiHistory.db";
-    public static final int DATABASE_VERSION = 1;
+    public static final int DATABASE_VERSION = 6;
     // 表名
     public static final String TABLE_NAME = "wifi_history";
+    public static final String TABLE_SSID = "ssid_dict";            // SSID字典表
+    public static final String VIEW_HISTORY = "wifi_history_view";  // 带SSID文本的历史视图，读取时使用
+    public static final String TABLE_SCANS = "wifi_scans";          // 扫描结果表
+    public static final String VIEW_SCANS = "wifi_scans_view";      // 带SSID文本的扫描结果视图
+    public static final String TABLE_CONNECTS = "connect_attempts"; // 连接尝试记录表（成功和失败）
+    public static final String VIEW_CONNECTS = "connect_attempts_view"; // 带SSID文本的连接尝试视图
+    public static final String TABLE_ROLLUP_HOURLY = "history_rollup_hourly"; // 按小时、SSID汇总的历史和扫描
+    public static final String TABLE_ROLLUP_DAILY = "history_rollup_daily";   // 按天（UTC）、SSID汇总的历史和扫描
+    public static final String TABLE_SSID_FTS = "ssid_fts";         // SSID字典的FTS4全文索引（外部内容表，docid为字典ID）
+    // 索引名
+    public static final String INDEX_HISTORY_TIME = "idx_history_time";
+    public static final String INDEX_HISTORY_SSID_TIME = "idx_history_ssid_time";
+    public static final String INDEX_SCANS_TIME = "idx_scans_time";
+    public static final String INDEX_SCANS_BSSID_TIME = "idx_scans_bssid_time";
+    public static final String INDEX_CONNECTS_SSID_TIME = "idx_connects_ssid_time";
+    public static final String INDEX_CONNECTS_TIME = "idx_connects_time";
+    public static final String INDEX_ROLLUP_HOURLY_BUCKET = "idx_rollup_hourly_bucket";
+    public static final String INDEX_ROLLUP_DAILY_BUCKET = "idx_rollup_daily_bucket";
 
     // 表结构字段
     public static final String COLUMN_ID = "_id";           // 自增主键ID
-    public static final String COLUMN_SSID = "ssid";       // WiFi名称
+    public static final String COLUMN_SSID = "ssid";       // WiFi名称（字典表和视图中）
+    public static final String COLUMN_SSID_ID = "ssid_id"; // SSID字典ID（历史表中）
     public static final String COLUMN_IP = "ip_address";   // IP地址
     public static final String COLUMN_CONNECT_TIME = "connect_time"; // 连接时间（时间戳）
+    // 扫描结果表字段
+    public static final String COLUMN_BSSID = "bssid";               // BSSID（48位整数）
+    public static final String COLUMN_RSSI = "rssi";                 // 信号强度（dBm）
+    public static final String COLUMN_FREQUENCY = "frequency";       // 频率（MHz）
+    public static final String COLUMN_CAPABILITIES = "capabilities"; // 安全类型
+    public static final String COLUMN_SCAN_TIME = "scan_time";       // 扫描时间（时间戳）
+    // 连接尝试表字段
+    public static final String COLUMN_SECURITY = "security";         // 安全类型（SecurityType名称）
+    public static final String COLUMN_ATTEMPT_TIME = "attempt_time"; // 发起连接的时间（时间戳）
+    public static final String COLUMN_DURATION = "duration_ms";      // 发起到成功或失败的耗时（毫秒）
+    public static final String COLUMN_RESULT = "result";             // 结果：connected或失败原因
+    // 汇总表字段（扫描结果没有SSID时ssid_id为0）
+    public static final String COLUMN_BUCKET_START = "bucket_start";         // 时间段起点（时间戳，按小时或天对齐）
+    public static final String COLUMN_CONNECT_COUNT = "connect_count";       // 时间段内的连接次数
+    public static final String COLUMN_LAST_CONNECT = "last_connect_time";    // 时间段内最后一次连接时间，没有连接时为0
+    public static final String COLUMN_SCAN_COUNT = "scan_count";             // 时间段内的扫描样本数
+    public static final String COLUMN_RSSI_SUM = "rssi_sum";                 // 扫描样本信号强度之和，均值=rssi_sum/scan_count
+    public static final String COLUMN_RSSI_MIN = "rssi_min";                 // 最弱信号，没有扫描样本时为NULL
+    public static final String COLUMN_RSSI_MAX = "rssi_max";                 // 最强信号，没有扫描样本时为NULL
+
+    // SSID搜索方式：按词前缀（FTS4）或任意子串（字典表LIKE）
+    public static final String SEARCH_PREFIX = "prefix";
+    public static final String SEARCH_SUBSTRING = "substring";
+
+    // 键集分页的排序方式：按连接时间倒序，时间相同按ID倒序，保证顺序确定
+    private static final String PAGE_ORDER = COLUMN_CONNECT_TIME + " DESC, " + COLUMN_ID + " DESC";
+    private static final String[] PAGE_COLUMNS = {COLUMN_ID, COLUMN_SSID, COLUMN_IP, COLUMN_CONNECT_TIME};
+
+    // 网络排序索引的汇总查询：原始历史（idx_history_ssid_time覆盖）和已汇总的小时、天记录按ssid_id合并，
+    // 再连接字典表取SSID文本
+    private static final String RANKING_HISTORY_SQL =
+            "SELECT d." + COLUMN_SSID + ", h.cnt, h.last FROM (" +
+                    "SELECT " + COLUMN_SSID_ID + ", SUM(cnt) AS cnt, MAX(last) AS last FROM (" +
+                    "SELECT " + COLUMN_SSID_ID + ", COUNT(*) AS cnt, MAX(" + COLUMN_CONNECT_TIME + ") AS last" +
+                    " FROM " + TABLE_NAME + " GROUP BY " + COLUMN_SSID_ID +
+                    " UNION ALL " + rollupConnectsSql(TABLE_ROLLUP_HOURLY) +
+                    " UNION ALL " + rollupConnectsSql(TABLE_ROLLUP_DAILY) +
+                    ") GROUP BY " + COLUMN_SSID_ID + ") h" +
+                    " JOIN " + TABLE_SSID + " d ON d." + COLUMN_ID + " = h." + COLUMN_SSID_ID;
+    private static final String RANKING_LATENCY_SQL =
+            "SELECT d." + COLUMN_SSID + ", c.latency FROM (" +
+                    "SELECT " + COLUMN_SSID_ID + ", AVG(" + COLUMN_DURATION + ") AS latency" +
+                    " FROM " + TABLE_CONNECTS + " WHERE " + COLUMN_RESULT + " = ?" +
+                    " GROUP BY " + COLUMN_SSID_ID + ") c" +
+                    " JOIN " + TABLE_SSID + " d ON d." + COLUMN_ID + " = c." + COLUMN_SSID_ID;
+
+    private static volatile WiFiHistoryDatabaseHelper instance;
+
+    /**
+     * 获取进程内共享的实例
+     * Activity、写入器和ContentProvider共用同一个连接池，不应调用close()
+     * @param context 上下文
+     * @return 共享实例
+     */
+    public static WiFiHistoryDatabaseHelper getInstance(Context context) {
+        WiFiHistoryDatabaseHelper helper = instance;
+        if (helper == null) {
+            synchronized (WiFiHistoryDatabaseHelper.class) {
+                helper = instance;
+                if (helper == null) {
+                    helper = new WiFiHistoryDatabaseHelper(context.getApplicationContext());
+                    instance = helper;
+                }
+            }
+        }
+        return helper;
+    }
+
+    private static String rollupConnectsSql(String table) {
+        return "SELECT " + COLUMN_SSID_ID + ", SUM(" + COLUMN_CONNECT_COUNT + "), MAX(" + COLUMN_LAST_CONNECT + ")" +
+                " FROM " + table + " WHERE " + COLUMN_CONNECT_COUNT + " > 0 GROUP BY " + COLUMN_SSID_ID;
+    }
 
     /**
      * 构造函数
      * @param context 应用上下文
      */
     public WiFiHistoryDatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * 使用指定数据库文件，负载测试用来隔离应用自己的数据
+     * @param context 应用上下文
+     * @param name    数据库文件名，为null时使用内存数据库
+     */
+    WiFiHistoryDatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+        // WAL模式下后台写入不阻塞读取
+        setWriteAheadLoggingEnabled(true);
     }
 
     /**
-     * 创建数据库表
+     * 打开连接时调用：新建的数据库使用增量VACUUM模式，保留策略删除数据后可以分块归还空间
+     * （已有的数据库需要一次完整VACUUM才能切换，保留策略不会自动执行；空闲页仍会被新数据复用）
+     * @param db SQLite数据库实例
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+    }
+
+    /**
+     * 连接打开后调用：记录冷启动中共享数据库第一次打开的时间
+     * @param db SQLite数据库实例
+     */
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        if (DATABASE_NAME.equals(getDatabaseName())) {
+            StartupTrace.mark(StartupTrace.DB_OPEN);
+        }
+    }
+
+    /**
+     * 创建数据库表：先建立版本1结构，再执行所有迁移到最新版本
      * @param db SQLite数据库实例
      */
     @Override
     public void onCreate(SQLiteDatabase db) {
-        // SQL语句：创建WiFi历史记录表
-        String createTableSQL = "CREATE TABLE " + TABLE_NAME + " (" +
-                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " + // 自增主键
-                COLUMN_SSID + " TEXT NOT NULL, " +                   // WiFi名称（非空）
-                COLUMN_IP + " TEXT, " +                               // IP地址（可为空）
-                COLUMN_CONNECT_TIME + " LONG NOT NULL)";             // 连接时间（非空）
-        db.execSQL(createTableSQL); // 执行SQL创建表
+        HistoryMigrations.createVersion1(db);
+        HistoryMigrations.migrate(db, 1, DATABASE_VERSION);
     }
 
     /**
-     * 数据库升级时调用
+     * 数据库升级时调用，逐版本迁移并保留已有历史数据
      * @param db         SQLite数据库实例
      * @param oldVersion 旧版本号
      * @param newVersion 新版本号
      */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // 升级策略：删除旧表并重新创建
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
-        onCreate(db); // 重新创建表
+        HistoryMigrations.migrate(db, oldVersion, newVersion);
+    }
+
+    /**
+     * 查找SSID在字典表中的ID，不存在时插入
+     * 应在写入线程、事务内调用
+     * @param db   可写数据库
+     * @param ssid WiFi名称
+     * @return 字典ID
+     */
+    public static long getOrCreateSsidId(SQLiteDatabase db, String ssid) {
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT OR IGNORE INTO " + TABLE_SSID + " (" + COLUMN_SSID + ") VALUES (?)");
+        SQLiteStatement select = db.compileStatement(
+                "SELECT " + COLUMN_ID + " FROM " + TABLE_SSID + " WHERE " + COLUMN_SSID + " = ?");
+        try {
+            insert.bindString(1, ssid);
+            insert.executeInsert();
+            select.bindString(1, ssid);
+            return select.simpleQueryForLong();
+        } finally {
+            insert.close();
+            select.close();
+        }
+    }
+
+    /**
+     * 按键集分页读取连接历史（不使用OFFSET，翻页代价与页码无关）
+     * 应在后台线程调用
+     * @param afterTime 上一页最后一条记录的连接时间，读取第一页时忽略
+     * @param afterId   上一页最后一条记录的ID，小于0表示读取第一页
+     * @param limit     每页最多记录数
+     * @return 一页历史记录
+     */
+    public HistoryPage queryHistoryPage(long afterTime, long afterId, int limit) {
+        SQLiteDatabase db = getReadableDatabase();
+        String selection = null;
+        String[] selectionArgs = null;
+        if (afterId >= 0) {
+            selection = "(" + COLUMN_CONNECT_TIME + ", " + COLUMN_ID + ") < (?, ?)";
+            selectionArgs = new String[]{Long.toString(afterTime), Long.toString(afterId)};
+        }
+        return readPage(db.query(VIEW_HISTORY, PAGE_COLUMNS, selection, selectionArgs,
+                null, null, PAGE_ORDER, Integer.toString(limit)), limit);
+    }
+
+    /**
+     * 按SSID搜索连接历史，按键集分页
+     * 先在SSID字典中找出匹配的字典ID（前缀用FTS4索引，子串用LIKE扫描字典表，字典行数远小于历史行数），
+     * 再通过idx_history_ssid_time读取这些SSID的历史，不扫描整个历史表。
+     * 应在后台线程调用
+     * @param query     搜索词
+     * @param mode      SEARCH_PREFIX：每个词都是SSID中某个词的前缀（不区分ASCII大小写）；
+     *                  SEARCH_SUBSTRING：整个搜索词是SSID的子串
+     * @param afterTime 上一页最后一条记录的连接时间，读取第一页时忽略
+     * @param afterId   上一页最后一条记录的ID，小于0表示读取第一页
+     * @param limit     每页最多记录数
+     * @return 列为_id、ssid、ip_address、connect_time的Cursor，按连接时间倒序
+     * @throws IllegalArgumentException 搜索方式未知，或前缀搜索词中没有可检索的字符
+     */
+    public Cursor searchHistory(String query, String mode, long afterTime, long afterId, int limit) {
+        StringBuilder selection = new StringBuilder(COLUMN_SSID_ID + " IN (");
+        String term;
+        if (SEARCH_PREFIX.equals(mode)) {
+            term = toFtsPrefixQuery(query);
+            if (term == null) {
+                throw new IllegalArgumentException("No searchable characters in: " + query);
+            }
+            selection.append("SELECT docid FROM " + TABLE_SSID_FTS + " WHERE " + TABLE_SSID_FTS + " MATCH ?)");
+        } else if (SEARCH_SUBSTRING.equals(mode)) {
+            term = toLikeSubstring(query);
+            selection.append("SELECT " + COLUMN_ID + " FROM " + TABLE_SSID +
+                    " WHERE " + COLUMN_SSID + " LIKE ? ESCAPE '\\')");
+        } else {
+            throw new IllegalArgumentException("Unknown search mode: " + mode);
+        }
+        String[] selectionArgs;
+        if (afterId >= 0) {
+            selection.append(" AND (" + COLUMN_CONNECT_TIME + ", " + COLUMN_ID + ") < (?, ?)");
+            selectionArgs = new String[]{term, Long.toString(afterTime), Long.toString(afterId)};
+        } else {
+            selectionArgs = new String[]{term};
+        }
+        return getReadableDatabase().query(VIEW_HISTORY, PAGE_COLUMNS, selection.toString(), selectionArgs,
+                null, null, PAGE_ORDER, Integer.toString(limit));
+    }
+
+    /**
+     * 按SSID搜索连接历史的一页，参数见searchHistory
+     */
+    public HistoryPage searchHistoryPage(String query, String mode, long afterTime, long afterId, int limit) {
+        return readPage(searchHistory(query, mode, afterTime, afterId, limit), limit);
+    }
+
+    /**
+     * 把搜索词转换为FTS4查询：按FTS4默认分词规则（ASCII字母数字和所有非ASCII字符为词内字符）切分，
+     * 每个词加*作为前缀匹配，多个词之间为AND；丢弃其余字符，用户输入不会被解释为FTS语法
+     * @return FTS查询，没有可检索的字符时返回null
+     */
+    static String toFtsPrefixQuery(String query) {
+        StringBuilder fts = new StringBuilder(query.length() + 8);
+        boolean inToken = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            boolean tokenChar = c >= 0x80 || (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            if (tokenChar) {
+                if (!inToken && fts.length() > 0) {
+                    fts.append(' ');
+                }
+                fts.append(c);
+                inToken = true;
+            } else if (inToken) {
+                fts.append('*');
+                inToken = false;
+            }
+        }
+        if (inToken) {
+            fts.append('*');
+        }
+        return fts.length() > 0 ? fts.toString() : null;
+    }
+
+    /**
+     * 把搜索词转换为LIKE子串模式，转义%、_和转义符本身
+     */
+    static String toLikeSubstring(String query) {
+        StringBuilder like = new StringBuilder(query.length() + 2).append('%');
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                like.append('\\');
+            }
+            like.append(c);
+        }
+        return like.append('%').toString();
+    }
+
+    /**
+     * 读取一页历史记录并关闭Cursor
+     */
+    private static HistoryPage readPage(Cursor cursor, int limit) {
+        long[] ids = new long[limit];
+        String[] ssids = new String[limit];
+        String[] ips = new String[limit];
+        long[] times = new long[limit];
+        int size = 0;
+        try {
+            while (cursor.moveToNext() && size < limit) {
+                ids[size] = cursor.getLong(0);
+                ssids[size] = cursor.getString(1);
+                ips[size] = cursor.getString(2);
+                times[size] = cursor.getLong(3);
+                size++;
+            }
+        } finally {
+            cursor.close();
+        }
+        return new HistoryPage(ids, ssids, ips, times, size);
+    }
+
+    /**
+     * 记录一次连接尝试（成功或失败），应在后台线程调用
+     * @param ssid        WiFi名称
+     * @param security    安全类型
+     * @param attemptTime 发起连接的时间（时间戳）
+     * @param durationMs  发起到成功或失败的耗时（毫秒）
+     * @param result      结果：connected或失败原因
+     * @return 新记录的ID
+     */
+    public long insertConnectAttempt(String ssid, String security, long attemptTime, long durationMs, String result) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_SSID_ID, getOrCreateSsidId(db, ssid));
+            values.put(COLUMN_SECURITY, security);
+            values.put(COLUMN_ATTEMPT_TIME, attemptTime);
+            values.put(COLUMN_DURATION, durationMs);
+            values.put(COLUMN_RESULT, result);
+            long id = db.insertOrThrow(TABLE_CONNECTS, null, values);
+            db.setTransactionSuccessful();
+            return id;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * 把各SSID的历史连接次数、最近连接时间和平均连接耗时载入排序索引
+     * 连接次数包括已被保留策略汇总的记录；每个SSID只返回一行汇总，应在后台线程调用
+     * @param ranker 排序索引
+     */
+    public void loadRankingIndex(NetworkRanker ranker) {
+        SQLiteDatabase db = getReadableDatabase();
+        Cursor cursor = db.rawQuery(RANKING_HISTORY_SQL, null);
+        try {
+            while (cursor.moveToNext()) {
+                ranker.putHistory(cursor.getString(0), cursor.getInt(1), cursor.getLong(2));
+            }
+        } finally {
+            cursor.close();
+        }
+        cursor = db.rawQuery(RANKING_LATENCY_SQL, new String[]{WifiConnector.RESULT_CONNECTED});
+        try {
+            while (cursor.moveToNext()) {
+                ranker.putConnectLatency(cursor.getString(0), cursor.getDouble(1));
+            }
+        } finally {
+            cursor.close();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,334 @@
+package com.example.myapplication.wifi;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WiFi连接历史写入器（write-behind）
+ * 连接记录先进入内存队列，由后台线程在达到条数或时间阈值时，
+ * 以单个事务批量写入wifi_history表，避免每次连接都打开、插入、关闭数据库。
+ * 事务失败时该批记录保留下来，间隔flushIntervalMs后重试，最多MAX_ATTEMPTS次，之后计入丢弃数。
+ */
+public class WiFiHistoryWriter {
+
+    private static final String TAG = "WiFiHistoryWriter";
+    public static final int DEFAULT_BATCH_SIZE = 32;            // 队列达到该条数立即刷写
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 2000;  // 最早一条记录最多等待的时间
+    private static final int MAX_ATTEMPTS = 3;                  // 一批记录最多尝试写入的次数
+
+    private final WiFiHistoryDatabaseHelper dbHelper;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final ScheduledThreadPoolExecutor executor; // 单线程，所有数据库写入都在此线程执行
+
+    private final ConcurrentLinkedQueue<PendingRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();          // 当前排队记录数
+    private final AtomicBoolean timerScheduled = new AtomicBoolean(false); // 是否已安排定时刷写
+    private volatile boolean shutdown = false;  // 与提交任务一起在锁内修改，关闭后不再接受记录
+    private final ArrayDeque<PendingRecord> batch = new ArrayDeque<>(); // 本次写入（或失败待重试）的记录，仅写入线程访问
+    private int failedAttempts = 0;             // batch中的记录已失败的次数，仅写入线程访问
+    private final Map<String, Long> ssidIds = new HashMap<>(); // SSID字典ID缓存，仅写入线程访问
+
+    // 统计信息
+    private final AtomicLong flushCount = new AtomicLong();       // 已提交的事务数
+    private final AtomicLong rowsWritten = new AtomicLong();      // 已写入的记录总数
+    private final AtomicLong totalFlushNanos = new AtomicLong();  // 刷写总耗时
+    private volatile long lastFlushNanos = 0;                     // 最近一次刷写耗时
+    private volatile int lastRowsPerTransaction = 0;              // 最近一次事务写入的记录数
+    private volatile int maxQueueDepth = 0;                       // 观察到的最大队列深度
+    private final AtomicLong droppedRecords = new AtomicLong();    // 丢弃的记录数
+    private final LatencyHistogram insertLatency =
+            MetricsRegistry.getInstance().histogram(MetricsRegistry.HISTORY_INSERT);
+    private final MetricsRegistry.Counter rowsCounter =
+            MetricsRegistry.getInstance().counter(MetricsRegistry.HISTORY_ROWS);
+    private final MetricsRegistry.Counter droppedCounter =
+            MetricsRegistry.getInstance().counter(MetricsRegistry.HISTORY_DROPPED);
+
+    /**
+     * 使用默认阈值创建写入器
+     * @param dbHelper 数据库帮助类
+     */
+    public WiFiHistoryWriter(WiFiHistoryDatabaseHelper dbHelper) {
+        this(dbHelper, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * 构造函数
+     * @param dbHelper        数据库帮助类
+     * @param batchSize       触发立即刷写的队列长度
+     * @param flushIntervalMs 记录在队列中的最长等待时间（毫秒）
+     */
+    public WiFiHistoryWriter(WiFiHistoryDatabaseHelper dbHelper, int batchSize, long flushIntervalMs) {
+        if (batchSize <= 0 || flushIntervalMs <= 0) {
+            throw new IllegalArgumentException("batchSize and flushIntervalMs must be positive");
+        }
+        this.dbHelper = dbHelper;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, TAG);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+        // 关闭时丢弃尚未到期的定时刷写，由最后一次刷写处理剩余记录，线程可以立即退出
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * 将一条连接记录加入队列，可在任意线程（包括UI线程）调用，不会访问数据库
+     * @param ssid        WiFi名称
+     * @param ip          IP地址
+     * @param connectTime 连接时间（时间戳）
+     * @return 写入器已关闭时返回false
+     */
+    public boolean enqueue(String ssid, String ip, long connectTime) {
+        // 与shutdown()互斥：入队的记录一定在最后一次刷写之前，提交任务时执行器一定未关闭
+        synchronized (this) {
+            if (shutdown) {
+                Log.w(TAG, "Writer already shut down, dropping record for " + ssid);
+                drop(1);
+                return false;
+            }
+            queue.add(new PendingRecord(ssid, ip, connectTime));
+            int depth = queueDepth.incrementAndGet();
+            if (depth > maxQueueDepth) {
+                maxQueueDepth = depth;
+            }
+
+            if (depth >= batchSize) {
+                // 达到条数阈值，立即安排刷写
+                executor.execute(this::flush);
+            } else if (timerScheduled.compareAndSet(false, true)) {
+                // 第一条记录入队时启动计时，保证记录最多等待flushIntervalMs
+                executor.schedule(this::flush, flushIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 请求尽快刷写队列中的记录（异步）
+     * @return 刷写任务，可用于在读取前等待已排队记录落库；写入器已关闭时返回null
+     */
+    public synchronized Future<?> flushAsync() {
+        if (shutdown) {
+            return null;
+        }
+        return executor.submit(this::flush);
+    }
+
+    /**
+     * 关闭写入器：在后台线程刷写剩余记录后结束，不阻塞调用线程（可在UI线程调用）
+     * @return 最后一次刷写，需要等待落库时调用get()；已关闭时返回null
+     */
+    public synchronized Future<?> shutdown() {
+        if (shutdown) {
+            return null;
+        }
+        shutdown = true;
+        Future<?> finalFlush = executor.submit(this::flush);
+        executor.shutdown();
+        return finalFlush;
+    }
+
+    /**
+     * 将待重试和队列中的记录在一个事务中写入数据库，仅在写入线程调用
+     * 失败时记录保留到下一次尝试：正常运行时延迟flushIntervalMs重试，关闭时立即重试
+     */
+    private void flush() {
+        timerScheduled.set(false);
+        while (!writeBatch()) {
+            if (++failedAttempts >= MAX_ATTEMPTS) {
+                Log.e(TAG, "Dropping " + batch.size() + " history records after " + failedAttempts + " attempts");
+                queueDepth.addAndGet(-batch.size());
+                drop(batch.size());
+                batch.clear();
+                failedAttempts = 0;
+                return;
+            }
+            if (!shutdown) {
+                try {
+                    executor.schedule(this::flush, flushIntervalMs, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // 刚刚关闭，在最后一次刷写中立即重试
+                }
+            }
+        }
+        failedAttempts = 0;
+    }
+
+    /**
+     * 写入一个事务
+     * @return 是否成功（没有记录时也视为成功）
+     */
+    private boolean writeBatch() {
+        PendingRecord record;
+        while ((record = queue.poll()) != null) {
+            batch.add(record); // 先移入待写入列表，事务失败时不会丢失
+        }
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        int rows = batch.size();
+        SQLiteDatabase db;
+        try {
+            db = dbHelper.getWritableDatabase();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to open database for " + rows + " history records", e);
+            return false;
+        }
+        db.beginTransactionNonExclusive();
+        try {
+            SQLiteStatement insert = db.compileStatement(
+                    "INSERT INTO " + WiFiHistoryDatabaseHelper.TABLE_NAME + " (" +
+                            WiFiHistoryDatabaseHelper.COLUMN_SSID_ID + ", " +
+                            WiFiHistoryDatabaseHelper.COLUMN_IP + ", " +
+                            WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME + ") VALUES (?, ?, ?)");
+            try {
+                for (PendingRecord r : batch) {
+                    insert.bindLong(1, resolveSsidId(db, r.ssid));
+                    if (r.ip != null) {
+                        insert.bindString(2, r.ip);
+                    } else {
+                        insert.bindNull(2);
+                    }
+                    insert.bindLong(3, r.connectTime);
+                    insert.executeInsert();
+                    insert.clearBindings();
+                }
+            } finally {
+                insert.close();
+            }
+            db.setTransactionSuccessful();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to flush " + rows + " history records", e);
+            ssidIds.clear(); // 事务回滚后新插入的字典ID可能无效
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+        batch.clear();
+        queueDepth.addAndGet(-rows);
+
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+        flushCount.incrementAndGet();
+        rowsWritten.addAndGet(rows);
+        totalFlushNanos.addAndGet(elapsed);
+        lastFlushNanos = elapsed;
+        lastRowsPerTransaction = rows;
+        insertLatency.recordNanos(elapsed);
+        rowsCounter.add(rows);
+        Log.d(TAG, "Flushed " + rows + " rows in " + TimeUnit.NANOSECONDS.toMicros(elapsed) + "us");
+        return true;
+    }
+
+    private void drop(int records) {
+        droppedRecords.addAndGet(records);
+        droppedCounter.add(records);
+    }
+
+    /**
+     * 获取SSID的字典ID，优先使用本地缓存，仅在写入线程调用
+     */
+    private long resolveSsidId(SQLiteDatabase db, String ssid) {
+        Long id = ssidIds.get(ssid);
+        if (id == null) {
+            id = WiFiHistoryDatabaseHelper.getOrCreateSsidId(db, ssid);
+            ssidIds.put(ssid, id);
+        }
+        return id;
+    }
+
+    /**
+     * 获取写入器的统计快照
+     * @return 统计信息
+     */
+    public Stats getStats() {
+        long flushes = flushCount.get();
+        long rows = rowsWritten.get();
+        return new Stats(
+                queueDepth.get(),
+                maxQueueDepth,
+                flushes,
+                rows,
+                lastFlushNanos / 1_000_000.0,
+                flushes == 0 ? 0 : totalFlushNanos.get() / 1_000_000.0 / flushes,
+                lastRowsPerTransaction,
+                flushes == 0 ? 0 : (double) rows / flushes,
+                droppedRecords.get());
+    }
+
+    /**
+     * 排队中的连接记录
+     */
+    private static final class PendingRecord {
+        final String ssid;
+        final String ip;
+        final long connectTime;
+
+        PendingRecord(String ssid, String ip, long connectTime) {
+            this.ssid = ssid;
+            this.ip = ip;
+            this.connectTime = connectTime;
+        }
+    }
+
+    /**
+     * 写入器统计信息：队列深度、刷写耗时、每个事务写入的记录数
+     */
+    public static final class Stats {
+        public final int queueDepth;
+        public final int maxQueueDepth;
+        public final long flushCount;
+        public final long rowsWritten;
+        public final double lastFlushLatencyMs;
+        public final double avgFlushLatencyMs;
+        public final int lastRowsPerTransaction;
+        public final double avgRowsPerTransaction;
+        public final long droppedRecords;       // 重试后仍失败或关闭后提交而丢弃的记录数
+
+        Stats(int queueDepth, int maxQueueDepth, long flushCount, long rowsWritten,
+              double lastFlushLatencyMs, double avgFlushLatencyMs,
+              int lastRowsPerTransaction, double avgRowsPerTransaction, long droppedRecords) {
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.flushCount = flushCount;
+            this.rowsWritten = rowsWritten;
+            this.lastFlushLatencyMs = lastFlushLatencyMs;
+            this.avgFlushLatencyMs = avgFlushLatencyMs;
+            this.lastRowsPerTransaction = lastRowsPerTransaction;
+            this.avgRowsPerTransaction = avgRowsPerTransaction;
+            this.droppedRecords = droppedRecords;
+        }
+
+        @Override
+        public String toString() {
+            return "queueDepth=" + queueDepth +
+                    ", maxQueueDepth=" + maxQueueDepth +
+                    ", flushes=" + flushCount +
+                    ", rows=" + rowsWritten +
+                    ", lastFlushMs=" + lastFlushLatencyMs +
+                    ", avgFlushMs=" + avgFlushLatencyMs +
+                    ", lastRowsPerTx=" + lastRowsPerTransaction +
+                    ", avgRowsPerTx=" + avgRowsPerTransaction +
+                    ", dropped=" + droppedRecords;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.myapplication.wifi;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.net.wifi.WifiManager;
+import android.net.wifi.WifiNetworkSpecifier;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.myapplication.core.SecurityType;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * WiFi连接器
+ * 根据扫描结果的安全类型选择合适的WifiNetworkSpecifier（开放、OWE、WPA2、WPA3-SAE、过渡模式），
+ * 第一次就用正确的方式连接；请求带超时，超时后系统回调onUnavailable结束本次尝试。
+ * 每次尝试的耗时和结果（成功或失败原因）按SSID写入数据库，并计入延迟直方图。
+ * 同一时间只有一个连接请求，新请求会取消旧请求。
+ * 所有者销毁时先调用cancel()再关闭ioExecutor；与cancel()同时到达的系统回调在executor关闭后不再记录。
+ */
+public class WifiConnector {
+
+    private static final String TAG = "WifiConnector";
+    public static final int DEFAULT_TIMEOUT_MS = 30_000; // 连接超时
+
+    // 连接结果
+    public static final String RESULT_CONNECTED = "connected";
+    public static final String RESULT_TIMEOUT = "timeout";                     // 超时未连接
+    public static final String RESULT_UNAVAILABLE = "unavailable";             // 系统或用户拒绝、未找到网络
+    public static final String RESULT_UNSUPPORTED = "unsupported_security";    // WEP或企业版网络
+    public static final String RESULT_INVALID_PASSPHRASE = "invalid_passphrase"; // 密码格式不符合要求
+    public static final String RESULT_CANCELLED = "cancelled";                 // 被新的连接请求取代
+
+    /**
+     * 连接结果回调（在ConnectivityManager的回调线程或调用线程上调用）
+     */
+    public interface Listener {
+        void onConnected(String ssid, Network network, long elapsedMs);
+
+        void onFailed(String ssid, String reason, long elapsedMs);
+    }
+
+    private final ConnectivityManager connectivityManager;
+    private final WifiManager wifiManager;
+    private final WiFiHistoryDatabaseHelper dbHelper;
+    private final Executor ioExecutor; // 写入连接记录的后台线程
+    private final Listener listener;
+    private final int timeoutMs;
+
+    private final LatencyHistogram connectLatency =
+            MetricsRegistry.getInstance().histogram(MetricsRegistry.CONNECT_LATENCY);
+    private final MetricsRegistry.Counter connectRequests =
+            MetricsRegistry.getInstance().counter(MetricsRegistry.CONNECT_REQUESTS);
+    private final MetricsRegistry.Counter connectFailures =
+            MetricsRegistry.getInstance().counter(MetricsRegistry.CONNECT_FAILURES);
+
+    private Attempt current; // 当前的连接尝试
+
+    public WifiConnector(Context context, WiFiHistoryDatabaseHelper dbHelper, Executor ioExecutor, Listener listener) {
+        this(context, dbHelper, ioExecutor, listener, DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * @param context    上下文
+     * @param dbHelper   数据库，用于记录连接尝试
+     * @param ioExecutor 写入连接记录的后台线程
+     * @param listener   结果回调
+     * @param timeoutMs  连接超时（毫秒）
+     */
+    public WifiConnector(Context context, WiFiHistoryDatabaseHelper dbHelper, Executor ioExecutor,
+                         Listener listener, int timeoutMs) {
+        Context app = context.getApplicationContext();
+        this.connectivityManager = (ConnectivityManager) app.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.wifiManager = (WifiManager) app.getSystemService(Context.WIFI_SERVICE);
+        this.dbHelper = dbHelper;
+        this.ioExecutor = ioExecutor;
+        this.listener = listener;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * 连接到指定WiFi
+     * @param ssid         WiFi名称
+     * @param capabilities 扫描结果中的安全类型字符串
+     * @param passphrase   密码，开放网络可为null
+     */
+    public synchronized void connect(String ssid, String capabilities, String passphrase) {
+        cancel();
+        SecurityType security = SecurityType.fromCapabilities(capabilities);
+        long start = SystemClock.elapsedRealtime();
+        connectRequests.increment();
+
+        WifiNetworkSpecifier specifier;
+        try {
+            specifier = buildSpecifier(ssid, security, passphrase);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Cannot build specifier for " + ssid + " (" + security + ")", e);
+            finish(ssid, security, start, security.isConnectable() ? RESULT_INVALID_PASSPHRASE : RESULT_UNSUPPORTED);
+            return;
+        }
+
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+                .setNetworkSpecifier(specifier)
+                .build();
+        Attempt attempt = new Attempt(ssid, security, start);
+        current = attempt;
+        StrictModeMonitor.noteIpc("ConnectivityManager.requestNetwork");
+        // 带超时的请求：超时后回调onUnavailable，不会无限等待
+        connectivityManager.requestNetwork(request, attempt, timeoutMs);
+    }
+
+    /**
+     * 取消当前的连接请求并解除网络绑定
+     */
+    public synchronized void cancel() {
+        Attempt attempt = current;
+        current = null;
+        if (attempt == null) {
+            return;
+        }
+        try {
+            connectivityManager.unregisterNetworkCallback(attempt);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Network callback already unregistered", e);
+        }
+        if (attempt.complete()) {
+            finish(attempt.ssid, attempt.security, attempt.start, RESULT_CANCELLED);
+        }
+    }
+
+    /**
+     * 根据安全类型构建网络规范
+     * @throws IllegalArgumentException 安全类型不支持或密码格式不符合要求
+     */
+    WifiNetworkSpecifier buildSpecifier(String ssid, SecurityType security, String passphrase) {
+        WifiNetworkSpecifier.Builder builder = new WifiNetworkSpecifier.Builder().setSsid(ssid);
+        switch (security) {
+            case OPEN:
+                break;
+            case OWE:
+                builder.setIsEnhancedOpen(true);
+                break;
+            case WPA2_PSK:
+                builder.setWpa2Passphrase(passphrase);
+                break;
+            case WPA3_SAE:
+                builder.setWpa3Passphrase(passphrase);
+                break;
+            case WPA2_WPA3_TRANSITION:
+                // 过渡模式：设备支持SAE时优先使用WPA3，否则按WPA2连接
+                if (wifiManager.isWpa3SaeSupported()) {
+                    builder.setWpa3Passphrase(passphrase);
+                } else {
+                    builder.setWpa2Passphrase(passphrase);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported security type: " + security);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 记录一次尝试的结果，并通知监听者（失败时）
+     */
+    private void finish(String ssid, SecurityType security, long start, String result) {
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        long attemptTime = System.currentTimeMillis() - elapsed;
+        if (RESULT_CONNECTED.equals(result)) {
+            connectLatency.recordNanos(elapsed * 1_000_000);
+        } else {
+            connectFailures.increment();
+            Log.w(TAG, "Connect to " + ssid + " failed: " + result + " after " + elapsed + "ms");
+            if (!RESULT_CANCELLED.equals(result)) {
+                listener.onFailed(ssid, result, elapsed);
+            }
+        }
+        try {
+            ioExecutor.execute(() -> {
+                try {
+                    dbHelper.insertConnectAttempt(ssid, security.name(), attemptTime, elapsed, result);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Failed to record connect attempt", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 系统回调在所有者销毁、executor关闭之后才到达
+            Log.w(TAG, "Connect attempt to " + ssid + " not recorded: executor shut down");
+        }
+    }
+
+    /**
+     * 一次连接尝试的网络回调，只报告第一个结果
+     */
+    private final class Attempt extends ConnectivityManager.NetworkCallback {
+        final String ssid;
+        final SecurityType security;
+        final long start;
+        private boolean completed = false;
+
+        Attempt(String ssid, SecurityType security, long start) {
+            this.ssid = ssid;
+            this.security = security;
+            this.start = start;
+        }
+
+        /**
+         * @return 是否是第一次完成（之前没有报告过结果）
+         */
+        synchronized boolean complete() {
+            if (completed) {
+                return false;
+            }
+            completed = true;
+            return true;
+        }
+
+        @Override
+        public void onAvailable(@NonNull Network network) {
+            if (!complete()) {
+                return;
+            }
+            connectivityManager.bindProcessToNetwork(network);
+            finish(ssid, security, start, RESULT_CONNECTED);
+            listener.onConnected(ssid, network, SystemClock.elapsedRealtime() - start);
+        }
+
+        @Override
+        public void onUnavailable() {
+            if (!complete()) {
+                return;
+            }
+            long elapsed = SystemClock.elapsedRealtime() - start;
+            // 系统不提供失败原因；接近超时时间的视为超时，否则为系统或用户拒绝
+            finish(ssid, security, start, elapsed >= timeoutMs - 1000 ? RESULT_TIMEOUT : RESULT_UNAVAILABLE);
+            synchronized (WifiConnector.this) {
+                if (current == this) {
+                    current = null;
+                }
+            }
+        }
+    }
+}
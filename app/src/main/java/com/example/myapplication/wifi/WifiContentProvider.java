@@ -1,61 +1,280 @@
 package com.example.myapplication.wifi;
 
 import android.Manifest;
+import android.content.ClipDescription;
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.ContentUris;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
 import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
-import android.net.wifi.WifiInfo;
-import android.net.wifi.WifiManager;
 import android.os.Build;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.text.TextUtils;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 
+import com.example.myapplication.core.WifiFormat;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
- * WiFi信息内容提供者，用于通过ContentProvider接口向外提供当前连接的WiFi信息
+ * WiFi信息内容提供者，用于通过ContentProvider接口向外提供当前连接的WiFi信息、连接历史和扫描结果
+ * 连接信息缓存为不可变快照，由网络回调更新；快照变化时通知CONTENT_URI的观察者，
+ * 客户端可以注册ContentObserver而不必轮询。
+ * 历史和扫描结果的投影、条件、排序和limit参数直接下推到SQLite执行。
+ * /export/history和/export/scans通过openFile以管道流式导出CSV或NDJSON，
+ * 例如：adb shell content read --uri "content://...wificontentprovider/export/history?format=ndjson&from=..."
  */
 public class WifiContentProvider extends ContentProvider {
 
+    private static final String TAG = "WifiContentProvider";
+
     // 内容提供者的唯一标识
     public static final String AUTHORITY = "com.example.myapplication.wifi.wificontentprovider";
     // 内容URI，外部应用通过此URI访问WiFi信息
     public static final Uri CONTENT_URI = Uri.parse("content://" + AUTHORITY + "/wifi");
+    // 连接历史URI，/history/#访问单条记录
+    public static final Uri HISTORY_URI = Uri.parse("content://" + AUTHORITY + "/history");
+    // SSID搜索URI（只读）：q为搜索词，mode为prefix（默认）或substring，after_time和after_id为键集分页位置
+    public static final Uri HISTORY_SEARCH_URI = Uri.parse("content://" + AUTHORITY + "/history/search");
+    // 扫描结果URI，/scans/#访问单条记录
+    public static final Uri SCANS_URI = Uri.parse("content://" + AUTHORITY + "/scans");
+    // 连接尝试URI（只读）：每次连接的安全类型、耗时和结果，可按SSID筛选
+    public static final Uri CONNECTS_URI = Uri.parse("content://" + AUTHORITY + "/connects");
+    // 指标快照URI：每个计数器和延迟直方图一行
+    public static final Uri METRICS_URI = Uri.parse("content://" + AUTHORITY + "/metrics");
+    // 导出URI（openFile，只读）：按时间正序流式输出连接历史或扫描结果
+    public static final Uri EXPORT_HISTORY_URI = Uri.parse("content://" + AUTHORITY + "/export/history");
+    public static final Uri EXPORT_SCANS_URI = Uri.parse("content://" + AUTHORITY + "/export/scans");
+    // 指标快照的列（延迟单位为微秒，计数器和gauge只有count列）
+    public static final String[] METRICS_COLUMNS = {
+            "name", "type", "count", "mean_us", "p50_us", "p95_us", "p99_us", "max_us"};
 
-    // URI匹配码，用于标识访问WiFi信息的请求
-    private static final int WIFI = 1;
+    // 查询参数：refresh=true时绕过缓存，立即读取一次连接信息
+    public static final String PARAM_REFRESH = "refresh";
+    // 查询参数：最多返回的行数，下推为SQL的LIMIT
+    public static final String PARAM_LIMIT = "limit";
+    // 导出参数：格式（csv或ndjson，默认csv），时间范围[from, to)（毫秒时间戳），下推为SQL条件
+    public static final String PARAM_FORMAT = "format";
+    public static final String PARAM_FROM = "from";
+    public static final String PARAM_TO = "to";
+    // 搜索参数
+    public static final String PARAM_QUERY = "q";
+    public static final String PARAM_MODE = "mode";
+    public static final String PARAM_AFTER_TIME = "after_time";
+    public static final String PARAM_AFTER_ID = "after_id";
+    public static final int DEFAULT_SEARCH_LIMIT = 50;
+    // call()方法名：一次返回当前连接、最近一次扫描摘要和最近的连接历史，arg为历史条数
+    public static final String METHOD_GET_STATE = "getState";
+    public static final int DEFAULT_STATE_HISTORY_LIMIT = 10;
+    public static final int MAX_STATE_HISTORY_LIMIT = 500; // 超过时按该值返回，避免Bundle超过Binder事务大小
+    // getState返回的Bundle键
+    public static final String KEY_CONNECTED = "connected";
+    public static final String KEY_CONNECTION = "connection";         // Bundle，键与WIFI_COLUMNS相同
+    public static final String KEY_SCAN_SUMMARY = "scan_summary";     // Bundle，没有扫描记录时不存在
+    public static final String KEY_SCAN_TIME = "scan_time";
+    public static final String KEY_SCAN_COUNT = "count";
+    public static final String KEY_STRONGEST_SSID = "strongest_ssid";
+    public static final String KEY_STRONGEST_RSSI = "strongest_rssi";
+    public static final String KEY_HISTORY_IDS = "history_ids";       // long[]
+    public static final String KEY_HISTORY_SSIDS = "history_ssids";   // String[]
+    public static final String KEY_HISTORY_IPS = "history_ips";       // String[]
+    public static final String KEY_HISTORY_TIMES = "history_times";   // long[]
+    public static final String KEY_ERROR = "error";                   // 参数无效时只返回该键（错误说明）
+    // 返回的列
+    private static final String[] WIFI_COLUMNS = {"wifi_name", "rssi", "ip_address", "link_speed"};
+
+    // URI匹配码
+    private static final int WIFI = 1;       // 当前WiFi信息
+    private static final int HISTORY = 2;    // 连接历史
+    private static final int HISTORY_ID = 3; // 单条连接历史
+    private static final int SCANS = 4;      // 扫描结果
+    private static final int SCANS_ID = 5;   // 单条扫描结果
+    private static final int METRICS = 6;    // 指标快照
+    private static final int CONNECTS = 7;   // 连接尝试
+    private static final int EXPORT_HISTORY = 8; // 导出连接历史
+    private static final int EXPORT_SCANS = 9;   // 导出扫描结果
+    private static final int HISTORY_SEARCH = 10; // 按SSID搜索连接历史
     // URI匹配器，用于解析传入的URI
     private static final UriMatcher uriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
 
+    // 允许查询的列（列名到SQL表达式的映射），用于严格模式下校验投影和条件
+    private static final Map<String, String> HISTORY_PROJECTION = new HashMap<>();
+    private static final Map<String, String> SCANS_PROJECTION = new HashMap<>();
+    private static final Map<String, String> CONNECTS_PROJECTION = new HashMap<>();
+    // 默认排序
+    private static final String HISTORY_ORDER = WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME + " DESC, " +
+            WiFiHistoryDatabaseHelper.COLUMN_ID + " DESC";
+    private static final String SCANS_ORDER = WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME + " DESC, " +
+            WiFiHistoryDatabaseHelper.COLUMN_ID + " DESC";
+    // 导出的列和排序（时间正序，走时间索引）
+    private static final String[] EXPORT_HISTORY_COLUMNS = {
+            WiFiHistoryDatabaseHelper.COLUMN_ID,
+            WiFiHistoryDatabaseHelper.COLUMN_SSID,
+            WiFiHistoryDatabaseHelper.COLUMN_IP,
+            WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME};
+    private static final String[] EXPORT_SCANS_COLUMNS = {
+            WiFiHistoryDatabaseHelper.COLUMN_ID,
+            WiFiHistoryDatabaseHelper.COLUMN_BSSID,
+            WiFiHistoryDatabaseHelper.COLUMN_SSID,
+            WiFiHistoryDatabaseHelper.COLUMN_RSSI,
+            WiFiHistoryDatabaseHelper.COLUMN_FREQUENCY,
+            WiFiHistoryDatabaseHelper.COLUMN_CAPABILITIES,
+            WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME};
+    private static final String CONNECTS_ORDER = WiFiHistoryDatabaseHelper.COLUMN_ATTEMPT_TIME + " DESC, " +
+            WiFiHistoryDatabaseHelper.COLUMN_ID + " DESC";
+
     static {
-        // 初始化URI匹配器，将"wifi"路径映射到WIFI匹配码
+        // 初始化URI匹配器
         uriMatcher.addURI(AUTHORITY, "wifi", WIFI);
+        uriMatcher.addURI(AUTHORITY, "history", HISTORY);
+        uriMatcher.addURI(AUTHORITY, "history/#", HISTORY_ID);
+        uriMatcher.addURI(AUTHORITY, "history/search", HISTORY_SEARCH);
+        uriMatcher.addURI(AUTHORITY, "scans", SCANS);
+        uriMatcher.addURI(AUTHORITY, "scans/#", SCANS_ID);
+        uriMatcher.addURI(AUTHORITY, "metrics", METRICS);
+        uriMatcher.addURI(AUTHORITY, "connects", CONNECTS);
+        uriMatcher.addURI(AUTHORITY, "export/history", EXPORT_HISTORY);
+        uriMatcher.addURI(AUTHORITY, "export/scans", EXPORT_SCANS);
+
+        for (String column : new String[]{
+                WiFiHistoryDatabaseHelper.COLUMN_ID,
+                WiFiHistoryDatabaseHelper.COLUMN_SSID_ID,
+                WiFiHistoryDatabaseHelper.COLUMN_SSID,
+                WiFiHistoryDatabaseHelper.COLUMN_IP,
+                WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME}) {
+            HISTORY_PROJECTION.put(column, column);
+        }
+        for (String column : new String[]{
+                WiFiHistoryDatabaseHelper.COLUMN_ID,
+                WiFiHistoryDatabaseHelper.COLUMN_BSSID,
+                WiFiHistoryDatabaseHelper.COLUMN_SSID_ID,
+                WiFiHistoryDatabaseHelper.COLUMN_SSID,
+                WiFiHistoryDatabaseHelper.COLUMN_RSSI,
+                WiFiHistoryDatabaseHelper.COLUMN_FREQUENCY,
+                WiFiHistoryDatabaseHelper.COLUMN_CAPABILITIES,
+                WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME}) {
+            SCANS_PROJECTION.put(column, column);
+        }
+        for (String column : new String[]{
+                WiFiHistoryDatabaseHelper.COLUMN_ID,
+                WiFiHistoryDatabaseHelper.COLUMN_SSID_ID,
+                WiFiHistoryDatabaseHelper.COLUMN_SSID,
+                WiFiHistoryDatabaseHelper.COLUMN_SECURITY,
+                WiFiHistoryDatabaseHelper.COLUMN_ATTEMPT_TIME,
+                WiFiHistoryDatabaseHelper.COLUMN_DURATION,
+                WiFiHistoryDatabaseHelper.COLUMN_RESULT}) {
+            CONNECTS_PROJECTION.put(column, column);
+        }
     }
 
-    private WifiManager wifiManager; // WiFi管理器实例
+    private volatile WiFiHistoryDatabaseHelper dbHelper; // 首次访问时获取，见dbHelper()
+    private final HistoryExporter exporter = new HistoryExporter();
+    // 批量操作期间推迟的变化通知（提交事务后统一发送）
+    private final ThreadLocal<Set<Uri>> batchNotifications = new ThreadLocal<>();
+
+    private volatile WifiStateMonitor monitor; // 网络回调驱动的状态监视器，首次查询WIFI时创建并启动
+    private volatile CachedRow cachedRow; // 当前连接信息的缓存行，null表示尚未读取
 
     /**
-     * 初始化ContentProvider，获取系统WiFi服务
+     * 初始化ContentProvider
+     * 在进程启动时、Application和任何Activity之前于主线程调用，因此这里不做任何工作：
+     * 数据库和WiFi数据源都在第一次查询时才初始化（见dbHelper()和getCachedRow()）。
      * @return 初始化成功返回true
      */
     @Override
     public boolean onCreate() {
-        wifiManager = (WifiManager) getContext().getSystemService(getContext().WIFI_SERVICE);
+        StartupTrace.mark(StartupTrace.PROVIDER_INIT);
         return true;
     }
 
     /**
-     * 处理查询请求，返回当前连接的WiFi信息
+     * 获取共享的数据库帮助类，第一次调用时创建（不打开数据库，首次读写时才打开）
+     */
+    private WiFiHistoryDatabaseHelper dbHelper() {
+        WiFiHistoryDatabaseHelper helper = dbHelper;
+        if (helper == null) {
+            helper = WiFiHistoryDatabaseHelper.getInstance(getContext());
+            dbHelper = helper;
+        }
+        return helper;
+    }
+
+    /**
+     * 获取状态监视器，第一次调用时创建
+     */
+    private WifiStateMonitor monitor() {
+        WifiStateMonitor m = monitor;
+        if (m == null) {
+            synchronized (this) {
+                m = monitor;
+                if (m == null) {
+                    m = new WifiStateMonitor(getContext(), this::onSnapshotChanged);
+                    monitor = m;
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * 快照变化时（监视器线程）：替换缓存并通知观察者
+     * @param snapshot 新的WiFi状态
+     */
+    private void onSnapshotChanged(WifiSnapshot snapshot) {
+        cachedRow = new CachedRow(snapshot);
+        getContext().getContentResolver().notifyChange(CONTENT_URI, null);
+    }
+
+    /**
+     * 获取缓存行；第一次调用时启动监视器并立即读取一次
+     * @param refresh 是否绕过缓存重新读取
+     */
+    private CachedRow getCachedRow(boolean refresh) {
+        CachedRow row = cachedRow;
+        if (row == null || refresh) {
+            WifiStateMonitor m = monitor();
+            m.start(); // 重复调用无效
+            // readCurrent会在快照变化时回调onSnapshotChanged更新缓存
+            row = new CachedRow(m.readCurrent());
+            cachedRow = row;
+        }
+        return row;
+    }
+
+    /**
+     * 处理查询请求，返回当前连接的WiFi信息、连接历史或扫描结果
      * @param uri 请求的URI
      * @param projection 需要返回的列
      * @param selection 查询条件
      * @param selectionArgs 查询条件参数
      * @param sortOrder 排序方式
-     * @return 包含WiFi信息的Cursor
+     * @return 查询结果Cursor
      */
     @Nullable
     @Override
@@ -68,31 +287,317 @@ public class WifiContentProvider extends ContentProvider {
         }
 
         // 验证URI是否合法
-        if (uriMatcher.match(uri) != WIFI) {
-            throw new IllegalArgumentException("Unknown URI: " + uri);
+        int match = uriMatcher.match(uri);
+        switch (match) {
+            case WIFI:
+                break;
+            case HISTORY:
+            case HISTORY_ID:
+            case SCANS:
+            case SCANS_ID:
+            case CONNECTS:
+                return queryDatabase(match, uri, projection, selection, selectionArgs, sortOrder);
+            case METRICS:
+                return queryMetrics();
+            case HISTORY_SEARCH:
+                return searchHistory(uri);
+            default:
+                throw new IllegalArgumentException("Unknown URI: " + uri);
         }
 
-        // 获取当前连接的WiFi信息
-        WifiInfo wifiInfo = null;
-        if (ContextCompat.checkSelfPermission(getContext(), Manifest.permission.ACCESS_FINE_LOCATION)
-                == PackageManager.PERMISSION_GRANTED) {
-            wifiInfo = wifiManager.getConnectionInfo();
+        // 从缓存快照构建Cursor，不访问WifiManager
+        CachedRow row = getCachedRow(uri.getBooleanQueryParameter(PARAM_REFRESH, false));
+        MatrixCursor cursor = new MatrixCursor(WIFI_COLUMNS, 1);
+        if (row.values != null) {
+            cursor.addRow(row.values);
         }
+        // 快照变化时通知该Cursor的观察者
+        cursor.setNotificationUri(getContext().getContentResolver(), CONTENT_URI);
 
-        // 创建返回结果的Cursor，定义返回的列
-        MatrixCursor cursor = new MatrixCursor(new String[]{"wifi_name", "rssi", "ip_address", "link_speed"});
+        return cursor; // 返回包含WiFi信息的Cursor
+    }
 
-        // 如果WiFi已启用且获取到连接信息，则添加数据到Cursor
-        if (wifiManager.isWifiEnabled() && wifiInfo != null) {
-            MatrixCursor.RowBuilder row = cursor.newRow();
-            String ssid = processSSID(wifiInfo.getSSID()); // 处理SSID格式，去除引号
-            row.add(ssid); // 添加WiFi名称
-            row.add(wifiInfo.getRssi()); // 添加信号强度
-            row.add(intToIp(wifiInfo.getIpAddress())); // 添加IP地址
-            row.add(wifiInfo.getLinkSpeed()); // 添加连接速度
+    /**
+     * 按SSID搜索连接历史，一次返回一页；下一页把最后一行的connect_time和_id作为after_time和after_id
+     */
+    private Cursor searchHistory(Uri uri) {
+        String query = uri.getQueryParameter(PARAM_QUERY);
+        if (TextUtils.isEmpty(query)) {
+            throw new IllegalArgumentException("Missing search query: " + uri);
         }
+        String mode = uri.getQueryParameter(PARAM_MODE);
+        long afterTime = getLongParameter(uri, PARAM_AFTER_TIME, 0);
+        long afterId = getLongParameter(uri, PARAM_AFTER_ID, -1);
+        long limit = getLongParameter(uri, PARAM_LIMIT, DEFAULT_SEARCH_LIMIT);
+        Cursor cursor = dbHelper().searchHistory(query, mode != null ? mode : WiFiHistoryDatabaseHelper.SEARCH_PREFIX,
+                afterTime, afterId, (int) Math.min(limit, Integer.MAX_VALUE));
+        cursor.setNotificationUri(getContext().getContentResolver(), HISTORY_URI);
+        return cursor;
+    }
 
-        return cursor; // 返回包含WiFi信息的Cursor
+    /**
+     * @return 非负整数参数，未指定时返回默认值
+     * @throws IllegalArgumentException 不是非负整数
+     */
+    private static long getLongParameter(Uri uri, String name, long defaultValue) {
+        String value = uri.getQueryParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.isEmpty() || !TextUtils.isDigitsOnly(value)) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+        return Long.parseLong(value);
+    }
+
+    /**
+     * 生成指标快照：依次列出计数器、gauge和延迟直方图，均按名称排序
+     */
+    private static Cursor queryMetrics() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        Map<String, Long> counters = registry.counterSnapshot();
+        Map<String, Long> gauges = registry.gaugeSnapshot();
+        List<LatencyHistogram.Snapshot> histograms = registry.histogramSnapshot();
+        MatrixCursor cursor = new MatrixCursor(METRICS_COLUMNS,
+                counters.size() + gauges.size() + histograms.size());
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            cursor.addRow(new Object[]{counter.getKey(), "counter", counter.getValue(),
+                    null, null, null, null, null});
+        }
+        for (Map.Entry<String, Long> gauge : gauges.entrySet()) {
+            cursor.addRow(new Object[]{gauge.getKey(), "gauge", gauge.getValue(),
+                    null, null, null, null, null});
+        }
+        for (LatencyHistogram.Snapshot h : histograms) {
+            cursor.addRow(new Object[]{h.name, "histogram", h.count,
+                    h.meanMicros, h.p50Micros, h.p95Micros, h.p99Micros, h.maxMicros});
+        }
+        return cursor;
+    }
+
+    /**
+     * 单次调用接口：一次跨进程调用返回当前连接、最近一次扫描摘要和最近的连接历史，
+     * 不需要创建CursorWindow，也不需要多次往返
+     * @param method 方法名，目前只支持METHOD_GET_STATE
+     * @param arg    历史条数，为空时使用DEFAULT_STATE_HISTORY_LIMIT，超过MAX_STATE_HISTORY_LIMIT时按最大值
+     * @param extras 未使用
+     * @return 结果Bundle；arg不是非负整数时只含KEY_ERROR；权限不足时返回null
+     */
+    @Nullable
+    @Override
+    public Bundle call(@NonNull String method, @Nullable String arg, @Nullable Bundle extras) {
+        if (!METHOD_GET_STATE.equals(method)) {
+            throw new IllegalArgumentException("Unknown method: " + method);
+        }
+        if (!checkPermissions()) {
+            return null;
+        }
+        int limit = DEFAULT_STATE_HISTORY_LIMIT;
+        if (!TextUtils.isEmpty(arg)) {
+            if (!TextUtils.isDigitsOnly(arg)) {
+                return errorBundle("Invalid history limit: " + arg);
+            }
+            // 位数超过int范围时不解析，直接按最大值
+            limit = arg.length() > 9 ? MAX_STATE_HISTORY_LIMIT
+                    : Math.min(Integer.parseInt(arg), MAX_STATE_HISTORY_LIMIT);
+        }
+
+        Bundle result = new Bundle();
+        CachedRow row = getCachedRow(false);
+        result.putBoolean(KEY_CONNECTED, row.values != null);
+        if (row.values != null) {
+            Bundle connection = new Bundle();
+            connection.putString(WIFI_COLUMNS[0], (String) row.values[0]);
+            connection.putInt(WIFI_COLUMNS[1], (Integer) row.values[1]);
+            connection.putString(WIFI_COLUMNS[2], (String) row.values[2]);
+            connection.putInt(WIFI_COLUMNS[3], (Integer) row.values[3]);
+            result.putBundle(KEY_CONNECTION, connection);
+        }
+
+        Bundle scanSummary = queryLastScanSummary();
+        if (scanSummary != null) {
+            result.putBundle(KEY_SCAN_SUMMARY, scanSummary);
+        }
+
+        HistoryPage page = dbHelper().queryHistoryPage(0, -1, limit);
+        int size = page.size();
+        long[] ids = new long[size];
+        String[] ssids = new String[size];
+        String[] ips = new String[size];
+        long[] times = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = page.getId(i);
+            ssids[i] = page.getSsid(i);
+            ips[i] = page.getIp(i);
+            times[i] = page.getConnectTime(i);
+        }
+        result.putLongArray(KEY_HISTORY_IDS, ids);
+        result.putStringArray(KEY_HISTORY_SSIDS, ssids);
+        result.putStringArray(KEY_HISTORY_IPS, ips);
+        result.putLongArray(KEY_HISTORY_TIMES, times);
+        return result;
+    }
+
+    private static Bundle errorBundle(String message) {
+        Bundle error = new Bundle();
+        error.putString(KEY_ERROR, message);
+        return error;
+    }
+
+    /**
+     * 读取最近一次扫描的摘要：扫描时间、AP数量、最强信号及其SSID
+     * 利用SQLite的MAX()聚合，ssid取自信号最强的那一行；子查询走scan_time索引
+     * @return 摘要，没有扫描记录时返回null
+     */
+    private Bundle queryLastScanSummary() {
+        Cursor cursor = dbHelper().getReadableDatabase().rawQuery("SELECT " +
+                WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME + ", COUNT(*), MAX(" +
+                WiFiHistoryDatabaseHelper.COLUMN_RSSI + "), " + WiFiHistoryDatabaseHelper.COLUMN_SSID +
+                " FROM " + WiFiHistoryDatabaseHelper.VIEW_SCANS +
+                " WHERE " + WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME + " = (SELECT MAX(" +
+                WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME + ") FROM " + WiFiHistoryDatabaseHelper.TABLE_SCANS + ")",
+                null);
+        try {
+            if (!cursor.moveToFirst() || cursor.getInt(1) == 0) {
+                return null;
+            }
+            Bundle summary = new Bundle();
+            summary.putLong(KEY_SCAN_TIME, cursor.getLong(0));
+            summary.putInt(KEY_SCAN_COUNT, cursor.getInt(1));
+            summary.putInt(KEY_STRONGEST_RSSI, cursor.getInt(2));
+            summary.putString(KEY_STRONGEST_SSID, cursor.getString(3));
+            return summary;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * 查询连接历史或扫描结果，投影、条件、排序和行数限制全部交给SQLite执行
+     */
+    private Cursor queryDatabase(int match, Uri uri, String[] projection, String selection,
+                                 String[] selectionArgs, String sortOrder) {
+        SQLiteQueryBuilder builder = newQueryBuilder(match, uri);
+        if (TextUtils.isEmpty(sortOrder)) {
+            if (match == HISTORY || match == HISTORY_ID) {
+                sortOrder = HISTORY_ORDER;
+            } else if (match == CONNECTS) {
+                sortOrder = CONNECTS_ORDER;
+            } else {
+                sortOrder = SCANS_ORDER;
+            }
+        }
+        String limit = uri.getQueryParameter(PARAM_LIMIT);
+        if (limit != null && !TextUtils.isDigitsOnly(limit)) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+
+        Cursor cursor = builder.query(dbHelper().getReadableDatabase(), projection, selection, selectionArgs,
+                null, null, sortOrder, limit);
+        cursor.setNotificationUri(getContext().getContentResolver(), uri);
+        return cursor;
+    }
+
+    /**
+     * 创建严格模式的查询构造器：只允许投影映射中的列，并校验条件和排序语法
+     * @param match 匹配码
+     * @param uri   请求的URI（单条记录时取其ID）
+     */
+    private static SQLiteQueryBuilder newQueryBuilder(int match, Uri uri) {
+        SQLiteQueryBuilder builder = new SQLiteQueryBuilder();
+        builder.setStrict(true);
+        builder.setStrictColumns(true);
+        builder.setStrictGrammar(true);
+        switch (match) {
+            case HISTORY_ID:
+                builder.appendWhere(WiFiHistoryDatabaseHelper.COLUMN_ID + " = " + ContentUris.parseId(uri));
+                // fall through
+            case HISTORY:
+                builder.setTables(WiFiHistoryDatabaseHelper.VIEW_HISTORY);
+                builder.setProjectionMap(HISTORY_PROJECTION);
+                break;
+            case SCANS_ID:
+                builder.appendWhere(WiFiHistoryDatabaseHelper.COLUMN_ID + " = " + ContentUris.parseId(uri));
+                // fall through
+            case SCANS:
+                builder.setTables(WiFiHistoryDatabaseHelper.VIEW_SCANS);
+                builder.setProjectionMap(SCANS_PROJECTION);
+                break;
+            case CONNECTS:
+                builder.setTables(WiFiHistoryDatabaseHelper.VIEW_CONNECTS);
+                builder.setProjectionMap(CONNECTS_PROJECTION);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown URI: " + uri);
+        }
+        return builder;
+    }
+
+    /**
+     * 创建用于删除和更新的构造器，直接作用于基础表（条件中使用ssid_id而不是ssid）
+     */
+    private static SQLiteQueryBuilder newWriteBuilder(int match, Uri uri) {
+        SQLiteQueryBuilder builder = new SQLiteQueryBuilder();
+        builder.setStrict(true);
+        builder.setStrictGrammar(true);
+        switch (match) {
+            case HISTORY_ID:
+                builder.appendWhere(WiFiHistoryDatabaseHelper.COLUMN_ID + " = " + ContentUris.parseId(uri));
+                // fall through
+            case HISTORY:
+                builder.setTables(WiFiHistoryDatabaseHelper.TABLE_NAME);
+                break;
+            case SCANS_ID:
+                builder.appendWhere(WiFiHistoryDatabaseHelper.COLUMN_ID + " = " + ContentUris.parseId(uri));
+                // fall through
+            case SCANS:
+                builder.setTables(WiFiHistoryDatabaseHelper.TABLE_SCANS);
+                break;
+            default:
+                throw new UnsupportedOperationException("Read-only URI: " + uri);
+        }
+        return builder;
+    }
+
+    /**
+     * 把外部传入的列转换为表中的列：ssid文本换成字典ID，字符串形式的BSSID换成整数，
+     * 并补全时间戳
+     * @param db     可写数据库（在事务内）
+     * @param match  匹配码
+     * @param values 外部传入的值
+     * @param insert 是否为插入（插入时补全缺省值）
+     */
+    private static ContentValues toTableValues(SQLiteDatabase db, int match, ContentValues values, boolean insert) {
+        ContentValues result = new ContentValues(values);
+        String ssid = result.getAsString(WiFiHistoryDatabaseHelper.COLUMN_SSID);
+        if (ssid != null) {
+            result.remove(WiFiHistoryDatabaseHelper.COLUMN_SSID);
+            result.put(WiFiHistoryDatabaseHelper.COLUMN_SSID_ID, WiFiHistoryDatabaseHelper.getOrCreateSsidId(db, ssid));
+        }
+        if (match == SCANS || match == SCANS_ID) {
+            Object bssid = result.get(WiFiHistoryDatabaseHelper.COLUMN_BSSID);
+            if (bssid instanceof String) {
+                result.put(WiFiHistoryDatabaseHelper.COLUMN_BSSID, WifiFormat.bssidToLong((String) bssid));
+            }
+            if (insert && !result.containsKey(WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME)) {
+                result.put(WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME, System.currentTimeMillis());
+            }
+        } else if (insert && !result.containsKey(WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME)) {
+            result.put(WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME, System.currentTimeMillis());
+        }
+        return result;
+    }
+
+    /**
+     * 发送变化通知；批量操作期间先记录，提交后统一发送
+     */
+    private void notifyChange(Uri uri) {
+        Set<Uri> pending = batchNotifications.get();
+        if (pending != null) {
+            pending.add(uri);
+        } else {
+            getContext().getContentResolver().notifyChange(uri, null);
+        }
     }
 
     /**
@@ -117,50 +622,298 @@ public class WifiContentProvider extends ContentProvider {
     }
 
     /**
-     * 处理SSID字符串，去除可能包含的引号
-     * @param ssid 原始SSID字符串
-     * @return 处理后的SSID字符串
+     * 由快照预先计算好的一行数据（不可变）
      */
-    private String processSSID(String ssid) {
-        if (ssid != null && ssid.startsWith("\"") && ssid.endsWith("\"")) {
-            return ssid.substring(1, ssid.length() - 1);
+    private final class CachedRow {
+        final Object[] values; // 未连接时为null
+
+        CachedRow(WifiSnapshot snapshot) {
+            values = snapshot == null || !snapshot.connected ? null : new Object[]{
+                    WifiFormat.removeQuotes(snapshot.ssid), // 处理SSID格式，去除引号
+                    snapshot.rssi,
+                    WifiFormat.intToIp(snapshot.ipAddress),
+                    snapshot.linkSpeed};
         }
-        return ssid;
     }
 
     /**
-     * 将整数形式的IP地址转换为点分十进制字符串格式
-     * @param ip 整数IP地址
-     * @return 点分十进制字符串（如"192.168.1.1"）
+     * 停止监听（仅在测试环境中调用）
      */
-    private String intToIp(int ip) {
-        return (ip & 0xFF) + "." +
-                ((ip >> 8) & 0xFF) + "." +
-                ((ip >> 16) & 0xFF) + "." +
-                ((ip >> 24) & 0xFF);
+    @Override
+    public void shutdown() {
+        WifiStateMonitor m = monitor;
+        if (m != null) {
+            m.stop();
+        }
+        super.shutdown();
     }
 
-    // 以下方法未实现，因为本ContentProvider仅用于查询WiFi信息
     @Nullable
     @Override
     public String getType(@NonNull Uri uri) {
-        return null;
+        switch (uriMatcher.match(uri)) {
+            case WIFI:
+                return ContentResolver.CURSOR_ITEM_BASE_TYPE + "/vnd." + AUTHORITY + ".wifi";
+            case HISTORY:
+            case HISTORY_SEARCH:
+                return ContentResolver.CURSOR_DIR_BASE_TYPE + "/vnd." + AUTHORITY + ".history";
+            case HISTORY_ID:
+                return ContentResolver.CURSOR_ITEM_BASE_TYPE + "/vnd." + AUTHORITY + ".history";
+            case SCANS:
+                return ContentResolver.CURSOR_DIR_BASE_TYPE + "/vnd." + AUTHORITY + ".scans";
+            case SCANS_ID:
+                return ContentResolver.CURSOR_ITEM_BASE_TYPE + "/vnd." + AUTHORITY + ".scans";
+            case CONNECTS:
+                return ContentResolver.CURSOR_DIR_BASE_TYPE + "/vnd." + AUTHORITY + ".connects";
+            case METRICS:
+                return ContentResolver.CURSOR_DIR_BASE_TYPE + "/vnd." + AUTHORITY + ".metrics";
+            case EXPORT_HISTORY:
+            case EXPORT_SCANS:
+                try {
+                    return HistoryExporter.mimeTypeOf(uri.getQueryParameter(PARAM_FORMAT));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    @Override
+    public String[] getStreamTypes(@NonNull Uri uri, @NonNull String mimeTypeFilter) {
+        int match = uriMatcher.match(uri);
+        if (match != EXPORT_HISTORY && match != EXPORT_SCANS) {
+            return null;
+        }
+        String mimeType = getType(uri);
+        return mimeType != null && ClipDescription.compareMimeTypes(mimeType, mimeTypeFilter)
+                ? new String[]{mimeType} : null;
     }
 
+    /**
+     * 流式导出连接历史或扫描结果
+     * 在调用线程上执行查询（SQL错误直接抛给调用方），再由后台线程从Cursor逐行写入管道；
+     * Cursor按窗口分批读取，导出占用的内存与行数无关。读取方提前关闭管道时导出中止。
+     * @param uri  EXPORT_HISTORY_URI或EXPORT_SCANS_URI，可带format、from、to参数
+     * @param mode 只支持"r"
+     * @return 管道的读取端
+     */
+    @Nullable
+    @Override
+    public ParcelFileDescriptor openFile(@NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+        int match = uriMatcher.match(uri);
+        if (match != EXPORT_HISTORY && match != EXPORT_SCANS) {
+            throw new FileNotFoundException("No file for " + uri);
+        }
+        if (!"r".equals(mode)) {
+            throw new FileNotFoundException("Export is read-only: " + uri);
+        }
+        if (!checkPermissions()) {
+            throw new SecurityException("Location and Wi-Fi state permissions are required to export " + uri);
+        }
+        String mimeType = HistoryExporter.mimeTypeOf(uri.getQueryParameter(PARAM_FORMAT));
+        Cursor cursor = queryExport(match, uri);
+        try {
+            return openPipeHelper(uri, mimeType, null, cursor, exportWriter);
+        } catch (FileNotFoundException | RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 按时间正序查询导出的行，时间范围下推为SQL条件
+     */
+    private Cursor queryExport(int match, Uri uri) {
+        String table;
+        String[] columns;
+        String timeColumn;
+        if (match == EXPORT_HISTORY) {
+            table = WiFiHistoryDatabaseHelper.VIEW_HISTORY;
+            columns = EXPORT_HISTORY_COLUMNS;
+            timeColumn = WiFiHistoryDatabaseHelper.COLUMN_CONNECT_TIME;
+        } else {
+            table = WiFiHistoryDatabaseHelper.VIEW_SCANS;
+            columns = EXPORT_SCANS_COLUMNS;
+            timeColumn = WiFiHistoryDatabaseHelper.COLUMN_SCAN_TIME;
+        }
+
+        StringBuilder selection = new StringBuilder();
+        List<String> selectionArgs = new ArrayList<>(2);
+        String from = getTimeParameter(uri, PARAM_FROM);
+        if (from != null) {
+            selection.append(timeColumn).append(" >= ?");
+            selectionArgs.add(from);
+        }
+        String to = getTimeParameter(uri, PARAM_TO);
+        if (to != null) {
+            if (selection.length() > 0) {
+                selection.append(" AND ");
+            }
+            selection.append(timeColumn).append(" < ?");
+            selectionArgs.add(to);
+        }
+
+        return dbHelper().getReadableDatabase().query(table, columns,
+                selection.length() > 0 ? selection.toString() : null,
+                selectionArgs.toArray(new String[0]), null, null,
+                timeColumn + " ASC, " + WiFiHistoryDatabaseHelper.COLUMN_ID + " ASC");
+    }
+
+    /**
+     * @return 时间参数（毫秒时间戳），未指定时返回null
+     * @throws IllegalArgumentException 不是非负整数
+     */
+    private static String getTimeParameter(Uri uri, String name) {
+        String value = uri.getQueryParameter(name);
+        if (value == null) {
+            return null;
+        }
+        if (value.isEmpty() || !TextUtils.isDigitsOnly(value)) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+        return value;
+    }
+
+    /**
+     * 导出线程：从Cursor逐行写入管道的写入端，结束后关闭Cursor（管道由openPipeHelper关闭）
+     */
+    private final PipeDataWriter<Cursor> exportWriter = (output, uri, mimeType, opts, cursor) -> {
+        try {
+            Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(output.getFileDescriptor()), StandardCharsets.UTF_8));
+            long rows = exporter.export(cursor, mimeType, out);
+            Log.d(TAG, "Exported " + rows + " rows from " + uri);
+        } catch (IOException e) {
+            Log.w(TAG, "Export of " + uri + " aborted", e); // 读取方提前关闭了管道
+        } finally {
+            cursor.close();
+        }
+    };
+
+    /**
+     * 插入一条连接历史（/history）或扫描结果（/scans）
+     * 可使用ssid文本列，提供者会转换为字典ID
+     */
     @Nullable
     @Override
     public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
-        return null;
+        int match = uriMatcher.match(uri);
+        if (match != HISTORY && match != SCANS) {
+            throw new IllegalArgumentException("Cannot insert into " + uri);
+        }
+        SQLiteDatabase db = dbHelper().getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        long id;
+        try {
+            id = insertRow(db, match, values);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (id < 0) {
+            return null;
+        }
+        notifyChange(uri);
+        return ContentUris.withAppendedId(uri, id);
     }
 
+    /**
+     * 在一个事务中插入多行，只发送一次变化通知
+     */
+    @Override
+    public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+        int match = uriMatcher.match(uri);
+        if (match != HISTORY && match != SCANS) {
+            throw new IllegalArgumentException("Cannot insert into " + uri);
+        }
+        SQLiteDatabase db = dbHelper().getWritableDatabase();
+        int inserted = 0;
+        db.beginTransactionNonExclusive();
+        try {
+            for (ContentValues value : values) {
+                if (insertRow(db, match, value) >= 0) {
+                    inserted++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (inserted > 0) {
+            notifyChange(uri);
+        }
+        return inserted;
+    }
+
+    private static long insertRow(SQLiteDatabase db, int match, ContentValues values) {
+        String table = match == HISTORY ? WiFiHistoryDatabaseHelper.TABLE_NAME : WiFiHistoryDatabaseHelper.TABLE_SCANS;
+        return db.insertOrThrow(table, null,
+                toTableValues(db, match, values != null ? values : new ContentValues(), true));
+    }
+
+    /**
+     * 在一个事务中执行批量操作，全部成功才提交，提交后统一发送变化通知
+     */
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        SQLiteDatabase db = dbHelper().getWritableDatabase();
+        Set<Uri> pending = new HashSet<>();
+        batchNotifications.set(pending);
+        ContentProviderResult[] results;
+        db.beginTransactionNonExclusive();
+        try {
+            results = super.applyBatch(operations);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            batchNotifications.remove();
+        }
+        for (Uri uri : pending) {
+            getContext().getContentResolver().notifyChange(uri, null);
+        }
+        return results;
+    }
+
+    /**
+     * 删除连接历史或扫描结果；条件作用于基础表的列（按SSID删除时使用ssid_id）
+     */
     @Override
     public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
-        return 0;
+        int count = newWriteBuilder(uriMatcher.match(uri), uri)
+                .delete(dbHelper().getWritableDatabase(), selection, selectionArgs);
+        if (count > 0) {
+            notifyChange(uri);
+        }
+        return count;
     }
 
+    /**
+     * 更新连接历史或扫描结果；值中可使用ssid文本列
+     */
     @Override
     public int update(@NonNull Uri uri, @Nullable ContentValues values,
                       @Nullable String selection, @Nullable String[] selectionArgs) {
-        return 0;
+        int match = uriMatcher.match(uri);
+        SQLiteQueryBuilder builder = newWriteBuilder(match, uri);
+        if (values == null || values.size() == 0) {
+            return 0;
+        }
+        SQLiteDatabase db = dbHelper().getWritableDatabase();
+        int count;
+        db.beginTransactionNonExclusive();
+        try {
+            count = builder.update(db, toTableValues(db, match, values, false), selection, selectionArgs);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (count > 0) {
+            notifyChange(uri);
+        }
+        return count;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package com.example.myapplication.wifi;
+
+import android.net.wifi.ScanResult;
+import android.os.Handler;
+
+import java.util.List;
+
+/**
+ * WiFi数据源：扫描结果和连接状态的来源
+ * 生产环境由SystemWifiDataSource访问WifiManager/ConnectivityManager；
+ * 负载和性能测试用ReplayWifiDataSource回放录制或合成的轨迹，驱动相同的扫描、历史和Provider代码。
+ * 通过WifiDataSources.get()取得当前数据源。
+ */
+public interface WifiDataSource {
+
+    /**
+     * 连接状态回调，在注册时指定的Handler线程上调用
+     */
+    interface ConnectionCallback {
+        /**
+         * 连接信息变化（连接、信号、速度等）
+         * @param snapshot 连接快照；IP地址未知时为0
+         */
+        void onConnectionInfo(WifiSnapshot snapshot);
+
+        /**
+         * 链路的IPv4地址变化
+         * @param ipAddress 与WifiInfo.getIpAddress()相同字节序的地址，没有IPv4地址时为0
+         */
+        void onLinkAddress(int ipAddress);
+
+        /**
+         * WiFi网络断开
+         */
+        void onLost();
+    }
+
+    /**
+     * 扫描结果可用的回调（对应SCAN_RESULTS_AVAILABLE_ACTION广播），在主线程调用
+     */
+    interface ScanCallback {
+        /**
+         * @param updated false表示扫描失败、结果未更新
+         */
+        void onScanResultsAvailable(boolean updated);
+    }
+
+    boolean isWifiEnabled();
+
+    /**
+     * 请求打开或关闭WiFi（Android 10起对普通应用无效）
+     */
+    void setWifiEnabled(boolean enabled);
+
+    /**
+     * 发起一次扫描，结果通过ScanCallback通知
+     * @return 系统拒绝（超出频率限制等）时返回false
+     */
+    boolean startScan();
+
+    /**
+     * @return 最近一次扫描的结果
+     */
+    List<ScanResult> getScanResults();
+
+    /**
+     * 立即读取当前连接信息（跨进程调用，避免在主线程频繁调用）
+     * @param linkIpAddress 来自链路属性的IPv4地址，连接信息中没有IP时使用
+     * @param timestamp     快照的采样时间
+     * @return 当前连接快照，未连接时为WifiSnapshot.DISCONNECTED
+     * @throws SecurityException 没有定位权限
+     */
+    WifiSnapshot readConnection(int linkIpAddress, long timestamp);
+
+    /**
+     * 注册连接状态回调，同一个回调只应注册一次
+     * @param handler 回调所在线程
+     */
+    void registerConnectionCallback(ConnectionCallback callback, Handler handler);
+
+    void unregisterConnectionCallback(ConnectionCallback callback);
+
+    void registerScanCallback(ScanCallback callback);
+
+    void unregisterScanCallback(ScanCallback callback);
+}
@@ -0,0 +1,40 @@
+package com.example.myapplication.wifi;
+
+import android.content.Context;
+
+/**
+ * 进程内使用的WiFi数据源
+ * 默认为SystemWifiDataSource；测试在创建Activity、服务或Provider之前调用set()换成回放数据源。
+ */
+public final class WifiDataSources {
+
+    private static volatile WifiDataSource instance;
+
+    private WifiDataSources() {
+    }
+
+    /**
+     * 获取当前数据源，尚未设置时创建系统数据源
+     * @param context 上下文
+     */
+    public static WifiDataSource get(Context context) {
+        if (instance == null) {
+            synchronized (WifiDataSources.class) {
+                if (instance == null) {
+                    instance = new SystemWifiDataSource(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 替换数据源，只影响之后创建的组件
+     * @param source 新的数据源，为null时恢复为系统数据源
+     */
+    public static void set(WifiDataSource source) {
+        synchronized (WifiDataSources.class) {
+            instance = source;
+        }
+    }
+}
@@ -3,36 +3,55 @@ package com.example.myapplication.wifi;
 import android.app.Service;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.net.wifi.WifiInfo;
-import android.net.wifi.WifiManager;
+import android.os.Binder;
 import android.os.IBinder;
 import android.util.Log;
 
 import androidx.core.app.ActivityCompat;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
 /**
- * 后台服务类，用于定期获取WiFi连接信息并通过广播发送更新
+ * 后台服务类，监听WiFi连接状态，仅在状态发生变化时通过广播发送更新
  */
 public class WifiInfoService extends Service {
 
     private static final String TAG = "WifiInfoService";
-    private static final int UPDATE_INTERVAL = 5000; // 更新间隔为5秒
-    private WifiManager wifiManager; // WiFi管理器
+    private static final int DELIVERY_THREADS = 2; // 投递线程数上限，每个订阅仍串行投递
+    public static final String ACTION_WIFI_INFO_UPDATED = "com.example.myapplication.wifi.WIFI_INFO_UPDATED";
+    // 启动Intent中可选的阈值参数
+    public static final String EXTRA_RSSI_HYSTERESIS = "rssiHysteresis";         // 信号强度滞回阈值（dBm）
+    public static final String EXTRA_LINK_SPEED_THRESHOLD = "linkSpeedThreshold"; // 速度变化阈值（Mbps）
+
+    private WifiStateMonitor monitor; // 由网络回调驱动的状态监视器
     private boolean isRunning = false; // 服务运行状态标志
-    private Thread updateThread; // 更新线程
+    private ExecutorService deliveryExecutor; // 向进程内订阅者投递快照的线程池
+    private WifiSnapshotPublisher publisher;  // 进程内快照发布者
+    private final LocalBinder binder = new LocalBinder();
 
     /**
-     * 服务创建时调用，初始化WiFi管理器
+     * 服务创建时调用，初始化状态监视器
      */
     @Override
     public void onCreate() {
         super.onCreate();
-        wifiManager = (WifiManager) getSystemService(WIFI_SERVICE);
+        // 固定大小：订阅者再多、回调再慢也不会无限创建线程
+        deliveryExecutor = Executors.newFixedThreadPool(DELIVERY_THREADS, r -> {
+            Thread t = new Thread(r, TAG + "-delivery");
+            t.setDaemon(true);
+            return t;
+        });
+        publisher = new WifiSnapshotPublisher(deliveryExecutor);
+        monitor = new WifiStateMonitor(this, this::onSnapshotChanged);
+        // 每个样本都经摄取管道计入按BSSID的信号统计，不受广播阈值影响，回调线程不等待存储
+        monitor.setSampleListener(IngestPipeline.getInstance(this)::offerSample);
         Log.d(TAG, "Service created");
     }
 
     /**
-     * 服务启动时调用，开始定期更新WiFi信息
+     * 服务启动时调用，开始监听WiFi状态变化
      * @param intent 启动服务的Intent
      * @param flags 启动标志
      * @param startId 启动ID
@@ -42,62 +61,64 @@ public class WifiInfoService extends Service {
     public int onStartCommand(Intent intent, int flags, int startId) {
         Log.d(TAG, "Service started");
 
-        if (!isRunning) {
-            startUpdateThread(); // 启动更新线程
+        if (intent != null) {
+            monitor.setThresholds(
+                    intent.getIntExtra(EXTRA_RSSI_HYSTERESIS, WifiStateMonitor.DEFAULT_RSSI_HYSTERESIS_DB),
+                    intent.getIntExtra(EXTRA_LINK_SPEED_THRESHOLD, WifiStateMonitor.DEFAULT_LINK_SPEED_THRESHOLD));
         }
+        startMonitoring();
 
         return START_STICKY; // 服务被杀死后自动重启
     }
 
     /**
-     * 启动更新线程
+     * 开始监听（启动或绑定时调用，重复调用无效）
      */
-    private void startUpdateThread() {
-        isRunning = true;
-        updateThread = new Thread(this::updatePeriodically);
-        updateThread.start();
+    private void startMonitoring() {
+        if (!isRunning) {
+            isRunning = true;
+            monitor.start(); // 注册网络回调
+        }
     }
 
     /**
-     * 周期性更新WiFi信息的线程方法
+     * 状态变化时：先发布给进程内订阅者，再发送跨进程广播
+     * @param snapshot 新的WiFi状态
      */
-    private void updatePeriodically() {
-        while (isRunning) {
-            try {
-                Thread.sleep(UPDATE_INTERVAL); // 休眠指定时间
-                if (checkLocationPermission()) {
-                    sendUpdateBroadcast(); // 发送WiFi信息更新广播
-                }
-            } catch (InterruptedException e) {
-                Log.e(TAG, "Update thread interrupted", e);
-                isRunning = false;
-                break;
-            }
-        }
+    private void onSnapshotChanged(WifiSnapshot snapshot) {
+        publisher.publish(snapshot);
+        sendUpdateBroadcast(snapshot);
     }
 
     /**
-     * 发送WiFi信息更新广播
+     * 发送WiFi信息更新广播（仅在状态变化超过阈值时由监视器调用）
+     * @param snapshot 新的WiFi状态
      */
-    private void sendUpdateBroadcast() {
-        if (!wifiManager.isWifiEnabled() || !checkLocationPermission()) {
+    private void sendUpdateBroadcast(WifiSnapshot snapshot) {
+        if (!checkLocationPermission()) {
             return;
         }
 
-        WifiInfo wifiInfo = wifiManager.getConnectionInfo();
-        Intent intent = new Intent("com.example.myapplication.wifi.WIFI_INFO_UPDATED");
+        Intent intent = new Intent(ACTION_WIFI_INFO_UPDATED);
 
         // 添加WiFi信息到广播中
-        if (wifiInfo != null) {
-            intent.putExtra("ssid", wifiInfo.getSSID());
-            intent.putExtra("ipAddress", wifiInfo.getIpAddress());
-            intent.putExtra("rssi", wifiInfo.getRssi());
-            intent.putExtra("linkSpeed", wifiInfo.getLinkSpeed());
+        if (snapshot.connected) {
+            intent.putExtra("ssid", snapshot.ssid);
+            intent.putExtra("ipAddress", snapshot.ipAddress);
+            intent.putExtra("rssi", snapshot.rssi);
+            intent.putExtra("linkSpeed", snapshot.linkSpeed);
         }
 
         sendBroadcast(intent); // 发送广播
     }
 
+    /**
+     * 获取事件统计（收到、抑制、发布的事件数）
+     */
+    public WifiStateMonitor.Stats getStats() {
+        return monitor.getStats();
+    }
+
     /**
      * 检查是否有定位权限（Android 6.0+需要定位权限才能获取WiFi信息）
      * @return 有权限时返回true，否则返回false
@@ -108,23 +129,55 @@ public class WifiInfoService extends Service {
     }
 
     /**
-     * 绑定服务时调用（本服务不支持绑定）
+     * 绑定服务时调用，返回进程内接口
      * @param intent 绑定Intent
-     * @return null
+     * @return LocalBinder
      */
     @Override
-    public IBinder onBind(Intent intent) { return null; }
+    public IBinder onBind(Intent intent) {
+        startMonitoring();
+        return binder;
+    }
 
     /**
-     * 服务销毁时调用，停止更新线程
+     * 同进程绑定者使用的接口，直接传递WifiSnapshot对象
+     */
+    public class LocalBinder extends Binder {
+
+        /**
+         * @return 快照发布者；订阅者处理慢时只会收到最新的快照
+         */
+        public Flow.Publisher<WifiSnapshot> snapshots() {
+            return publisher;
+        }
+
+        /**
+         * 同步获取当前快照，不必等待下一次变化
+         * 已有发布过的快照时直接返回；否则立即读取一次（包含跨进程调用，避免在主线程频繁调用）
+         */
+        public WifiSnapshot currentSnapshot() {
+            WifiSnapshot snapshot = publisher.currentSnapshot();
+            return snapshot != null ? snapshot : monitor.readCurrent();
+        }
+
+        /**
+         * @return 事件统计
+         */
+        public WifiStateMonitor.Stats getStats() {
+            return monitor.getStats();
+        }
+    }
+
+    /**
+     * 服务销毁时调用，停止监听
      */
     @Override
     public void onDestroy() {
         super.onDestroy();
-        Log.d(TAG, "Service destroyed");
+        Log.d(TAG, "Service destroyed, " + monitor.getStats());
         isRunning = false;
-        if (updateThread != null) {
-            updateThread.interrupt(); // 中断更新线程
-        }
+        monitor.stop(); // 注销网络回调
+        publisher.close();
+        deliveryExecutor.shutdown();
     }
-}
\ No newline at end of file
+}
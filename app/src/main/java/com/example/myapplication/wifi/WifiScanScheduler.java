@@ -0,0 +1,216 @@
+package com.example.myapplication.wifi;
+
+import android.net.wifi.ScanResult;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.List;
+
+/**
+ * WiFi扫描调度器
+ * 系统限制前台应用每2分钟最多扫描4次，超出的startScan()会被静默忽略或返回旧数据。
+ * 调度器用滑动窗口模拟该限制：记录最近4次发起扫描的时间，最早一次已超出2分钟窗口时才真正发起扫描；
+ * 扫描进行中的重复请求合并为一次；无法扫描时通知重新显示上次的结果并附带其时间。
+ * 调度器不持有ScanResult列表，上次的结果由监听者保存（MainActivity中为ScanSnapshot）。
+ * 所有方法都应在主线程调用。
+ */
+public class WifiScanScheduler {
+
+    private static final String TAG = "WifiScanScheduler";
+    public static final int DEFAULT_MAX_SCANS = 4;                    // 窗口内允许的扫描次数
+    public static final long DEFAULT_WINDOW_MS = 120_000;             // 限制窗口（2分钟）
+    private static final long SCAN_TIMEOUT_MS = 15_000;               // 超过该时间未收到结果视为扫描结束
+
+    /**
+     * 扫描结果回调
+     */
+    public interface Listener {
+        /**
+         * 新的扫描结果，或还没有结果时系统保存的上次结果
+         * @param results   扫描结果
+         * @param ageMs     结果距今的时间（毫秒），新扫描的结果为0，未知时为-1
+         * @param fromCache 是否为缓存结果（本次请求未实际扫描）
+         */
+        void onScanResults(List<ScanResult> results, long ageMs, boolean fromCache);
+
+        /**
+         * 本次请求未实际扫描，重新显示最近一次onScanResults的结果
+         * @param ageMs 结果距今的时间（毫秒）
+         */
+        void onCachedResults(long ageMs);
+    }
+
+    private final WifiDataSource dataSource;
+    private final Listener listener;
+    private final long windowMs;
+
+    // 滑动窗口：最近maxScans次发起扫描的时间（elapsedRealtime），环形存放
+    private final long[] scanTimes;
+    private int scanCount = 0;  // 已记录的次数，不超过maxScans
+    private int oldest = 0;     // 最早一次的下标
+
+    private boolean scanInFlight = false;
+    private long scanStartTime = 0;
+    private long cachedResultsTime = -1; // 最近一次结果的时间（elapsedRealtime），-1表示还没有结果
+
+    // 统计信息
+    private long scansRequested = 0;
+    private long scansExecuted = 0;
+    private long scansCoalesced = 0;
+    private long scansThrottled = 0;
+    private long scanStartNanos = 0; // 发起扫描的时间（纳秒），用于统计扫描延迟
+    private final LatencyHistogram scanLatency = MetricsRegistry.getInstance().histogram(MetricsRegistry.SCAN_LATENCY);
+    private final MetricsRegistry.Counter throttledCounter =
+            MetricsRegistry.getInstance().counter(MetricsRegistry.SCAN_THROTTLED);
+
+    public WifiScanScheduler(WifiDataSource dataSource, Listener listener) {
+        this(dataSource, listener, DEFAULT_MAX_SCANS, DEFAULT_WINDOW_MS);
+    }
+
+    /**
+     * 构造函数
+     * @param dataSource WiFi数据源
+     * @param listener   扫描结果回调
+     * @param maxScans   窗口内允许的扫描次数
+     * @param windowMs   窗口长度（毫秒）
+     */
+    public WifiScanScheduler(WifiDataSource dataSource, Listener listener, int maxScans, long windowMs) {
+        if (maxScans <= 0) {
+            throw new IllegalArgumentException("maxScans must be > 0");
+        }
+        this.dataSource = dataSource;
+        this.listener = listener;
+        this.windowMs = windowMs;
+        this.scanTimes = new long[maxScans];
+    }
+
+    /**
+     * 请求一次扫描
+     * 正在扫描时合并到当前扫描；窗口内次数已用完或系统拒绝时立即返回缓存结果
+     */
+    public void requestScan() {
+        scansRequested++;
+        long now = SystemClock.elapsedRealtime();
+
+        if (scanInFlight && now - scanStartTime < SCAN_TIMEOUT_MS) {
+            // 等待当前扫描的结果，不重复发起
+            scansCoalesced++;
+            return;
+        }
+        scanInFlight = false;
+
+        if (millisUntilNextScan(now) == 0) {
+            // 系统拒绝的请求也占用一次，避免在系统配额用完时反复请求
+            recordScan(now);
+            if (dataSource.startScan()) {
+                scansExecuted++;
+                scanInFlight = true;
+                scanStartTime = now;
+                scanStartNanos = SystemClock.elapsedRealtimeNanos();
+                return;
+            }
+        }
+
+        scansThrottled++;
+        throttledCounter.increment();
+        Log.d(TAG, "Scan throttled, serving cached results");
+        deliverCached(now);
+    }
+
+    /**
+     * 收到SCAN_RESULTS_AVAILABLE_ACTION广播时调用（包括系统或其他应用发起的扫描）
+     * 扫描失败时只有本调度器发起的扫描才返回缓存结果，其他应用的扫描失败不通知
+     * @param updated 广播中的EXTRA_RESULTS_UPDATED，false表示扫描失败、结果未更新
+     */
+    public void onScanResultsAvailable(boolean updated) {
+        long now = SystemClock.elapsedRealtime();
+        boolean ownScan = scanInFlight;
+        if (ownScan && updated) {
+            scanLatency.recordSince(scanStartNanos);
+        }
+        scanInFlight = false;
+        if (!updated) {
+            if (ownScan) {
+                deliverCached(now);
+            }
+            return;
+        }
+        cachedResultsTime = now;
+        listener.onScanResults(dataSource.getScanResults(), 0, false);
+    }
+
+    /**
+     * 返回缓存结果；还没有结果时读取系统保存的上次结果（时间未知）
+     */
+    private void deliverCached(long now) {
+        if (cachedResultsTime < 0) {
+            listener.onScanResults(dataSource.getScanResults(), -1, true);
+        } else {
+            listener.onCachedResults(now - cachedResultsTime);
+        }
+    }
+
+    /**
+     * 记录一次发起扫描，窗口已满时覆盖最早的一次
+     */
+    private void recordScan(long now) {
+        if (scanCount < scanTimes.length) {
+            scanTimes[(oldest + scanCount) % scanTimes.length] = now;
+            scanCount++;
+        } else {
+            scanTimes[oldest] = now;
+            oldest = (oldest + 1) % scanTimes.length;
+        }
+    }
+
+    private long millisUntilNextScan(long now) {
+        if (scanCount < scanTimes.length) {
+            return 0;
+        }
+        return Math.max(0, scanTimes[oldest] + windowMs - now);
+    }
+
+    /**
+     * @return 距下一次允许扫描的时间（毫秒），0表示现在即可扫描
+     */
+    public long getMillisUntilNextScan() {
+        return millisUntilNextScan(SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * 获取调度器统计快照
+     */
+    public Stats getStats() {
+        long now = SystemClock.elapsedRealtime();
+        return new Stats(scansRequested, scansExecuted, scansCoalesced, scansThrottled,
+                cachedResultsTime < 0 ? -1 : now - cachedResultsTime);
+    }
+
+    /**
+     * 扫描调度统计：请求、实际执行、合并、受限的次数
+     */
+    public static final class Stats {
+        public final long requested;
+        public final long executed;
+        public final long coalesced;
+        public final long throttled;
+        public final long cacheAgeMs; // 缓存结果的时间，-1表示没有缓存
+
+        Stats(long requested, long executed, long coalesced, long throttled, long cacheAgeMs) {
+            this.requested = requested;
+            this.executed = executed;
+            this.coalesced = coalesced;
+            this.throttled = throttled;
+            this.cacheAgeMs = cacheAgeMs;
+        }
+
+        @Override
+        public String toString() {
+            return "requested=" + requested +
+                    ", executed=" + executed +
+                    ", coalesced=" + coalesced +
+                    ", throttled=" + throttled +
+                    ", cacheAgeMs=" + cacheAgeMs;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.myapplication.wifi;
+
+import android.net.wifi.WifiInfo;
+
+import java.util.Objects;
+
+/**
+ * WiFi连接状态快照（不可变）
+ */
+public final class WifiSnapshot {
+
+    /**
+     * 未连接WiFi时的快照
+     */
+    public static final WifiSnapshot DISCONNECTED =
+            new WifiSnapshot(false, null, null, 0, 0, 0, 0, 0);
+
+    public final boolean connected;
+    public final String ssid;       // WifiInfo返回的原始SSID（可能带引号）
+    public final String bssid;
+    public final int ipAddress;     // 整数形式的IPv4地址（与WifiInfo.getIpAddress()相同的字节序）
+    public final int rssi;          // 信号强度（dBm）
+    public final int linkSpeed;     // 连接速度（Mbps）
+    public final int frequency;     // 频率（MHz）
+    public final long timestamp;    // 采样时间（SystemClock.elapsedRealtime）
+
+    public WifiSnapshot(boolean connected, String ssid, String bssid, int ipAddress,
+                        int rssi, int linkSpeed, int frequency, long timestamp) {
+        this.connected = connected;
+        this.ssid = ssid;
+        this.bssid = bssid;
+        this.ipAddress = ipAddress;
+        this.rssi = rssi;
+        this.linkSpeed = linkSpeed;
+        this.frequency = frequency;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * 由WifiInfo创建快照
+     * @param info      WiFi连接信息
+     * @param ipAddress IPv4地址；WifiInfo中没有时可由LinkProperties提供
+     * @param timestamp 采样时间
+     */
+    public static WifiSnapshot from(WifiInfo info, int ipAddress, long timestamp) {
+        if (info == null) {
+            return DISCONNECTED;
+        }
+        int ip = info.getIpAddress() != 0 ? info.getIpAddress() : ipAddress;
+        return new WifiSnapshot(true, info.getSSID(), info.getBSSID(), ip,
+                info.getRssi(), info.getLinkSpeed(), info.getFrequency(), timestamp);
+    }
+
+    /**
+     * 返回替换了IP地址的新快照
+     */
+    public WifiSnapshot withIpAddress(int ip, long time) {
+        return new WifiSnapshot(connected, ssid, bssid, ip, rssi, linkSpeed, frequency, time);
+    }
+
+    /**
+     * 判断与另一个快照的差别是否超过阈值
+     * 连接状态、SSID、BSSID、IP、频率任一不同即视为变化；信号强度和速度只在超过阈值时视为变化
+     * @param other              比较对象，为null时视为变化
+     * @param rssiHysteresisDb   信号强度的滞回阈值（dBm）
+     * @param linkSpeedThreshold 连接速度的变化阈值（Mbps）
+     */
+    public boolean differsFrom(WifiSnapshot other, int rssiHysteresisDb, int linkSpeedThreshold) {
+        if (other == null) {
+            return true;
+        }
+        if (connected != other.connected) {
+            return true;
+        }
+        if (!connected) {
+            return false;
+        }
+        return !Objects.equals(ssid, other.ssid)
+                || !Objects.equals(bssid, other.bssid)
+                || ipAddress != other.ipAddress
+                || frequency != other.frequency
+                || Math.abs(rssi - other.rssi) >= rssiHysteresisDb
+                || Math.abs(linkSpeed - other.linkSpeed) >= linkSpeedThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return connected
+                ? "WifiSnapshot{" + ssid + ", " + bssid + ", rssi=" + rssi + ", speed=" + linkSpeed + "}"
+                : "WifiSnapshot{disconnected}";
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.myapplication.wifi;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 进程内WiFi快照发布者
+ * 同进程的订阅者直接收到WifiSnapshot对象，不经过Intent和system_server。
+ * 订阅者列表是基于CAS的写时复制数组，发布时无锁；
+ * 每个订阅只保留最新一个未送达的快照，处理慢的订阅者会跳过中间值（conflated），
+ * 不会积压，也不会拖慢发布者和其他订阅者。
+ */
+public class WifiSnapshotPublisher implements Flow.Publisher<WifiSnapshot> {
+
+    private static final SnapshotSubscription[] EMPTY = new SnapshotSubscription[0];
+
+    private final Executor deliveryExecutor; // 向订阅者投递的线程池
+    private final AtomicReference<SnapshotSubscription[]> subscriptions = new AtomicReference<>(EMPTY);
+    private volatile WifiSnapshot current; // 最近一次发布的快照
+    private volatile boolean closed = false;
+
+    /**
+     * @param deliveryExecutor 投递线程池（应有界），同一订阅的投递不会并发执行，每个订阅同时最多占用一个线程
+     */
+    public WifiSnapshotPublisher(Executor deliveryExecutor) {
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * @return 最近一次发布的快照，尚未发布时返回null
+     */
+    public WifiSnapshot currentSnapshot() {
+        return current;
+    }
+
+    /**
+     * @return 当前订阅者数量
+     */
+    public int getSubscriberCount() {
+        return subscriptions.get().length;
+    }
+
+    /**
+     * 订阅快照更新；已有快照时，订阅者请求数据后会先收到当前快照
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super WifiSnapshot> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        SnapshotSubscription subscription = new SnapshotSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+            return;
+        }
+        add(subscription);
+        WifiSnapshot snapshot = current;
+        if (snapshot != null) {
+            subscription.offer(snapshot);
+        }
+    }
+
+    /**
+     * 向所有订阅者发布新快照（任意线程调用，不阻塞）
+     * @param snapshot 新快照
+     */
+    public void publish(WifiSnapshot snapshot) {
+        if (closed) {
+            return;
+        }
+        current = snapshot;
+        for (SnapshotSubscription subscription : subscriptions.get()) {
+            subscription.offer(snapshot);
+        }
+    }
+
+    /**
+     * 关闭发布者，通知所有订阅者结束
+     */
+    public void close() {
+        closed = true;
+        for (SnapshotSubscription subscription : subscriptions.getAndSet(EMPTY)) {
+            subscription.complete();
+        }
+    }
+
+    private void add(SnapshotSubscription subscription) {
+        while (true) {
+            SnapshotSubscription[] old = subscriptions.get();
+            SnapshotSubscription[] updated = Arrays.copyOf(old, old.length + 1);
+            updated[old.length] = subscription;
+            if (subscriptions.compareAndSet(old, updated)) {
+                return;
+            }
+        }
+    }
+
+    private void remove(SnapshotSubscription subscription) {
+        while (true) {
+            SnapshotSubscription[] old = subscriptions.get();
+            int index = -1;
+            for (int i = 0; i < old.length; i++) {
+                if (old[i] == subscription) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return;
+            }
+            SnapshotSubscription[] updated = EMPTY;
+            if (old.length > 1) {
+                updated = new SnapshotSubscription[old.length - 1];
+                System.arraycopy(old, 0, updated, 0, index);
+                System.arraycopy(old, index + 1, updated, index, old.length - index - 1);
+            }
+            if (subscriptions.compareAndSet(old, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 单个订阅：保存最新的待投递快照和请求数，通过wip计数保证同一订阅串行投递
+     */
+    private final class SnapshotSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super WifiSnapshot> subscriber;
+        private final AtomicReference<WifiSnapshot> pending = new AtomicReference<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile boolean completed = false;
+        private volatile Throwable error; // 待在投递线程上报告的错误（规范§3.9）
+
+        SnapshotSubscription(Flow.Subscriber<? super WifiSnapshot> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * 覆盖未投递的旧快照（conflate），然后安排投递
+         */
+        void offer(WifiSnapshot snapshot) {
+            pending.set(snapshot);
+            schedule();
+        }
+
+        void complete() {
+            completed = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // 不在调用者线程上回调onError（规范§1.3要求信号串行），交给投递循环
+                error = new IllegalArgumentException("request must be positive: " + n);
+                remove(this);
+                schedule();
+                return;
+            }
+            // 累加请求数，溢出时按无限处理
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n;
+                if (next < 0) {
+                    next = Long.MAX_VALUE;
+                }
+            } while (!requested.compareAndSet(current, next));
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            remove(this);
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                deliveryExecutor.execute(this);
+            }
+        }
+
+        /**
+         * 投递循环：有请求且有待投递快照时投递一个
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                if (cancelled) {
+                    return;
+                }
+                Throwable failure = error;
+                if (failure != null) {
+                    cancelled = true;
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (requested.get() > 0) {
+                    WifiSnapshot snapshot = pending.getAndSet(null);
+                    if (snapshot != null) {
+                        if (requested.get() != Long.MAX_VALUE) {
+                            requested.decrementAndGet();
+                        }
+                        subscriber.onNext(snapshot);
+                    }
+                }
+                if (completed && pending.get() == null) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.myapplication.wifi;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WiFi连接状态监视器
+ * 由WifiDataSource的连接回调（连接信息变化、链路地址变化、断开）驱动，
+ * 只有当状态变化超过阈值时才通知监听者；定时轮询仅作为回调长时间无事件时的兜底。
+ */
+public class WifiStateMonitor {
+
+    private static final String TAG = "WifiStateMonitor";
+    public static final int DEFAULT_RSSI_HYSTERESIS_DB = 5;       // 信号变化达到5dBm才发布
+    public static final int DEFAULT_LINK_SPEED_THRESHOLD = 10;    // 速度变化达到10Mbps才发布
+    public static final long DEFAULT_FALLBACK_INTERVAL_MS = 60_000; // 回调静默超过1分钟时主动读取一次
+
+    /**
+     * 状态变化监听者
+     */
+    public interface Listener {
+        void onSnapshotChanged(WifiSnapshot snapshot);
+    }
+
+    /**
+     * 样本监听者：收到每个快照（包括被阈值抑制的）时调用
+     */
+    public interface SampleListener {
+        void onSample(WifiSnapshot snapshot);
+    }
+
+    private final WifiDataSource dataSource;
+    private final Listener listener;
+    private volatile int rssiHysteresisDb = DEFAULT_RSSI_HYSTERESIS_DB;
+    private volatile int linkSpeedThreshold = DEFAULT_LINK_SPEED_THRESHOLD;
+    private final long fallbackIntervalMs;
+    private volatile SampleListener sampleListener;
+
+    private HandlerThread callbackThread;
+    private ScheduledExecutorService fallbackExecutor;
+    private WifiDataSource.ConnectionCallback connectionCallback;
+    private boolean running = false;
+
+    // 以下状态由offer()在同步块内维护
+    private WifiSnapshot published;           // 最近一次发布的快照
+    private WifiSnapshot latest;              // 最近一次收到的快照（可能未发布）
+    private int linkIpAddress = 0;            // 来自LinkProperties的IPv4地址
+    private volatile long lastEventTime = 0;  // 最近一次回调事件的时间
+
+    // 统计信息
+    private final AtomicLong eventsReceived = new AtomicLong();
+    private final AtomicLong eventsSuppressed = new AtomicLong();
+    private final AtomicLong eventsPublished = new AtomicLong();
+    private final AtomicLong fallbackPolls = new AtomicLong();
+
+    public WifiStateMonitor(Context context, Listener listener) {
+        this(WifiDataSources.get(context), listener, DEFAULT_FALLBACK_INTERVAL_MS);
+    }
+
+    /**
+     * 构造函数
+     * @param dataSource         WiFi数据源
+     * @param listener           状态变化监听者（在回调线程或兜底线程上调用）
+     * @param fallbackIntervalMs 兜底轮询间隔（毫秒）
+     */
+    public WifiStateMonitor(WifiDataSource dataSource, Listener listener, long fallbackIntervalMs) {
+        this.dataSource = dataSource;
+        this.listener = listener;
+        this.fallbackIntervalMs = fallbackIntervalMs;
+    }
+
+    /**
+     * 设置发布阈值
+     * @param rssiHysteresisDb   信号强度滞回阈值（dBm）
+     * @param linkSpeedThreshold 连接速度变化阈值（Mbps）
+     */
+    public void setThresholds(int rssiHysteresisDb, int linkSpeedThreshold) {
+        this.rssiHysteresisDb = Math.max(1, rssiHysteresisDb);
+        this.linkSpeedThreshold = Math.max(1, linkSpeedThreshold);
+    }
+
+    /**
+     * 设置样本监听者，可为null
+     */
+    public void setSampleListener(SampleListener sampleListener) {
+        this.sampleListener = sampleListener;
+    }
+
+    /**
+     * 开始监听网络回调并启动兜底轮询
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        callbackThread = new HandlerThread(TAG);
+        callbackThread.start();
+
+        connectionCallback = new WifiDataSource.ConnectionCallback() {
+            @Override
+            public void onConnectionInfo(WifiSnapshot snapshot) {
+                onEvent(snapshot);
+            }
+
+            @Override
+            public void onLinkAddress(int ipAddress) {
+                onLinkProperties(ipAddress);
+            }
+
+            @Override
+            public void onLost() {
+                onDisconnected();
+            }
+        };
+        dataSource.registerConnectionCallback(connectionCallback, new Handler(callbackThread.getLooper()));
+
+        fallbackExecutor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, TAG + "-fallback"));
+        fallbackExecutor.scheduleWithFixedDelay(this::pollIfQuiet,
+                fallbackIntervalMs, fallbackIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止监听
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        dataSource.unregisterConnectionCallback(connectionCallback);
+        fallbackExecutor.shutdownNow();
+        callbackThread.quitSafely();
+    }
+
+    /**
+     * @return 最近一次发布的快照，尚未发布时返回null
+     */
+    public synchronized WifiSnapshot getPublished() {
+        return published;
+    }
+
+    private void onEvent(WifiSnapshot snapshot) {
+        lastEventTime = SystemClock.elapsedRealtime();
+        // 连接信息中没有IP时使用链路属性提供的地址
+        offer(snapshot.ipAddress != 0 ? snapshot : snapshot.withIpAddress(currentLinkIp(), lastEventTime));
+    }
+
+    private void onLinkProperties(int ip) {
+        lastEventTime = SystemClock.elapsedRealtime();
+        WifiSnapshot candidate;
+        synchronized (this) {
+            linkIpAddress = ip;
+            if (latest == null || !latest.connected) {
+                return; // 等待能力变化回调提供WiFi信息
+            }
+            candidate = latest.withIpAddress(ip, lastEventTime);
+        }
+        offer(candidate);
+    }
+
+    private void onDisconnected() {
+        lastEventTime = SystemClock.elapsedRealtime();
+        synchronized (this) {
+            linkIpAddress = 0;
+        }
+        offer(WifiSnapshot.DISCONNECTED);
+    }
+
+    private synchronized int currentLinkIp() {
+        return linkIpAddress;
+    }
+
+    /**
+     * 兜底轮询：回调静默超过间隔时主动读取一次连接信息
+     */
+    private void pollIfQuiet() {
+        if (SystemClock.elapsedRealtime() - lastEventTime < fallbackIntervalMs) {
+            return;
+        }
+        fallbackPolls.incrementAndGet();
+        readCurrent();
+    }
+
+    /**
+     * 立即从数据源读取当前连接信息（系统数据源为跨进程调用），并按阈值决定是否发布
+     * @return 读取到的快照；没有权限时返回最近一次发布的快照
+     */
+    public WifiSnapshot readCurrent() {
+        WifiSnapshot snapshot;
+        try {
+            snapshot = dataSource.readConnection(currentLinkIp(), SystemClock.elapsedRealtime());
+        } catch (SecurityException e) {
+            Log.w(TAG, "Reading connection info not permitted", e);
+            return getPublished();
+        }
+        offer(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * 接收一个新快照，变化超过阈值时发布，否则计为抑制
+     */
+    private void offer(WifiSnapshot candidate) {
+        eventsReceived.incrementAndGet();
+        SampleListener samples = sampleListener;
+        if (samples != null) {
+            samples.onSample(candidate);
+        }
+        synchronized (this) {
+            latest = candidate;
+            if (!candidate.differsFrom(published, rssiHysteresisDb, linkSpeedThreshold)) {
+                eventsSuppressed.incrementAndGet();
+                return;
+            }
+            published = candidate;
+        }
+        eventsPublished.incrementAndGet();
+        listener.onSnapshotChanged(candidate);
+    }
+
+    /**
+     * 获取事件统计快照
+     */
+    public Stats getStats() {
+        return new Stats(eventsReceived.get(), eventsSuppressed.get(), eventsPublished.get(), fallbackPolls.get());
+    }
+
+    /**
+     * 监视器统计：收到的事件、被抑制的事件、发布的事件、兜底轮询次数
+     */
+    public static final class Stats {
+        public final long eventsReceived;
+        public final long eventsSuppressed;
+        public final long eventsPublished;
+        public final long fallbackPolls;
+
+        Stats(long eventsReceived, long eventsSuppressed, long eventsPublished, long fallbackPolls) {
+            this.eventsReceived = eventsReceived;
+            this.eventsSuppressed = eventsSuppressed;
+            this.eventsPublished = eventsPublished;
+            this.fallbackPolls = fallbackPolls;
+        }
+
+        @Override
+        public String toString() {
+            return "received=" + eventsReceived +
+                    ", suppressed=" + eventsSuppressed +
+                    ", published=" + eventsPublished +
+                    ", fallbackPolls=" + fallbackPolls;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.myapplication.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * NetworkRanker基准测试：每次扫描后的聚合加排序
+ * 索引中有1000个历史SSID，可见网络中约一半连接过；
+ * 与ScanAggregatorBenchmark的update对比即为排序本身的开销。
+ */
+@State(Scope.Thread)
+public class NetworkRankerBenchmark {
+
+    private static final int ROUNDS = 16;
+    private static final int HISTORY_SSIDS = 1000;
+    private static final long NOW_MS = 1_700_000_000_000L;
+
+    /**
+     * 每次扫描的AP数量
+     */
+    @Param({"20", "100", "500"})
+    public int apCount;
+
+    private final List<List<ScanAggregatorBenchmark.Ap>> rounds = new ArrayList<>();
+    private ScanAggregator<ScanAggregatorBenchmark.Ap> aggregator;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        NetworkRanker ranker = new NetworkRanker();
+        for (int i = 0; i < HISTORY_SSIDS; i += 2) {
+            String ssid = "Network-" + i;
+            ranker.putHistory(ssid, 1 + random.nextInt(50), NOW_MS - random.nextInt(30 * 24 * 3600) * 1000L);
+            ranker.putConnectLatency(ssid, 500 + random.nextInt(5000));
+        }
+
+        ScanAggregatorBenchmark.Ap[] base = new ScanAggregatorBenchmark.Ap[apCount];
+        for (int i = 0; i < apCount; i++) {
+            base[i] = new ScanAggregatorBenchmark.Ap("Network-" + i, 0x001122000000L + i,
+                    -30 - random.nextInt(60), random.nextBoolean() ? 2437 : 5180, "[WPA2-PSK-CCMP][ESS]");
+        }
+        for (int r = 0; r < ROUNDS; r++) {
+            List<ScanAggregatorBenchmark.Ap> scan = new ArrayList<>(apCount);
+            for (ScanAggregatorBenchmark.Ap ap : base) {
+                if (random.nextInt(50) == 0) {
+                    continue; // 偶尔漏扫
+                }
+                scan.add(new ScanAggregatorBenchmark.Ap(ap.ssid, ap.bssid, ap.level + random.nextInt(7) - 3,
+                        ap.frequency, ap.capabilities));
+            }
+            rounds.add(scan);
+        }
+        aggregator = new ScanAggregator<>(ScanAggregatorBenchmark.Ap.ACCESSOR);
+        aggregator.setOrdering(rows -> ranker.sort(rows, NOW_MS));
+        aggregator.update(rounds.get(0));
+    }
+
+    @Benchmark
+    public ScanAggregator.Diff updateAndRank() {
+        round = (round + 1) % ROUNDS;
+        return aggregator.update(rounds.get(round));
+    }
+}
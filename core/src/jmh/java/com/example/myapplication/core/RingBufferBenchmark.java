@@ -0,0 +1,66 @@
+package com.example.myapplication.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.function.Consumer;
+
+/**
+ * RingBuffer基准测试：两个生产者（对应主线程和服务回调线程）发布事件，一个消费者批量取出
+ * 报告每个生产者的发布吞吐量和消费者每次drain的吞吐量；发布和消费的gc.alloc.rate.norm应为0。
+ * 不测BLOCK：迭代结束时消费者先停止，阻塞的生产者无法退出。
+ */
+@State(Scope.Group)
+public class RingBufferBenchmark {
+
+    private static final int BATCH = 256;
+
+    @Param({"DROP_OLDEST", "DROP_NEWEST"})
+    public RingBuffer.Backpressure backpressure;
+
+    @Param({"1024"})
+    public int capacity;
+
+    private RingBuffer<Event> ring;
+    private long checksum;  // 仅消费者线程访问
+    private final Consumer<Event> sink = event -> checksum += event.bssid + event.rssi;
+
+    @Setup
+    public void setUp() {
+        ring = new RingBuffer<>(capacity, Event::new, backpressure);
+    }
+
+    @Benchmark
+    @Group("pipeline")
+    @GroupThreads(2)
+    public long publish() {
+        long sequence = ring.claim();
+        if (sequence >= 0) {
+            Event event = ring.get(sequence);
+            event.bssid = sequence;
+            event.rssi = -60;
+            event.timestampNanos = System.nanoTime();
+            ring.publish(sequence);
+        }
+        return sequence;
+    }
+
+    @Benchmark
+    @Group("pipeline")
+    @GroupThreads(1)
+    public long drain() {
+        ring.drain(sink, BATCH);
+        return checksum;
+    }
+
+    static final class Event {
+        long bssid;
+        int rssi;
+        long timestampNanos;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.myapplication.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ScanAggregator基准测试：按SSID聚合并与上一次扫描做增量比较
+ * 预先生成若干轮扫描，相邻两轮之间信号强度随机抖动，少量AP出现或消失，
+ * 模拟连续扫描同一地点的情况。
+ * copyAndUpdate先把本轮结果复制到双缓冲的ScanSnapshot再聚合（MainActivity的路径），
+ * 与update对比即为复制的开销；用-prof gc比较每次扫描的分配量。
+ */
+@State(Scope.Thread)
+public class ScanAggregatorBenchmark {
+
+    private static final int ROUNDS = 16;
+
+    /**
+     * 每次扫描的AP数量
+     */
+    @Param({"20", "100", "500"})
+    public int apCount;
+
+    /**
+     * 每个SSID下平均的AP数量（多AP的企业网络更高）
+     */
+    @Param({"1", "4"})
+    public int apsPerSsid;
+
+    private final List<List<Ap>> rounds = new ArrayList<>();
+    private ScanAggregator<Ap> aggregator;
+    private ScanAggregator<Ap> snapshotAggregator;
+    private ScanSnapshotBuffer snapshots;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int ssidCount = Math.max(1, apCount / apsPerSsid);
+        Ap[] base = new Ap[apCount];
+        for (int i = 0; i < apCount; i++) {
+            base[i] = new Ap("Network-" + (i % ssidCount), 0x001122000000L + i,
+                    -30 - random.nextInt(60), random.nextBoolean() ? 2437 : 5180,
+                    "[WPA2-PSK-CCMP][ESS]");
+        }
+        for (int r = 0; r < ROUNDS; r++) {
+            List<Ap> scan = new ArrayList<>(apCount);
+            for (Ap ap : base) {
+                if (random.nextInt(50) == 0) {
+                    continue; // 偶尔漏扫
+                }
+                scan.add(new Ap(ap.ssid, ap.bssid, ap.level + random.nextInt(7) - 3, ap.frequency, ap.capabilities));
+            }
+            rounds.add(scan);
+        }
+        aggregator = new ScanAggregator<>(Ap.ACCESSOR);
+        aggregator.update(rounds.get(0));
+        snapshotAggregator = new ScanAggregator<>(Ap.ACCESSOR);
+        snapshots = new ScanSnapshotBuffer(apCount);
+        snapshotAggregator.update(copy(rounds.get(0)));
+    }
+
+    @Benchmark
+    public ScanAggregator.Diff update() {
+        round = (round + 1) % ROUNDS;
+        return aggregator.update(rounds.get(round));
+    }
+
+    @Benchmark
+    public ScanAggregator.Diff copyAndUpdate() {
+        round = (round + 1) % ROUNDS;
+        return snapshotAggregator.update(copy(rounds.get(round)));
+    }
+
+    private ScanSnapshot copy(List<Ap> scan) {
+        ScanSnapshot snapshot = snapshots.beginWrite(0);
+        for (int i = 0, n = scan.size(); i < n; i++) {
+            Ap ap = scan.get(i);
+            snapshot.add(ap.bssid, ap.ssid, ap.level, ap.frequency, 0, ap.capabilities, 0);
+        }
+        snapshots.publish();
+        return snapshot;
+    }
+
+    /**
+     * 基准测试用的扫描结果
+     */
+    static final class Ap {
+        static final ScanAggregator.Accessor<Ap> ACCESSOR = new ScanAggregator.Accessor<Ap>() {
+            @Override
+            public String ssid(Ap result) {
+                return result.ssid;
+            }
+
+            @Override
+            public String bssid(Ap result) {
+                return result.bssidText;
+            }
+
+            @Override
+            public int level(Ap result) {
+                return result.level;
+            }
+
+            @Override
+            public int frequency(Ap result) {
+                return result.frequency;
+            }
+
+            @Override
+            public String capabilities(Ap result) {
+                return result.capabilities;
+            }
+        };
+
+        final String ssid;
+        final long bssid;
+        final String bssidText;
+        final int level;
+        final int frequency;
+        final String capabilities;
+
+        Ap(String ssid, long bssid, int level, int frequency, String capabilities) {
+            this.ssid = ssid;
+            this.bssid = bssid;
+            this.bssidText = String.format("%012x", bssid).replaceAll("(..)(?!$)", "$1:");
+            this.level = level;
+            this.frequency = frequency;
+            this.capabilities = capabilities;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.myapplication.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * SignalStatsTable基准测试：10k个AP的样本流
+ * 目标：每秒数百万个样本（ops/us >= 1），record的gc.alloc.rate.norm为0。
+ */
+@State(Scope.Thread)
+public class SignalStatsBenchmark {
+
+    private static final int SAMPLES = 1 << 16; // 预生成的样本数，取2的幂便于取模
+    private static final int BATCH = 1024;      // 每次调用记录的样本数
+
+    @Param({"10000"})
+    public int apCount;
+
+    private final long[] bssids = new long[SAMPLES];
+    private final int[] rssis = new int[SAMPLES];
+    private SignalStatsTable table;
+    private final SignalStatsTable.Entry entry = new SignalStatsTable.Entry();
+    private int index;
+    private long time;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long[] aps = new long[apCount];
+        for (int i = 0; i < apCount; i++) {
+            aps[i] = (random.nextLong() & 0xFFFFFFFFFFFFL) | 1;
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            bssids[i] = aps[random.nextInt(apCount)];
+            rssis[i] = -30 - random.nextInt(60);
+        }
+        table = new SignalStatsTable(apCount, SignalStatsTable.DEFAULT_EWMA_ALPHA);
+        for (long ap : aps) {
+            table.record(ap, -60, 0);
+        }
+    }
+
+    /**
+     * 记录样本（热路径），每次调用记录BATCH个
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int record() {
+        int i = index;
+        long t = ++time;
+        for (int k = 0; k < BATCH; k++) {
+            int s = (i + k) & (SAMPLES - 1);
+            table.record(bssids[s], rssis[s], t);
+        }
+        index = (i + BATCH) & (SAMPLES - 1);
+        return table.size();
+    }
+
+    /**
+     * 按BSSID读取统计值
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double lookup() {
+        int i = index;
+        double sum = 0;
+        for (int k = 0; k < BATCH; k++) {
+            if (table.get(bssids[(i + k) & (SAMPLES - 1)], entry)) {
+                sum += entry.ewma;
+            }
+        }
+        index = (i + BATCH) & (SAMPLES - 1);
+        return sum;
+    }
+}
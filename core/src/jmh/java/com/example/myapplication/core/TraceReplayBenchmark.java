@@ -0,0 +1,69 @@
+package com.example.myapplication.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * 扫描路径的负载测试：不等待地回放合成的扫描风暴，每次扫描经过聚合、按历史排序和按BSSID信号统计
+ * 得分（scans/us）的倒数即为处理一次扫描的时间；扫描间隔小于该时间时扫描路径开始跟不上。
+ * 例如500个BSSID、每100ms一次扫描，需要得分 >= 0.00001。
+ */
+@State(Scope.Thread)
+public class TraceReplayBenchmark {
+
+    private static final int SCANS = 64;
+    private static final long INTERVAL_MS = 100;
+    private static final long NOW_MS = 1_700_000_000_000L;
+
+    @Param({"50", "500", "2000"})
+    public int bssidsPerScan;
+
+    private TraceReplayer replayer;
+    private ScanAggregator<WifiTrace.Ap> aggregator;
+    private SignalStatsTable signalStats;
+    private TraceReplayer.Sink sink;
+
+    @Setup
+    public void setUp() {
+        WifiTrace trace = WifiTrace.scanStorm(bssidsPerScan, SCANS, INTERVAL_MS, 42);
+        replayer = new TraceReplayer(trace, Double.POSITIVE_INFINITY);
+
+        NetworkRanker ranker = new NetworkRanker();
+        for (int i = 0; i < bssidsPerScan / 4; i += 3) {
+            ranker.putHistory("Network-" + i, 1 + i % 20, NOW_MS - i * 3_600_000L);
+        }
+        aggregator = new ScanAggregator<>(WifiTrace.Ap.ACCESSOR);
+        aggregator.setOrdering(rows -> ranker.sort(rows, NOW_MS));
+        signalStats = new SignalStatsTable(bssidsPerScan, SignalStatsTable.DEFAULT_EWMA_ALPHA);
+        sink = new TraceReplayer.Sink() {
+            @Override
+            public void onScan(List<WifiTrace.Ap> aps, long timeMs) {
+                aggregator.update(aps);
+                for (int i = 0, n = aps.size(); i < n; i++) {
+                    WifiTrace.Ap ap = aps.get(i);
+                    signalStats.record(WifiFormat.bssidToLong(ap.bssid), ap.level, timeMs);
+                }
+            }
+
+            @Override
+            public void onConnected(WifiTrace.Event event, long timeMs) {
+            }
+
+            @Override
+            public void onDisconnected(long timeMs) {
+            }
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCANS)
+    public long replayScans() {
+        return replayer.replay(sink, NOW_MS, 1).events;
+    }
+}
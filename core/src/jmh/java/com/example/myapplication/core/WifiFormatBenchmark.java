@@ -0,0 +1,89 @@
+package com.example.myapplication.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+
+/**
+ * WifiFormat基准测试：SSID去引号、IP格式化（字符串、缓冲区、StringBuilder三种方式）和BSSID解析
+ * 用 -prof gc 对比每次操作的分配量，intToIpIntoBuffer应为0字节
+ */
+@State(Scope.Thread)
+public class WifiFormatBenchmark {
+
+    private static final int SIZE = 1024; // 输入数量，取2的幂便于取模
+
+    private final int[] ips = new int[SIZE];
+    private final String[] quotedSsids = new String[SIZE];
+    private final String[] plainSsids = new String[SIZE];
+    private final String[] bssids = new String[SIZE];
+    private final char[] buffer = new char[WifiFormat.MAX_IP_LENGTH];
+    private final StringBuilder builder = new StringBuilder(WifiFormat.MAX_IP_LENGTH);
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            ips[i] = random.nextInt();
+            plainSsids[i] = "Network-" + random.nextInt(100_000);
+            quotedSsids[i] = "\"" + plainSsids[i] + "\"";
+            long mac = random.nextLong() & 0xFFFFFFFFFFFFL;
+            bssids[i] = String.format("%02x:%02x:%02x:%02x:%02x:%02x",
+                    (mac >> 40) & 0xFF, (mac >> 32) & 0xFF, (mac >> 24) & 0xFF,
+                    (mac >> 16) & 0xFF, (mac >> 8) & 0xFF, mac & 0xFF);
+        }
+    }
+
+    private int next() {
+        return index++ & (SIZE - 1);
+    }
+
+    @Benchmark
+    public String removeQuotesQuoted() {
+        return WifiFormat.removeQuotes(quotedSsids[next()]);
+    }
+
+    @Benchmark
+    public String removeQuotesPlain() {
+        return WifiFormat.removeQuotes(plainSsids[next()]);
+    }
+
+    @Benchmark
+    public String intToIpString() {
+        return WifiFormat.intToIp(ips[next()]);
+    }
+
+    @Benchmark
+    public void intToIpIntoBuffer(Blackhole blackhole) {
+        blackhole.consume(WifiFormat.intToIp(ips[next()], buffer, 0));
+        blackhole.consume(buffer);
+    }
+
+    @Benchmark
+    public StringBuilder appendIpReusedBuilder() {
+        builder.setLength(0);
+        return WifiFormat.appendIp(ips[next()], builder);
+    }
+
+    /**
+     * 原先在MainActivity和WifiContentProvider中的字符串拼接写法，作为对照
+     */
+    @Benchmark
+    public String intToIpConcatBaseline() {
+        int ip = ips[next()];
+        return (ip & 0xFF) + "." +
+                ((ip >> 8) & 0xFF) + "." +
+                ((ip >> 16) & 0xFF) + "." +
+                ((ip >> 24) & 0xFF);
+    }
+
+    @Benchmark
+    public long bssidToLong() {
+        return WifiFormat.bssidToLong(bssids[next()]);
+    }
+}
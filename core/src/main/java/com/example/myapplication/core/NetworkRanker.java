@@ -0,0 +1,199 @@
+package com.example.myapplication.core;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于连接历史的网络排序
+ * 按SSID维护内存索引：历史连接次数、最近一次连接时间、连接耗时的EWMA。
+ * 索引启动时从数据库汇总加载一次，之后每次连接只增量更新对应的条目，排序时不再查询数据库。
+ * 分数 = 信号强度、连接次数、最近连接时间、连接耗时四项的加权和，取值[0, 1]，越大越靠前。
+ * 排序使用插入排序：相邻两次扫描的顺序基本不变，对接近有序的列表只需线性时间。
+ * 排序带滞回：上一次排序中的行按原来的位置加一点分数（第一行加swapMargin，往后线性递减），
+ * 再严格按加分后的分数排序，避免信号在几dB内抖动时相邻两行来回交换；
+ * 加分的差不超过swapMargin，分数高出swapMargin以上的行总在前面，第一次排序和新出现的行不加分。
+ * 非线程安全，只应在同一个线程（扫描结果比较线程）调用。
+ */
+public final class NetworkRanker implements ScanAggregator.Ordering {
+
+    // 各项权重，合计为1
+    static final double WEIGHT_RSSI = 0.45;
+    static final double WEIGHT_COUNT = 0.25;
+    static final double WEIGHT_RECENCY = 0.2;
+    static final double WEIGHT_LATENCY = 0.1;
+
+    private static final int RSSI_FLOOR_DBM = -90;              // 不高于该值得0分
+    private static final int RSSI_CEILING_DBM = -30;            // 不低于该值得满分
+    private static final int COUNT_SATURATION = 20;             // 连接次数达到该值得满分（对数刻度）
+    private static final long RECENCY_DECAY_MS = 7L * 24 * 3600 * 1000; // 最近连接得分的衰减时间常数
+    private static final double LATENCY_HALF_SCORE_MS = 3000;  // 连接耗时为该值时得一半分
+    private static final double LATENCY_EWMA_ALPHA = 0.3;      // 连接耗时的平滑系数
+    public static final double DEFAULT_SWAP_MARGIN = 0.03;     // 默认滞回幅度，约相当于信号强度4dB
+
+    private static final double LOG_COUNT_SATURATION = Math.log1p(COUNT_SATURATION);
+
+    private final Map<String, Profile> profiles = new HashMap<>();
+    private double[] scratchScores = new double[64]; // 排序时与行一起移动的分数，复用
+    private double swapMargin = DEFAULT_SWAP_MARGIN;
+    private long lastMaxId;                          // 上一次排序时最大的行ID，更大的是新出现的行
+
+    /**
+     * 载入一个SSID的历史连接汇总（覆盖已有的次数和时间）
+     * @param ssid          WiFi名称
+     * @param connectCount  历史连接次数
+     * @param lastConnectMs 最近一次连接时间（毫秒时间戳）
+     */
+    public void putHistory(String ssid, int connectCount, long lastConnectMs) {
+        Profile profile = profile(ssid);
+        profile.connectCount = connectCount;
+        profile.lastConnectMs = lastConnectMs;
+    }
+
+    /**
+     * 载入一个SSID的平均连接耗时（作为EWMA的初始值）
+     * @param ssid          WiFi名称
+     * @param meanLatencyMs 成功连接的平均耗时（毫秒）
+     */
+    public void putConnectLatency(String ssid, double meanLatencyMs) {
+        profile(ssid).latencyMs = meanLatencyMs;
+    }
+
+    /**
+     * 增量记录一次成功连接
+     * @param ssid          WiFi名称
+     * @param connectTimeMs 连接时间（毫秒时间戳）
+     * @param latencyMs     发起连接到成功的耗时（毫秒），未知时小于0
+     */
+    public void recordConnection(String ssid, long connectTimeMs, long latencyMs) {
+        Profile profile = profile(ssid);
+        profile.connectCount++;
+        if (connectTimeMs > profile.lastConnectMs) {
+            profile.lastConnectMs = connectTimeMs;
+        }
+        if (latencyMs >= 0) {
+            profile.latencyMs = Double.isNaN(profile.latencyMs)
+                    ? latencyMs
+                    : profile.latencyMs + LATENCY_EWMA_ALPHA * (latencyMs - profile.latencyMs);
+        }
+    }
+
+    /**
+     * 设置排序的滞回幅度
+     * @param swapMargin 上一次排在第一的行的加分，0表示严格按分数排序
+     */
+    public void setSwapMargin(double swapMargin) {
+        if (swapMargin < 0) {
+            throw new IllegalArgumentException("swapMargin must be >= 0");
+        }
+        this.swapMargin = swapMargin;
+    }
+
+    /**
+     * 清空索引（重新加载前调用）
+     */
+    public void clear() {
+        profiles.clear();
+    }
+
+    /**
+     * @return 索引中的SSID数量
+     */
+    public int size() {
+        return profiles.size();
+    }
+
+    /**
+     * 计算一个网络的分数
+     * @param ssid  WiFi名称
+     * @param rssi  当前信号强度（dBm）
+     * @param nowMs 当前时间（毫秒时间戳）
+     * @return 分数[0, 1]
+     */
+    public double score(String ssid, int rssi, long nowMs) {
+        double rssiScore = clamp((double) (rssi - RSSI_FLOOR_DBM) / (RSSI_CEILING_DBM - RSSI_FLOOR_DBM));
+        double score = WEIGHT_RSSI * rssiScore;
+        Profile profile = profiles.get(ssid);
+        if (profile == null) {
+            return score;
+        }
+        if (profile.connectCount > 0) {
+            score += WEIGHT_COUNT * Math.min(1, Math.log1p(profile.connectCount) / LOG_COUNT_SATURATION);
+            long ageMs = Math.max(0, nowMs - profile.lastConnectMs);
+            score += WEIGHT_RECENCY * Math.exp(-(double) ageMs / RECENCY_DECAY_MS);
+        }
+        if (!Double.isNaN(profile.latencyMs)) {
+            score += WEIGHT_LATENCY * LATENCY_HALF_SCORE_MS / (LATENCY_HALF_SCORE_MS + profile.latencyMs);
+        }
+        return score;
+    }
+
+    @Override
+    public void sort(List<ScanAggregator.NetworkRow> rows) {
+        sort(rows, System.currentTimeMillis());
+    }
+
+    /**
+     * 按分数从高到低原地排序
+     * 传入的顺序应为上一次排序的结果，新出现的行在末尾（ScanAggregator的行ID递增，新行的ID比上一次的都大）；
+     * 上一次排序中的m行里第p行（从0开始）加分swapMargin * (m - p) / m，加分后分数相同的行ID小的在前。
+     * @param rows  行列表
+     * @param nowMs 当前时间（毫秒时间戳）
+     */
+    public void sort(List<ScanAggregator.NetworkRow> rows, long nowMs) {
+        int n = rows.size();
+        if (scratchScores.length < n) {
+            scratchScores = new double[Math.max(n, scratchScores.length * 2)];
+        }
+        double[] scores = scratchScores;
+        int kept = 0; // 上一次排序中也有的行数，它们在列表前面
+        while (kept < n && rows.get(kept).id <= lastMaxId) {
+            kept++;
+        }
+        long maxId = lastMaxId;
+        for (int i = 0; i < n; i++) {
+            ScanAggregator.NetworkRow row = rows.get(i);
+            double score = score(row.ssid, row.rssi, nowMs);
+            if (i < kept) {
+                score += swapMargin * (kept - i) / kept;
+            }
+            scores[i] = score;
+            maxId = Math.max(maxId, row.id);
+        }
+        lastMaxId = maxId;
+        for (int i = 1; i < n; i++) {
+            ScanAggregator.NetworkRow row = rows.get(i);
+            double score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && (score > scores[j] || (score == scores[j] && row.id < rows.get(j).id))) {
+                rows.set(j + 1, rows.get(j));
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            rows.set(j + 1, row);
+            scores[j + 1] = score;
+        }
+    }
+
+    private Profile profile(String ssid) {
+        Profile profile = profiles.get(ssid);
+        if (profile == null) {
+            profile = new Profile();
+            profiles.put(ssid, profile);
+        }
+        return profile;
+    }
+
+    private static double clamp(double value) {
+        return value < 0 ? 0 : (value > 1 ? 1 : value);
+    }
+
+    /**
+     * 一个SSID的历史汇总
+     */
+    private static final class Profile {
+        int connectCount;
+        long lastConnectMs;
+        double latencyMs = Double.NaN; // 连接耗时EWMA，没有记录时为NaN
+    }
+}
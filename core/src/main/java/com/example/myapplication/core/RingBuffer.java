@@ -0,0 +1,239 @@
+package com.example.myapplication.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 有界无锁环形缓冲区（多生产者、多消费者）
+ * 每个槽位带一个序号（Vyukov有界MPMC队列）：生产者和消费者各自CAS推进写、读位置，
+ * 再通过槽位序号交接，不加锁。事件对象在创建时预分配，之后反复复用：
+ * 生产者claim()取得槽位后原地填写字段并publish()，消费者在drain()的回调中原地读取，
+ * 发布和消费都不分配内存。回调返回后槽位即被复用，消费者不能保留事件对象的引用。
+ *
+ * 缓冲区满时按Backpressure处理：丢弃最旧的事件、丢弃新事件或阻塞生产者。
+ */
+public final class RingBuffer<E> {
+
+    /**
+     * 缓冲区满时的处理方式
+     */
+    public enum Backpressure {
+        DROP_OLDEST,   // 丢弃最旧的未消费事件，为新事件腾出槽位
+        DROP_NEWEST,   // 丢弃新事件，claim()返回-1
+        BLOCK          // 生产者等待消费者腾出槽位（不要在主线程使用）
+    }
+
+    private static final int SPIN_TRIES = 64;            // 阻塞模式下先自旋的次数
+    private static final long PARK_NANOS = 50_000L;      // 之后每次休眠的时间
+
+    private final E[] slots;
+    private final AtomicLongArray sequences;  // 槽位序号：等于写位置时可写，等于写位置+1时可读
+    private final int mask;
+    private final Backpressure backpressure;
+
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicLong readPosition = new AtomicLong();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    /**
+     * @param capacity     容量，向上取整为2的幂
+     * @param factory      槽位事件对象的工厂，只在构造时调用capacity次
+     * @param backpressure 缓冲区满时的处理方式
+     */
+    @SuppressWarnings("unchecked")
+    public RingBuffer(int capacity, Supplier<E> factory, Backpressure backpressure) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be in [2, 2^30]: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = (E[]) new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.backpressure = backpressure;
+        for (int i = 0; i < size; i++) {
+            slots[i] = factory.get();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 取得一个可写槽位（第一阶段）
+     * 缓冲区满时按Backpressure处理；DROP_NEWEST或阻塞中被中断时返回-1，不需要publish。
+     * @return 槽位序号，用get()取得事件对象，填写后必须调用publish()
+     */
+    public long claim() {
+        int spins = 0;
+        long position = writePosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (writePosition.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+                position = writePosition.get();
+            } else if (diff < 0) {
+                // 槽位还未被消费：缓冲区已满
+                switch (backpressure) {
+                    case DROP_NEWEST:
+                        dropped.increment();
+                        return -1;
+                    case DROP_OLDEST:
+                        if (discardOldest()) {
+                            dropped.increment();
+                        } else {
+                            Thread.onSpinWait(); // 最旧的槽位已被取得但还未发布，稍等
+                        }
+                        break;
+                    default:
+                        if (spins == 0) {
+                            blocked.increment();
+                        }
+                        if (!backoff(++spins)) {
+                            dropped.increment();
+                            return -1;
+                        }
+                        break;
+                }
+                position = writePosition.get();
+            } else {
+                position = writePosition.get(); // 其他生产者已推进写位置
+            }
+        }
+    }
+
+    /**
+     * @param sequence claim()返回的序号
+     * @return 该槽位预分配的事件对象
+     */
+    public E get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * 发布填写完成的槽位（第二阶段），之后对消费者可见
+     * @param sequence claim()返回的序号
+     */
+    public void publish(long sequence) {
+        sequences.lazySet((int) sequence & mask, sequence + 1);
+        published.increment();
+    }
+
+    /**
+     * 批量消费：按发布顺序把至多maxBatch个事件交给handler，遇到未发布的槽位时停止
+     * @param handler  在调用线程上原地读取事件，返回后槽位会被复用
+     * @param maxBatch 本次最多消费的事件数
+     * @return 消费的事件数，0表示缓冲区为空
+     */
+    public int drain(Consumer<? super E> handler, int maxBatch) {
+        int count = 0;
+        long position = readPosition.get();
+        while (count < maxBatch) {
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (readPosition.compareAndSet(position, position + 1)) {
+                    try {
+                        handler.accept(slots[index]);
+                    } finally {
+                        sequences.lazySet(index, position + mask + 1);
+                    }
+                    count++;
+                    position++;
+                } else {
+                    position = readPosition.get();
+                }
+            } else if (diff < 0) {
+                break; // 空，或下一个槽位还未发布
+            } else {
+                position = readPosition.get(); // 被其他消费者（或DROP_OLDEST的生产者）抢先
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 以消费者的身份取走最旧的已发布事件并直接释放槽位
+     * @return 是否丢弃了一个事件；最旧的槽位尚未发布时返回false
+     */
+    private boolean discardOldest() {
+        long position = readPosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (readPosition.compareAndSet(position, position + 1)) {
+                    sequences.lazySet(index, position + mask + 1);
+                    return true;
+                }
+                position = readPosition.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = readPosition.get();
+            }
+        }
+    }
+
+    /**
+     * 阻塞模式下的等待：先自旋，再让出CPU，最后短暂休眠
+     * @return false表示等待中线程被中断（中断状态保持不变）
+     */
+    private static boolean backoff(int spins) {
+        if (spins < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (spins < SPIN_TRIES * 2) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * @return 槽位数量
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return 当前占用的槽位数（已取得但还未消费，包括正在填写的槽位），并发下为近似值
+     */
+    public int size() {
+        long read = readPosition.get();
+        long write = writePosition.get();
+        return (int) Math.max(0, Math.min(write - read, slots.length));
+    }
+
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+
+    /**
+     * @return 已发布的事件数
+     */
+    public long publishedCount() {
+        return published.sum();
+    }
+
+    /**
+     * @return 因缓冲区满而丢弃的事件数（DROP_OLDEST时为被挤掉的旧事件）
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return BLOCK模式下生产者因缓冲区满而等待的次数
+     */
+    public long blockedCount() {
+        return blocked.sum();
+    }
+}
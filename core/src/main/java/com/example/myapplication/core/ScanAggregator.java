@@ -0,0 +1,283 @@
+package com.example.myapplication.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * WiFi扫描结果聚合（纯Java，不依赖Android）
+ * 将每次扫描的AP列表按SSID聚合，每个SSID取信号最强的AP，
+ * 并与上一次扫描结果做增量比较：已有SSID保持原位置，新SSID追加到末尾，
+ * 只有内容变化的行才需要刷新。
+ * 设置了Ordering时，每次更新后再按其排序，顺序变化只标记为reordered，由界面按行ID分发移动。
+ * 扫描结果的类型由Accessor适配，Android端直接传入ScanResult，基准测试传入普通对象；
+ * 也可以传入按列存放的ScanSnapshot，不经过Accessor。
+ * update方法只应在同一个线程调用。
+ * @param <T> 扫描结果类型
+ */
+public class ScanAggregator<T> {
+
+    public static final int RSSI_CHANGE_THRESHOLD_DB = 3; // 信号变化超过该值才刷新该行
+
+    /**
+     * 从扫描结果中读取各字段
+     */
+    public interface Accessor<T> {
+        String ssid(T result);
+
+        String bssid(T result);
+
+        int level(T result);
+
+        int frequency(T result);
+
+        String capabilities(T result);
+    }
+
+    /**
+     * 行的排序方式，在update所在线程调用
+     */
+    public interface Ordering {
+        /**
+         * 原地排序
+         */
+        void sort(List<NetworkRow> rows);
+    }
+
+    private final Accessor<T> accessor;
+    private final List<NetworkRow> rows = new ArrayList<>();         // 当前显示顺序
+    private final Map<String, NetworkRow> bestBySsid = new HashMap<>(); // 本次扫描各SSID最强AP，复用
+    private final Map<String, Integer> apCountBySsid = new HashMap<>();  // 本次扫描各SSID的AP数，复用
+    private final List<String> ssidOrder = new ArrayList<>();            // 本次扫描各SSID第一次出现的顺序，复用
+    private Ordering ordering;       // 为null时保持出现顺序
+    private long[] scratchIds = new long[64]; // 排序前的行ID，用于判断顺序是否变化，复用
+    private final Set<Long> changedIds = new HashSet<>(); // 本次原位更新的行ID，排序后重新定位，复用
+    private long nextRowId = 1;
+    private boolean firstUpdate = true; // 第一次扫描总是整体刷新（即使没有结果，也要显示提示）
+
+    public ScanAggregator(Accessor<T> accessor) {
+        this.accessor = accessor;
+    }
+
+    /**
+     * 设置排序方式，下一次update时生效
+     * @param ordering 排序方式，为null时保持出现顺序
+     */
+    public void setOrdering(Ordering ordering) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * 用新的扫描结果更新模型，计算与上一次结果的差异
+     * @param results 扫描结果
+     * @return 差异（新的行列表和需要刷新的位置）
+     */
+    public Diff update(List<? extends T> results) {
+        beginScan();
+        // 按SSID聚合，每个SSID保留信号最强的AP
+        for (int i = 0, n = results.size(); i < n; i++) {
+            T result = results.get(i);
+            String ssid = accessor.ssid(result);
+            if (ssid == null || ssid.isEmpty()) {
+                continue;
+            }
+            int level = accessor.level(result);
+            NetworkRow best = countAp(ssid);
+            if (best == null || level > best.rssi) {
+                bestBySsid.put(ssid, new NetworkRow(0, ssid, WifiFormat.bssidToLong(accessor.bssid(result)),
+                        level, accessor.frequency(result), accessor.capabilities(result), 0));
+            }
+        }
+        return finishScan();
+    }
+
+    /**
+     * 用紧凑表示的扫描结果更新模型，与update(List)的结果相同
+     * @param snapshot 扫描结果
+     * @return 差异（新的行列表和需要刷新的位置）
+     */
+    public Diff update(ScanSnapshot snapshot) {
+        beginScan();
+        for (int i = 0, n = snapshot.size(); i < n; i++) {
+            String ssid = snapshot.ssid(i);
+            if (ssid == null || ssid.isEmpty()) {
+                continue;
+            }
+            int level = snapshot.level(i);
+            NetworkRow best = countAp(ssid);
+            if (best == null || level > best.rssi) {
+                bestBySsid.put(ssid, new NetworkRow(0, ssid, snapshot.bssid(i), level,
+                        snapshot.frequency(i), snapshot.capabilities(i), 0));
+            }
+        }
+        return finishScan();
+    }
+
+    private void beginScan() {
+        bestBySsid.clear();
+        apCountBySsid.clear();
+        ssidOrder.clear();
+    }
+
+    /**
+     * 该SSID的AP数加一，第一次出现时记录扫描顺序
+     * @return 目前信号最强的AP，第一次出现时为null
+     */
+    private NetworkRow countAp(String ssid) {
+        Integer count = apCountBySsid.get(ssid);
+        if (count == null) {
+            apCountBySsid.put(ssid, 1);
+            ssidOrder.add(ssid);
+            return null;
+        }
+        apCountBySsid.put(ssid, count + 1);
+        return bestBySsid.get(ssid);
+    }
+
+    private Diff finishScan() {
+        boolean structural = firstUpdate;
+        firstUpdate = false;
+        List<Integer> changed = new ArrayList<>();
+
+        // 已有的行：消失的移除，变化的原位更新
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            NetworkRow old = rows.get(i);
+            NetworkRow best = bestBySsid.remove(old.ssid);
+            if (best == null) {
+                rows.remove(i);
+                structural = true;
+                continue;
+            }
+            int apCount = apCountBySsid.get(old.ssid);
+            if (old.differsFrom(best, apCount)) {
+                rows.set(i, new NetworkRow(old.id, old.ssid, best.bssid, best.rssi,
+                        best.frequency, best.capabilities, apCount));
+                changed.add(i);
+            }
+        }
+
+        // 新出现的SSID按扫描顺序追加到末尾，结果确定
+        if (!bestBySsid.isEmpty()) {
+            structural = true;
+            for (int i = 0, n = ssidOrder.size(); i < n; i++) {
+                NetworkRow best = bestBySsid.remove(ssidOrder.get(i));
+                if (best != null) {
+                    rows.add(new NetworkRow(nextRowId++, best.ssid, best.bssid, best.rssi,
+                            best.frequency, best.capabilities, apCountBySsid.get(best.ssid)));
+                }
+            }
+        }
+
+        boolean reordered = false;
+        if (ordering != null && !rows.isEmpty()) {
+            changedIds.clear();
+            if (!structural) {
+                // 有行删除时上面记录的位置已失效，结构变化时也不需要逐行位置
+                for (int i = 0, n = changed.size(); i < n; i++) {
+                    changedIds.add(rows.get(changed.get(i)).id);
+                }
+            }
+            reordered = sortRows();
+            if (reordered && !structural) {
+                // 排序后按行ID重新定位原位更新的行
+                changed.clear();
+                for (int i = 0, n = rows.size(); i < n && changed.size() < changedIds.size(); i++) {
+                    if (changedIds.contains(rows.get(i).id)) {
+                        changed.add(i);
+                    }
+                }
+            }
+        }
+
+        if (structural) {
+            changed.clear(); // 有行增加或删除时由界面比较整个列表
+        } else if (!reordered) {
+            Collections.reverse(changed);
+        }
+        return new Diff(Collections.unmodifiableList(new ArrayList<>(rows)), changed, structural, reordered);
+    }
+
+    /**
+     * 按ordering排序
+     * @return 顺序是否变化
+     */
+    private boolean sortRows() {
+        int n = rows.size();
+        if (scratchIds.length < n) {
+            scratchIds = new long[Math.max(n, scratchIds.length * 2)];
+        }
+        for (int i = 0; i < n; i++) {
+            scratchIds[i] = rows.get(i).id;
+        }
+        ordering.sort(rows);
+        for (int i = 0; i < n; i++) {
+            if (rows.get(i).id != scratchIds[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 列表中的一行：一个SSID及其信号最强的AP（不可变）
+     */
+    public static final class NetworkRow {
+        public final long id;           // 稳定的行ID
+        public final String ssid;
+        public final long bssid;        // 最强AP的BSSID
+        public final int rssi;          // 最强AP的信号强度（dBm）
+        public final int frequency;     // 最强AP的频率（MHz）
+        public final String capabilities;
+        public final int apCount;       // 该SSID下扫描到的AP数
+
+        NetworkRow(long id, String ssid, long bssid, int rssi, int frequency,
+                   String capabilities, int apCount) {
+            this.id = id;
+            this.ssid = ssid;
+            this.bssid = bssid;
+            this.rssi = rssi;
+            this.frequency = frequency;
+            this.capabilities = capabilities;
+            this.apCount = apCount;
+        }
+
+        /**
+         * 与新的最强AP比较，判断是否需要刷新显示
+         */
+        boolean differsFrom(NetworkRow best, int newApCount) {
+            return bssid != best.bssid
+                    || Math.abs(rssi - best.rssi) >= RSSI_CHANGE_THRESHOLD_DB
+                    || frequency != best.frequency
+                    || apCount != newApCount
+                    || !String.valueOf(capabilities).equals(String.valueOf(best.capabilities));
+        }
+    }
+
+    /**
+     * 一次扫描的增量结果
+     */
+    public static final class Diff {
+        public final List<NetworkRow> rows;          // 更新后的完整行列表（不可修改）
+        public final List<Integer> changedPositions; // 内容变化的行在新列表中的位置（升序）
+        public final boolean structural;             // 是否有行增加或删除
+        public final boolean reordered;              // 排序后是否有行移动
+
+        Diff(List<NetworkRow> rows, List<Integer> changedPositions, boolean structural, boolean reordered) {
+            this.rows = rows;
+            this.changedPositions = changedPositions;
+            this.structural = structural;
+            this.reordered = reordered;
+        }
+
+        /**
+         * @return 是否有任何需要显示的变化
+         */
+        public boolean isEmpty() {
+            return !structural && !reordered && changedPositions.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.myapplication.core;
+
+import java.util.Arrays;
+
+/**
+ * 一次扫描结果的紧凑表示（纯Java，不依赖Android）
+ * 每个AP只保留用到的字段，按列存放在并行的基本类型数组中：BSSID为48位long，
+ * 信号强度、频率、信道宽度为int；SSID和安全类型去重后存入字符串表，AP只保存下标。
+ * 同一SSID的多个AP（以及相同的安全类型字符串）只保留一个String实例。
+ * 对象可以反复clear()后重新填充，数组只在AP数超过已分配容量时扩容，稳定后每次扫描不再分配。
+ * 非线程安全：由ScanSnapshotBuffer在写入线程和读取线程之间交接。
+ */
+public final class ScanSnapshot {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    public static final int NO_STRING = -1;           // 字符串为null时的下标
+
+    private long[] bssids;
+    private int[] levels;
+    private int[] frequencies;
+    private int[] channelWidths;
+    private int[] ssidIndexes;
+    private int[] capabilitiesIndexes;
+    private long[] timestamps;
+    private int size;
+
+    // 字符串表：strings按加入顺序存放，slots为开放寻址哈希表，存放下标+1（0为空）
+    private String[] strings;
+    private int[] stringHashes;
+    private int[] slots;
+    private int stringCount;
+
+    private long scanTimeMs;
+
+    public ScanSnapshot() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedAps 预计每次扫描的AP数量，预先分配避免扩容
+     */
+    public ScanSnapshot(int expectedAps) {
+        if (expectedAps < 0) {
+            throw new IllegalArgumentException("expectedAps must be >= 0: " + expectedAps);
+        }
+        int capacity = Math.max(expectedAps, 1);
+        bssids = new long[capacity];
+        levels = new int[capacity];
+        frequencies = new int[capacity];
+        channelWidths = new int[capacity];
+        ssidIndexes = new int[capacity];
+        capabilitiesIndexes = new int[capacity];
+        timestamps = new long[capacity];
+        strings = new String[capacity];
+        stringHashes = new int[capacity];
+        slots = new int[tableSizeFor(capacity * 2)];
+    }
+
+    /**
+     * 清空内容，保留已分配的数组
+     * @param scanTimeMs 新一次扫描的时间
+     */
+    public void clear(long scanTimeMs) {
+        Arrays.fill(strings, 0, stringCount, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+        stringCount = 0;
+        this.scanTimeMs = scanTimeMs;
+    }
+
+    /**
+     * 追加一个AP
+     * @param bssid        48位BSSID（WifiFormat.bssidToLong）
+     * @param ssid         SSID，可以为null
+     * @param level        信号强度（dBm）
+     * @param frequency    频率（MHz）
+     * @param channelWidth 信道宽度（ScanResult.CHANNEL_WIDTH_*）
+     * @param capabilities 安全类型字符串，可以为null
+     * @param timestampMs  该AP最后一次被看到的时间
+     */
+    public void add(long bssid, String ssid, int level, int frequency, int channelWidth,
+                    String capabilities, long timestampMs) {
+        if (size == bssids.length) {
+            grow(size * 2);
+        }
+        int i = size++;
+        bssids[i] = bssid;
+        levels[i] = level;
+        frequencies[i] = frequency;
+        channelWidths[i] = channelWidth;
+        ssidIndexes[i] = intern(ssid);
+        capabilitiesIndexes[i] = intern(capabilities);
+        timestamps[i] = timestampMs;
+    }
+
+    /**
+     * @return AP数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 本次扫描的时间（clear时传入）
+     */
+    public long getScanTimeMs() {
+        return scanTimeMs;
+    }
+
+    public long bssid(int i) {
+        checkIndex(i);
+        return bssids[i];
+    }
+
+    public int level(int i) {
+        checkIndex(i);
+        return levels[i];
+    }
+
+    public int frequency(int i) {
+        checkIndex(i);
+        return frequencies[i];
+    }
+
+    public int channelWidth(int i) {
+        checkIndex(i);
+        return channelWidths[i];
+    }
+
+    public long timestampMs(int i) {
+        checkIndex(i);
+        return timestamps[i];
+    }
+
+    /**
+     * @return 第i个AP的SSID在字符串表中的下标，SSID为null时为NO_STRING；相同SSID的AP下标相同
+     */
+    public int ssidIndex(int i) {
+        checkIndex(i);
+        return ssidIndexes[i];
+    }
+
+    public String ssid(int i) {
+        return string(ssidIndex(i));
+    }
+
+    public String capabilities(int i) {
+        checkIndex(i);
+        return string(capabilitiesIndexes[i]);
+    }
+
+    /**
+     * @return 字符串表中的字符串数（SSID和安全类型合计）
+     */
+    public int stringCount() {
+        return stringCount;
+    }
+
+    /**
+     * @param index 字符串表下标，NO_STRING返回null
+     */
+    public String string(int index) {
+        if (index == NO_STRING) {
+            return null;
+        }
+        if (index < 0 || index >= stringCount) {
+            throw new IndexOutOfBoundsException("string index " + index + ", count " + stringCount);
+        }
+        return strings[index];
+    }
+
+    /**
+     * @return 已分配的AP容量
+     */
+    public int capacity() {
+        return bssids.length;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+        }
+    }
+
+    /**
+     * 查找或加入字符串表
+     * @return 下标
+     */
+    private int intern(String s) {
+        if (s == null) {
+            return NO_STRING;
+        }
+        int hash = s.hashCode();
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int index = slots[slot] - 1;
+            if (stringHashes[index] == hash && s.equals(strings[index])) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (stringCount == strings.length) {
+            strings = Arrays.copyOf(strings, stringCount * 2);
+            stringHashes = Arrays.copyOf(stringHashes, stringCount * 2);
+        }
+        int index = stringCount++;
+        strings[index] = s;
+        stringHashes[index] = hash;
+        slots[slot] = index + 1;
+        if (stringCount * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return index;
+    }
+
+    private void rehash(int tableSize) {
+        slots = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int index = 0; index < stringCount; index++) {
+            int slot = mix(stringHashes[index]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+    }
+
+    private void grow(int capacity) {
+        bssids = Arrays.copyOf(bssids, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        frequencies = Arrays.copyOf(frequencies, capacity);
+        channelWidths = Arrays.copyOf(channelWidths, capacity);
+        ssidIndexes = Arrays.copyOf(ssidIndexes, capacity);
+        capabilitiesIndexes = Arrays.copyOf(capabilitiesIndexes, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+    }
+
+    private static int mix(int hash) {
+        // String.hashCode的低位对相似的SSID（Network-1、Network-2……）分布不均
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(Math.max(n, DEFAULT_CAPACITY) - 1) << 1;
+        return capacity > 0 ? capacity : 1 << 30;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanSnapshot{" +
+                "aps=" + size +
+                ", strings=" + stringCount +
+                ", capacity=" + bssids.length +
+                '}';
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.myapplication.core;
+
+/**
+ * ScanSnapshot的双缓冲：一个写入线程填充后台缓冲区，发布后与前台缓冲区交换，
+ * 读取线程通过acquire()/release()使用最近发布的一份。
+ * 两个ScanSnapshot轮流复用，稳定后每次扫描不分配新数组；
+ * 只有写入线程要复用的缓冲区仍被读取线程持有时（读取比两次扫描还慢），才换一个新的ScanSnapshot，
+ * 旧的由读取线程释放后回收。
+ * 只允许一个写入线程；读取线程数量不限。
+ */
+public final class ScanSnapshotBuffer {
+
+    private final ScanSnapshot[] buffers = new ScanSnapshot[2];
+    private final int[] readers = new int[2];      // 各缓冲区被读取线程持有的次数
+    private int front = -1;                        // 最近发布的缓冲区，尚未发布时为-1
+    private boolean writing;
+    private long replaced;                         // 因仍被持有而换新的次数
+
+    public ScanSnapshotBuffer() {
+        this(64);
+    }
+
+    /**
+     * @param expectedAps 预计每次扫描的AP数量
+     */
+    public ScanSnapshotBuffer(int expectedAps) {
+        buffers[0] = new ScanSnapshot(expectedAps);
+        buffers[1] = new ScanSnapshot(expectedAps);
+    }
+
+    /**
+     * 取得后台缓冲区并清空，填充完成后调用publish()
+     * @param scanTimeMs 本次扫描的时间
+     * @return 可写入的ScanSnapshot
+     */
+    public synchronized ScanSnapshot beginWrite(long scanTimeMs) {
+        if (writing) {
+            throw new IllegalStateException("beginWrite() called twice without publish()");
+        }
+        int back = backIndex();
+        if (readers[back] > 0) {
+            // 读取线程还在使用两次扫描之前的结果，不能覆盖；它释放时按对象识别，不影响新的缓冲区
+            buffers[back] = new ScanSnapshot(buffers[back].capacity());
+            readers[back] = 0;
+            replaced++;
+        }
+        writing = true;
+        ScanSnapshot snapshot = buffers[back];
+        snapshot.clear(scanTimeMs);
+        return snapshot;
+    }
+
+    /**
+     * 发布beginWrite()取得的缓冲区，之后的acquire()返回它
+     */
+    public synchronized void publish() {
+        if (!writing) {
+            throw new IllegalStateException("publish() without beginWrite()");
+        }
+        writing = false;
+        front = backIndex();
+    }
+
+    /**
+     * 持有最近发布的扫描结果，用完后必须调用release()
+     * @return 最近发布的ScanSnapshot，尚未发布过时为null
+     */
+    public synchronized ScanSnapshot acquire() {
+        if (front < 0) {
+            return null;
+        }
+        readers[front]++;
+        return buffers[front];
+    }
+
+    /**
+     * 释放acquire()取得的扫描结果
+     * @param snapshot acquire()的返回值，为null时忽略
+     */
+    public synchronized void release(ScanSnapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] == snapshot) {
+                if (readers[i] <= 0) {
+                    throw new IllegalStateException("release() without acquire()");
+                }
+                readers[i]--;
+                return;
+            }
+        }
+        // 已被换下的缓冲区，不再跟踪
+    }
+
+    /**
+     * @return 因缓冲区仍被持有而新分配ScanSnapshot的次数
+     */
+    public synchronized long replacedCount() {
+        return replaced;
+    }
+
+    private int backIndex() {
+        return front == 0 ? 1 : 0;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.myapplication.core;
+
+/**
+ * 由ScanResult.capabilities解析出的安全类型
+ * capabilities形如"[WPA2-PSK-CCMP][RSN-PSK+SAE-CCMP][ESS]"，各段含义见ScanResult文档。
+ * 按方括号分段解析：只有协议为WPA、WPA2、RSN的段才读取密钥管理方式，并按完整的名称匹配，
+ * 因此"[WAPI-PSK]"不会被当作WPA2，"[OWE_TRANSITION]"不会被当作OWE。
+ */
+public enum SecurityType {
+    OPEN,                  // 开放网络（包括OWE过渡模式中的开放部分）
+    OWE,                   // 增强型开放网络（Wi-Fi Enhanced Open）
+    WEP,                   // 不再支持连接
+    WPA2_PSK,              // WPA/WPA2个人版
+    WPA3_SAE,              // 仅WPA3个人版
+    WPA2_WPA3_TRANSITION,  // WPA2/WPA3过渡模式，同时接受PSK和SAE
+    EAP,                   // 企业版，需要证书配置，不支持通过密码连接
+    WAPI;                  // WAPI（PSK或证书），WifiNetworkSpecifier不支持
+
+    /**
+     * 解析capabilities字符串
+     * @param capabilities ScanResult.capabilities，可为null
+     * @return 安全类型
+     */
+    public static SecurityType fromCapabilities(String capabilities) {
+        if (capabilities == null || capabilities.isEmpty()) {
+            return OPEN;
+        }
+        boolean eap = false;
+        boolean sae = false;
+        boolean psk = false;
+        boolean owe = false;
+        boolean wep = false;
+        boolean wapi = false;
+        int pos = 0;
+        int length = capabilities.length();
+        while (pos < length) {
+            int open = capabilities.indexOf('[', pos);
+            if (open < 0) {
+                break;
+            }
+            int close = capabilities.indexOf(']', open + 1);
+            if (close < 0) {
+                close = length;
+            }
+            // 段的格式为"协议-密钥管理-加密方式"，密钥管理可以有多个，以+分隔，如"RSN-PSK+SAE-CCMP"
+            String[] parts = capabilities.substring(open + 1, close).split("-");
+            String protocol = parts[0];
+            if (protocol.equals("WEP")) {
+                wep = true;
+            } else if (protocol.equals("WAPI")) {
+                wapi = true;
+            } else if (protocol.equals("WPA") || protocol.equals("WPA2") || protocol.equals("RSN")) {
+                // 带"-"的密钥管理名称（如PSK-SHA256）拆开后第一部分仍是PSK，不影响判断
+                for (int i = 1; i < parts.length; i++) {
+                    for (String keyMgmt : parts[i].split("\\+")) {
+                        // 快速漫游前缀和哈希后缀，如FT/PSK、EAP/SHA256
+                        int slash = keyMgmt.indexOf('/');
+                        String name = keyMgmt.startsWith("FT/") ? keyMgmt.substring(3)
+                                : (slash >= 0 ? keyMgmt.substring(0, slash) : keyMgmt);
+                        if (name.equals("PSK")) {
+                            psk = true;
+                        } else if (name.equals("SAE") || name.equals("SAE_EXT_KEY")) {
+                            sae = true;
+                        } else if (name.equals("OWE")) {
+                            owe = true;
+                        } else if (name.startsWith("EAP") || name.startsWith("FILS")) {
+                            eap = true;
+                        }
+                    }
+                }
+            }
+            pos = close + 1;
+        }
+        if (eap) {
+            return EAP;
+        }
+        if (sae && psk) {
+            return WPA2_WPA3_TRANSITION;
+        }
+        if (sae) {
+            return WPA3_SAE;
+        }
+        if (psk) {
+            return WPA2_PSK;
+        }
+        if (wapi) {
+            return WAPI;
+        }
+        if (owe) {
+            return OWE;
+        }
+        if (wep) {
+            return WEP;
+        }
+        return OPEN;
+    }
+
+    /**
+     * @return 连接时是否需要输入密码
+     */
+    public boolean requiresPassphrase() {
+        return this == WPA2_PSK || this == WPA3_SAE || this == WPA2_WPA3_TRANSITION;
+    }
+
+    /**
+     * @return 是否可以通过WifiNetworkSpecifier直接连接
+     */
+    public boolean isConnectable() {
+        return this != WEP && this != EAP && this != WAPI;
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.myapplication.core;
+
+import java.util.Arrays;
+
+/**
+ * 按BSSID统计信号强度的流式统计表
+ * 每个AP保存样本数、EWMA、Welford均值/方差、最小/最大值和最后更新时间，内存占用与样本数无关。
+ * 以48位BSSID（long）为键，开放寻址（线性探测）存放在并行的基本类型数组中：
+ * 记录样本时不装箱、不分配对象，只有扩容时才分配新数组。
+ * 表本身不限制大小，由调用方用evictOlderThan()淘汰长期未出现的AP、用trimToSize()限制AP数量。
+ * 非线程安全，由调用方加锁。
+ */
+public final class SignalStatsTable {
+
+    public static final double DEFAULT_EWMA_ALPHA = 0.2;   // EWMA平滑系数，越大越偏向新样本
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final long EMPTY = 0;                   // 空槽位；BSSID为0表示无效地址，不记录
+
+    private final double alpha;
+
+    // 并行数组，下标为槽位
+    private long[] keys;
+    private long[] counts;
+    private double[] ewma;
+    private double[] mean;
+    private double[] m2;          // Welford算法中与均值之差的平方和
+    private int[] min;
+    private int[] max;
+    private long[] lastTime;
+    private int size;
+    private int mask;
+    private int resizeThreshold;  // 超过时扩容（装载因子0.5）
+
+    public SignalStatsTable() {
+        this(DEFAULT_CAPACITY, DEFAULT_EWMA_ALPHA);
+    }
+
+    /**
+     * @param expectedAps 预计的AP数量，预先分配足够的槽位避免扩容
+     * @param alpha       EWMA平滑系数（0, 1]
+     */
+    public SignalStatsTable(int expectedAps, double alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]: " + alpha);
+        }
+        this.alpha = alpha;
+        allocate(tableSizeFor(Math.max(expectedAps, 1) * 2));
+    }
+
+    /**
+     * 记录一个样本
+     * @param bssid       48位BSSID（WifiFormat.bssidToLong），0会被忽略
+     * @param rssi        信号强度（dBm）
+     * @param timestampMs 采样时间
+     */
+    public void record(long bssid, int rssi, long timestampMs) {
+        if (bssid == EMPTY) {
+            return;
+        }
+        int slot = findSlot(bssid);
+        if (keys[slot] == EMPTY) {
+            if (size >= resizeThreshold) {
+                resize(keys.length * 2);
+                slot = findSlot(bssid);
+            }
+            keys[slot] = bssid;
+            size++;
+            counts[slot] = 1;
+            ewma[slot] = rssi;
+            mean[slot] = rssi;
+            m2[slot] = 0;
+            min[slot] = rssi;
+            max[slot] = rssi;
+            lastTime[slot] = timestampMs;
+            return;
+        }
+
+        long n = ++counts[slot];
+        ewma[slot] += alpha * (rssi - ewma[slot]);
+        // Welford：数值稳定的在线均值和方差
+        double delta = rssi - mean[slot];
+        mean[slot] += delta / n;
+        m2[slot] += delta * (rssi - mean[slot]);
+        if (rssi < min[slot]) {
+            min[slot] = rssi;
+        }
+        if (rssi > max[slot]) {
+            max[slot] = rssi;
+        }
+        if (timestampMs > lastTime[slot]) {
+            lastTime[slot] = timestampMs;
+        }
+    }
+
+    /**
+     * 读取一个AP的统计值到调用方提供的对象中（不分配）
+     * @param bssid 48位BSSID
+     * @param out   输出
+     * @return 是否存在该AP的统计
+     */
+    public boolean get(long bssid, Entry out) {
+        if (bssid == EMPTY) {
+            return false;
+        }
+        int slot = findSlot(bssid);
+        if (keys[slot] == EMPTY) {
+            return false;
+        }
+        fill(slot, out);
+        return true;
+    }
+
+    /**
+     * 遍历所有AP（顺序不确定），每次回调复用同一个Entry
+     */
+    public void forEach(Entry reuse, Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                fill(slot, reuse);
+                visitor.visit(reuse);
+            }
+        }
+    }
+
+    /**
+     * 删除一个AP的统计
+     * @return 是否存在并已删除
+     */
+    public boolean remove(long bssid) {
+        if (bssid == EMPTY) {
+            return false;
+        }
+        int slot = findSlot(bssid);
+        if (keys[slot] == EMPTY) {
+            return false;
+        }
+        keys[slot] = EMPTY;
+        size--;
+        // 线性探测删除：把后续同一探测链上的元素前移，保持查找正确
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        while (keys[i] != EMPTY) {
+            int home = hash(keys[i]) & mask;
+            // 元素的初始槽位不在(gap, i]区间内时，可以移动到gap
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                move(i, gap);
+                keys[i] = EMPTY;
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        return true;
+    }
+
+    /**
+     * 删除最后更新时间早于cutoffMs的AP
+     * @param cutoffMs 时间界限（毫秒时间戳）
+     * @return 删除的AP数量
+     */
+    public int evictOlderThan(long cutoffMs) {
+        int removed = 0;
+        int slot = 0;
+        while (slot < keys.length) {
+            if (keys[slot] != EMPTY && lastTime[slot] < cutoffMs) {
+                remove(keys[slot]);
+                removed++;
+                // 删除后同一探测链上的元素可能前移到该槽位，重新检查
+                continue;
+            }
+            slot++;
+        }
+        return removed;
+    }
+
+    /**
+     * AP数量超过maxSize时删除最久未更新的AP，直到不超过maxSize（最后更新时间相同的一并删除）
+     * @param maxSize 保留的最多AP数量
+     * @return 删除的AP数量
+     */
+    public int trimToSize(int maxSize) {
+        if (size <= maxSize) {
+            return 0;
+        }
+        if (maxSize <= 0) {
+            int removed = size;
+            clear();
+            return removed;
+        }
+        long[] times = new long[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                times[n++] = lastTime[slot];
+            }
+        }
+        Arrays.sort(times);
+        // 保留最新的maxSize个：淘汰不晚于第(size - maxSize)旧的时间
+        return evictOlderThan(times[size - maxSize - 1] + 1);
+    }
+
+    /**
+     * 清空统计，保留已分配的数组
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * @return 统计中的AP数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 当前槽位数量
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    private int findSlot(long bssid) {
+        int slot = hash(bssid) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != bssid) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        // MurmurHash3的64位混合函数，BSSID的低位（同一厂商的连续地址）分布更均匀
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private void fill(int slot, Entry out) {
+        long n = counts[slot];
+        out.bssid = keys[slot];
+        out.count = n;
+        out.ewma = ewma[slot];
+        out.mean = mean[slot];
+        out.variance = n > 1 ? m2[slot] / (n - 1) : 0;
+        out.min = min[slot];
+        out.max = max[slot];
+        out.lastTimestampMs = lastTime[slot];
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        counts[to] = counts[from];
+        ewma[to] = ewma[from];
+        mean[to] = mean[from];
+        m2[to] = m2[from];
+        min[to] = min[from];
+        max[to] = max[from];
+        lastTime[to] = lastTime[from];
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new long[capacity];
+        ewma = new double[capacity];
+        mean = new double[capacity];
+        m2 = new double[capacity];
+        min = new int[capacity];
+        max = new int[capacity];
+        lastTime = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity / 2;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        double[] oldEwma = ewma;
+        double[] oldMean = mean;
+        double[] oldM2 = m2;
+        int[] oldMin = min;
+        int[] oldMax = max;
+        long[] oldLastTime = lastTime;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = findSlot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            counts[slot] = oldCounts[i];
+            ewma[slot] = oldEwma[i];
+            mean[slot] = oldMean[i];
+            m2[slot] = oldM2[i];
+            min[slot] = oldMin[i];
+            max[slot] = oldMax[i];
+            lastTime[slot] = oldLastTime[i];
+        }
+    }
+
+    private static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(Math.max(n, DEFAULT_CAPACITY) - 1) << 1;
+        return capacity > 0 ? capacity : 1 << 30;
+    }
+
+    /**
+     * 遍历回调
+     */
+    public interface Visitor {
+        void visit(Entry entry);
+    }
+
+    /**
+     * 一个AP的统计值（可复用的输出对象）
+     */
+    public static final class Entry {
+        public long bssid;
+        public long count;
+        public double ewma;
+        public double mean;
+        public double variance;       // 样本方差
+        public int min;
+        public int max;
+        public long lastTimestampMs;
+
+        public double stdDev() {
+            return Math.sqrt(variance);
+        }
+
+        @Override
+        public String toString() {
+            return Long.toHexString(bssid) +
+                    ": n=" + count +
+                    ", ewma=" + String.format("%.1f", ewma) +
+                    ", mean=" + String.format("%.1f", mean) +
+                    ", sd=" + String.format("%.1f", stdDev()) +
+                    ", min=" + min +
+                    ", max=" + max;
+        }
+    }
+}
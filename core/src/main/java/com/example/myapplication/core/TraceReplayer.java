@@ -0,0 +1,142 @@
+package com.example.myapplication.core;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按轨迹中的时间回放WiFi事件（纯Java，不依赖Android）
+ * 回放速度可加速（speed=10表示10倍速），speed为无穷大时不等待、尽快回放。
+ * 每个事件都在预定时间交给Sink，Sink在回放线程上同步处理；处理太慢时后续事件会晚于预定时间，
+ * Stats中的延迟即为被测代码跟不上事件速率的程度。
+ */
+public final class TraceReplayer {
+
+    /**
+     * 接收回放事件，在回放线程上调用
+     */
+    public interface Sink {
+        /**
+         * @param aps    本次扫描的AP
+         * @param timeMs 事件时间（回放开始时间 + 轨迹偏移/速度，不等待时为原速偏移）
+         */
+        void onScan(List<WifiTrace.Ap> aps, long timeMs);
+
+        void onConnected(WifiTrace.Event event, long timeMs);
+
+        void onDisconnected(long timeMs);
+    }
+
+    private final WifiTrace trace;
+    private final double speed;
+    private volatile boolean stopped = false;
+
+    /**
+     * @param trace 轨迹
+     * @param speed 回放速度倍数（大于0），Double.POSITIVE_INFINITY表示不等待
+     */
+    public TraceReplayer(WifiTrace trace, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("speed must be positive: " + speed);
+        }
+        this.trace = trace;
+        this.speed = speed;
+    }
+
+    /**
+     * 在调用线程上回放整个轨迹，直到结束或stop()
+     * @param sink        事件接收者
+     * @param startTimeMs 回放开始对应的时间戳（毫秒），事件时间在此基础上计算
+     * @param loops       回放次数，每次的时间接在上一次之后
+     * @return 回放统计
+     */
+    public Stats replay(Sink sink, long startTimeMs, int loops) {
+        List<WifiTrace.Event> events = trace.getEvents();
+        long traceSpanMs = trace.getDurationMs() + 1;
+        long startNanos = System.nanoTime();
+        long replayed = 0;
+        long late = 0;
+        long maxLagNanos = 0;
+        long totalLagNanos = 0;
+
+        for (int loop = 0; loop < loops && !stopped; loop++) {
+            for (int i = 0, n = events.size(); i < n && !stopped; i++) {
+                WifiTrace.Event event = events.get(i);
+                long offsetMs = loop * traceSpanMs + event.offsetMs;
+                long lagNanos = 0;
+                if (speed != Double.POSITIVE_INFINITY) {
+                    long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(offsetMs) / speed);
+                    long waitNanos = dueNanos - System.nanoTime();
+                    while (waitNanos > 0 && !stopped) {
+                        LockSupport.parkNanos(waitNanos);
+                        waitNanos = dueNanos - System.nanoTime();
+                    }
+                    lagNanos = -waitNanos;
+                }
+                // 不等待时事件时间按轨迹原速计算，保持事件之间的间隔
+                long timeMs = startTimeMs + (speed == Double.POSITIVE_INFINITY ? offsetMs : (long) (offsetMs / speed));
+                switch (event.type) {
+                    case WifiTrace.SCAN:
+                        sink.onScan(event.scan, timeMs);
+                        break;
+                    case WifiTrace.CONNECT:
+                        sink.onConnected(event, timeMs);
+                        break;
+                    default:
+                        sink.onDisconnected(timeMs);
+                        break;
+                }
+                replayed++;
+                if (lagNanos > TimeUnit.MILLISECONDS.toNanos(1)) {
+                    late++;
+                }
+                totalLagNanos += lagNanos;
+                maxLagNanos = Math.max(maxLagNanos, lagNanos);
+            }
+        }
+        return new Stats(replayed, late, System.nanoTime() - startNanos,
+                replayed == 0 ? 0 : totalLagNanos / replayed, maxLagNanos);
+    }
+
+    /**
+     * 停止回放（可在任意线程调用），replay()在当前事件处理完后返回
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * 回放统计：事件数、晚于预定时间超过1ms的事件数、总耗时和延迟
+     */
+    public static final class Stats {
+        public final long events;
+        public final long lateEvents;
+        public final long elapsedNanos;
+        public final long meanLagNanos;
+        public final long maxLagNanos;
+
+        Stats(long events, long lateEvents, long elapsedNanos, long meanLagNanos, long maxLagNanos) {
+            this.events = events;
+            this.lateEvents = lateEvents;
+            this.elapsedNanos = elapsedNanos;
+            this.meanLagNanos = meanLagNanos;
+            this.maxLagNanos = maxLagNanos;
+        }
+
+        /**
+         * @return 实际达到的事件速率（每秒）
+         */
+        public double eventsPerSecond() {
+            return elapsedNanos == 0 ? 0 : events * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "events=" + events +
+                    ", late=" + lateEvents +
+                    ", elapsedMs=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) +
+                    ", meanLagUs=" + TimeUnit.NANOSECONDS.toMicros(meanLagNanos) +
+                    ", maxLagUs=" + TimeUnit.NANOSECONDS.toMicros(maxLagNanos);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.myapplication.core;
+
+/**
+ * WiFi信息的格式化和解析（纯Java，不依赖Android）
+ * MainActivity和WifiContentProvider共用，可以在普通JVM上做基准测试。
+ */
+public final class WifiFormat {
+
+    /**
+     * 点分十进制IPv4地址的最大长度（"255.255.255.255"）
+     */
+    public static final int MAX_IP_LENGTH = 15;
+
+    private WifiFormat() {
+    }
+
+    /**
+     * 移除SSID两端的引号（WifiInfo.getSSID()对UTF-8名称会加引号）
+     * @param ssid 原始SSID，可为null
+     * @return 不带引号的SSID
+     */
+    public static String removeQuotes(String ssid) {
+        if (ssid != null && ssid.length() >= 2 && ssid.charAt(0) == '"' && ssid.charAt(ssid.length() - 1) == '"') {
+            return ssid.substring(1, ssid.length() - 1);
+        }
+        return ssid;
+    }
+
+    /**
+     * 将整数IP（WifiInfo.getIpAddress()的小端字节序）转换为点分十进制字符串
+     * @param ip 整数IP
+     * @return 点分十进制IP字符串（如"192.168.1.1"）
+     */
+    public static String intToIp(int ip) {
+        char[] buffer = new char[MAX_IP_LENGTH];
+        return new String(buffer, 0, intToIp(ip, buffer, 0));
+    }
+
+    /**
+     * 将整数IP写入调用方提供的缓冲区，不分配任何对象
+     * @param ip     整数IP（小端字节序）
+     * @param buffer 目标缓冲区，从offset起至少有MAX_IP_LENGTH个字符的空间
+     * @param offset 写入起点
+     * @return 写入的字符数
+     */
+    public static int intToIp(int ip, char[] buffer, int offset) {
+        int p = offset;
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) {
+                buffer[p++] = '.';
+            }
+            int octet = (ip >>> (i * 8)) & 0xFF;
+            if (octet >= 100) {
+                buffer[p++] = (char) ('0' + octet / 100);
+                buffer[p++] = (char) ('0' + octet / 10 % 10);
+            } else if (octet >= 10) {
+                buffer[p++] = (char) ('0' + octet / 10);
+            }
+            buffer[p++] = (char) ('0' + octet % 10);
+        }
+        return p - offset;
+    }
+
+    /**
+     * 将整数IP追加到StringBuilder（复用同一个StringBuilder时不产生新对象）
+     * @param ip 整数IP（小端字节序）
+     * @param sb 目标
+     * @return sb
+     */
+    public static StringBuilder appendIp(int ip, StringBuilder sb) {
+        sb.append(ip & 0xFF).append('.')
+                .append((ip >>> 8) & 0xFF).append('.')
+                .append((ip >>> 16) & 0xFF).append('.')
+                .append((ip >>> 24) & 0xFF);
+        return sb;
+    }
+
+    /**
+     * 将"aa:bb:cc:dd:ee:ff"格式的BSSID转换为long（不分配对象），格式无效时返回0
+     * @param bssid BSSID字符串
+     * @return 48位MAC地址
+     */
+    public static long bssidToLong(String bssid) {
+        if (bssid == null) {
+            return 0;
+        }
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < bssid.length(); i++) {
+            char c = bssid.charAt(i);
+            int d;
+            if (c >= '0' && c <= '9') {
+                d = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                d = c - 'a' + 10;
+            } else if (c >= 'A' && c <= 'F') {
+                d = c - 'A' + 10;
+            } else if (c == ':' || c == '-') {
+                continue;
+            } else {
+                return 0;
+            }
+            value = (value << 4) | d;
+            digits++;
+        }
+        return digits == 12 ? value : 0;
+    }
+}
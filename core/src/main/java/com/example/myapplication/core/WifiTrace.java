@@ -0,0 +1,312 @@
+package com.example.myapplication.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 可回放的WiFi环境轨迹：按时间排列的扫描结果和连接状态事件（纯Java，不依赖Android）
+ * 轨迹可以从文本读取（录制的真实环境），也可以用scanStorm、connectionFlap合成极端场景，
+ * 由TraceReplayer按原速或加速回放。
+ *
+ * 文本格式（UTF-8，制表符分隔，每行一条记录，#开头为注释）：
+ * <pre>
+ * S  偏移毫秒  AP数            扫描事件，后面紧跟AP数行A记录
+ * A  BSSID  RSSI  频率  安全类型  SSID      （SSID在最后，可包含空格）
+ * C  偏移毫秒  BSSID  RSSI  速度  频率  IPv4整数  SSID    连接（或连接状态变化）
+ * D  偏移毫秒                    断开
+ * </pre>
+ */
+public final class WifiTrace {
+
+    // 事件类型
+    public static final int SCAN = 1;
+    public static final int CONNECT = 2;
+    public static final int DISCONNECT = 3;
+
+    private final List<Event> events;
+
+    private WifiTrace(List<Event> events) {
+        this.events = Collections.unmodifiableList(events);
+    }
+
+    /**
+     * @return 按时间排列的事件
+     */
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return 最后一个事件的偏移（毫秒）
+     */
+    public long getDurationMs() {
+        return events.isEmpty() ? 0 : events.get(events.size() - 1).offsetMs;
+    }
+
+    /**
+     * 扫描风暴：固定的一批AP每次扫描都出现，信号随机抖动，偶尔漏扫
+     * @param bssidsPerScan 每次扫描的AP数
+     * @param scans         扫描次数
+     * @param intervalMs    扫描间隔（毫秒）
+     * @param seed          随机种子，相同参数生成相同轨迹
+     */
+    public static WifiTrace scanStorm(int bssidsPerScan, int scans, long intervalMs, long seed) {
+        Random random = new Random(seed);
+        Ap[] base = new Ap[bssidsPerScan];
+        for (int i = 0; i < bssidsPerScan; i++) {
+            // 约每4个AP共用一个SSID（同一网络的多个AP或多个频段）
+            int frequency = random.nextBoolean() ? 2412 + 5 * random.nextInt(13) : 5180 + 20 * random.nextInt(8);
+            base[i] = new Ap("Network-" + (i / 4), bssidText(0x02_00_00_00_00_00L + i),
+                    -30 - random.nextInt(60), frequency, i % 5 == 0 ? "[ESS]" : "[WPA2-PSK-CCMP][ESS]");
+        }
+        Builder builder = new Builder();
+        for (int s = 0; s < scans; s++) {
+            List<Ap> scan = new ArrayList<>(bssidsPerScan);
+            for (Ap ap : base) {
+                if (random.nextInt(50) == 0) {
+                    continue;
+                }
+                scan.add(new Ap(ap.ssid, ap.bssid, ap.level + random.nextInt(7) - 3, ap.frequency, ap.capabilities));
+            }
+            builder.scan(s * intervalMs, scan);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 连接抖动：在几个网络之间反复连接、断开
+     * @param cycles     连接-断开的次数
+     * @param intervalMs 相邻两个事件的间隔（毫秒）
+     * @param seed       随机种子
+     */
+    public static WifiTrace connectionFlap(int cycles, long intervalMs, long seed) {
+        Random random = new Random(seed);
+        Builder builder = new Builder();
+        long offset = 0;
+        for (int c = 0; c < cycles; c++) {
+            int network = random.nextInt(8);
+            int ip = 192 | 168 << 8 | network << 16 | (2 + random.nextInt(250)) << 24; // 小端字节序
+            builder.connect(offset, "\"Network-" + network + "\"", bssidText(0x02_00_00_00_01_00L + network),
+                    -40 - random.nextInt(40), 72 + random.nextInt(800), network % 2 == 0 ? 2437 : 5180, ip);
+            offset += intervalMs;
+            builder.disconnect(offset);
+            offset += intervalMs;
+        }
+        return builder.build();
+    }
+
+    /**
+     * 从文本读取轨迹
+     * @throws IOException 读取失败或格式错误
+     */
+    public static WifiTrace read(Reader in) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        Builder builder = new Builder();
+        String line;
+        int lineNumber = 0;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                String[] f = line.split("\t", -1);
+                switch (f[0]) {
+                    case "S": {
+                        long offset = Long.parseLong(f[1]);
+                        int count = Integer.parseInt(f[2]);
+                        List<Ap> scan = new ArrayList<>(count);
+                        for (int i = 0; i < count; i++) {
+                            String apLine = reader.readLine();
+                            lineNumber++;
+                            if (apLine == null) {
+                                throw new IOException("Truncated scan at line " + lineNumber);
+                            }
+                            String[] a = apLine.split("\t", 6);
+                            if (a.length != 6 || !"A".equals(a[0])) {
+                                throw new IOException("Expected AP record at line " + lineNumber);
+                            }
+                            scan.add(new Ap(a[5], a[1], Integer.parseInt(a[2]), Integer.parseInt(a[3]), a[4]));
+                        }
+                        builder.scan(offset, scan);
+                        break;
+                    }
+                    case "C": {
+                        String[] c = line.split("\t", 8);
+                        builder.connect(Long.parseLong(c[1]), c[7], c[2], Integer.parseInt(c[3]),
+                                Integer.parseInt(c[4]), Integer.parseInt(c[5]), Integer.parseInt(c[6]));
+                        break;
+                    }
+                    case "D":
+                        builder.disconnect(Long.parseLong(f[1]));
+                        break;
+                    default:
+                        throw new IOException("Unknown record type at line " + lineNumber + ": " + f[0]);
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed trace at line " + lineNumber, e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage() + " at line " + lineNumber, e);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 以文本格式写出轨迹（不关闭输出）
+     */
+    public void write(Writer out) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        for (Event event : events) {
+            line.setLength(0);
+            switch (event.type) {
+                case SCAN:
+                    line.append("S\t").append(event.offsetMs).append('\t').append(event.scan.size()).append('\n');
+                    for (Ap ap : event.scan) {
+                        line.append("A\t").append(ap.bssid).append('\t').append(ap.level).append('\t')
+                                .append(ap.frequency).append('\t').append(ap.capabilities).append('\t')
+                                .append(ap.ssid).append('\n');
+                    }
+                    break;
+                case CONNECT:
+                    line.append("C\t").append(event.offsetMs).append('\t').append(event.bssid).append('\t')
+                            .append(event.rssi).append('\t').append(event.linkSpeed).append('\t')
+                            .append(event.frequency).append('\t').append(event.ipAddress).append('\t')
+                            .append(event.ssid).append('\n');
+                    break;
+                default:
+                    line.append("D\t").append(event.offsetMs).append('\n');
+                    break;
+            }
+            out.append(line);
+        }
+        out.flush();
+    }
+
+    private static String bssidText(long bssid) {
+        StringBuilder sb = new StringBuilder(17);
+        for (int shift = 40; shift >= 0; shift -= 8) {
+            int b = (int) (bssid >>> shift) & 0xFF;
+            sb.append(Character.forDigit(b >>> 4, 16)).append(Character.forDigit(b & 0xF, 16));
+            if (shift > 0) {
+                sb.append(':');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按时间顺序构建轨迹，也可用于录制真实环境
+     */
+    public static final class Builder {
+        private final List<Event> events = new ArrayList<>();
+        private long lastOffsetMs = 0;
+
+        public Builder scan(long offsetMs, List<Ap> aps) {
+            return add(new Event(SCAN, offsetMs, new ArrayList<>(aps), null, null, 0, 0, 0, 0));
+        }
+
+        public Builder connect(long offsetMs, String ssid, String bssid, int rssi, int linkSpeed,
+                               int frequency, int ipAddress) {
+            return add(new Event(CONNECT, offsetMs, null, ssid, bssid, rssi, linkSpeed, frequency, ipAddress));
+        }
+
+        public Builder disconnect(long offsetMs) {
+            return add(new Event(DISCONNECT, offsetMs, null, null, null, 0, 0, 0, 0));
+        }
+
+        private Builder add(Event event) {
+            if (event.offsetMs < lastOffsetMs) {
+                throw new IllegalArgumentException("Events must be in time order: " + event.offsetMs);
+            }
+            lastOffsetMs = event.offsetMs;
+            events.add(event);
+            return this;
+        }
+
+        public WifiTrace build() {
+            return new WifiTrace(new ArrayList<>(events));
+        }
+    }
+
+    /**
+     * 轨迹中的一个事件
+     */
+    public static final class Event {
+        public final int type;
+        public final long offsetMs;      // 相对轨迹开始的时间（毫秒）
+        public final List<Ap> scan;      // SCAN：本次扫描的AP
+        // CONNECT：连接信息（与WifiInfo相同的取值，SSID带引号）
+        public final String ssid;
+        public final String bssid;
+        public final int rssi;
+        public final int linkSpeed;
+        public final int frequency;
+        public final int ipAddress;
+
+        Event(int type, long offsetMs, List<Ap> scan, String ssid, String bssid,
+              int rssi, int linkSpeed, int frequency, int ipAddress) {
+            this.type = type;
+            this.offsetMs = offsetMs;
+            this.scan = scan != null ? Collections.unmodifiableList(scan) : null;
+            this.ssid = ssid;
+            this.bssid = bssid;
+            this.rssi = rssi;
+            this.linkSpeed = linkSpeed;
+            this.frequency = frequency;
+            this.ipAddress = ipAddress;
+        }
+    }
+
+    /**
+     * 扫描到的一个AP（与ScanResult相同的取值）
+     */
+    public static final class Ap {
+        public static final ScanAggregator.Accessor<Ap> ACCESSOR = new ScanAggregator.Accessor<Ap>() {
+            @Override
+            public String ssid(Ap result) {
+                return result.ssid;
+            }
+
+            @Override
+            public String bssid(Ap result) {
+                return result.bssid;
+            }
+
+            @Override
+            public int level(Ap result) {
+                return result.level;
+            }
+
+            @Override
+            public int frequency(Ap result) {
+                return result.frequency;
+            }
+
+            @Override
+            public String capabilities(Ap result) {
+                return result.capabilities;
+            }
+        };
+
+        public final String ssid;
+        public final String bssid;
+        public final int level;
+        public final int frequency;
+        public final String capabilities;
+
+        public Ap(String ssid, String bssid, int level, int frequency, String capabilities) {
+            this.ssid = ssid;
+            this.bssid = bssid;
+            this.level = level;
+            this.frequency = frequency;
+            this.capabilities = capabilities;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.myapplication.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * NetworkRanker的分数排序和滞回
+ */
+public class NetworkRankerTest {
+
+    private static final long NOW_MS = 1_700_000_000_000L;
+
+    /**
+     * @param id 行ID，与ScanAggregator相同从1开始
+     */
+    private static ScanAggregator.NetworkRow row(long id, int rssi) {
+        return new ScanAggregator.NetworkRow(id, "n" + id, id, rssi, 2437, "[ESS]", 1);
+    }
+
+    private static String order(List<ScanAggregator.NetworkRow> rows) {
+        StringBuilder sb = new StringBuilder();
+        for (ScanAggregator.NetworkRow row : rows) {
+            sb.append(row.ssid).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * 上一次的顺序不变，只更新信号强度（与ScanAggregator原位更新相同）
+     */
+    private static void setRssi(List<ScanAggregator.NetworkRow> rows, int... rssiById) {
+        for (int i = 0; i < rows.size(); i++) {
+            ScanAggregator.NetworkRow old = rows.get(i);
+            rows.set(i, row(old.id, rssiById[(int) old.id]));
+        }
+    }
+
+    @Test
+    public void closeScoresChainSortsStrongestFirst() {
+        // 相邻两行只差3dB（在滞回幅度内），首尾差18dB
+        List<ScanAggregator.NetworkRow> rows = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            rows.add(row(i, -83 + 3 * i));
+        }
+        NetworkRanker ranker = new NetworkRanker();
+        ranker.sort(rows, NOW_MS);
+        assertEquals("n7 n6 n5 n4 n3 n2 n1", order(rows));
+
+        // 再次扫描时顺序整个反过来
+        setRssi(rows, 0, -62, -65, -68, -71, -74, -77, -80);
+        ranker.sort(rows, NOW_MS);
+        assertEquals("n1 n2 n3 n4 n5 n6 n7", order(rows));
+    }
+
+    @Test
+    public void smallJitterKeepsPreviousOrder() {
+        NetworkRanker ranker = new NetworkRanker();
+        List<ScanAggregator.NetworkRow> rows = new ArrayList<>();
+        rows.add(row(1, -61));
+        rows.add(row(2, -60));
+        ranker.sort(rows, NOW_MS);
+        assertEquals("n2 n1", order(rows));
+
+        setRssi(rows, 0, -59, -60);
+        ranker.sort(rows, NOW_MS);
+        assertEquals("n2 n1", order(rows));
+
+        // 差距超过滞回幅度时交换
+        setRssi(rows, 0, -50, -60);
+        ranker.sort(rows, NOW_MS);
+        assertEquals("n1 n2", order(rows));
+    }
+
+    @Test
+    public void newRowsGetNoBonus() {
+        NetworkRanker ranker = new NetworkRanker();
+        List<ScanAggregator.NetworkRow> rows = new ArrayList<>();
+        rows.add(row(1, -70));
+        ranker.sort(rows, NOW_MS);
+
+        rows.add(row(2, -69)); // 新出现的行追加在末尾
+        ranker.sort(rows, NOW_MS);
+        assertEquals("n1 n2", order(rows));
+
+        rows.add(row(3, -60));
+        ranker.sort(rows, NOW_MS);
+        assertEquals("n3 n1 n2", order(rows));
+    }
+
+    @Test
+    public void zeroMarginSortsStrictlyWithIdTieBreak() {
+        NetworkRanker ranker = new NetworkRanker();
+        ranker.setSwapMargin(0);
+        List<ScanAggregator.NetworkRow> rows = new ArrayList<>();
+        rows.add(row(3, -60));
+        rows.add(row(1, -60));
+        rows.add(row(2, -59));
+        ranker.sort(rows, NOW_MS);
+        assertEquals("n2 n1 n3", order(rows));
+
+        setRssi(rows, 0, -60, -60, -59);
+        ranker.sort(rows, NOW_MS);
+        assertEquals("n3 n1 n2", order(rows));
+    }
+
+    @Test
+    public void connectionHistoryRaisesRank() {
+        NetworkRanker ranker = new NetworkRanker();
+        ranker.putHistory("n1", 20, NOW_MS - 3600_000);
+        ranker.putConnectLatency("n1", 1000);
+        List<ScanAggregator.NetworkRow> rows = new ArrayList<>();
+        rows.add(row(1, -80));
+        rows.add(row(2, -50));
+        ranker.sort(rows, NOW_MS);
+        assertEquals("n1 n2", order(rows));
+    }
+}
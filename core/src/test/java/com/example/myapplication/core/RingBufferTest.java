@@ -0,0 +1,206 @@
+package com.example.myapplication.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * RingBuffer在多生产者、多消费者下的正确性：每个事件至多消费一次，
+ * 同一生产者的事件按发布顺序被消费，三种Backpressure下的计数一致
+ */
+public class RingBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 3;
+    private static final int EVENTS_PER_PRODUCER = 100_000;
+    private static final int TOTAL = PRODUCERS * EVENTS_PER_PRODUCER;
+
+    /**
+     * 槽位事件：producer * EVENTS_PER_PRODUCER + 序号
+     */
+    private static final class Slot {
+        int value = -1;
+    }
+
+    @Test
+    public void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new RingBuffer<>(5, Slot::new, RingBuffer.Backpressure.BLOCK).capacity());
+        assertEquals(8, new RingBuffer<>(8, Slot::new, RingBuffer.Backpressure.BLOCK).capacity());
+    }
+
+    @Test
+    public void dropNewestRejectsWhenFull() {
+        RingBuffer<Slot> ring = new RingBuffer<>(4, Slot::new, RingBuffer.Backpressure.DROP_NEWEST);
+        for (int i = 0; i < 4; i++) {
+            publish(ring, ring.claim(), i);
+        }
+        assertEquals(-1, ring.claim());
+        assertEquals(1, ring.droppedCount());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, ring.drain(slot -> drained.add(slot.value), 16));
+        assertEquals(List.of(0, 1, 2, 3), drained);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    public void dropOldestKeepsNewestEvents() {
+        RingBuffer<Slot> ring = new RingBuffer<>(4, Slot::new, RingBuffer.Backpressure.DROP_OLDEST);
+        for (int i = 0; i < 6; i++) {
+            publish(ring, ring.claim(), i);
+        }
+        assertEquals(2, ring.droppedCount());
+
+        List<Integer> drained = new ArrayList<>();
+        ring.drain(slot -> drained.add(slot.value), 16);
+        assertEquals(List.of(2, 3, 4, 5), drained);
+    }
+
+    @Test(timeout = 60_000)
+    public void blockDeliversEveryEventOnce() throws Exception {
+        Outcome outcome = runConcurrently(RingBuffer.Backpressure.BLOCK);
+        assertEquals(TOTAL, outcome.consumed);
+        assertEquals(0, outcome.rejected);
+        assertEquals(0, outcome.ring.droppedCount());
+        assertEquals(TOTAL, outcome.ring.publishedCount());
+        for (int i = 0; i < TOTAL; i++) {
+            assertEquals("event " + i, 1, outcome.seen.get(i));
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void dropNewestAccountsForEveryEvent() throws Exception {
+        Outcome outcome = runConcurrently(RingBuffer.Backpressure.DROP_NEWEST);
+        assertEquals(outcome.rejected, outcome.ring.droppedCount());
+        assertEquals(TOTAL - outcome.rejected, outcome.ring.publishedCount());
+        assertEquals(outcome.ring.publishedCount(), outcome.consumed);
+    }
+
+    @Test(timeout = 60_000)
+    public void dropOldestAccountsForEveryEvent() throws Exception {
+        Outcome outcome = runConcurrently(RingBuffer.Backpressure.DROP_OLDEST);
+        assertEquals(0, outcome.rejected);
+        assertEquals(TOTAL, outcome.ring.publishedCount());
+        assertEquals(TOTAL, outcome.consumed + outcome.ring.droppedCount());
+    }
+
+    private static void publish(RingBuffer<Slot> ring, long sequence, int value) {
+        assertTrue(sequence >= 0);
+        ring.get(sequence).value = value;
+        ring.publish(sequence);
+    }
+
+    /**
+     * 一次并发运行的结果
+     */
+    private static final class Outcome {
+        RingBuffer<Slot> ring;
+        AtomicIntegerArray seen; // 各事件被消费的次数
+        long consumed;
+        long rejected;           // claim()返回-1的次数
+    }
+
+    /**
+     * PRODUCERS个线程各发布EVENTS_PER_PRODUCER个事件，CONSUMERS个线程同时消费；
+     * 消费时检查事件没有重复、同一生产者的事件在每个消费者中递增
+     */
+    private static Outcome runConcurrently(RingBuffer.Backpressure backpressure) throws Exception {
+        RingBuffer<Slot> ring = new RingBuffer<>(64, Slot::new, backpressure);
+        AtomicIntegerArray seen = new AtomicIntegerArray(TOTAL);
+        AtomicLong consumed = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicBoolean producersDone = new AtomicBoolean();
+        AtomicReference<String> error = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        List<Thread> consumers = new ArrayList<>();
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int base = p * EVENTS_PER_PRODUCER;
+            producers.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+                    long sequence = ring.claim();
+                    if (sequence < 0) {
+                        rejected.incrementAndGet();
+                        continue;
+                    }
+                    ring.get(sequence).value = base + i;
+                    ring.publish(sequence);
+                }
+            }));
+        }
+        for (int c = 0; c < CONSUMERS; c++) {
+            consumers.add(new Thread(() -> {
+                int[] lastByProducer = new int[PRODUCERS];
+                Arrays.fill(lastByProducer, -1);
+                await(start);
+                while (true) {
+                    boolean finished = producersDone.get();
+                    int n = ring.drain(slot -> {
+                        int value = slot.value;
+                        slot.value = -1;
+                        if (value < 0 || value >= TOTAL) {
+                            error.compareAndSet(null, "unpublished slot consumed: " + value);
+                            return;
+                        }
+                        if (seen.incrementAndGet(value) != 1) {
+                            error.compareAndSet(null, "event consumed twice: " + value);
+                        }
+                        int producer = value / EVENTS_PER_PRODUCER;
+                        if (value <= lastByProducer[producer]) {
+                            error.compareAndSet(null, "out of order: " + value + " after " + lastByProducer[producer]);
+                        }
+                        lastByProducer[producer] = value;
+                    }, 32);
+                    consumed.addAndGet(n);
+                    if (n == 0) {
+                        if (finished) {
+                            break; // 所有事件发布后仍为空
+                        }
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        producers.forEach(Thread::start);
+        consumers.forEach(Thread::start);
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        producersDone.set(true);
+        for (Thread consumer : consumers) {
+            consumer.join();
+        }
+        assertNull(error.get(), error.get());
+        assertEquals(0, ring.size());
+
+        Outcome outcome = new Outcome();
+        outcome.ring = ring;
+        outcome.seen = seen;
+        outcome.consumed = consumed.get();
+        outcome.rejected = rejected.get();
+        return outcome;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.myapplication.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * ScanSnapshotBuffer的双缓冲交换、持有期间的换新和调用顺序检查
+ */
+public class ScanSnapshotBufferTest {
+
+    private static void write(ScanSnapshotBuffer buffer, long scanTimeMs, String ssid) {
+        ScanSnapshot snapshot = buffer.beginWrite(scanTimeMs);
+        snapshot.add(1L, ssid, -50, 2412, 20, "[ESS]", scanTimeMs);
+        buffer.publish();
+    }
+
+    @Test
+    public void acquireBeforePublishReturnsNull() {
+        ScanSnapshotBuffer buffer = new ScanSnapshotBuffer(4);
+        assertNull(buffer.acquire());
+        buffer.release(null);
+    }
+
+    @Test
+    public void acquireReturnsLatestPublished() {
+        ScanSnapshotBuffer buffer = new ScanSnapshotBuffer(4);
+        write(buffer, 1000, "a");
+        write(buffer, 2000, "b");
+
+        ScanSnapshot latest = buffer.acquire();
+        assertEquals(2000, latest.getScanTimeMs());
+        assertEquals("b", latest.ssid(0));
+        buffer.release(latest);
+    }
+
+    @Test
+    public void buffersAlternateWithoutAllocation() {
+        ScanSnapshotBuffer buffer = new ScanSnapshotBuffer(4);
+        write(buffer, 1, "a");
+        ScanSnapshot first = buffer.acquire();
+        buffer.release(first);
+        write(buffer, 2, "b");
+        ScanSnapshot second = buffer.acquire();
+        buffer.release(second);
+        write(buffer, 3, "c");
+        ScanSnapshot third = buffer.acquire();
+        buffer.release(third);
+
+        assertNotSame(first, second);
+        assertSame(first, third);
+        assertEquals(0, buffer.replacedCount());
+    }
+
+    @Test
+    public void heldFrontIsNotOverwrittenByNextWrite() {
+        ScanSnapshotBuffer buffer = new ScanSnapshotBuffer(4);
+        write(buffer, 1, "a");
+        ScanSnapshot held = buffer.acquire();
+
+        // 写入的是另一个缓冲区，持有的结果不变
+        write(buffer, 2, "b");
+        assertEquals("a", held.ssid(0));
+        assertEquals(0, buffer.replacedCount());
+        buffer.release(held);
+    }
+
+    @Test
+    public void heldBackBufferIsReplaced() {
+        ScanSnapshotBuffer buffer = new ScanSnapshotBuffer(4);
+        write(buffer, 1, "a");
+        ScanSnapshot held = buffer.acquire();
+        write(buffer, 2, "b");
+
+        // 再写一次会轮到持有的缓冲区，应换一个新的而不是覆盖
+        ScanSnapshot next = buffer.beginWrite(3);
+        assertNotSame(held, next);
+        assertEquals(1, buffer.replacedCount());
+        assertEquals("a", held.ssid(0));
+        assertEquals(1, held.getScanTimeMs());
+        buffer.publish();
+
+        // 释放已换下的缓冲区不影响新的缓冲区
+        buffer.release(held);
+        ScanSnapshot latest = buffer.acquire();
+        assertSame(next, latest);
+        buffer.release(latest);
+    }
+
+    @Test
+    public void multipleReadersMustAllRelease() {
+        ScanSnapshotBuffer buffer = new ScanSnapshotBuffer(4);
+        write(buffer, 1, "a");
+        ScanSnapshot r1 = buffer.acquire();
+        ScanSnapshot r2 = buffer.acquire();
+        write(buffer, 2, "b");
+        buffer.release(r1);
+
+        // 仍有一个读取者持有，需要换新
+        buffer.beginWrite(3);
+        buffer.publish();
+        assertEquals(1, buffer.replacedCount());
+        buffer.release(r2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void beginWriteTwiceThrows() {
+        ScanSnapshotBuffer buffer = new ScanSnapshotBuffer(4);
+        buffer.beginWrite(1);
+        buffer.beginWrite(2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void publishWithoutBeginWriteThrows() {
+        new ScanSnapshotBuffer(4).publish();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releaseWithoutAcquireThrows() {
+        ScanSnapshotBuffer buffer = new ScanSnapshotBuffer(4);
+        write(buffer, 1, "a");
+        ScanSnapshot snapshot = buffer.acquire();
+        buffer.release(snapshot);
+        buffer.release(snapshot);
+    }
+}
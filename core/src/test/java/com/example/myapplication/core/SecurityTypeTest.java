@@ -0,0 +1,81 @@
+package com.example.myapplication.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SecurityType.fromCapabilities对各种capabilities字符串的解析
+ */
+public class SecurityTypeTest {
+
+    private static void assertType(SecurityType expected, String capabilities) {
+        assertEquals(capabilities, expected, SecurityType.fromCapabilities(capabilities));
+    }
+
+    @Test
+    public void openNetworks() {
+        assertType(SecurityType.OPEN, null);
+        assertType(SecurityType.OPEN, "");
+        assertType(SecurityType.OPEN, "[ESS]");
+        assertType(SecurityType.OPEN, "[ESS][WPS]");
+    }
+
+    @Test
+    public void oweTransitionOpenPartIsOpen() {
+        assertType(SecurityType.OPEN, "[OWE_TRANSITION][ESS]");
+        assertType(SecurityType.OWE, "[RSN-OWE-CCMP][ESS][MFPR]");
+    }
+
+    @Test
+    public void personalNetworks() {
+        assertType(SecurityType.WPA2_PSK, "[WPA2-PSK-CCMP][ESS]");
+        assertType(SecurityType.WPA2_PSK, "[WPA-PSK-TKIP+CCMP][WPA2-PSK-TKIP+CCMP][ESS]");
+        assertType(SecurityType.WPA2_PSK, "[RSN-PSK-SHA256-CCMP][ESS]");
+        assertType(SecurityType.WPA2_PSK, "[RSN-FT/PSK-CCMP][ESS]");
+        assertType(SecurityType.WPA3_SAE, "[RSN-SAE-CCMP][ESS][MFPR]");
+        assertType(SecurityType.WPA3_SAE, "[RSN-SAE+FT/SAE-CCMP][ESS]");
+        assertType(SecurityType.WPA3_SAE, "[RSN-SAE_EXT_KEY-GCMP-256][ESS]");
+        assertType(SecurityType.WPA2_WPA3_TRANSITION, "[WPA2-PSK-CCMP][RSN-PSK+SAE-CCMP][ESS]");
+    }
+
+    @Test
+    public void enterpriseNetworks() {
+        assertType(SecurityType.EAP, "[WPA2-EAP-CCMP][ESS]");
+        assertType(SecurityType.EAP, "[RSN-EAP/SHA256-CCMP][ESS]");
+        assertType(SecurityType.EAP, "[RSN-EAP_SUITE_B_192-GCMP-256][ESS]");
+        assertType(SecurityType.EAP, "[RSN-FT/EAP+FILS-SHA256-CCMP][ESS]");
+    }
+
+    @Test
+    public void wapiIsNotWpa2() {
+        assertType(SecurityType.WAPI, "[WAPI-PSK-SMS4][ESS]");
+        assertType(SecurityType.WAPI, "[WAPI-CERT-SMS4][ESS]");
+        assertFalse(SecurityType.WAPI.isConnectable());
+    }
+
+    @Test
+    public void wep() {
+        assertType(SecurityType.WEP, "[WEP][ESS]");
+        assertFalse(SecurityType.WEP.isConnectable());
+    }
+
+    @Test
+    public void keyManagementOutsideWpaTokensIsIgnored() {
+        // 只有WPA、WPA2、RSN段的密钥管理才计入
+        assertType(SecurityType.OPEN, "[ESS][PSK]");
+        assertType(SecurityType.OPEN, "[SAE][EAP]");
+    }
+
+    @Test
+    public void passphraseRequirement() {
+        assertTrue(SecurityType.WPA2_PSK.requiresPassphrase());
+        assertTrue(SecurityType.WPA3_SAE.requiresPassphrase());
+        assertTrue(SecurityType.WPA2_WPA3_TRANSITION.requiresPassphrase());
+        assertFalse(SecurityType.OPEN.requiresPassphrase());
+        assertFalse(SecurityType.OWE.requiresPassphrase());
+        assertFalse(SecurityType.WAPI.requiresPassphrase());
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.myapplication.core;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SignalStatsTable的统计值、扩容、删除（线性探测的后移删除）和淘汰
+ */
+public class SignalStatsTableTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    public void recordsStreamingStatistics() {
+        SignalStatsTable table = new SignalStatsTable(4, 0.5);
+        table.record(0xA1L, -60, 1000);
+        table.record(0xA1L, -50, 2000);
+        table.record(0xA1L, -70, 1500);
+
+        SignalStatsTable.Entry entry = new SignalStatsTable.Entry();
+        assertTrue(table.get(0xA1L, entry));
+        assertEquals(3, entry.count);
+        assertEquals(-60, entry.mean, EPS);
+        assertEquals(100, entry.variance, EPS);     // 样本方差：(0 + 100 + 100) / 2
+        assertEquals(-62.5, entry.ewma, EPS);       // -60 -> -55 -> -62.5
+        assertEquals(-70, entry.min);
+        assertEquals(-50, entry.max);
+        assertEquals(2000, entry.lastTimestampMs);  // 乱序样本不回退时间
+    }
+
+    @Test
+    public void ignoresZeroBssid() {
+        SignalStatsTable table = new SignalStatsTable();
+        table.record(0, -40, 1);
+        assertEquals(0, table.size());
+        assertFalse(table.get(0, new SignalStatsTable.Entry()));
+        assertFalse(table.remove(0));
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        SignalStatsTable table = new SignalStatsTable(1, SignalStatsTable.DEFAULT_EWMA_ALPHA);
+        int initialCapacity = table.capacity();
+        for (long bssid = 1; bssid <= 1000; bssid++) {
+            table.record(bssid, (int) -bssid, bssid);
+        }
+        assertEquals(1000, table.size());
+        assertTrue(table.capacity() > initialCapacity);
+        SignalStatsTable.Entry entry = new SignalStatsTable.Entry();
+        for (long bssid = 1; bssid <= 1000; bssid++) {
+            assertTrue(table.get(bssid, entry));
+            assertEquals(-bssid, entry.min);
+        }
+    }
+
+    @Test
+    public void removeKeepsProbeChainsReachable() {
+        // 大量随机插入和删除，与HashMap对照：后移删除出错时后面的键会查不到
+        SignalStatsTable table = new SignalStatsTable(16, SignalStatsTable.DEFAULT_EWMA_ALPHA);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        SignalStatsTable.Entry entry = new SignalStatsTable.Entry();
+        for (int i = 0; i < 20_000; i++) {
+            long bssid = 1 + random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(bssid) != null, table.remove(bssid));
+            } else {
+                int rssi = -30 - random.nextInt(60);
+                table.record(bssid, rssi, i);
+                expected.merge(bssid, rssi, Math::min);
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (long bssid = 1; bssid <= 300; bssid++) {
+            Integer min = expected.get(bssid);
+            assertEquals(min != null, table.get(bssid, entry));
+            if (min != null) {
+                assertEquals((int) min, entry.min);
+            }
+        }
+    }
+
+    @Test
+    public void removeThenRecordStartsFresh() {
+        SignalStatsTable table = new SignalStatsTable();
+        table.record(7, -80, 1);
+        table.record(7, -60, 2);
+        assertTrue(table.remove(7));
+        assertFalse(table.remove(7));
+        table.record(7, -40, 3);
+
+        SignalStatsTable.Entry entry = new SignalStatsTable.Entry();
+        assertTrue(table.get(7, entry));
+        assertEquals(1, entry.count);
+        assertEquals(-40, entry.mean, EPS);
+    }
+
+    @Test
+    public void evictsEntriesOlderThanCutoff() {
+        SignalStatsTable table = new SignalStatsTable(8, SignalStatsTable.DEFAULT_EWMA_ALPHA);
+        for (long bssid = 1; bssid <= 200; bssid++) {
+            table.record(bssid, -50, bssid * 10);
+        }
+        assertEquals(99, table.evictOlderThan(1000));
+        assertEquals(101, table.size());
+
+        SignalStatsTable.Entry entry = new SignalStatsTable.Entry();
+        for (long bssid = 1; bssid <= 200; bssid++) {
+            assertEquals(bssid * 10 >= 1000, table.get(bssid, entry));
+        }
+    }
+
+    @Test
+    public void trimKeepsMostRecentlyUpdated() {
+        SignalStatsTable table = new SignalStatsTable();
+        for (long bssid = 1; bssid <= 100; bssid++) {
+            table.record(bssid, -50, 1000 - bssid); // BSSID越大越旧
+        }
+        assertEquals(0, table.trimToSize(100));
+        assertEquals(60, table.trimToSize(40));
+        assertEquals(40, table.size());
+
+        SignalStatsTable.Entry entry = new SignalStatsTable.Entry();
+        for (long bssid = 1; bssid <= 100; bssid++) {
+            assertEquals(bssid <= 40, table.get(bssid, entry));
+        }
+        assertEquals(40, table.trimToSize(0));
+        assertEquals(0, table.size());
+    }
+}